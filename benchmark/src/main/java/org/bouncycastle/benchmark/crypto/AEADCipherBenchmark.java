@@ -0,0 +1,123 @@
+package org.bouncycastle.benchmark.crypto;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.modes.ChaCha20Poly1305;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.gcm.Tables32kGCMMultiplier;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Pack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the AEAD modes used for TLS bulk encryption. Each invocation re-initialises the
+ * cipher with a fresh nonce (reusing the key schedule), as a record layer does per record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AEADCipherBenchmark
+{
+    @Param({"AES-GCM", "AES-GCM-32k", "ChaCha20-Poly1305"})
+    String algorithm;
+
+    @Param({"64", "1024", "16384", "1048576"})
+    int size;
+
+    private final byte[] aad = new byte[13];
+    private final byte[] nonce = new byte[12];
+
+    private byte[] input;
+    private byte[] output;
+    private byte[] ciphertext;
+
+    private AEADCipher encryptor;
+    private AEADCipher decryptor;
+    private long sequence;
+
+    @Setup
+    public void setup()
+        throws InvalidCipherTextException
+    {
+        SecureRandom random = new SecureRandom();
+
+        byte[] key = new byte[algorithm.startsWith("AES-GCM") ? 16 : 32];
+        random.nextBytes(key);
+        random.nextBytes(aad);
+
+        input = new byte[size];
+        random.nextBytes(input);
+
+        encryptor = createCipher();
+        decryptor = createCipher();
+
+        output = new byte[size + 16];
+
+        // Initial init carries the key; per-invocation inits reuse it.
+        AEADParameters params = new AEADParameters(new KeyParameter(key), 128, nextNonce(), aad);
+        encryptor.init(true, params);
+        ciphertext = new byte[encryptor.getOutputSize(size)];
+        int len = encryptor.processBytes(input, 0, size, ciphertext, 0);
+        encryptor.doFinal(ciphertext, len);
+
+        decryptor.init(false, params);
+    }
+
+    @Benchmark
+    public byte[] encrypt()
+        throws InvalidCipherTextException
+    {
+        encryptor.init(true, new AEADParameters(null, 128, nextNonce(), aad));
+        int len = encryptor.processBytes(input, 0, size, output, 0);
+        encryptor.doFinal(output, len);
+        return output;
+    }
+
+    @Benchmark
+    public byte[] decrypt()
+        throws InvalidCipherTextException
+    {
+        // Same nonce each time: decryption has no nonce-reuse restriction.
+        decryptor.reset();
+        int len = decryptor.processBytes(ciphertext, 0, ciphertext.length, output, 0);
+        decryptor.doFinal(output, len);
+        return output;
+    }
+
+    private AEADCipher createCipher()
+    {
+        if ("AES-GCM".equals(algorithm))
+        {
+            return GCMBlockCipher.newInstance(AESEngine.newInstance());
+        }
+        if ("AES-GCM-32k".equals(algorithm))
+        {
+            return GCMBlockCipher.newInstance(AESEngine.newInstance(), new Tables32kGCMMultiplier());
+        }
+        return new ChaCha20Poly1305();
+    }
+
+    private byte[] nextNonce()
+    {
+        Pack.longToBigEndian(sequence++, nonce, 4);
+        return nonce.clone();
+    }
+}
@@ -0,0 +1,102 @@
+package org.bouncycastle.benchmark.crypto;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.DefaultBufferedBlockCipher;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.MultiBlockCipher;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the AES block cipher, both raw and through the CBC and CTR (SIC) modes, driven
+ * via processBlocks()/processBytes() over whole buffers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockCipherBenchmark
+{
+    @Param({"16", "1024", "16384", "1048576"})
+    int size;
+
+    @Param({"128", "256"})
+    int keySize;
+
+    private byte[] input;
+    private byte[] output;
+
+    private MultiBlockCipher aes;
+    private BufferedBlockCipher cbc;
+    private BufferedBlockCipher ctr;
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom random = new SecureRandom();
+
+        byte[] key = new byte[keySize / 8];
+        byte[] iv = new byte[16];
+        random.nextBytes(key);
+        random.nextBytes(iv);
+
+        input = new byte[size];
+        output = new byte[size];
+        random.nextBytes(input);
+
+        KeyParameter keyParam = new KeyParameter(key);
+
+        aes = AESEngine.newInstance();
+        aes.init(true, keyParam);
+
+        cbc = new DefaultBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()));
+        cbc.init(true, new ParametersWithIV(keyParam, iv));
+
+        ctr = new DefaultBufferedBlockCipher(SICBlockCipher.newInstance(AESEngine.newInstance()));
+        ctr.init(true, new ParametersWithIV(keyParam, iv));
+    }
+
+    @Benchmark
+    public byte[] aesEcb()
+    {
+        aes.processBlocks(input, 0, size / 16, output, 0);
+        return output;
+    }
+
+    @Benchmark
+    public byte[] aesCbc()
+        throws InvalidCipherTextException
+    {
+        int len = cbc.processBytes(input, 0, size, output, 0);
+        cbc.doFinal(output, len);
+        return output;
+    }
+
+    @Benchmark
+    public byte[] aesCtr()
+        throws InvalidCipherTextException
+    {
+        int len = ctr.processBytes(input, 0, size, output, 0);
+        ctr.doFinal(output, len);
+        return output;
+    }
+}
@@ -0,0 +1,76 @@
+package org.bouncycastle.benchmark.crypto;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA3Digest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the message digests, hashing a single buffer per invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DigestBenchmark
+{
+    @Param({"SHA-256", "SHA3-256", "BLAKE3-256"})
+    String algorithm;
+
+    @Param({"64", "1024", "16384", "1048576"})
+    int size;
+
+    private byte[] input;
+    private byte[] output;
+    private Digest digest;
+
+    @Setup
+    public void setup()
+    {
+        input = new byte[size];
+        new SecureRandom().nextBytes(input);
+
+        if ("SHA-256".equals(algorithm))
+        {
+            digest = SHA256Digest.newInstance();
+        }
+        else if ("SHA3-256".equals(algorithm))
+        {
+            digest = new SHA3Digest(256);
+        }
+        else if ("BLAKE3-256".equals(algorithm))
+        {
+            digest = new Blake3Digest(256);
+        }
+        else
+        {
+            throw new IllegalArgumentException("unknown digest: " + algorithm);
+        }
+
+        output = new byte[digest.getDigestSize()];
+    }
+
+    @Benchmark
+    public byte[] hash()
+    {
+        digest.update(input, 0, size);
+        digest.doFinal(output, 0);
+        return output;
+    }
+}
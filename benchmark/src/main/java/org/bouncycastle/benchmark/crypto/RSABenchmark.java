@@ -0,0 +1,76 @@
+package org.bouncycastle.benchmark.crypto;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.AsymmetricBlockCipher;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.RSAEngine;
+import org.bouncycastle.crypto.generators.RSAKeyPairGenerator;
+import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
+import org.bouncycastle.util.BigIntegers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Average time of the raw RSA public and (CRT) private operations, as performed by RSACoreEngine
+ * underneath RSAEngine.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RSABenchmark
+{
+    @Param({"2048", "3072", "4096"})
+    int keySize;
+
+    private AsymmetricBlockCipher publicOp;
+    private AsymmetricBlockCipher privateOp;
+    private byte[] input;
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom random = new SecureRandom();
+
+        RSAKeyPairGenerator gen = new RSAKeyPairGenerator();
+        gen.init(new RSAKeyGenerationParameters(BigInteger.valueOf(0x10001), random, keySize, 100));
+        AsymmetricCipherKeyPair kp = gen.generateKeyPair();
+
+        publicOp = new RSAEngine();
+        publicOp.init(true, kp.getPublic());
+        privateOp = new RSAEngine();
+        privateOp.init(false, kp.getPrivate());
+
+        input = BigIntegers.asUnsignedByteArray(keySize / 8,
+            BigIntegers.createRandomBigInteger(keySize - 1, random));
+    }
+
+    @Benchmark
+    public byte[] publicOperation()
+        throws InvalidCipherTextException
+    {
+        return publicOp.processBlock(input, 0, input.length);
+    }
+
+    @Benchmark
+    public byte[] privateOperation()
+        throws InvalidCipherTextException
+    {
+        return privateOp.processBlock(input, 0, input.length);
+    }
+}
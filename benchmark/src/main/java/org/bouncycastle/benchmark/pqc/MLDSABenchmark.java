@@ -0,0 +1,98 @@
+package org.bouncycastle.benchmark.pqc;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAParameters;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSASigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Average time of ML-DSA key generation, signing and verification.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MLDSABenchmark
+{
+    @Param({"ML-DSA-44", "ML-DSA-65", "ML-DSA-87"})
+    String parameterSet;
+
+    private final byte[] message = new byte[64];
+
+    private SecureRandom random;
+    private MLDSAKeyPairGenerator keyPairGenerator;
+    private MLDSASigner signer;
+    private MLDSASigner verifier;
+    private byte[] signature;
+
+    @Setup
+    public void setup()
+    {
+        random = new SecureRandom();
+        random.nextBytes(message);
+
+        keyPairGenerator = new MLDSAKeyPairGenerator();
+        keyPairGenerator.init(new MLDSAKeyGenerationParameters(random, getParameters(parameterSet)));
+        AsymmetricCipherKeyPair kp = keyPairGenerator.generateKeyPair();
+
+        signer = new MLDSASigner();
+        signer.init(true, new ParametersWithRandom(kp.getPrivate(), random));
+        verifier = new MLDSASigner();
+        verifier.init(false, kp.getPublic());
+
+        signature = signer.generateSignature(message);
+    }
+
+    @Benchmark
+    public AsymmetricCipherKeyPair keyGen()
+    {
+        return keyPairGenerator.generateKeyPair();
+    }
+
+    @Benchmark
+    public byte[] sign()
+    {
+        return signer.generateSignature(message);
+    }
+
+    @Benchmark
+    public boolean verify()
+    {
+        return verifier.verifySignature(message, signature);
+    }
+
+    static MLDSAParameters getParameters(String name)
+    {
+        if ("ML-DSA-44".equals(name))
+        {
+            return MLDSAParameters.ml_dsa_44;
+        }
+        if ("ML-DSA-65".equals(name))
+        {
+            return MLDSAParameters.ml_dsa_65;
+        }
+        if ("ML-DSA-87".equals(name))
+        {
+            return MLDSAParameters.ml_dsa_87;
+        }
+        throw new IllegalArgumentException("unknown parameter set: " + name);
+    }
+}
@@ -0,0 +1,97 @@
+package org.bouncycastle.benchmark.pqc;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.SecretWithEncapsulation;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMExtractor;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMGenerator;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMParameters;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMPublicKeyParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Average time of ML-KEM key generation, encapsulation and decapsulation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MLKEMBenchmark
+{
+    @Param({"ML-KEM-512", "ML-KEM-768", "ML-KEM-1024"})
+    String parameterSet;
+
+    private MLKEMKeyPairGenerator keyPairGenerator;
+    private MLKEMGenerator generator;
+    private MLKEMExtractor extractor;
+    private MLKEMPublicKeyParameters publicKey;
+    private byte[] encapsulation;
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom random = new SecureRandom();
+
+        keyPairGenerator = new MLKEMKeyPairGenerator();
+        keyPairGenerator.init(new MLKEMKeyGenerationParameters(random, getParameters(parameterSet)));
+        AsymmetricCipherKeyPair kp = keyPairGenerator.generateKeyPair();
+
+        publicKey = (MLKEMPublicKeyParameters)kp.getPublic();
+        generator = new MLKEMGenerator(random);
+        extractor = new MLKEMExtractor((MLKEMPrivateKeyParameters)kp.getPrivate());
+
+        encapsulation = generator.generateEncapsulated(publicKey).getEncapsulation();
+    }
+
+    @Benchmark
+    public AsymmetricCipherKeyPair keyGen()
+    {
+        return keyPairGenerator.generateKeyPair();
+    }
+
+    @Benchmark
+    public SecretWithEncapsulation encapsulate()
+    {
+        return generator.generateEncapsulated(publicKey);
+    }
+
+    @Benchmark
+    public byte[] decapsulate()
+    {
+        return extractor.extractSecret(encapsulation);
+    }
+
+    static MLKEMParameters getParameters(String name)
+    {
+        if ("ML-KEM-512".equals(name))
+        {
+            return MLKEMParameters.ml_kem_512;
+        }
+        if ("ML-KEM-768".equals(name))
+        {
+            return MLKEMParameters.ml_kem_768;
+        }
+        if ("ML-KEM-1024".equals(name))
+        {
+            return MLKEMParameters.ml_kem_1024;
+        }
+        throw new IllegalArgumentException("unknown parameter set: " + name);
+    }
+}
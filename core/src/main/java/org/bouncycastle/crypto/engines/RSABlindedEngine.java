@@ -2,6 +2,7 @@
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.concurrent.Executor;
 
 import org.bouncycastle.crypto.AsymmetricBlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
@@ -20,10 +21,27 @@
 {
     private static final BigInteger ONE = BigInteger.valueOf(1);
 
-    private RSACoreEngine    core = new RSACoreEngine();
+    private final RSACoreEngine core;
+
     private RSAKeyParameters key;
     private SecureRandom     random;
 
+    public RSABlindedEngine()
+    {
+        this(null);
+    }
+
+    /**
+     * Create a blinded RSA engine which, for private keys with CRT parameters, computes the exponentiations
+     * modulo p and q concurrently using the passed in executor for one of them.
+     *
+     * @param executor the executor to use, null for the default single threaded behaviour.
+     */
+    public RSABlindedEngine(Executor executor)
+    {
+        this.core = new RSACoreEngine(executor);
+    }
+
     /**
      * initialise the RSA engine.
      *
@@ -1,6 +1,9 @@
 package org.bouncycastle.crypto.engines;
 
 import java.math.BigInteger;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.CryptoServicePurpose;
@@ -18,9 +21,27 @@
  */
 class RSACoreEngine
 {
+    private final Executor executor;
+
     private RSAKeyParameters key;
     private boolean forEncryption;
 
+    RSACoreEngine()
+    {
+        this(null);
+    }
+
+    /**
+     * Create an engine that computes the two CRT exponentiations of a private key operation concurrently, the
+     * one modulo q being submitted to the passed in executor.
+     *
+     * @param executor the executor to use for the second exponentiation, null to use the calling thread only.
+     */
+    RSACoreEngine(Executor executor)
+    {
+        this.executor = executor;
+    }
+
     /**
      * initialise the RSA engine.
      *
@@ -192,11 +213,29 @@ public BigInteger processBlock(BigInteger input)
 
                 BigInteger mP, mQ, h, m;
 
-                // mP = ((input mod p) ^ dP)) mod p
-                mP = (input.remainder(p)).modPow(dP, p);
+                if (executor == null)
+                {
+                    // mP = ((input mod p) ^ dP)) mod p
+                    mP = (input.remainder(p)).modPow(dP, p);
 
-                // mQ = ((input mod q) ^ dQ)) mod q
-                mQ = (input.remainder(q)).modPow(dQ, q);
+                    // mQ = ((input mod q) ^ dQ)) mod q
+                    mQ = (input.remainder(q)).modPow(dQ, q);
+                }
+                else
+                {
+                    ModPowTask taskQ = new ModPowTask(input.remainder(q), dQ, q);
+                    try
+                    {
+                        executor.execute(taskQ);
+                    }
+                    catch (RejectedExecutionException ex)
+                    {
+                        taskQ.run();
+                    }
+
+                    mP = (input.remainder(p)).modPow(dP, p);
+                    mQ = taskQ.getResult();
+                }
 
                 // h = qInv * (mP - mQ) mod p
                 h = mP.subtract(mQ);
@@ -220,6 +259,70 @@ public BigInteger processBlock(BigInteger input)
         return input.modPow(key.getExponent(), key.getModulus());
     }
 
+    private static class ModPowTask
+        implements Runnable
+    {
+        private final BigInteger base;
+        private final BigInteger exponent;
+        private final BigInteger modulus;
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private volatile BigInteger result;
+        private volatile Throwable failure;
+
+        ModPowTask(BigInteger base, BigInteger exponent, BigInteger modulus)
+        {
+            this.base = base;
+            this.exponent = exponent;
+            this.modulus = modulus;
+        }
+
+        public void run()
+        {
+            try
+            {
+                result = base.modPow(exponent, modulus);
+            }
+            catch (Throwable e)
+            {
+                failure = e;
+            }
+            finally
+            {
+                done.countDown();
+            }
+        }
+
+        BigInteger getResult()
+        {
+            boolean interrupted = false;
+            for (;;)
+            {
+                try
+                {
+                    done.await();
+                    break;
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            if (failure != null)
+            {
+                throw new IllegalStateException("RSA CRT exponentiation failed: " + failure.getMessage(), failure);
+            }
+
+            return result;
+        }
+    }
+
     private CryptoServicePurpose getPurpose(boolean isPrivate, boolean forEncryption)
     {
         boolean isSigning = isPrivate && forEncryption;
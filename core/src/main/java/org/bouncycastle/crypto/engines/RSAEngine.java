@@ -1,5 +1,7 @@
 package org.bouncycastle.crypto.engines;
 
+import java.util.concurrent.Executor;
+
 import org.bouncycastle.crypto.AsymmetricBlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
@@ -10,8 +12,26 @@
 public class RSAEngine
     implements AsymmetricBlockCipher
 {
+    private final Executor executor;
+
     private RSACoreEngine core;
 
+    public RSAEngine()
+    {
+        this(null);
+    }
+
+    /**
+     * Create an RSA engine which, for private keys with CRT parameters, computes the exponentiations modulo p and
+     * q concurrently using the passed in executor for one of them.
+     *
+     * @param executor the executor to use, null for the default single threaded behaviour.
+     */
+    public RSAEngine(Executor executor)
+    {
+        this.executor = executor;
+    }
+
     /**
      * initialise the RSA engine.
      *
@@ -24,7 +44,7 @@ public void init(
     {
         if (core == null)
         {
-            core = new RSACoreEngine();
+            core = new RSACoreEngine(executor);
         }
 
         core.init(forEncryption, param);
@@ -9,6 +9,7 @@
 import org.bouncycastle.crypto.constraints.DefaultServiceProperties;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.util.Bytes;
 import org.bouncycastle.util.Integers;
 import org.bouncycastle.util.Pack;
 import org.bouncycastle.util.Strings;
@@ -276,7 +277,10 @@ public int processBytes(
             throw new MaxBytesExceededException("2^70 byte limit per IV would be exceeded; Change IV");
         }
 
-        for (int i = 0; i < len; i++)
+        int i = 0;
+
+        // use up any partially consumed key stream block
+        while (index != 0 && i < len)
         {
             out[i + outOff] = (byte)(keyStream[index] ^ in[i + inOff]);
             index = (index + 1) & 63;
@@ -286,6 +290,24 @@ public int processBytes(
                 advanceCounter();
                 generateKeyStream(keyStream);
             }
+            i++;
+        }
+
+        // whole key stream blocks
+        while (len - i >= 64)
+        {
+            Bytes.xor(64, keyStream, 0, in, i + inOff, out, i + outOff);
+            i += 64;
+
+            advanceCounter();
+            generateKeyStream(keyStream);
+        }
+
+        while (i < len)
+        {
+            out[i + outOff] = (byte)(keyStream[index] ^ in[i + inOff]);
+            index = (index + 1) & 63;
+            i++;
         }
 
         return len;
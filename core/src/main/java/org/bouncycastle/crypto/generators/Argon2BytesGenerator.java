@@ -1,5 +1,9 @@
 package org.bouncycastle.crypto.generators;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.digests.Blake2bDigest;
 import org.bouncycastle.crypto.params.Argon2Parameters;
@@ -41,8 +45,24 @@
     private int segmentLength;
     private int laneLength;
 
+    private final Executor executor;
+
     public Argon2BytesGenerator()
     {
+        this(null);
+    }
+
+    /**
+     * Create a generator that fills the lanes of each memory slice concurrently using the passed
+     * in executor, synchronizing at the end of every slice as described in RFC 9106. The lane for
+     * the calling thread is always filled in-line, so an executor with lanes - 1 threads is enough
+     * to make full use of the parallelism parameter.
+     *
+     * @param executor executor to run lane computations on, null for single threaded operation.
+     */
+    public Argon2BytesGenerator(Executor executor)
+    {
+        this.executor = executor;
     }
 
     /**
@@ -156,6 +176,12 @@ private void initMemory(int memoryBlocks)
 
     private void fillMemoryBlocks()
     {
+        if (executor != null && parameters.getLanes() > 1)
+        {
+            fillMemoryBlocksInParallel();
+            return;
+        }
+
         FillBlock filler = new FillBlock();
         Position position = new Position();
         for (int pass = 0; pass < parameters.getIterations(); ++pass)
@@ -176,6 +202,84 @@ private void fillMemoryBlocks()
         }
     }
 
+    private void fillMemoryBlocksInParallel()
+    {
+        int lanes = parameters.getLanes();
+
+        FillBlock[] fillers = new FillBlock[lanes];
+        Position[] positions = new Position[lanes];
+        for (int lane = 0; lane < lanes; ++lane)
+        {
+            fillers[lane] = new FillBlock();
+            positions[lane] = new Position();
+            positions[lane].lane = lane;
+        }
+
+        for (int pass = 0; pass < parameters.getIterations(); ++pass)
+        {
+            for (int slice = 0; slice < ARGON2_SYNC_POINTS; ++slice)
+            {
+                // segments in the same slice only reference blocks from completed slices.
+                CountDownLatch done = new CountDownLatch(lanes - 1);
+                SegmentFiller[] tasks = new SegmentFiller[lanes];
+
+                for (int lane = 0; lane < lanes; ++lane)
+                {
+                    positions[lane].pass = pass;
+                    positions[lane].slice = slice;
+                    tasks[lane] = new SegmentFiller(fillers[lane], positions[lane], done);
+                }
+
+                for (int lane = 1; lane < lanes; ++lane)
+                {
+                    try
+                    {
+                        executor.execute(tasks[lane]);
+                    }
+                    catch (RejectedExecutionException e)
+                    {
+                        tasks[lane].run();
+                    }
+                }
+
+                fillSegment(fillers[0], positions[0]);
+
+                awaitSlice(done);
+
+                for (int lane = 1; lane < lanes; ++lane)
+                {
+                    if (tasks[lane].failure != null)
+                    {
+                        throw new IllegalStateException("unable to fill lane " + lane + ": " + tasks[lane].failure.getMessage(), tasks[lane].failure);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void awaitSlice(CountDownLatch done)
+    {
+        // the other lanes are still writing to memory, so we must wait for them regardless.
+        boolean interrupted = false;
+        for (;;)
+        {
+            try
+            {
+                done.await();
+                break;
+            }
+            catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private void fillSegment(FillBlock filler, Position position)
     {
         Block addressBlock = null, inputBlock = null;
@@ -689,6 +793,39 @@ public Block clear()
         }
     }
 
+    private class SegmentFiller
+        implements Runnable
+    {
+        private final FillBlock filler;
+        private final Position position;
+        private final CountDownLatch done;
+
+        private volatile Throwable failure;
+
+        SegmentFiller(FillBlock filler, Position position, CountDownLatch done)
+        {
+            this.filler = filler;
+            this.position = position;
+            this.done = done;
+        }
+
+        public void run()
+        {
+            try
+            {
+                fillSegment(filler, position);
+            }
+            catch (Throwable e)
+            {
+                failure = e;
+            }
+            finally
+            {
+                done.countDown();
+            }
+        }
+    }
+
     private static class Position
     {
         int pass;
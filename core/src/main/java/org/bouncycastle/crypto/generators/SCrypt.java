@@ -1,5 +1,9 @@
 package org.bouncycastle.crypto.generators;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.bouncycastle.crypto.PBEParametersGenerator;
 import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.crypto.engines.Salsa20Engine;
@@ -35,6 +39,31 @@ private SCrypt()
      * @return the generated key.
      */
     public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen)
+    {
+        return generate(P, S, N, r, p, dkLen, null);
+    }
+
+    /**
+     * Generate a key using the scrypt key derivation function, running the p independent SMix
+     * computations concurrently on the passed in executor.
+     * <p>
+     * Each concurrent SMix holds its own <code>128 * r * N</code> byte working area, so the peak
+     * memory use is multiplied by the number of SMix computations that actually run at once. The
+     * first computation always runs on the calling thread.
+     * </p>
+     *
+     * @param P        the bytes of the pass phrase.
+     * @param S        the salt to use for this invocation.
+     * @param N        CPU/Memory cost parameter. Must be larger than 1, a power of 2 and less than
+     *                 <code>2^(128 * r / 8)</code>.
+     * @param r        the block size, must be &gt;= 1.
+     * @param p        Parallelization parameter. Must be a positive integer less than or equal to
+     *                 <code>Integer.MAX_VALUE / (128 * r * 8)</code>.
+     * @param dkLen    the length of the key to generate.
+     * @param executor executor to run the SMix computations on, null to run them on the calling thread.
+     * @return the generated key.
+     */
+    public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen, Executor executor)
     {
         if (P == null)
         {
@@ -67,10 +96,10 @@ public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen
         {
             throw new IllegalArgumentException("Generated key length dkLen must be >= 1.");
         }
-        return MFcrypt(P, S, N, r, p, dkLen);
+        return MFcrypt(P, S, N, r, p, dkLen, executor);
     }
 
-    private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen)
+    private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen, Executor executor)
     {
         int MFLenBytes = r * 128;
         byte[] bytes = SingleIterationPBKDF2(P, S, p * MFLenBytes);
@@ -96,10 +125,16 @@ private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen
             }
 
             int MFLenWords = MFLenBytes >>> 2;
-            for (int BOff = 0; BOff < BLen; BOff += MFLenWords)
+            if (executor != null && p > 1)
             {
-                // TODO These can be done in parallel threads
-                SMix(B, BOff, N, d, r);
+                ParallelSMix(executor, B, MFLenWords, p, N, d, r);
+            }
+            else
+            {
+                for (int BOff = 0; BOff < BLen; BOff += MFLenWords)
+                {
+                    SMix(B, BOff, N, d, r);
+                }
             }
 
             Pack.intToLittleEndian(B, bytes, 0);
@@ -177,6 +212,94 @@ private static void SMix(int[] B, int BOff, int N, int d, int r)
         }
     }
 
+    private static void ParallelSMix(Executor executor, int[] B, int MFLenWords, int p, int N, int d, int r)
+    {
+        // each task works on its own MFLenWords slice of B
+        CountDownLatch done = new CountDownLatch(p - 1);
+        SMixTask[] tasks = new SMixTask[p];
+
+        for (int i = 1; i < p; ++i)
+        {
+            tasks[i] = new SMixTask(B, i * MFLenWords, N, d, r, done);
+            try
+            {
+                executor.execute(tasks[i]);
+            }
+            catch (RejectedExecutionException e)
+            {
+                tasks[i].run();
+            }
+        }
+
+        SMix(B, 0, N, d, r);
+
+        boolean interrupted = false;
+        for (;;)
+        {
+            try
+            {
+                done.await();
+                break;
+            }
+            catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        for (int i = 1; i < p; ++i)
+        {
+            if (tasks[i].failure != null)
+            {
+                throw new IllegalStateException("SMix failed: " + tasks[i].failure.getMessage(), tasks[i].failure);
+            }
+        }
+    }
+
+    private static class SMixTask
+        implements Runnable
+    {
+        private final int[] B;
+        private final int BOff;
+        private final int N;
+        private final int d;
+        private final int r;
+        private final CountDownLatch done;
+
+        private volatile Throwable failure;
+
+        SMixTask(int[] B, int BOff, int N, int d, int r, CountDownLatch done)
+        {
+            this.B = B;
+            this.BOff = BOff;
+            this.N = N;
+            this.d = d;
+            this.r = r;
+            this.done = done;
+        }
+
+        public void run()
+        {
+            try
+            {
+                SMix(B, BOff, N, d, r);
+            }
+            catch (Throwable e)
+            {
+                failure = e;
+            }
+            finally
+            {
+                done.countDown();
+            }
+        }
+    }
+
     private static void BlockMix(int[] B, int[] X1, int[] X2, int[] Y, int r)
     {
         System.arraycopy(B, B.length - 16, X1, 0, 16);
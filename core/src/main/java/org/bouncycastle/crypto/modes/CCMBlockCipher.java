@@ -281,7 +281,7 @@ public int processPacket(byte[] in, int inOff, int inLen, byte[] output, int out
         iv[0] = (byte)((q - 1) & 0x7);
         System.arraycopy(nonce, 0, iv, 1, nonce.length);
 
-        BlockCipher ctrCipher = SICBlockCipher.newInstance(cipher);
+        CTRModeCipher ctrCipher = SICBlockCipher.newInstance(cipher);
         ctrCipher.init(forEncryption, new ParametersWithIV(keyParam, iv));
 
         int outputLen;
@@ -302,12 +302,9 @@ public int processPacket(byte[] in, int inOff, int inLen, byte[] output, int out
 
             ctrCipher.processBlock(macBlock, 0, encMac, 0);   // S0
 
-            while (inIndex < (inOff + inLen - blockSize))                 // S1...
-            {
-                ctrCipher.processBlock(in, inIndex, output, outIndex);
-                outIndex += blockSize;
-                inIndex += blockSize;
-            }
+            int bulkLen = ctrCipher.processBlocks(in, inIndex, (inLen - 1) / blockSize, output, outIndex);    // S1...
+            outIndex += bulkLen;
+            inIndex += bulkLen;
 
             byte[] block = new byte[blockSize];
 
@@ -340,12 +337,9 @@ public int processPacket(byte[] in, int inOff, int inLen, byte[] output, int out
                 macBlock[i] = 0;
             }
 
-            while (inIndex < (inOff + outputLen - blockSize))
-            {
-                ctrCipher.processBlock(in, inIndex, output, outIndex);
-                outIndex += blockSize;
-                inIndex += blockSize;
-            }
+            int bulkLen = ctrCipher.processBlocks(in, inIndex, (outputLen - 1) / blockSize, output, outIndex);
+            outIndex += bulkLen;
+            inIndex += bulkLen;
 
             byte[] block = new byte[blockSize];
 
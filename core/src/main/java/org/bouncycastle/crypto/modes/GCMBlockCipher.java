@@ -4,8 +4,10 @@
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.MultiBlockCipher;
 import org.bouncycastle.crypto.OutputLengthException;
 import org.bouncycastle.crypto.modes.gcm.BasicGCMExponentiator;
+import org.bouncycastle.crypto.modes.gcm.GCMAggregatedMultiplier;
 import org.bouncycastle.crypto.modes.gcm.GCMExponentiator;
 import org.bouncycastle.crypto.modes.gcm.GCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.GCMUtil;
@@ -14,6 +16,7 @@
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.params.ParametersWithIV;
 import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Bytes;
 import org.bouncycastle.util.Pack;
 
 /**
@@ -24,10 +27,13 @@
     implements GCMModeCipher
 {
     private static final int BLOCK_SIZE = 16;
+    // number of counter blocks encrypted together on the bulk path
+    private static final int CTR_BATCH_BLOCKS = 8;
 
     // not final due to a compiler bug
     private BlockCipher   cipher;
     private GCMMultiplier multiplier;
+    private GCMAggregatedMultiplier aggregatedMultiplier;
     private GCMExponentiator exp;
 
     // These fields are set by init and not modified by processing
@@ -53,6 +59,10 @@
     private long        atLength;
     private long        atLengthPre;
 
+    // scratch space for batched counter encryption
+    private final byte[] ctrInput = new byte[CTR_BATCH_BLOCKS * BLOCK_SIZE];
+    private final byte[] ctrBlocks = new byte[CTR_BATCH_BLOCKS * BLOCK_SIZE];
+
     /**
      * Return a new GCM mode cipher based on the passed in base cipher
      *
@@ -65,6 +75,11 @@ public static GCMModeCipher newInstance(BlockCipher cipher)
 
     /**
      * Return a new GCM mode cipher based on the passed in base cipher and multiplier.
+     * <p>
+     * If the multiplier is a {@link GCMAggregatedMultiplier}, such as
+     * {@link org.bouncycastle.crypto.modes.gcm.Tables32kGCMMultiplier}, bulk data is hashed several
+     * blocks at a time as the matching counter blocks are encrypted.
+     * </p>
      *
      * @param cipher the base cipher for the GCM mode.
      * @param m the GCM multiplier to use.
@@ -107,6 +122,7 @@ public GCMBlockCipher(BlockCipher c, GCMMultiplier m)
 
         this.cipher = c;
         this.multiplier = m;
+        this.aggregatedMultiplier = (m instanceof GCMAggregatedMultiplier) ? (GCMAggregatedMultiplier)m : null;
     }
 
     public BlockCipher getUnderlyingCipher()
@@ -408,6 +424,14 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
 
             int inLimit = inOff + len - BLOCK_SIZE;
 
+            int blockCount = (inLimit - inOff) / BLOCK_SIZE + 1;
+            if (blockCount > 1)
+            {
+                encryptBlocks(in, inOff, blockCount, out, outOff + resultLen);
+                inOff += blockCount * BLOCK_SIZE;
+                resultLen += blockCount * BLOCK_SIZE;
+            }
+
             while (inOff <= inLimit)
             {
                 encryptBlock(in, inOff, out, outOff + resultLen);
@@ -452,6 +476,14 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
             resultLen += BLOCK_SIZE;
             //bufOff = 0;
 
+            int blockCount = (inLimit - inOff) / BLOCK_SIZE + 1;
+            if (blockCount > 1)
+            {
+                decryptBlocks(in, inOff, blockCount, out, outOff + resultLen);
+                inOff += blockCount * BLOCK_SIZE;
+                resultLen += blockCount * BLOCK_SIZE;
+            }
+
             while (inOff <= inLimit)
             {
                 decryptBlock(in, inOff, out, outOff + resultLen);
@@ -674,6 +706,85 @@ private void encryptBlock(byte[] buf, int bufOff, byte[] out, int outOff)
         totalLength += BLOCK_SIZE;
     }
 
+    private void decryptBlocks(byte[] buf, int bufOff, int blockCount, byte[] out, int outOff)
+    {
+        if ((out.length - outOff) < blockCount * BLOCK_SIZE)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+        if (totalLength == 0)
+        {
+            initCipher();
+        }
+
+        while (blockCount > 0)
+        {
+            int batch = Math.min(blockCount, CTR_BATCH_BLOCKS);
+
+            getNextCTRBlocks(ctrBlocks, batch);
+
+            if (aggregatedMultiplier != null)
+            {
+                // hash the ciphertext before it can be overwritten by an in-place decryption
+                gHASHBlocks(S, buf, bufOff, batch);
+                Bytes.xor(batch * BLOCK_SIZE, ctrBlocks, 0, buf, bufOff, out, outOff);
+            }
+            else
+            {
+                for (int i = 0; i < batch; ++i)
+                {
+                    int off = i * BLOCK_SIZE;
+                    gHASHBlock(S, buf, bufOff + off);
+                    GCMUtil.xor(ctrBlocks, off, buf, bufOff + off, out, outOff + off);
+                }
+            }
+
+            bufOff += batch * BLOCK_SIZE;
+            outOff += batch * BLOCK_SIZE;
+            totalLength += batch * BLOCK_SIZE;
+            blockCount -= batch;
+        }
+    }
+
+    private void encryptBlocks(byte[] buf, int bufOff, int blockCount, byte[] out, int outOff)
+    {
+        if ((out.length - outOff) < blockCount * BLOCK_SIZE)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+        if (totalLength == 0)
+        {
+            initCipher();
+        }
+
+        while (blockCount > 0)
+        {
+            int batch = Math.min(blockCount, CTR_BATCH_BLOCKS);
+
+            getNextCTRBlocks(ctrBlocks, batch);
+
+            if (aggregatedMultiplier != null)
+            {
+                Bytes.xor(batch * BLOCK_SIZE, ctrBlocks, 0, buf, bufOff, out, outOff);
+                gHASHBlocks(S, out, outOff, batch);
+            }
+            else
+            {
+                for (int i = 0; i < batch; ++i)
+                {
+                    int off = i * BLOCK_SIZE;
+                    GCMUtil.xor(ctrBlocks, off, buf, bufOff + off, out, outOff + off);
+                    gHASHBlock(S, out, outOff + off);
+                }
+            }
+
+            bufOff += batch * BLOCK_SIZE;
+            outOff += batch * BLOCK_SIZE;
+            totalLength += batch * BLOCK_SIZE;
+            blockCount -= batch;
+        }
+    }
+
     private void processPartial(byte[] buf, int off, int len, byte[] out, int outOff)
     {
         byte[] ctrBlock = new byte[BLOCK_SIZE];
@@ -715,6 +826,18 @@ private void gHASHBlock(byte[] Y, byte[] b, int off)
         multiplier.multiplyH(Y);
     }
 
+    private void gHASHBlocks(byte[] Y, byte[] b, int off, int blockCount)
+    {
+        int maxBlocks = aggregatedMultiplier.getMaxBlocks();
+        while (blockCount > 0)
+        {
+            int count = Math.min(blockCount, maxBlocks);
+            aggregatedMultiplier.multiplyBlocks(Y, b, off, count);
+            off += count * BLOCK_SIZE;
+            blockCount -= count;
+        }
+    }
+
     private void gHASHPartial(byte[] Y, byte[] b, int off, int len)
     {
         GCMUtil.xor(Y, b, off, len);
@@ -738,6 +861,38 @@ private void getNextCTRBlock(byte[] block)
         cipher.processBlock(counter, 0, block, 0);
     }
 
+    private void getNextCTRBlocks(byte[] blocks, int blockCount)
+    {
+        if ((blocksRemaining & 0xFFFFFFFFL) < blockCount)
+        {
+            throw new IllegalStateException("Attempt to process too many blocks");
+        }
+        blocksRemaining -= blockCount;
+
+        for (int off = 0, end = blockCount * BLOCK_SIZE; off < end; off += BLOCK_SIZE)
+        {
+            int c = 1;
+            c += counter[15] & 0xFF; counter[15] = (byte)c; c >>>= 8;
+            c += counter[14] & 0xFF; counter[14] = (byte)c; c >>>= 8;
+            c += counter[13] & 0xFF; counter[13] = (byte)c; c >>>= 8;
+            c += counter[12] & 0xFF; counter[12] = (byte)c;
+
+            System.arraycopy(counter, 0, ctrInput, off, BLOCK_SIZE);
+        }
+
+        if (cipher instanceof MultiBlockCipher)
+        {
+            ((MultiBlockCipher)cipher).processBlocks(ctrInput, 0, blockCount, blocks, 0);
+        }
+        else
+        {
+            for (int off = 0, end = blockCount * BLOCK_SIZE; off < end; off += BLOCK_SIZE)
+            {
+                cipher.processBlock(ctrInput, off, blocks, off);
+            }
+        }
+    }
+
     private void checkStatus()
     {
         if (!initialised)
@@ -3,10 +3,12 @@
 import org.bouncycastle.crypto.BlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.MultiBlockCipher;
 import org.bouncycastle.crypto.OutputLengthException;
 import org.bouncycastle.crypto.StreamBlockCipher;
 import org.bouncycastle.crypto.params.ParametersWithIV;
 import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Bytes;
 import org.bouncycastle.util.Pack;
 
 /**
@@ -17,7 +19,11 @@
     extends StreamBlockCipher
     implements CTRModeCipher
 {
+    // number of counter blocks encrypted together on the bulk path
+    private static final int BATCH_BLOCKS = 8;
+
     private final BlockCipher     cipher;
+    private final MultiBlockCipher mbCipher;
     private final int             blockSize;
 
     private byte[]          IV;
@@ -25,6 +31,9 @@
     private byte[]          counterOut;
     private int             byteCount;
 
+    private byte[]          counterBlocks;
+    private byte[]          keyStreamBlocks;
+
     /**
      * Return a new SIC/CTR mode cipher based on the passed in base cipher
      *
@@ -46,6 +55,7 @@ public SICBlockCipher(BlockCipher c)
         super(c);
 
         this.cipher = c;
+        this.mbCipher = (c instanceof MultiBlockCipher) ? (MultiBlockCipher)c : null;
         this.blockSize = cipher.getBlockSize();
         this.IV = new byte[blockSize];
         this.counter = new byte[blockSize];
@@ -126,6 +136,30 @@ public int processBlock(byte[] in, int inOff, byte[] out, int outOff)
         return blockSize;
     }
 
+    public int processBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        int len = blockCount * blockSize;
+
+        if (byteCount != 0)
+        {
+            return processBytes(in, inOff, len, out, outOff);
+        }
+
+        if (inOff + len > in.length)
+        {
+            throw new DataLengthException("input buffer too small");
+        }
+        if (outOff + len > out.length)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        processAlignedBlocks(in, inOff, blockCount, out, outOff);
+
+        return len;
+    }
+
     public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
         throws DataLengthException
     {
@@ -138,30 +172,75 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
             throw new OutputLengthException("output buffer too short");
         }
 
-        for (int i = 0; i < len; ++i)
+        int i = 0;
+
+        // finish off any partially used block of key stream first
+        while (byteCount != 0 && i < len)
+        {
+            out[outOff + i] = calculateByte(in[inOff + i]);
+            ++i;
+        }
+
+        int blockCount = (len - i) / blockSize;
+        if (blockCount > 0)
+        {
+            processAlignedBlocks(in, inOff + i, blockCount, out, outOff + i);
+            i += blockCount * blockSize;
+        }
+
+        while (i < len)
         {
-            byte next;
+            out[outOff + i] = calculateByte(in[inOff + i]);
+            ++i;
+        }
 
-            if (byteCount == 0)
+        return len;
+    }
+
+    /*
+     * Bulk path for whole blocks, requires byteCount == 0. Counter values for up to BATCH_BLOCKS
+     * blocks are laid out together so the underlying cipher can encrypt them in one processBlocks
+     * call, then the key stream is XORed over the input in one pass.
+     */
+    private void processAlignedBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+    {
+        if (counterBlocks == null)
+        {
+            counterBlocks = new byte[BATCH_BLOCKS * blockSize];
+            keyStreamBlocks = new byte[BATCH_BLOCKS * blockSize];
+        }
+
+        while (blockCount > 0)
+        {
+            int batch = Math.min(blockCount, BATCH_BLOCKS);
+            int batchLen = batch * blockSize;
+
+            for (int off = 0; off < batchLen; off += blockSize)
             {
                 checkLastIncrement();
 
-                cipher.processBlock(counter, 0, counterOut, 0);
-                next = (byte)(in[inOff + i] ^ counterOut[byteCount++]);
+                System.arraycopy(counter, 0, counterBlocks, off, blockSize);
+                incrementCounter();
+            }
+
+            if (mbCipher != null)
+            {
+                mbCipher.processBlocks(counterBlocks, 0, batch, keyStreamBlocks, 0);
             }
             else
             {
-                next = (byte)(in[inOff + i] ^ counterOut[byteCount++]);
-                if (byteCount == counter.length)
+                for (int off = 0; off < batchLen; off += blockSize)
                 {
-                    byteCount = 0;
-                    incrementCounter();
+                    cipher.processBlock(counterBlocks, off, keyStreamBlocks, off);
                 }
             }
-            out[outOff + i] = next;
-        }
 
-        return len;
+            Bytes.xor(batchLen, in, inOff, keyStreamBlocks, 0, out, outOff);
+
+            inOff += batchLen;
+            outOff += batchLen;
+            blockCount -= batch;
+        }
     }
 
     protected byte calculateByte(byte in)
@@ -0,0 +1,28 @@
+package org.bouncycastle.crypto.modes.gcm;
+
+/**
+ * A GCMMultiplier that can also fold several consecutive blocks into a GHASH state using
+ * precomputed powers of H, so that only one reduction is needed per group of blocks rather than
+ * one per block ("aggregated reduction").
+ */
+public interface GCMAggregatedMultiplier
+    extends GCMMultiplier
+{
+    /**
+     * Return the maximum number of blocks that can be passed to a single call to multiplyBlocks().
+     *
+     * @return the maximum number of blocks per call.
+     */
+    int getMaxBlocks();
+
+    /**
+     * Update the GHASH state S with blockCount consecutive 16 byte blocks from X, giving the same
+     * result as blockCount rounds of S = (S ^ X_i) * H.
+     *
+     * @param S the GHASH state, updated in place.
+     * @param X array containing the blocks to be hashed.
+     * @param xOff offset of the first block in X.
+     * @param blockCount number of blocks to hash, from 1 to getMaxBlocks().
+     */
+    void multiplyBlocks(byte[] S, byte[] X, int xOff, int blockCount);
+}
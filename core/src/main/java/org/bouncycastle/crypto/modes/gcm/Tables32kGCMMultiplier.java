@@ -0,0 +1,139 @@
+package org.bouncycastle.crypto.modes.gcm;
+
+import org.bouncycastle.util.Pack;
+
+/**
+ * A GCM multiplier using 4k tables for each of H, H^2, ..., H^8. Up to 8 blocks can be hashed at
+ * a time: the table entries for the same byte position of every block are combined first, so the
+ * shift and reduction steps are shared by all the blocks rather than repeated for each one.
+ */
+public class Tables32kGCMMultiplier
+    implements GCMAggregatedMultiplier
+{
+    private static final int POWERS = 8;
+
+    private byte[] H;
+    // T[k] holds the byte table for H^(k+1), entry n at [2n, 2n + 1]
+    private long[][] T;
+
+    public void init(byte[] H)
+    {
+        if (T == null)
+        {
+            T = new long[POWERS][512];
+        }
+        else if (0 != GCMUtil.areEqual(this.H, H))
+        {
+            return;
+        }
+
+        this.H = new byte[GCMUtil.SIZE_BYTES];
+        GCMUtil.copy(H, this.H);
+
+        long[] h = GCMUtil.asLongs(this.H);
+        long[] hPow = new long[GCMUtil.SIZE_LONGS];
+        GCMUtil.copy(h, hPow);
+
+        long[] t1 = new long[GCMUtil.SIZE_LONGS];
+        long[] tn = new long[GCMUtil.SIZE_LONGS];
+        long[] tn1 = new long[GCMUtil.SIZE_LONGS];
+
+        for (int k = 0; k < POWERS; ++k)
+        {
+            if (k > 0)
+            {
+                GCMUtil.multiply(hPow, h);
+            }
+
+            long[] t = T[k];
+
+            // t[0] = 0
+
+            // t[1] = H^(k+1).p^7
+            GCMUtil.multiplyP7(hPow, t1);
+            t[2] = t1[0];
+            t[3] = t1[1];
+
+            for (int n = 2; n < 256; n += 2)
+            {
+                // t[2.n] = t[n].p^-1
+                tn[0] = t[n];
+                tn[1] = t[n + 1];
+                GCMUtil.divideP(tn, tn);
+                t[2 * n] = tn[0];
+                t[2 * n + 1] = tn[1];
+
+                // t[2.n + 1] = t[2.n] + t[1]
+                GCMUtil.xor(tn, t1, tn1);
+                t[2 * n + 2] = tn1[0];
+                t[2 * n + 3] = tn1[1];
+            }
+        }
+    }
+
+    public void multiplyH(byte[] x)
+    {
+        long[] t = T[0];
+
+        int n = (x[15] & 0xFF) << 1;
+        long z0 = t[n], z1 = t[n + 1];
+
+        for (int i = 14; i >= 0; --i)
+        {
+            n = (x[i] & 0xFF) << 1;
+
+            long c = z1 << 56;
+            z1 = t[n + 1] ^ ((z1 >>> 8) | (z0 << 56));
+            z0 = t[n] ^ (z0 >>> 8) ^ c ^ (c >>> 1) ^ (c >>> 2) ^ (c >>> 7);
+        }
+
+        Pack.longToBigEndian(z0, x, 0);
+        Pack.longToBigEndian(z1, x, 8);
+    }
+
+    public int getMaxBlocks()
+    {
+        return POWERS;
+    }
+
+    public void multiplyBlocks(byte[] S, byte[] X, int xOff, int blockCount)
+    {
+        if (blockCount < 1 || blockCount > POWERS)
+        {
+            throw new IllegalArgumentException("blockCount must be from 1 to " + POWERS);
+        }
+
+        /*
+         * S' = (S ^ X_0).H^n ^ X_1.H^(n-1) ^ ... ^ X_(n-1).H. Each product is evaluated by Horner's
+         * rule over its bytes, and since the byte positions line up across the blocks the table
+         * entries for one position can all be added together before the common shift.
+         */
+        long z0 = 0, z1 = 0;
+
+        for (int i = 15; i >= 0; --i)
+        {
+            if (i < 15)
+            {
+                long c = z1 << 56;
+                z1 = (z1 >>> 8) | (z0 << 56);
+                z0 = (z0 >>> 8) ^ c ^ (c >>> 1) ^ (c >>> 2) ^ (c >>> 7);
+            }
+
+            int n = ((X[xOff + i] ^ S[i]) & 0xFF) << 1;
+            long[] t = T[blockCount - 1];
+            z0 ^= t[n];
+            z1 ^= t[n + 1];
+
+            for (int j = 1; j < blockCount; ++j)
+            {
+                n = (X[xOff + (j << 4) + i] & 0xFF) << 1;
+                t = T[blockCount - 1 - j];
+                z0 ^= t[n];
+                z1 ^= t[n + 1];
+            }
+        }
+
+        Pack.longToBigEndian(z0, S, 0);
+        Pack.longToBigEndian(z1, S, 8);
+    }
+}
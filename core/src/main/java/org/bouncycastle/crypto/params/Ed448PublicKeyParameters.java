@@ -3,7 +3,9 @@
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.SecureRandom;
 
+import org.bouncycastle.crypto.CryptoServicesRegistrar;
 import org.bouncycastle.math.ec.rfc8032.Ed448;
 import org.bouncycastle.util.io.Streams;
 
@@ -105,6 +107,57 @@ public boolean verify(int algorithm, byte[] ctx, byte[] msg, int msgOff, int msg
         }
     }
 
+    /**
+     * Verify a batch of signatures, one per public key, in a single combined check. Prehash algorithms take the
+     * prehash of each message in place of the message.
+     *
+     * @param algorithm the signature algorithm, one of the {@link Ed448.Algorithm} constants (Ed448 or Ed448ph).
+     * @param ctx the context shared by every signature, at most 255 bytes.
+     * @param publicKeys the public keys, one per signature. A key may appear more than once.
+     * @param msgs the messages, one per signature, or for Ed448ph the 64 byte prehash of each message.
+     * @param sigs the signatures to verify, one per public key.
+     * @param random source of randomness for the batch weights, if null a default source is used.
+     * @param results if non-null, receives the verification result for each signature, with true meaning the
+     *            signature is valid. It must have at least as many entries as there are signatures.
+     * @return true if every signature in the batch is valid, false if any one of them is not.
+     */
+    public static boolean verifyBatch(int algorithm, byte[] ctx, Ed448PublicKeyParameters[] publicKeys, byte[][] msgs,
+        byte[][] sigs, SecureRandom random, boolean[] results)
+    {
+        random = CryptoServicesRegistrar.getSecureRandom(random);
+
+        Ed448.PublicPoint[] publicPoints = new Ed448.PublicPoint[publicKeys.length];
+        for (int i = 0; i < publicKeys.length; ++i)
+        {
+            publicPoints[i] = publicKeys[i].publicPoint;
+        }
+
+        if (null == ctx)
+        {
+            throw new NullPointerException("'ctx' cannot be null");
+        }
+        if (ctx.length > 255)
+        {
+            throw new IllegalArgumentException("ctx");
+        }
+
+        switch (algorithm)
+        {
+        case Ed448.Algorithm.Ed448:
+        {
+            return Ed448.verifyBatch(sigs, publicPoints, ctx, msgs, random, results);
+        }
+        case Ed448.Algorithm.Ed448ph:
+        {
+            return Ed448.verifyPrehashBatch(sigs, publicPoints, ctx, msgs, random, results);
+        }
+        default:
+        {
+            throw new IllegalArgumentException("algorithm");
+        }
+        }
+    }
+
     private static Ed448.PublicPoint parse(byte[] buf, int off)
     {
         Ed448.PublicPoint publicPoint = Ed448.validatePublicKeyPartialExport(buf, off);
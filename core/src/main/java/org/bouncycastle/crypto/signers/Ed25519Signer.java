@@ -1,6 +1,7 @@
 package org.bouncycastle.crypto.signers;
 
 import java.io.ByteArrayOutputStream;
+import java.security.SecureRandom;
 
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
@@ -82,6 +83,24 @@ public void reset()
         buffer.reset();
     }
 
+    /**
+     * Verify a batch of Ed25519 signatures with a single combined check, which is considerably cheaper than
+     * verifying each signature separately.
+     *
+     * @param publicKeys the public key for each signature.
+     * @param messages the message for each signature.
+     * @param signatures the signatures to verify.
+     * @param random source of randomness for the batch weights, if null a default source is used.
+     * @param results if non-null, receives the verification result for each signature.
+     * @return true if every signature in the batch is valid, false otherwise.
+     */
+    public static boolean verifyBatch(Ed25519PublicKeyParameters[] publicKeys, byte[][] messages, byte[][] signatures,
+        SecureRandom random, boolean[] results)
+    {
+        return Ed25519PublicKeyParameters.verifyBatch(Ed25519.Algorithm.Ed25519, null, publicKeys, messages,
+            signatures, random, results);
+    }
+
     private static final class Buffer extends ByteArrayOutputStream
     {
         synchronized byte[] generateSignature(Ed25519PrivateKeyParameters privateKey)
@@ -1,6 +1,7 @@
 package org.bouncycastle.crypto.signers;
 
 import java.io.ByteArrayOutputStream;
+import java.security.SecureRandom;
 
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
@@ -89,6 +90,25 @@ public void reset()
         buffer.reset();
     }
 
+    /**
+     * Verify a batch of Ed448 signatures sharing a context with a single combined check, which is considerably
+     * cheaper than verifying each signature separately.
+     *
+     * @param context the context shared by all the signatures.
+     * @param publicKeys the public key for each signature.
+     * @param messages the message for each signature.
+     * @param signatures the signatures to verify.
+     * @param random source of randomness for the batch weights, if null a default source is used.
+     * @param results if non-null, receives the verification result for each signature.
+     * @return true if every signature in the batch is valid, false otherwise.
+     */
+    public static boolean verifyBatch(byte[] context, Ed448PublicKeyParameters[] publicKeys, byte[][] messages,
+        byte[][] signatures, SecureRandom random, boolean[] results)
+    {
+        return Ed448PublicKeyParameters.verifyBatch(Ed448.Algorithm.Ed448, context, publicKeys, messages,
+            signatures, random, results);
+    }
+
     private static final class Buffer extends ByteArrayOutputStream
     {
         synchronized byte[] generateSignature(Ed448PrivateKeyParameters privateKey, byte[] ctx)
@@ -11,6 +11,8 @@
 
 public class ECAlgorithms
 {
+    private static final int PIPPENGER_THRESHOLD = 128;
+
     public static boolean isF2mCurve(ECCurve c)
     {
         return isF2mField(c.getField());
@@ -61,6 +63,18 @@ public static ECPoint sumOfMultiplies(ECPoint[] ps, BigInteger[] ks)
         }
 
         ECEndomorphism endomorphism = c.getEndomorphism();
+
+        // For larger sums the bucket method needs far fewer additions than interleaved wNAF
+        if (count >= PIPPENGER_THRESHOLD)
+        {
+            if (endomorphism instanceof GLVEndomorphism)
+            {
+                return implCheckResult(implSumOfMultipliesPippengerGLV(imported, ks, (GLVEndomorphism)endomorphism));
+            }
+
+            return implCheckResult(implSumOfMultipliesPippenger(imported, ks));
+        }
+
         if (endomorphism instanceof GLVEndomorphism)
         {
             return implCheckResult(implSumOfMultipliesGLV(imported, ks, (GLVEndomorphism)endomorphism));
@@ -420,6 +434,101 @@ static ECPoint implSumOfMultiplies(ECPoint[] ps, BigInteger[] ks)
         return implSumOfMultiplies(negs, infos, wnafs);
     }
 
+    static ECPoint implSumOfMultipliesPippenger(ECPoint[] ps, BigInteger[] ks)
+    {
+        int count = ps.length, bits = 0;
+        boolean[] negs = new boolean[count];
+        BigInteger[] abs = new BigInteger[count];
+
+        for (int i = 0; i < count; ++i)
+        {
+            BigInteger ki = ks[i]; negs[i] = ki.signum() < 0; ki = ki.abs();
+
+            abs[i] = ki;
+            bits = Math.max(bits, ki.bitLength());
+        }
+
+        ECCurve c = ps[0].getCurve();
+        ECPoint infinity = c.getInfinity();
+        if (bits == 0)
+        {
+            return infinity;
+        }
+
+        int width = PippengerUtil.getWindowSize(count, bits);
+        PippengerPreCompInfo[] infos = PippengerUtil.precompute(ps);
+
+        int[][] digits = new int[count][];
+        for (int i = 0; i < count; ++i)
+        {
+            digits[i] = PippengerUtil.generateSignedDigits(width, bits, abs[i]);
+        }
+
+        int windows = digits[0].length;
+        ECPoint[] buckets = new ECPoint[1 << (width - 1)];
+        ECPoint R = infinity;
+
+        for (int w = windows - 1; w >= 0; --w)
+        {
+            R = R.timesPow2(width);
+
+            for (int b = 0; b < buckets.length; ++b)
+            {
+                buckets[b] = infinity;
+            }
+
+            for (int i = 0; i < count; ++i)
+            {
+                int d = digits[i][w];
+                if (d != 0)
+                {
+                    PippengerPreCompInfo info = infos[i];
+                    ECPoint p = (d < 0 == negs[i]) ? info.getPoint() : info.getPointNeg();
+                    int b = Math.abs(d) - 1;
+                    buckets[b] = buckets[b].add(p);
+                }
+            }
+
+            /*
+             * Sum of (b + 1) * buckets[b], as a running sum from the top bucket down: each bucket is added into
+             * the running sum once, and the running sum is added into the total once per bucket.
+             */
+            ECPoint running = infinity, total = infinity;
+            for (int b = buckets.length - 1; b >= 0; --b)
+            {
+                running = running.add(buckets[b]);
+                total = total.add(running);
+            }
+
+            R = R.add(total);
+        }
+
+        return R;
+    }
+
+    static ECPoint implSumOfMultipliesPippengerGLV(ECPoint[] ps, BigInteger[] ks, GLVEndomorphism glvEndomorphism)
+    {
+        BigInteger n = ps[0].getCurve().getOrder();
+
+        int len = ps.length;
+
+        BigInteger[] abs = new BigInteger[len << 1];
+        ECPoint[] pqs = new ECPoint[len << 1];
+        for (int i = 0, j = 0; i < len; ++i)
+        {
+            BigInteger[] ab = glvEndomorphism.decomposeScalar(ks[i].mod(n));
+            ECPoint p = ps[i];
+            ECPoint q = EndoUtil.mapPoint(glvEndomorphism, p);
+
+            abs[j] = ab[0];
+            pqs[j++] = p;
+            abs[j] = ab[1];
+            pqs[j++] = q;
+        }
+
+        return implSumOfMultipliesPippenger(pqs, abs);
+    }
+
     static ECPoint implSumOfMultipliesGLV(ECPoint[] ps, BigInteger[] ks, GLVEndomorphism glvEndomorphism)
     {
         BigInteger n = ps[0].getCurve().getOrder();
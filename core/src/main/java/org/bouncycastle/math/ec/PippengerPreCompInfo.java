@@ -0,0 +1,37 @@
+package org.bouncycastle.math.ec;
+
+/**
+ * Class holding precomputation data for the bucket (Pippenger) multi-scalar multiplication.
+ */
+public class PippengerPreCompInfo implements PreCompInfo
+{
+    /**
+     * The normalized form of the point, suitable for mixed additions into the buckets.
+     */
+    protected ECPoint point = null;
+
+    /**
+     * The negation of {@link #point}, used for negative signed digits.
+     */
+    protected ECPoint pointNeg = null;
+
+    public ECPoint getPoint()
+    {
+        return point;
+    }
+
+    public void setPoint(ECPoint point)
+    {
+        this.point = point;
+    }
+
+    public ECPoint getPointNeg()
+    {
+        return pointNeg;
+    }
+
+    public void setPointNeg(ECPoint pointNeg)
+    {
+        this.pointNeg = pointNeg;
+    }
+}
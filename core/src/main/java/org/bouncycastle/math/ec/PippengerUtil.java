@@ -0,0 +1,143 @@
+package org.bouncycastle.math.ec;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.math.raw.Nat;
+
+public abstract class PippengerUtil
+{
+    public static final String PRECOMP_NAME = "bc_pippenger";
+
+    private static final int MAX_WIDTH = 16;
+
+    /**
+     * Determine the bucket window width that minimises the number of point additions for a multi-scalar
+     * multiplication of <code>count</code> points by scalars of at most <code>bits</code> bits.
+     *
+     * @param count the number of points in the sum
+     * @param bits the bit length of the largest scalar
+     * @return the window width to use
+     */
+    public static int getWindowSize(int count, int bits)
+    {
+        int bestWidth = 1;
+        long bestCost = Long.MAX_VALUE;
+
+        for (int width = 2; width <= MAX_WIDTH; ++width)
+        {
+            /*
+             * Each window costs one (mixed) bucket addition per point, plus two (general) additions per bucket to
+             * sum the buckets. A general addition is weighted as roughly 1.5 mixed additions.
+             */
+            long windows = bits / width + 1;
+            long cost = windows * (2L * count + (3L << width));
+            if (cost < bestCost)
+            {
+                bestCost = cost;
+                bestWidth = width;
+            }
+        }
+
+        return bestWidth;
+    }
+
+    public static PippengerPreCompInfo getPippengerPreCompInfo(PreCompInfo preCompInfo)
+    {
+        return (preCompInfo instanceof PippengerPreCompInfo) ? (PippengerPreCompInfo)preCompInfo : null;
+    }
+
+    /**
+     * Compute the signed base 2^width digits of a non-negative scalar, least significant first. Every digit lies
+     * in [-2^(width - 1), 2^(width - 1)].
+     */
+    public static int[] generateSignedDigits(int width, int bits, BigInteger k)
+    {
+        int windows = bits / width + 1;
+        int[] digits = new int[windows];
+
+        int[] n = Nat.fromBigInteger(windows * width + 32, k);
+        int mask = (1 << width) - 1, half = 1 << (width - 1), carry = 0;
+
+        for (int i = 0; i < windows; ++i)
+        {
+            int bitPos = i * width, word = bitPos >>> 5, shift = bitPos & 31;
+
+            int raw = n[word] >>> shift;
+            if (shift + width > 32)
+            {
+                raw |= n[word + 1] << (32 - shift);
+            }
+
+            int digit = (raw & mask) + carry;
+            carry = (digit > half) ? 1 : 0;
+            digits[i] = digit - (carry << width);
+        }
+
+//        assert carry == 0;
+
+        return digits;
+    }
+
+    /**
+     * Precompute (or retrieve cached) bucket-method data for each of the given points. Points without cached data
+     * are normalized together, so a batch of fresh points costs a single field inversion.
+     */
+    public static PippengerPreCompInfo[] precompute(ECPoint[] ps)
+    {
+        int count = ps.length;
+        PippengerPreCompInfo[] infos = new PippengerPreCompInfo[count];
+
+        ECCurve c = ps[0].getCurve();
+
+        ECPoint[] pending = new ECPoint[count];
+        int pendingCount = 0;
+
+        for (int i = 0; i < count; ++i)
+        {
+            infos[i] = getPippengerPreCompInfo(c.getPreCompInfo(ps[i], PRECOMP_NAME));
+            if (null == infos[i])
+            {
+                pending[pendingCount++] = ps[i];
+            }
+        }
+
+        if (pendingCount > 0)
+        {
+            ECPoint[] normalized = new ECPoint[pendingCount];
+            System.arraycopy(pending, 0, normalized, 0, pendingCount);
+            c.normalizeAll(normalized);
+
+            for (int i = 0, j = 0; i < count; ++i)
+            {
+                if (null == infos[i])
+                {
+                    infos[i] = precompute(ps[i], normalized[j++]);
+                }
+            }
+        }
+
+        return infos;
+    }
+
+    private static PippengerPreCompInfo precompute(final ECPoint p, final ECPoint normalized)
+    {
+        final ECCurve c = p.getCurve();
+
+        return (PippengerPreCompInfo)c.precompute(p, PRECOMP_NAME, new PreCompCallback()
+        {
+            public PreCompInfo precompute(PreCompInfo existing)
+            {
+                PippengerPreCompInfo existingPippenger = getPippengerPreCompInfo(existing);
+                if (null != existingPippenger)
+                {
+                    return existingPippenger;
+                }
+
+                PippengerPreCompInfo result = new PippengerPreCompInfo();
+                result.setPoint(normalized);
+                result.setPointNeg(normalized.negate());
+                return result;
+            }
+        });
+    }
+}
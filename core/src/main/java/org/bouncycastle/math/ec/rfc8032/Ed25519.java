@@ -1,6 +1,7 @@
 package org.bouncycastle.math.ec.rfc8032;
 
 import java.security.SecureRandom;
+import java.util.IdentityHashMap;
 
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.digests.SHA512Digest;
@@ -8,6 +9,8 @@
 import org.bouncycastle.math.ec.rfc7748.X25519Field;
 import org.bouncycastle.math.raw.Interleave;
 import org.bouncycastle.math.raw.Nat256;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Integers;
 
 /**
  * A low-level implementation of the Ed25519, Ed25519ctx, and Ed25519ph instantiations of the Edwards-Curve
@@ -87,6 +90,7 @@ private static class F extends X25519Field {};
 
 //    private static final int WNAF_WIDTH = 5;
     private static final int WNAF_WIDTH_128 = 4;
+    private static final int WNAF_WIDTH_BATCH = 5;
     private static final int WNAF_WIDTH_BASE = 6;
 
     // scalarMultBase is hard-coded for these values of blocks, teeth, spacing so they can't be freely changed
@@ -646,6 +650,144 @@ private static boolean implVerify(byte[] sig, int sigOff, PublicPoint publicPoin
         return normalizeToNeutralElementVar(pZ);
     }
 
+    private static boolean implVerifyBatch(byte[][] sigs, PublicPoint[] publicPoints, byte[] ctx, byte phflag,
+        byte[][] ms, SecureRandom random, boolean[] results)
+    {
+        if (!checkContextVar(ctx, phflag))
+        {
+            throw new IllegalArgumentException("ctx");
+        }
+
+        int count = sigs.length;
+        if (publicPoints.length != count || ms.length != count || (null != results && results.length < count))
+        {
+            throw new IllegalArgumentException("batch arrays must have matching lengths");
+        }
+
+        boolean[] valid = null != results ? results : new boolean[count];
+        boolean allValid = true;
+
+        /*
+         * Each signature (R, S) on message M under key A satisfies [8][S]B == [8](R + [k]A). For random 128-bit
+         * z_i, the batch is accepted if [8]([sum(z_i.S_i)]B - sum([z_i]R_i) - sum([z_i.k_i]A_i)) is the neutral
+         * element, which with overwhelming probability holds only if every signature is valid. Scalars for
+         * repeated public points are combined, so each distinct key costs a single multiplication.
+         */
+        int[] nB = new int[SCALAR_INTS];
+        int[][] ns = new int[count * 2][];
+        PointAffine[] ps = new PointAffine[count * 2];
+        int pointCount = 0;
+
+        IdentityHashMap<PublicPoint, Integer> keyPositions = new IdentityHashMap<PublicPoint, Integer>();
+
+        Digest d = createDigest();
+        byte[] h = new byte[64];
+        byte[] A = new byte[PUBLIC_KEY_SIZE];
+        byte[] zBytes = new byte[16];
+        int[] t = new int[SCALAR_INTS];
+
+        for (int i = 0; i < count; ++i)
+        {
+            byte[] sig = sigs[i];
+            valid[i] = false;
+
+            if (null == sig || SIGNATURE_SIZE != sig.length)
+            {
+                allValid = false;
+                continue;
+            }
+
+            byte[] R = copy(sig, 0, POINT_BYTES);
+            byte[] S = copy(sig, POINT_BYTES, SCALAR_BYTES);
+
+            int[] nS = new int[SCALAR_INTS];
+            PointAffine pR = new PointAffine();
+            if (!checkPointVar(R) || !Scalar25519.checkVar(S, nS) || !decodePointVar(R, true, pR))
+            {
+                allValid = false;
+                continue;
+            }
+
+            PublicPoint publicPoint = publicPoints[i];
+            encodePublicPoint(publicPoint, A, 0);
+
+            if (ctx != null)
+            {
+                dom2(d, phflag, ctx);
+            }
+            d.update(R, 0, POINT_BYTES);
+            d.update(A, 0, POINT_BYTES);
+            d.update(ms[i], 0, ms[i].length);
+            d.doFinal(h, 0);
+
+            int[] nk = new int[SCALAR_INTS];
+            Scalar25519.decode(Scalar25519.reduce512(h), nk);
+
+            int[] z = new int[SCALAR_INTS];
+            do
+            {
+                random.nextBytes(zBytes);
+                Codec.decode32(zBytes, 0, z, 0, 4);
+                z[3] &= 0x7FFFFFFF;
+            }
+            while (Nat256.isZero(z));
+
+            Scalar25519.multiply128Var(nS, z, t);
+            Scalar25519.addVar(nB, t, nB);
+
+            ns[pointCount] = z;
+            ps[pointCount++] = pR;
+
+            Scalar25519.multiply128Var(nk, z, t);
+
+            Integer position = (Integer)keyPositions.get(publicPoint);
+            if (null == position)
+            {
+                PointAffine pA = new PointAffine();
+                F.negate(publicPoint.data, pA.x);
+                F.copy(publicPoint.data, F.SIZE, pA.y, 0);
+
+                keyPositions.put(publicPoint, Integers.valueOf(pointCount));
+                ns[pointCount] = Arrays.clone(t);
+                ps[pointCount++] = pA;
+            }
+            else
+            {
+                int[] nA = ns[position.intValue()];
+                Scalar25519.addVar(nA, t, nA);
+            }
+
+            valid[i] = true;
+        }
+
+        if (pointCount == 0)
+        {
+            return allValid;
+        }
+
+        PointAccum pZ = new PointAccum();
+        scalarMultStrausVar(nB, ns, ps, pointCount, pZ);
+        if (normalizeToNeutralElementVar(pZ))
+        {
+            return allValid;
+        }
+
+        if (null == results)
+        {
+            return false;
+        }
+
+        // The batch failed, so find out which signatures are responsible
+        for (int i = 0; i < count; ++i)
+        {
+            if (valid[i])
+            {
+                valid[i] = implVerify(sigs[i], 0, publicPoints[i], ctx, phflag, ms[i], 0, ms[i].length);
+            }
+        }
+        return false;
+    }
+
     private static void invertDoubleZs(PointExtended[] points)
     {
         int count = points.length;
@@ -1412,6 +1554,72 @@ private static void scalarMultStraus128Var(int[] nb, int[] np, PointAffine p, in
         pointDouble(r);
     }
 
+    private static void scalarMultStrausVar(int[] nb, int[][] ns, PointAffine[] ps, int count, PointAccum r)
+    {
+//        assert nb.length == SCALAR_INTS;
+//        assert nb[SCALAR_INTS - 1] >>> 29 == 0;
+
+        precompute();
+
+        byte[] ws_b = new byte[256];
+        Wnaf.getSignedVar(nb, WNAF_WIDTH_BASE, ws_b);
+
+        int tableSize = 1 << (WNAF_WIDTH_BATCH - 2);
+        byte[][] ws = new byte[count][];
+        PointPrecompZ[][] tables = new PointPrecompZ[count][];
+        PointTemp t = new PointTemp();
+
+        int top = 255;
+        while (top >= 0 && ws_b[top] == 0)
+        {
+            --top;
+        }
+
+        for (int i = 0; i < count; ++i)
+        {
+            byte[] ws_i = ws[i] = new byte[256];
+            Wnaf.getSignedVar(ns[i], WNAF_WIDTH_BATCH, ws_i);
+
+            int bit = 255;
+            while (bit > top && ws_i[bit] == 0)
+            {
+                --bit;
+            }
+            top = bit;
+
+            PointPrecompZ[] table = tables[i] = new PointPrecompZ[tableSize];
+            pointPrecomputeZ(ps[i], table, tableSize, t);
+        }
+
+        pointSetNeutral(r);
+
+        for (int bit = top; bit >= 0; --bit)
+        {
+            int wb = ws_b[bit];
+            if (wb != 0)
+            {
+                int index = (wb >> 1) ^ (wb >> 31);
+                pointAddVar(wb < 0, PRECOMP_BASE_WNAF[index], r, t);
+            }
+
+            for (int i = 0; i < count; ++i)
+            {
+                int wp = ws[i][bit];
+                if (wp != 0)
+                {
+                    int index = (wp >> 1) ^ (wp >> 31);
+                    pointAddVar(wp < 0, tables[i][index], r, t);
+                }
+            }
+
+            pointDouble(r);
+        }
+
+        // NOTE: Together with the final pointDouble of the loop, this clears the cofactor of 8
+        pointDouble(r);
+        pointDouble(r);
+    }
+
     public static void sign(byte[] sk, int skOff, byte[] m, int mOff, int mLen, byte[] sig, int sigOff)
     {
         byte[] ctx = null;
@@ -1589,6 +1797,39 @@ public static boolean verify(byte[] sig, int sigOff, PublicPoint publicPoint, by
         return implVerify(sig, sigOff, publicPoint, ctx, phflag, m, mOff, mLen);
     }
 
+    /**
+     * Verify a batch of Ed25519 signatures, each over a whole message array, using a single multi-scalar
+     * multiplication. The randomness is used to weight the signatures in the combined check and should come from a
+     * source the signers cannot predict.
+     *
+     * @param sigs the signatures, each of length {@link #SIGNATURE_SIZE}.
+     * @param publicPoints the public points, one per signature.
+     * @param ms the messages, one per signature.
+     * @param random source of randomness for the batch weights.
+     * @param results if non-null, receives the verification result for each signature.
+     * @return true if every signature in the batch is valid, false otherwise.
+     */
+    public static boolean verifyBatch(byte[][] sigs, PublicPoint[] publicPoints, byte[][] ms, SecureRandom random,
+        boolean[] results)
+    {
+        byte[] ctx = null;
+        byte phflag = 0x00;
+
+        return implVerifyBatch(sigs, publicPoints, ctx, phflag, ms, random, results);
+    }
+
+    /**
+     * Verify a batch of Ed25519ctx signatures sharing a single context, see
+     * {@link #verifyBatch(byte[][], PublicPoint[], byte[][], SecureRandom, boolean[])}.
+     */
+    public static boolean verifyBatch(byte[][] sigs, PublicPoint[] publicPoints, byte[] ctx, byte[][] ms,
+        SecureRandom random, boolean[] results)
+    {
+        byte phflag = 0x00;
+
+        return implVerifyBatch(sigs, publicPoints, ctx, phflag, ms, random, results);
+    }
+
     public static boolean verifyPrehash(byte[] sig, int sigOff, byte[] pk, int pkOff, byte[] ctx, byte[] ph, int phOff)
     {
         byte phflag = 0x01;
@@ -1629,4 +1870,24 @@ public static boolean verifyPrehash(byte[] sig, int sigOff, PublicPoint publicPo
 
         return implVerify(sig, sigOff, publicPoint, ctx, phflag, m, 0, m.length);
     }
+
+    /**
+     * Verify a batch of Ed25519ph signatures sharing a single context, see
+     * {@link #verifyBatch(byte[][], PublicPoint[], byte[][], SecureRandom, boolean[])}.
+     */
+    public static boolean verifyPrehashBatch(byte[][] sigs, PublicPoint[] publicPoints, byte[] ctx, byte[][] phs,
+        SecureRandom random, boolean[] results)
+    {
+        for (int i = 0; i < phs.length; ++i)
+        {
+            if (PREHASH_SIZE != phs[i].length)
+            {
+                throw new IllegalArgumentException("ph");
+            }
+        }
+
+        byte phflag = 0x01;
+
+        return implVerifyBatch(sigs, publicPoints, ctx, phflag, phs, random, results);
+    }
 }
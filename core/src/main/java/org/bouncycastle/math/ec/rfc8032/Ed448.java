@@ -1,12 +1,15 @@
 package org.bouncycastle.math.ec.rfc8032;
 
 import java.security.SecureRandom;
+import java.util.IdentityHashMap;
 
 import org.bouncycastle.crypto.Xof;
 import org.bouncycastle.crypto.digests.SHAKEDigest;
 import org.bouncycastle.math.ec.rfc7748.X448;
 import org.bouncycastle.math.ec.rfc7748.X448Field;
 import org.bouncycastle.math.raw.Nat;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Integers;
 
 /**
  * A low-level implementation of the Ed448 and Ed448ph instantiations of the Edwards-Curve Digital Signature
@@ -587,6 +590,141 @@ private static boolean implVerify(byte[] sig, int sigOff, PublicPoint publicPoin
         return normalizeToNeutralElementVar(pZ);
     }
 
+    private static boolean implVerifyBatch(byte[][] sigs, PublicPoint[] publicPoints, byte[] ctx, byte phflag,
+        byte[][] ms, SecureRandom random, boolean[] results)
+    {
+        if (!checkContextVar(ctx))
+        {
+            throw new IllegalArgumentException("ctx");
+        }
+
+        int count = sigs.length;
+        if (publicPoints.length != count || ms.length != count || (null != results && results.length < count))
+        {
+            throw new IllegalArgumentException("batch arrays must have matching lengths");
+        }
+
+        boolean[] valid = null != results ? results : new boolean[count];
+        boolean allValid = true;
+
+        /*
+         * Each signature (R, S) on message M under key A satisfies [4][S]B == [4](R + [k]A). For random 128-bit
+         * z_i, the batch is accepted if [4]([sum(z_i.S_i)]B - sum([z_i]R_i) - sum([z_i.k_i]A_i)) is the neutral
+         * element, which with overwhelming probability holds only if every signature is valid. Scalars for
+         * repeated public points are combined, so each distinct key costs a single multiplication.
+         */
+        int[] nB = new int[SCALAR_INTS];
+        int[][] ns = new int[count * 2][];
+        PointAffine[] ps = new PointAffine[count * 2];
+        int pointCount = 0;
+
+        IdentityHashMap<PublicPoint, Integer> keyPositions = new IdentityHashMap<PublicPoint, Integer>();
+
+        Xof d = createXof();
+        byte[] h = new byte[SCALAR_BYTES * 2];
+        byte[] A = new byte[PUBLIC_KEY_SIZE];
+        byte[] zBytes = new byte[16];
+        int[] t = new int[SCALAR_INTS];
+
+        for (int i = 0; i < count; ++i)
+        {
+            byte[] sig = sigs[i];
+            valid[i] = false;
+
+            if (null == sig || SIGNATURE_SIZE != sig.length)
+            {
+                allValid = false;
+                continue;
+            }
+
+            byte[] R = copy(sig, 0, POINT_BYTES);
+            byte[] S = copy(sig, POINT_BYTES, SCALAR_BYTES);
+
+            int[] nS = new int[SCALAR_INTS];
+            PointAffine pR = new PointAffine();
+            if (!checkPointVar(R) || !Scalar448.checkVar(S, nS) || !decodePointVar(R, true, pR))
+            {
+                allValid = false;
+                continue;
+            }
+
+            PublicPoint publicPoint = publicPoints[i];
+            encodePublicPoint(publicPoint, A, 0);
+
+            dom4(d, phflag, ctx);
+            d.update(R, 0, POINT_BYTES);
+            d.update(A, 0, POINT_BYTES);
+            d.update(ms[i], 0, ms[i].length);
+            d.doFinal(h, 0, h.length);
+
+            int[] nk = new int[SCALAR_INTS];
+            Scalar448.decode(Scalar448.reduce912(h), nk);
+
+            int[] z = new int[SCALAR_INTS];
+            do
+            {
+                random.nextBytes(zBytes);
+                Codec.decode32(zBytes, 0, z, 0, 4);
+                z[3] &= 0x7FFFFFFF;
+            }
+            while (Nat.isZero(4, z));
+
+            Scalar448.multiply225Var(nS, z, t);
+            Scalar448.addVar(nB, t, nB);
+
+            ns[pointCount] = z;
+            ps[pointCount++] = pR;
+
+            Scalar448.multiply225Var(nk, z, t);
+
+            Integer position = (Integer)keyPositions.get(publicPoint);
+            if (null == position)
+            {
+                PointAffine pA = new PointAffine();
+                F.negate(publicPoint.data, pA.x);
+                F.copy(publicPoint.data, F.SIZE, pA.y, 0);
+
+                keyPositions.put(publicPoint, Integers.valueOf(pointCount));
+                ns[pointCount] = Arrays.clone(t);
+                ps[pointCount++] = pA;
+            }
+            else
+            {
+                int[] nA = ns[position.intValue()];
+                Scalar448.addVar(nA, t, nA);
+            }
+
+            valid[i] = true;
+        }
+
+        if (pointCount == 0)
+        {
+            return allValid;
+        }
+
+        PointProjective pZ = new PointProjective();
+        scalarMultStrausVar(nB, ns, ps, pointCount, pZ);
+        if (normalizeToNeutralElementVar(pZ))
+        {
+            return allValid;
+        }
+
+        if (null == results)
+        {
+            return false;
+        }
+
+        // The batch failed, so find out which signatures are responsible
+        for (int i = 0; i < count; ++i)
+        {
+            if (valid[i])
+            {
+                valid[i] = implVerify(sigs[i], 0, publicPoints[i], ctx, phflag, ms[i], 0, ms[i].length);
+            }
+        }
+        return false;
+    }
+
     private static void invertZs(PointProjective[] points)
     {
         int count = points.length;
@@ -1305,6 +1443,71 @@ private static void scalarMultStraus225Var(int[] nb, int[] np, PointAffine p, in
         pointDouble(r, t);
     }
 
+    private static void scalarMultStrausVar(int[] nb, int[][] ns, PointAffine[] ps, int count, PointProjective r)
+    {
+//        assert nb.length == SCALAR_INTS;
+//        assert nb[SCALAR_INTS - 1] >>> 30 == 0;
+
+        precompute();
+
+        byte[] ws_b = new byte[448];
+        Wnaf.getSignedVar(nb, WNAF_WIDTH_BASE, ws_b);
+
+        int tableSize = 1 << (WNAF_WIDTH_225 - 2);
+        byte[][] ws = new byte[count][];
+        PointProjective[][] tables = new PointProjective[count][];
+        PointTemp t = new PointTemp();
+
+        int top = 447;
+        while (top >= 0 && ws_b[top] == 0)
+        {
+            --top;
+        }
+
+        for (int i = 0; i < count; ++i)
+        {
+            byte[] ws_i = ws[i] = new byte[448];
+            Wnaf.getSignedVar(ns[i], WNAF_WIDTH_225, ws_i);
+
+            int bit = 447;
+            while (bit > top && ws_i[bit] == 0)
+            {
+                --bit;
+            }
+            top = bit;
+
+            PointProjective[] table = tables[i] = new PointProjective[tableSize];
+            pointPrecompute(ps[i], table, 0, tableSize, t);
+        }
+
+        pointSetNeutral(r);
+
+        for (int bit = top; bit >= 0; --bit)
+        {
+            int wb = ws_b[bit];
+            if (wb != 0)
+            {
+                int index = (wb >> 1) ^ (wb >> 31);
+                pointAddVar(wb < 0, PRECOMP_BASE_WNAF[index], r, t);
+            }
+
+            for (int i = 0; i < count; ++i)
+            {
+                int wp = ws[i][bit];
+                if (wp != 0)
+                {
+                    int index = (wp >> 1) ^ (wp >> 31);
+                    pointAddVar(wp < 0, tables[i][index], r, t);
+                }
+            }
+
+            pointDouble(r, t);
+        }
+
+        // NOTE: Together with the final pointDouble of the loop, this clears the cofactor of 4
+        pointDouble(r, t);
+    }
+
     public static void sign(byte[] sk, int skOff, byte[] ctx, byte[] m, int mOff, int mLen, byte[] sig, int sigOff)
     {
         byte phflag = 0x00;
@@ -1449,6 +1652,27 @@ public static boolean verify(byte[] sig, int sigOff, PublicPoint publicPoint, by
         return implVerify(sig, sigOff, publicPoint, ctx, phflag, m, mOff, mLen);
     }
 
+    /**
+     * Verify a batch of Ed448 signatures sharing a single context, each over a whole message array, using a single
+     * multi-scalar multiplication. The randomness is used to weight the signatures in the combined check and should
+     * come from a source the signers cannot predict.
+     *
+     * @param sigs the signatures, each of length {@link #SIGNATURE_SIZE}.
+     * @param publicPoints the public points, one per signature.
+     * @param ctx the context.
+     * @param ms the messages, one per signature.
+     * @param random source of randomness for the batch weights.
+     * @param results if non-null, receives the verification result for each signature.
+     * @return true if every signature in the batch is valid, false otherwise.
+     */
+    public static boolean verifyBatch(byte[][] sigs, PublicPoint[] publicPoints, byte[] ctx, byte[][] ms,
+        SecureRandom random, boolean[] results)
+    {
+        byte phflag = 0x00;
+
+        return implVerifyBatch(sigs, publicPoints, ctx, phflag, ms, random, results);
+    }
+
     public static boolean verifyPrehash(byte[] sig, int sigOff, byte[] pk, int pkOff, byte[] ctx, byte[] ph, int phOff)
     {
         byte phflag = 0x01;
@@ -1489,4 +1713,24 @@ public static boolean verifyPrehash(byte[] sig, int sigOff, PublicPoint publicPo
 
         return implVerify(sig, sigOff, publicPoint, ctx, phflag, m, 0, m.length);
     }
+
+    /**
+     * Verify a batch of Ed448ph signatures sharing a single context, see
+     * {@link #verifyBatch(byte[][], PublicPoint[], byte[], byte[][], SecureRandom, boolean[])}.
+     */
+    public static boolean verifyPrehashBatch(byte[][] sigs, PublicPoint[] publicPoints, byte[] ctx, byte[][] phs,
+        SecureRandom random, boolean[] results)
+    {
+        for (int i = 0; i < phs.length; ++i)
+        {
+            if (PREHASH_SIZE != phs[i].length)
+            {
+                throw new IllegalArgumentException("ph");
+            }
+        }
+
+        byte phflag = 0x01;
+
+        return implVerifyBatch(sigs, publicPoints, ctx, phflag, phs, random, results);
+    }
 }
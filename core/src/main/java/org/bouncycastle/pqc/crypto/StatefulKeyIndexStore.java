@@ -0,0 +1,37 @@
+package org.bouncycastle.pqc.crypto;
+
+import java.io.IOException;
+
+/**
+ * Durable record of the one-time signature indexes handed out for stateful hash based signature keys
+ * (LMS/HSS, XMSS and XMSS^MT).
+ * <p>
+ * Indexes are reserved in ranges ahead of use: once {@link #reserve(byte[], long, long)} returns, the range
+ * it describes has been recorded and will never be returned again for the same key, even if the process
+ * stops before any of it is used. Unused indexes in a range are lost, which is safe, where reuse is not.
+ * </p>
+ */
+public interface StatefulKeyIndexStore
+{
+    /**
+     * Reserve count indexes for the key identified by keyID.
+     *
+     * @param keyID an identifier for the key, usually derived from its public key.
+     * @param currentIndex the index the caller's copy of the private key is at.
+     * @param count the number of indexes to reserve.
+     * @return the start of the reserved range [start..start + count), never less than currentIndex.
+     * @throws IOException if the reservation cannot be recorded.
+     */
+    long reserve(byte[] keyID, long currentIndex, long count)
+        throws IOException;
+
+    /**
+     * Return the first index not yet reserved for a key.
+     *
+     * @param keyID an identifier for the key, usually derived from its public key.
+     * @return the first unreserved index, -1 if nothing has been reserved for the key.
+     * @throws IOException if the store cannot be read.
+     */
+    long getReservedLimit(byte[] keyID)
+        throws IOException;
+}
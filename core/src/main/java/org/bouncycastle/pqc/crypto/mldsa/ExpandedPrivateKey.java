@@ -0,0 +1,29 @@
+package org.bouncycastle.pqc.crypto.mldsa;
+
+/**
+ * The expanded form of an ML-DSA private key: the matrix A expanded from rho, and s1, s2 and t0 unpacked
+ * and transformed into the NTT domain.
+ */
+class ExpandedPrivateKey
+{
+    final PolyVecMatrix aMatrix;
+    final PolyVecL s1;
+    final PolyVecK s2;
+    final PolyVecK t0;
+
+    ExpandedPrivateKey(MLDSAEngine engine, byte[] rho, byte[] t0Enc, byte[] s1Enc, byte[] s2Enc)
+    {
+        this.aMatrix = new PolyVecMatrix(engine);
+        this.s1 = new PolyVecL(engine);
+        this.s2 = new PolyVecK(engine);
+        this.t0 = new PolyVecK(engine);
+
+        Packing.unpackSecretKey(t0, s1, s2, t0Enc, s1Enc, s2Enc, engine);
+
+        aMatrix.expandMatrix(rho);
+
+        s1.polyVecNtt();
+        s2.polyVecNtt();
+        t0.polyVecNtt();
+    }
+}
@@ -0,0 +1,32 @@
+package org.bouncycastle.pqc.crypto.mldsa;
+
+import org.bouncycastle.crypto.digests.SHAKEDigest;
+
+/**
+ * The expanded form of an ML-DSA public key: the matrix A expanded from rho, t1 scaled by 2^d and
+ * transformed into the NTT domain, and tr = H(rho || t1).
+ */
+// expanded keys are never written after construction, so the key parameters share them between threads.
+class ExpandedPublicKey
+{
+    final PolyVecMatrix aMatrix;
+    final PolyVecK t1;
+    final byte[] tr;
+
+    ExpandedPublicKey(MLDSAEngine engine, byte[] rho, byte[] encT1)
+    {
+        this.aMatrix = new PolyVecMatrix(engine);
+        this.t1 = Packing.unpackPublicKey(new PolyVecK(engine), encT1, engine);
+        this.tr = new byte[MLDSAEngine.TrBytes];
+
+        SHAKEDigest shake256Digest = new SHAKEDigest(256);
+        shake256Digest.update(rho, 0, rho.length);
+        shake256Digest.update(encT1, 0, encT1.length);
+        shake256Digest.doFinal(tr, 0, MLDSAEngine.TrBytes);
+
+        aMatrix.expandMatrix(rho);
+
+        t1.shiftLeft();
+        t1.polyVecNtt();
+    }
+}
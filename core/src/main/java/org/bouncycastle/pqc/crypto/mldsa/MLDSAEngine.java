@@ -315,18 +315,36 @@ public byte[][] generateKeyPairInternal(byte[] seed)
         return new byte[][]{ sk[0], sk[1], sk[2], sk[3], sk[4], sk[5], encT1};
     }
 
+    ExpandedPrivateKey expandPrivateKey(byte[] rho, byte[] t0Enc, byte[] s1Enc, byte[] s2Enc)
+    {
+        return new ExpandedPrivateKey(this, rho, t0Enc, s1Enc, s2Enc);
+    }
+
+    ExpandedPublicKey expandPublicKey(byte[] rho, byte[] encT1)
+    {
+        return new ExpandedPublicKey(this, rho, encT1);
+    }
+
     public byte[] signSignatureInternal(byte[] msg, int msglen, byte[] rho, byte[] key, byte[] tr, byte[] t0Enc, byte[] s1Enc, byte[] s2Enc, byte[] rnd)
+    {
+        return signSignatureInternal(msg, msglen, key, tr, expandPrivateKey(rho, t0Enc, s1Enc, s2Enc), rnd);
+    }
+
+    byte[] signSignatureInternal(byte[] msg, int msglen, byte[] key, byte[] tr, ExpandedPrivateKey expandedKey, byte[] rnd)
     {
         int n;
         byte[] outSig = new byte[CryptoBytes + msglen];
         byte[] mu = new byte[CrhBytes], rhoPrime = new byte[CrhBytes];
         short nonce = 0;
-        PolyVecL s1 = new PolyVecL(this), y = new PolyVecL(this), z = new PolyVecL(this);
-        PolyVecK t0 = new PolyVecK(this), s2 = new PolyVecK(this), w1 = new PolyVecK(this), w0 = new PolyVecK(this), h = new PolyVecK(this);
+        PolyVecL y = new PolyVecL(this), z = new PolyVecL(this);
+        PolyVecK w1 = new PolyVecK(this), w0 = new PolyVecK(this), h = new PolyVecK(this);
         Poly cp = new Poly(this);
-        PolyVecMatrix aMatrix = new PolyVecMatrix(this);
 
-        Packing.unpackSecretKey(t0, s1, s2, t0Enc, s1Enc, s2Enc, this);
+        // the expanded key is shared, so it is only ever read from here on
+        PolyVecMatrix aMatrix = expandedKey.aMatrix;
+        PolyVecL s1 = expandedKey.s1;
+        PolyVecK s2 = expandedKey.s2;
+        PolyVecK t0 = expandedKey.t0;
 
         this.shake256Digest.update(tr, 0, TrBytes);
         this.shake256Digest.update(msg, 0, msglen);
@@ -340,13 +358,6 @@ public byte[] signSignatureInternal(byte[] msg, int msglen, byte[] rho, byte[] k
         shake256Digest.update(keyMu, 0, SeedBytes + RndBytes + CrhBytes);
         shake256Digest.doFinal(rhoPrime, 0, CrhBytes);
 
-        aMatrix.expandMatrix(rho);
-
-        s1.polyVecNtt();
-        s2.polyVecNtt();
-
-        t0.polyVecNtt();
-
         int count = 0;
         while (count < 1000)
         {
@@ -417,31 +428,34 @@ public byte[] signSignatureInternal(byte[] msg, int msglen, byte[] rho, byte[] k
     }
 
     public boolean signVerifyInternal(byte[] sig, int siglen, byte[] msg, int msglen, byte[] rho, byte[] encT1)
+    {
+        if (siglen != CryptoBytes)
+        {
+            return false;
+        }
+
+        return signVerifyInternal(sig, siglen, msg, msglen, expandPublicKey(rho, encT1));
+    }
+
+    boolean signVerifyInternal(byte[] sig, int siglen, byte[] msg, int msglen, ExpandedPublicKey expandedKey)
     {
         byte[] buf,
                 mu = new byte[CrhBytes],
                 c,
                 c2 = new byte[DilithiumCTilde];
         Poly cp = new Poly(this);
-        PolyVecMatrix aMatrix = new PolyVecMatrix(this);
         PolyVecL z = new PolyVecL(this);
-        PolyVecK t1 = new PolyVecK(this), w1 = new PolyVecK(this), h = new PolyVecK(this);
+        PolyVecK ct1 = new PolyVecK(this), w1 = new PolyVecK(this), h = new PolyVecK(this);
+
+        // the expanded key is shared, so it is only ever read from here on
+        PolyVecMatrix aMatrix = expandedKey.aMatrix;
+        PolyVecK t1 = expandedKey.t1;
 
         if (siglen != CryptoBytes)
         {
             return false;
         }
 
-        // System.out.println("publickey = ");
-        // Helper.printByteArray(publicKey);
-
-        t1 = Packing.unpackPublicKey(t1, encT1, this);
-
-        // System.out.println(t1.toString("t1"));
-
-        // System.out.println("rho = ");
-        // Helper.printByteArray(rho);
-
         if (!Packing.unpackSignature(z, h, sig, this))
         {
             return false;
@@ -457,13 +471,7 @@ public boolean signVerifyInternal(byte[] sig, int siglen, byte[] msg, int msglen
         }
 
         // Compute crh(crh(rho, t1), msg)
-        shake256Digest.update(rho, 0, rho.length);
-        shake256Digest.update(encT1, 0, encT1.length);
-        shake256Digest.doFinal(mu, 0, TrBytes);
-        // System.out.println("mu before = ");
-        // Helper.printByteArray(mu);
-
-        shake256Digest.update(mu, 0, TrBytes);
+        shake256Digest.update(expandedKey.tr, 0, TrBytes);
         shake256Digest.update(msg, 0, msglen);
         shake256Digest.doFinal(mu, 0);
 
@@ -475,10 +483,6 @@ public boolean signVerifyInternal(byte[] sig, int siglen, byte[] msg, int msglen
         // System.out.println("cp = ");
         // System.out.println(cp.toString());
 
-        aMatrix.expandMatrix(rho);
-        // System.out.println(aMatrix.toString("aMatrix = "));
-
-
         z.polyVecNtt();
         aMatrix.pointwiseMontgomery(w1, z);
 
@@ -486,13 +490,9 @@ public boolean signVerifyInternal(byte[] sig, int siglen, byte[] msg, int msglen
         // System.out.println("cp = ");
         // System.out.println(cp.toString());
 
-        t1.shiftLeft();
-        t1.polyVecNtt();
-        t1.pointwisePolyMontgomery(cp, t1);
-
-        // System.out.println(t1.toString("t1"));
+        ct1.pointwisePolyMontgomery(cp, t1);
 
-        w1.subtract(t1);
+        w1.subtract(ct1);
         w1.reduce();
         w1.invNttToMont();
 
@@ -547,6 +547,16 @@ public byte[] signSignature(byte[] msg, int msglen, byte[] rho, byte[] key, byte
         return signSignatureInternal(msg, msglen, rho, key, tr, t0Enc, s1Enc, s2Enc, rnd);
     }
 
+    byte[] signSignature(byte[] msg, int msglen, byte[] key, byte[] tr, ExpandedPrivateKey expandedKey)
+    {
+        byte[] rnd = new byte[RndBytes];
+        if (random != null)
+        {
+            random.nextBytes(rnd);
+        }
+        return signSignatureInternal(msg, msglen, key, tr, expandedKey, rnd);
+    }
+
     public byte[] sign(byte[] msg, int mlen, byte[] rho, byte[] key, byte[] tr, byte[] t0, byte[] s1, byte[] s2)
     {
         return signSignature(msg, mlen, rho, key, tr, t0, s1, s2);
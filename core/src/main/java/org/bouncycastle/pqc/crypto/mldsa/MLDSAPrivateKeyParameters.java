@@ -14,6 +14,8 @@
 
     private final byte[] t1;
 
+    private volatile ExpandedPrivateKey expandedKey;
+
     public MLDSAPrivateKeyParameters(MLDSAParameters params, byte[] rho, byte[] K, byte[] tr, byte[] s1, byte[] s2, byte[] t0, byte[] t1)
     {
         super(true, params);
@@ -52,6 +54,17 @@ public MLDSAPrivateKeyParameters(MLDSAParameters params, byte[] encoding, MLDSAP
         }
     }
 
+    ExpandedPrivateKey getExpandedKey(MLDSAEngine engine)
+    {
+        ExpandedPrivateKey key = expandedKey;
+        if (key == null)
+        {
+            key = engine.expandPrivateKey(rho, t0, s1, s2);
+            expandedKey = key;
+        }
+        return key;
+    }
+
     public byte[] getEncoded()
     {
         return Arrays.concatenate(new byte[][]{ rho, k, tr, s1, s2, t0 });
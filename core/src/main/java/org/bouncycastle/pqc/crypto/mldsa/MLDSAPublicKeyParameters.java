@@ -13,6 +13,8 @@ static byte[] getEncoded(byte[] rho, byte[] t1)
     final byte[] rho;
     final byte[] t1;
 
+    private volatile ExpandedPublicKey expandedKey;
+
     public MLDSAPublicKeyParameters(MLDSAParameters params, byte[] encoding)
     {
         super(false, params);
@@ -27,6 +29,17 @@ public MLDSAPublicKeyParameters(MLDSAParameters params, byte[] rho, byte[] t1)
         this.t1 = Arrays.clone(t1);
     }
 
+    ExpandedPublicKey getExpandedKey(MLDSAEngine engine)
+    {
+        ExpandedPublicKey key = expandedKey;
+        if (key == null)
+        {
+            key = engine.expandPublicKey(rho, t1);
+            expandedKey = key;
+        }
+        return key;
+    }
+
     public byte[] getEncoded()
     {
         return getEncoded(rho, t1);
@@ -43,19 +43,19 @@ public byte[] generateSignature(byte[] message)
     {
         MLDSAEngine engine = privKey.getParameters().getEngine(random);
 
-        return engine.sign(message, message.length, privKey.rho, privKey.k, privKey.tr, privKey.t0, privKey.s1, privKey.s2);
+        return engine.signSignature(message, message.length, privKey.k, privKey.tr, privKey.getExpandedKey(engine));
     }
     public byte[] internalGenerateSignature(byte[] message, byte[] random)
     {
         MLDSAEngine engine = privKey.getParameters().getEngine(this.random);
 
-        return engine.signSignatureInternal(message, message.length, privKey.rho, privKey.k, privKey.tr, privKey.t0, privKey.s1, privKey.s2, random);
+        return engine.signSignatureInternal(message, message.length, privKey.k, privKey.tr, privKey.getExpandedKey(engine), random);
     }
 
     public boolean verifySignature(byte[] message, byte[] signature)
     {
         MLDSAEngine engine = pubKey.getParameters().getEngine(random);
 
-        return engine.signOpen(message, signature, signature.length, pubKey.rho, pubKey.t1);
+        return engine.signVerifyInternal(signature, signature.length, message, message.length, pubKey.getExpandedKey(engine));
     }
 }
@@ -0,0 +1,19 @@
+package org.bouncycastle.pqc.crypto.mlkem;
+
+/**
+ * The expanded form of an ML-KEM decapsulation key: the decoded secret vector s, the expanded form of the
+ * embedded encapsulation key used for re-encryption, and the implicit rejection value z.
+ */
+class ExpandedPrivateKey
+{
+    final PolyVec s;
+    final ExpandedPublicKey publicKey;
+    final byte[] z;
+
+    ExpandedPrivateKey(PolyVec s, ExpandedPublicKey publicKey, byte[] z)
+    {
+        this.s = s;
+        this.publicKey = publicKey;
+        this.z = z;
+    }
+}
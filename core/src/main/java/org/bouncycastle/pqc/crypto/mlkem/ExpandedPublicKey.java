@@ -0,0 +1,20 @@
+package org.bouncycastle.pqc.crypto.mlkem;
+
+/**
+ * The expanded form of an ML-KEM encapsulation key: the transposed matrix A generated from rho, the
+ * decoded vector t, and H(ek).
+ */
+// expanded keys are never written after construction, so the key parameters share them between threads.
+class ExpandedPublicKey
+{
+    final PolyVec[] aMatrixTranspose;
+    final PolyVec t;
+    final byte[] hpk;
+
+    ExpandedPublicKey(PolyVec[] aMatrixTranspose, PolyVec t, byte[] hpk)
+    {
+        this.aMatrixTranspose = aMatrixTranspose;
+        this.t = t;
+        this.hpk = hpk;
+    }
+}
@@ -205,7 +205,56 @@ public byte[][] generateKemKeyPairInternal(byte[] d, byte[] z)
         return new byte[][]{ Arrays.copyOfRange(outputPublicKey, 0, outputPublicKey.length - 32), Arrays.copyOfRange(outputPublicKey, outputPublicKey.length - 32, outputPublicKey.length), s, hashedPublicKey, z };
     }
 
+    /**
+     * Decode an encapsulation key and generate its matrix, ready for repeated use by
+     * {@link #kemEncryptInternal(ExpandedPublicKey, byte[])}.
+     */
+    ExpandedPublicKey expandPublicKey(byte[] publicKeyInput)
+    {
+        byte[] hpk = new byte[KyberSymBytes];
+        symmetric.hash_h(hpk, publicKeyInput, 0);
+
+        return expandPublicKey(publicKeyInput, hpk);
+    }
+
+    private ExpandedPublicKey expandPublicKey(byte[] publicKeyInput, byte[] hpk)
+    {
+        PolyVec t = new PolyVec(this);
+        byte[] seed = indCpa.unpackPublicKey(t, publicKeyInput);
+
+        PolyVec[] aMatrixTranspose = new PolyVec[KyberK];
+        for (int i = 0; i < KyberK; i++)
+        {
+            aMatrixTranspose[i] = new PolyVec(this);
+        }
+        indCpa.generateMatrix(aMatrixTranspose, seed, true);
+
+        return new ExpandedPublicKey(aMatrixTranspose, t, hpk);
+    }
+
+    /**
+     * Decode a decapsulation key, including its embedded encapsulation key, ready for repeated use by
+     * {@link #kemDecryptInternal(ExpandedPrivateKey, byte[])}.
+     */
+    ExpandedPrivateKey expandPrivateKey(byte[] secretKey)
+    {
+        PolyVec s = new PolyVec(this);
+        indCpa.unpackSecretKey(s, secretKey);
+
+        // the decapsulation key carries H(ek), so there is no need to recompute it
+        ExpandedPublicKey publicKey = expandPublicKey(
+            Arrays.copyOfRange(secretKey, KyberIndCpaSecretKeyBytes, KyberIndCpaSecretKeyBytes + KyberIndCpaPublicKeyBytes),
+            Arrays.copyOfRange(secretKey, KyberSecretKeyBytes - 2 * KyberSymBytes, KyberSecretKeyBytes - KyberSymBytes));
+
+        return new ExpandedPrivateKey(s, publicKey, Arrays.copyOfRange(secretKey, KyberSecretKeyBytes - KyberSymBytes, KyberSecretKeyBytes));
+    }
+
     public byte[][] kemEncryptInternal(byte[] publicKeyInput, byte[] randBytes)
+    {
+        return kemEncryptInternal(expandPublicKey(publicKeyInput), randBytes);
+    }
+
+    byte[][] kemEncryptInternal(ExpandedPublicKey publicKey, byte[] randBytes)
     {
         byte[] outputCipherText;
 
@@ -215,13 +264,13 @@ public byte[][] kemEncryptInternal(byte[] publicKeyInput, byte[] randBytes)
         System.arraycopy(randBytes, 0, buf, 0, KyberSymBytes);
 
         // SHA3-256 Public Key
-        symmetric.hash_h(buf, publicKeyInput, KyberSymBytes);
+        System.arraycopy(publicKey.hpk, 0, buf, KyberSymBytes, KyberSymBytes);
 
         // SHA3-512( SHA3-256(RandBytes) || SHA3-256(PublicKey) )
         symmetric.hash_g(kr, buf);
 
         // IndCpa Encryption
-        outputCipherText = indCpa.encrypt(publicKeyInput, Arrays.copyOfRange(buf, 0, KyberSymBytes), Arrays.copyOfRange(kr, 32, kr.length));
+        outputCipherText = indCpa.encrypt(publicKey.aMatrixTranspose, publicKey.t, Arrays.copyOfRange(buf, 0, KyberSymBytes), Arrays.copyOfRange(kr, 32, kr.length));
 
         byte[] outputSharedSecret = new byte[sessionKeyLength];
 
@@ -234,27 +283,32 @@ public byte[][] kemEncryptInternal(byte[] publicKeyInput, byte[] randBytes)
     }
 
     public byte[] kemDecryptInternal(byte[] secretKey, byte[] cipherText)
+    {
+        return kemDecryptInternal(expandPrivateKey(secretKey), cipherText);
+    }
+
+    byte[] kemDecryptInternal(ExpandedPrivateKey secretKey, byte[] cipherText)
     {
         byte[] buf = new byte[2 * KyberSymBytes],
                 kr = new byte[2 * KyberSymBytes];
 
-        byte[] publicKey = Arrays.copyOfRange(secretKey, KyberIndCpaSecretKeyBytes, secretKey.length);
+        ExpandedPublicKey publicKey = secretKey.publicKey;
 
-        System.arraycopy(indCpa.decrypt(secretKey, cipherText), 0, buf, 0, KyberSymBytes);
+        System.arraycopy(indCpa.decrypt(secretKey.s, cipherText), 0, buf, 0, KyberSymBytes);
 
-        System.arraycopy(secretKey, KyberSecretKeyBytes - 2 * KyberSymBytes, buf, KyberSymBytes, KyberSymBytes);
+        System.arraycopy(publicKey.hpk, 0, buf, KyberSymBytes, KyberSymBytes);
 
         symmetric.hash_g(kr, buf);
 
         byte[] implicit_rejection = new byte[KyberSymBytes + KyberCipherTextBytes];
 
-        System.arraycopy(secretKey, KyberSecretKeyBytes - KyberSymBytes, implicit_rejection, 0, KyberSymBytes);
+        System.arraycopy(secretKey.z, 0, implicit_rejection, 0, KyberSymBytes);
 
         System.arraycopy(cipherText, 0, implicit_rejection, KyberSymBytes, KyberCipherTextBytes);
 
         symmetric.kdf(implicit_rejection, implicit_rejection ); // J(z||c)
 
-        byte[] cmp = indCpa.encrypt(publicKey, Arrays.copyOfRange(buf, 0, KyberSymBytes), Arrays.copyOfRange(kr, KyberSymBytes, kr.length));
+        byte[] cmp = indCpa.encrypt(publicKey.aMatrixTranspose, publicKey.t, Arrays.copyOfRange(buf, 0, KyberSymBytes), Arrays.copyOfRange(kr, KyberSymBytes, kr.length));
 
         boolean fail = !(Arrays.constantTimeAreEqual(cipherText, cmp));
 
@@ -274,6 +328,19 @@ public byte[][] generateKemKeyPair()
     }
 
     public byte[][] kemEncrypt(byte[] publicKeyInput, byte[] randBytes)
+    {
+        checkPublicKey(publicKeyInput);
+
+        return kemEncryptInternal(publicKeyInput, randBytes);
+    }
+
+    byte[][] kemEncrypt(ExpandedPublicKey publicKey, byte[] randBytes)
+    {
+        // input validation is done once, when the key is expanded
+        return kemEncryptInternal(publicKey, randBytes);
+    }
+
+    void checkPublicKey(byte[] publicKeyInput)
     {
         //TODO: do input validation elsewhere?
         // Input validation (6.2 ML-KEM Encaps)
@@ -290,12 +357,48 @@ public byte[][] kemEncrypt(byte[] publicKeyInput, byte[] randBytes)
         {
             throw new IllegalArgumentException("Input validation: Modulus check failed for ml-kem encapsulation");
         }
+    }
 
-        return kemEncryptInternal(publicKeyInput, randBytes);
+    void checkPrivateKey(byte[] secretKey)
+    {
+        // Input validation (7.3 ML-KEM Decaps)
+        // Type Check
+        if (secretKey.length != KyberSecretKeyBytes)
+        {
+            throw new IllegalArgumentException("Input validation Error: Type check failed for ml-kem decapsulation");
+        }
+        // Hash Check
+        byte[] hpk = new byte[KyberSymBytes];
+        symmetric.hash_h(hpk, Arrays.copyOfRange(secretKey, KyberIndCpaSecretKeyBytes, KyberIndCpaSecretKeyBytes + KyberIndCpaPublicKeyBytes), 0);
+        if (!Arrays.constantTimeAreEqual(KyberSymBytes, hpk, 0, secretKey, KyberSecretKeyBytes - 2 * KyberSymBytes))
+        {
+            throw new IllegalArgumentException("Input validation: Hash check failed for ml-kem decapsulation");
+        }
     }
+
+    private void checkCipherText(byte[] cipherText)
+    {
+        // Input validation (7.3 ML-KEM Decaps)
+        // Type Check
+        if (cipherText.length != KyberCipherTextBytes)
+        {
+            throw new IllegalArgumentException("Input validation Error: Type check failed for ml-kem decapsulation");
+        }
+    }
+
     public byte[] kemDecrypt(byte[] secretKey, byte[] cipherText)
     {
-        //TODO: do input validation
+        checkPrivateKey(secretKey);
+        checkCipherText(cipherText);
+
+        return kemDecryptInternal(secretKey, cipherText);
+    }
+
+    byte[] kemDecrypt(ExpandedPrivateKey secretKey, byte[] cipherText)
+    {
+        // the key itself is validated once, when it is expanded
+        checkCipherText(cipherText);
+
         return kemDecryptInternal(secretKey, cipherText);
     }
 
@@ -26,7 +26,7 @@ private void initCipher(AsymmetricKeyParameter recipientKey)
     public byte[] extractSecret(byte[] encapsulation)
     {
         // Decryption
-        byte[] sharedSecret = engine.kemDecrypt(key.getEncoded(), encapsulation);
+        byte[] sharedSecret = engine.kemDecrypt(key.getExpandedKey(engine), encapsulation);
         return sharedSecret;
     }
 
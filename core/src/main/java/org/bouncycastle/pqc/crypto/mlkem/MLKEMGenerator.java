@@ -27,7 +27,7 @@ public SecretWithEncapsulation generateEncapsulated(AsymmetricKeyParameter recip
         byte[] randBytes = new byte[32];
         engine.getRandomBytes(randBytes);
 
-        byte[][] kemEncrypt = engine.kemEncrypt(key.getEncoded(), randBytes);
+        byte[][] kemEncrypt = engine.kemEncrypt(key.getExpandedKey(engine), randBytes);
         return new SecretWithEncapsulationImpl(kemEncrypt[0], kemEncrypt[1]);
     }
     public SecretWithEncapsulation internalGenerateEncapsulated(AsymmetricKeyParameter recipientKey, byte[] randBytes)
@@ -36,7 +36,7 @@ public SecretWithEncapsulation internalGenerateEncapsulated(AsymmetricKeyParamet
         MLKEMEngine engine = key.getParameters().getEngine();
         engine.init(sr);
 
-        byte[][] kemEncrypt = engine.kemEncryptInternal(key.getEncoded(), randBytes);
+        byte[][] kemEncrypt = engine.kemEncryptInternal(key.getExpandedKey(engine), randBytes);
         return new SecretWithEncapsulationImpl(kemEncrypt[0], kemEncrypt[1]);
     }
 }
@@ -143,15 +143,8 @@ public byte[] encrypt(byte[] publicKeyInput, byte[] msg, byte[] coins)
     {
         int i;
         byte[] seed;
-        byte nonce = (byte)0;
-        PolyVec sp = new PolyVec(engine),
-            publicKeyPolyVec = new PolyVec(engine),
-            errorPolyVector = new PolyVec(engine),
-            bp = new PolyVec(engine);
+        PolyVec publicKeyPolyVec = new PolyVec(engine);
         PolyVec[] aMatrixTranspose = new PolyVec[engine.getKyberK()];
-        Poly errorPoly = new Poly(engine),
-            v = new Poly(engine),
-            k = new Poly(engine);
 
 
         // System.out.print("publickeyinput = ");
@@ -171,8 +164,6 @@ public byte[] encrypt(byte[] publicKeyInput, byte[] msg, byte[] coins)
         // Helper.printByteArray(seed);
         // System.out.println();
 
-        k.fromMsg(msg);
-
         for (i = 0; i < kyberK; i++)
         {
             aMatrixTranspose[i] = new PolyVec(engine);
@@ -180,6 +171,26 @@ public byte[] encrypt(byte[] publicKeyInput, byte[] msg, byte[] coins)
 
         generateMatrix(aMatrixTranspose, seed, true);
 
+        return encrypt(aMatrixTranspose, publicKeyPolyVec, msg, coins);
+    }
+
+    /**
+     * Encrypt using an already decoded public key vector and generated transposed matrix. Neither
+     * is modified, so both may be shared between calls.
+     */
+    byte[] encrypt(PolyVec[] aMatrixTranspose, PolyVec publicKeyPolyVec, byte[] msg, byte[] coins)
+    {
+        int i;
+        byte nonce = (byte)0;
+        PolyVec sp = new PolyVec(engine),
+            errorPolyVector = new PolyVec(engine),
+            bp = new PolyVec(engine);
+        Poly errorPoly = new Poly(engine),
+            v = new Poly(engine),
+            k = new Poly(engine);
+
+        k.fromMsg(msg);
+
         // System.out.print("matrix transposed = ");
         // for (i = 0; i < kyberK; i++) {
         //     System.out.print("[");
@@ -383,10 +394,21 @@ private static int rejectionSampling(Poly outputBuffer, int coeffOff, int len, b
 
     public byte[] decrypt(byte[] secretKey, byte[] cipherText)
     {
-        int i;
-        byte[] outputMessage = new byte[MLKEMEngine.getKyberIndCpaMsgBytes()];
+        PolyVec secretKeyPolyVec = new PolyVec(engine);
+
+        unpackSecretKey(secretKeyPolyVec, secretKey);
 
-        PolyVec bp = new PolyVec(engine), secretKeyPolyVec = new PolyVec(engine);
+        return decrypt(secretKeyPolyVec, cipherText);
+    }
+
+    /**
+     * Decrypt using an already decoded secret key vector, which is not modified.
+     */
+    byte[] decrypt(PolyVec secretKeyPolyVec, byte[] cipherText)
+    {
+        byte[] outputMessage;
+
+        PolyVec bp = new PolyVec(engine);
         Poly v = new Poly(engine), mp = new Poly(engine);
 
         unpackCipherText(bp, v, cipherText);
@@ -403,11 +425,6 @@ public byte[] decrypt(byte[] secretKey, byte[] cipherText)
         // Helper.printShortArray(v.getCoeffs());
         // System.out.println();
 
-        unpackSecretKey(secretKeyPolyVec, secretKey);
-
-        // System.out.print("decrypt secretkey = ");;
-        // Helper.printByteArray(secretKey);
-
         // System.out.print("SecretKeyPolyVec = [");
         // for (i = 0; i < kyberK; i++) {
         //     System.out.print("[");
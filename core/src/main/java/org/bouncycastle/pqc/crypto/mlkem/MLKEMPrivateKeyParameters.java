@@ -11,6 +11,8 @@
     final byte[] t;
     final byte[] rho;
 
+    private volatile ExpandedPrivateKey expandedKey;
+
     public MLKEMPrivateKeyParameters(MLKEMParameters params, byte[] s, byte[] hpk, byte[] nonce, byte[] t, byte[] rho)
     {
         super(true, params);
@@ -35,6 +37,21 @@ public MLKEMPrivateKeyParameters(MLKEMParameters params, byte[] encoding)
         this.nonce = Arrays.copyOfRange(encoding, index, index + MLKEMEngine.KyberSymBytes);
     }
 
+    ExpandedPrivateKey getExpandedKey(MLKEMEngine engine)
+    {
+        ExpandedPrivateKey key = expandedKey;
+        if (key == null)
+        {
+            byte[] encoding = getEncoded();
+
+            engine.checkPrivateKey(encoding);
+
+            key = engine.expandPrivateKey(encoding);
+            expandedKey = key;
+        }
+        return key;
+    }
+
     public byte[] getEncoded()
     {
         return Arrays.concatenate(new byte[][]{ s, t, rho, hpk, nonce });
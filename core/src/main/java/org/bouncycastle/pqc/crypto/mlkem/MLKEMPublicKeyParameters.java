@@ -13,6 +13,8 @@ static byte[] getEncoded(byte[] t, byte[] rho)
     final byte[] t;
     final byte[] rho;
 
+    private volatile ExpandedPublicKey expandedKey;
+
     public MLKEMPublicKeyParameters(MLKEMParameters params, byte[] t, byte[] rho)
     {
         super(false, params);
@@ -27,6 +29,21 @@ public MLKEMPublicKeyParameters(MLKEMParameters params, byte[] encoding)
         this.rho = Arrays.copyOfRange(encoding, encoding.length - MLKEMEngine.KyberSymBytes, encoding.length);
     }
 
+    ExpandedPublicKey getExpandedKey(MLKEMEngine engine)
+    {
+        ExpandedPublicKey key = expandedKey;
+        if (key == null)
+        {
+            byte[] encoding = getEncoded();
+
+            engine.checkPublicKey(encoding);
+
+            key = engine.expandPublicKey(encoding);
+            expandedKey = key;
+        }
+        return key;
+    }
+
     public byte[] getEncoded()
     {
         return getEncoded(t, rho);
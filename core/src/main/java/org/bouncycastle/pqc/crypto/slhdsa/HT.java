@@ -11,8 +11,6 @@
     SLHDSAEngine engine;
     WotsPlus wots;
 
-    final byte[] htPubKey;
-
     public HT(SLHDSAEngine engine, byte[] skSeed, byte[] pkSeed)
     {
         this.skSeed = skSeed;
@@ -20,22 +18,26 @@ public HT(SLHDSAEngine engine, byte[] skSeed, byte[] pkSeed)
 
         this.engine = engine;
         this.wots = new WotsPlus(engine);
+    }
 
+    // Output: n-byte root of the top layer tree - only needed at key generation, so not computed on construction
+    byte[] getHTPubKey()
+    {
         ADRS adrs = new ADRS();
         adrs.setLayerAddress(engine.D - 1);
         adrs.setTreeAddress(0);
 
-        if (skSeed != null)
-        {
-            htPubKey = xmss_PKgen(skSeed, pkSeed, adrs);
-        }
-        else
-        {
-            htPubKey = null;
-        }
+        return xmss_PKgen(skSeed, pkSeed, adrs);
     }
 
     byte[] sign(byte[] M, long idx_tree, int idx_leaf)
+    {
+        return sign(M, idx_tree, idx_leaf, null);
+    }
+
+    // Input: message M, tree index idx_tree, leaf index idx_leaf, optional precomputed
+    // authentication paths for each layer (see xmss_authPath()), null to compute them here.
+    byte[] sign(byte[] M, long idx_tree, int idx_leaf, byte[][][] authPaths)
     {
         // init
         ADRS adrs = new ADRS();
@@ -43,7 +45,7 @@ byte[] sign(byte[] M, long idx_tree, int idx_leaf)
        // adrs.setType(ADRS.TREE);
         adrs.setLayerAddress(0);
         adrs.setTreeAddress(idx_tree);
-        SIG_XMSS SIG_tmp = xmss_sign(M, skSeed, idx_leaf, pkSeed, adrs);
+        SIG_XMSS SIG_tmp = xmss_sign(M, skSeed, idx_leaf, pkSeed, adrs, authPaths == null ? null : authPaths[0]);
         SIG_XMSS[] SIG_HT = new SIG_XMSS[engine.D];
         SIG_HT[0] = SIG_tmp;
 
@@ -58,7 +60,7 @@ byte[] sign(byte[] M, long idx_tree, int idx_leaf)
             idx_tree >>>= engine.H_PRIME; // most significant bits of idx_tree;
             adrs.setLayerAddress(j);
             adrs.setTreeAddress(idx_tree);
-            SIG_tmp = xmss_sign(root, skSeed, idx_leaf, pkSeed, adrs);
+            SIG_tmp = xmss_sign(root, skSeed, idx_leaf, pkSeed, adrs, authPaths == null ? null : authPaths[j]);
             SIG_HT[j] = SIG_tmp;
             if (j < engine.D - 1)
             {
@@ -120,6 +122,30 @@ byte[] xmss_pkFromSig(int idx, SIG_XMSS sig_xmss, byte[] M, byte[] pkSeed, ADRS
     //    address ADRS
     //    # Output: XMSS signature SIG_XMSS = (sig || AUTH)
     SIG_XMSS xmss_sign(byte[] M, byte[] skSeed, int idx, byte[] pkSeed, ADRS paramAdrs)
+    {
+        return xmss_sign(M, skSeed, idx, pkSeed, paramAdrs, null);
+    }
+
+    SIG_XMSS xmss_sign(byte[] M, byte[] skSeed, int idx, byte[] pkSeed, ADRS paramAdrs, byte[][] AUTH)
+    {
+        if (AUTH == null)
+        {
+            AUTH = xmss_authPath(skSeed, idx, pkSeed, paramAdrs);
+        }
+
+        ADRS adrs = new ADRS(paramAdrs);
+        adrs.setType(ADRS.WOTS_PK);
+        adrs.setKeyPairAddress(idx);
+
+        byte[] sig = wots.sign(M, skSeed, pkSeed, adrs);
+
+        return new SIG_XMSS(sig, AUTH);
+    }
+
+    // Input: secret seed SK.seed, index idx, public seed PK.seed, address ADRS (layer and tree set)
+    // Output: XMSS authentication path AUTH for leaf idx - depends only on the address, not the message
+    // being signed, so the paths for all layers of the hypertree may be computed independently.
+    byte[][] xmss_authPath(byte[] skSeed, int idx, byte[] pkSeed, ADRS paramAdrs)
     {
         byte[][] AUTH = new byte[engine.H_PRIME][];
 
@@ -135,13 +161,8 @@ SIG_XMSS xmss_sign(byte[] M, byte[] skSeed, int idx, byte[] pkSeed, ADRS paramAd
             int k = (idx / (1 << j)) ^ 1;
             AUTH[j] = treehash(skSeed, k * (1 << j), j, pkSeed, adrs);
         }
-        adrs = new ADRS(paramAdrs);
-        adrs.setType(ADRS.WOTS_PK);
-        adrs.setKeyPairAddress(idx);
 
-        byte[] sig = wots.sign(M, skSeed, pkSeed, adrs);
-
-        return new SIG_XMSS(sig, AUTH);
+        return AUTH;
     }
 
     //
@@ -26,7 +26,7 @@ public AsymmetricCipherKeyPair internalGenerateKeyPair(byte[] skSeed, byte[] skP
         engine.init(pkSeed);
 
         // TODO
-        PK pk = new PK(pkSeed, new HT(engine, sk.seed, pkSeed).htPubKey);
+        PK pk = new PK(pkSeed, new HT(engine, sk.seed, pkSeed).getHTPubKey());
 
         return new AsymmetricCipherKeyPair(new SLHDSAPublicKeyParameters(parameters, pk),
                 new SLHDSAPrivateKeyParameters(parameters, sk, pk));
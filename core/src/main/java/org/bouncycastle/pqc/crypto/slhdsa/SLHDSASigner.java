@@ -1,6 +1,13 @@
 package org.bouncycastle.pqc.crypto.slhdsa;
 
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.params.ParametersWithRandom;
@@ -16,6 +23,11 @@
  *     "https://github.com/sphincs/sphincsplus/commit/61cd2695c6f984b4f4d6ed675378ed9a486cbede"
  *     for further details.
  * </p>
+ * <p>
+ *     If constructed with an {@link Executor} the FORS trees and the authentication paths for each
+ *     hypertree layer, which are independent of each other, are computed as separate tasks on the executor.
+ *     The signatures produced are identical to those produced by the single threaded signer.
+ * </p>
  */
 public class SLHDSASigner
     implements MessageSigner
@@ -25,11 +37,26 @@
 
     private SecureRandom random;
 
+    private final Executor executor;
+
     /**
      * Base constructor.
      */
     public SLHDSASigner()
     {
+        this(null);
+    }
+
+    /**
+     * Constructor for a signer which spreads the work of signature generation across an executor.
+     * The calling thread also runs any tasks not yet started or rejected, so a saturated, shut down
+     * or same thread executor will not stall signing.
+     *
+     * @param executor the executor to run the FORS and hypertree subtree tasks on, null for single threaded signing.
+     */
+    public SLHDSASigner(Executor executor)
+    {
+        this.executor = executor;
     }
 
     public void init(boolean forSigning, CipherParameters param)
@@ -164,7 +191,18 @@ public byte[] internalGenerateSignature(byte[] message, byte[] optRand)
         adrs.setType(ADRS.FORS_TREE);
         adrs.setTreeAddress(idx_tree);
         adrs.setKeyPairAddress(idx_leaf);
-        SIG_FORS[] sig_fors = fors.sign(mHash, privKey.sk.seed, privKey.pk.seed, adrs);
+        SIG_FORS[] sig_fors;
+        byte[][][] authPaths = null;
+        if (executor == null)
+        {
+            sig_fors = fors.sign(mHash, privKey.sk.seed, privKey.pk.seed, adrs);
+        }
+        else
+        {
+            sig_fors = new SIG_FORS[engine.K];
+            authPaths = new byte[engine.D][][];
+            parallelSign(engine, mHash, adrs, idx_tree, idx_leaf, sig_fors, authPaths);
+        }
         // get FORS public key - spec shows M?
         adrs = new ADRS();
         adrs.setType(ADRS.FORS_TREE);
@@ -177,7 +215,7 @@ public byte[] internalGenerateSignature(byte[] message, byte[] optRand)
         treeAdrs.setType(ADRS.TREE);
 
         HT ht = new HT(engine, privKey.getSeed(), privKey.getPublicSeed());
-        byte[] SIG_HT = ht.sign(PK_FORS, idx_tree, idx_leaf);
+        byte[] SIG_HT = ht.sign(PK_FORS, idx_tree, idx_leaf, authPaths);
 
         byte[][] sigComponents = new byte[sig_fors.length + 2][];
         sigComponents[0] = R;
@@ -190,5 +228,106 @@ public byte[] internalGenerateSignature(byte[] message, byte[] optRand)
 
         return Arrays.concatenate(sigComponents);
     }
-}
 
+    private void parallelSign(SLHDSAEngine engine, byte[] mHash, final ADRS forsAdrs, long idx_tree, int idx_leaf,
+        final SIG_FORS[] sig_fors, final byte[][][] authPaths)
+    {
+        final byte[] skSeed = privKey.sk.seed;
+        final byte[] pkSeed = privKey.pk.seed;
+        final SLHDSAParameters parameters = privKey.getParameters();
+
+        List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(engine.K + engine.D);
+
+        // one task per FORS tree
+        final int[] idxs = Fors.base2B(mHash, engine.A, engine.K);
+        for (int i = 0; i < engine.K; i++)
+        {
+            final int tree = i;
+            tasks.add(new FutureTask<Void>(new Callable<Void>()
+            {
+                public Void call()
+                {
+                    sig_fors[tree] = new Fors(createEngine(parameters, pkSeed)).signTree(tree, idxs[tree], skSeed, pkSeed, forsAdrs);
+                    return null;
+                }
+            }));
+        }
+
+        // one task per hypertree layer authentication path
+        for (int j = 0; j < engine.D; j++)
+        {
+            if (j > 0)
+            {
+                idx_leaf = (int)(idx_tree & ((1 << engine.H_PRIME) - 1));
+                idx_tree >>>= engine.H_PRIME;
+            }
+
+            final int layer = j;
+            final int leaf = idx_leaf;
+            final ADRS layerAdrs = new ADRS();
+            layerAdrs.setLayerAddress(j);
+            layerAdrs.setTreeAddress(idx_tree);
+
+            tasks.add(new FutureTask<Void>(new Callable<Void>()
+            {
+                public Void call()
+                {
+                    authPaths[layer] = new HT(createEngine(parameters, pkSeed), skSeed, pkSeed).xmss_authPath(skSeed, leaf, pkSeed, layerAdrs);
+                    return null;
+                }
+            }));
+        }
+
+        for (int i = 0; i != tasks.size(); i++)
+        {
+            try
+            {
+                executor.execute(tasks.get(i));
+            }
+            catch (RejectedExecutionException e)
+            {
+                // left for the loop below.
+            }
+        }
+
+        // run anything the executor has not got to yet here - FutureTask.run() is a no-op once a task has started.
+        for (int i = tasks.size() - 1; i >= 0; i--)
+        {
+            tasks.get(i).run();
+        }
+
+        try
+        {
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                tasks.get(i).get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted during signature generation");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error)cause;
+            }
+            throw new IllegalStateException("signature generation failed: " + cause.getMessage());
+        }
+    }
+
+    private static SLHDSAEngine createEngine(SLHDSAParameters parameters, byte[] pkSeed)
+    {
+        // engines carry digest state so each task needs its own
+        SLHDSAEngine engine = parameters.getEngine();
+        engine.init(pkSeed);
+        return engine;
+    }
+}
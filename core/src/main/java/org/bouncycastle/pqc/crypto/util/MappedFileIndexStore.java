@@ -0,0 +1,315 @@
+package org.bouncycastle.pqc.crypto.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.zip.CRC32;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.pqc.crypto.StatefulKeyIndexStore;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Pack;
+
+/**
+ * A {@link StatefulKeyIndexStore} kept in a memory mapped file.
+ * <p>
+ * The file holds a fixed number of key records. Each record has two slots for the reserved limit which are
+ * written alternately, each carrying a sequence number and a CRC, and the mapping is forced to disk before
+ * a reservation is returned. A write torn by a crash therefore leaves the previous limit readable, and as
+ * that limit had not been superseded by a returned reservation no index can be handed out twice.
+ * </p>
+ * <p>
+ * The file is locked while open so only one store (in one process) can use it at a time.
+ * </p>
+ */
+public class MappedFileIndexStore
+    implements StatefulKeyIndexStore, Closeable
+{
+    private static final int MAGIC = 0x42434953;    // "BCIS"
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 16;
+    private static final int ID_SIZE = 32;
+    private static final int SLOT_SIZE = 24;        // limit, sequence, crc, padding
+    private static final int RECORD_SIZE = ID_SIZE + 2 * SLOT_SIZE;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    /**
+     * Open an existing store file, or create one with room for capacity keys.
+     *
+     * @param storeFile the file holding the store.
+     * @param capacity the number of keys the store can hold if it needs to be created.
+     * @throws IOException if the file cannot be opened, is locked or is not an index store.
+     */
+    public MappedFileIndexStore(File storeFile, int capacity)
+        throws IOException
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+
+        this.file = new RandomAccessFile(storeFile, "rw");
+        this.channel = file.getChannel();
+
+        try
+        {
+            this.lock = lock(channel, storeFile);
+
+            if (channel.size() == 0)
+            {
+                this.capacity = capacity;
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long)capacity * RECORD_SIZE);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, capacity);
+                buffer.force();
+            }
+            else
+            {
+                if (channel.size() < HEADER_SIZE)
+                {
+                    throw new IOException("index store header truncated");
+                }
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+                {
+                    throw new IOException("file is not an index store");
+                }
+                this.capacity = header.getInt(8);
+                if (this.capacity < 1)
+                {
+                    throw new IOException("index store capacity invalid");
+                }
+                if (channel.size() != HEADER_SIZE + (long)this.capacity * RECORD_SIZE)
+                {
+                    throw new IOException("index store truncated");
+                }
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            }
+        }
+        catch (IOException e)
+        {
+            file.close();
+            throw e;
+        }
+    }
+
+    public synchronized long reserve(byte[] keyID, long currentIndex, long count)
+        throws IOException
+    {
+        if (currentIndex < 0 || count < 1)
+        {
+            throw new IllegalArgumentException("invalid index or count");
+        }
+
+        byte[] id = hashID(keyID);
+        int record = findRecord(id, true);
+
+        long start = Math.max(readLimit(record), currentIndex);
+        if (start > Long.MAX_VALUE - count)
+        {
+            throw new IllegalArgumentException("index range overflows");
+        }
+
+        writeLimit(record, id, start + count);
+
+        return start;
+    }
+
+    public synchronized long getReservedLimit(byte[] keyID)
+        throws IOException
+    {
+        int record = findRecord(hashID(keyID), false);
+
+        return record < 0 ? -1 : readLimit(record);
+    }
+
+    /**
+     * Release the file lock and close the store.
+     */
+    public synchronized void close()
+        throws IOException
+    {
+        try
+        {
+            buffer.force();
+            lock.release();
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+
+    private static FileLock lock(FileChannel channel, File storeFile)
+        throws IOException
+    {
+        FileLock lock;
+        try
+        {
+            lock = channel.tryLock();
+        }
+        catch (OverlappingFileLockException e)
+        {
+            // held by another store in this JVM
+            lock = null;
+        }
+
+        if (lock == null)
+        {
+            throw new IOException("index store " + storeFile + " is in use");
+        }
+        return lock;
+    }
+
+    private int findRecord(byte[] id, boolean create)
+        throws IOException
+    {
+        int pos = (Pack.bigEndianToInt(id, 0) & 0x7fffffff) % capacity;
+
+        for (int i = 0; i != capacity; i++)
+        {
+            int record = HEADER_SIZE + ((pos + i) % capacity) * RECORD_SIZE;
+
+            if (readSlot(record, 0, null) < 0 && readSlot(record, 1, null) < 0)
+            {
+                // a record only counts as used once it has a valid slot, so an interrupted insert is reused
+                return create ? record : -1;
+            }
+
+            byte[] recID = new byte[ID_SIZE];
+            for (int j = 0; j != ID_SIZE; j++)
+            {
+                recID[j] = buffer.get(record + j);
+            }
+            if (Arrays.areEqual(id, recID))
+            {
+                return record;
+            }
+        }
+
+        if (create)
+        {
+            throw new IOException("index store full");
+        }
+        return -1;
+    }
+
+    private long readLimit(int record)
+    {
+        long[] seq0 = new long[1];
+        long[] seq1 = new long[1];
+        long limit0 = readSlot(record, 0, seq0);
+        long limit1 = readSlot(record, 1, seq1);
+
+        if (limit0 < 0)
+        {
+            return Math.max(limit1, 0);
+        }
+        if (limit1 < 0)
+        {
+            return limit0;
+        }
+        return seq0[0] > seq1[0] ? limit0 : limit1;
+    }
+
+    private void writeLimit(int record, byte[] id, long limit)
+        throws IOException
+    {
+        long[] seq0 = new long[1];
+        long[] seq1 = new long[1];
+        boolean valid0 = readSlot(record, 0, seq0) >= 0;
+        boolean valid1 = readSlot(record, 1, seq1) >= 0;
+
+        int slot;
+        long seq;
+        if (!valid0 && !valid1)
+        {
+            for (int j = 0; j != ID_SIZE; j++)
+            {
+                buffer.put(record + j, id[j]);
+            }
+            slot = 0;
+            seq = 1;
+        }
+        else if (!valid0 || (valid1 && seq1[0] > seq0[0]))
+        {
+            // overwrite the older (or damaged) slot, leaving the current one intact
+            slot = 0;
+            seq = seq1[0] + 1;
+        }
+        else
+        {
+            slot = 1;
+            seq = seq0[0] + 1;
+        }
+
+        int off = record + ID_SIZE + slot * SLOT_SIZE;
+        buffer.putLong(off, limit);
+        buffer.putLong(off + 8, seq);
+        buffer.putInt(off + 16, crc(id, limit, seq));
+        buffer.force();
+    }
+
+    private long readSlot(int record, int slot, long[] seq)
+    {
+        int off = record + ID_SIZE + slot * SLOT_SIZE;
+        long limit = buffer.getLong(off);
+        long s = buffer.getLong(off + 8);
+
+        if (s < 1 || limit < 0)
+        {
+            return -1;
+        }
+
+        byte[] id = new byte[ID_SIZE];
+        for (int j = 0; j != ID_SIZE; j++)
+        {
+            id[j] = buffer.get(record + j);
+        }
+        if (buffer.getInt(off + 16) != crc(id, limit, s))
+        {
+            return -1;
+        }
+
+        if (seq != null)
+        {
+            seq[0] = s;
+        }
+        return limit;
+    }
+
+    private static int crc(byte[] id, long limit, long seq)
+    {
+        CRC32 crc = new CRC32();
+
+        crc.update(id);
+        crc.update(Pack.longToBigEndian(limit));
+        crc.update(Pack.longToBigEndian(seq));
+
+        return (int)crc.getValue();
+    }
+
+    private static byte[] hashID(byte[] keyID)
+    {
+        Digest digest = new SHA256Digest();
+        byte[] id = new byte[digest.getDigestSize()];
+
+        digest.update(keyID, 0, keyID.length);
+        digest.doFinal(id, 0);
+
+        return id;
+    }
+}
@@ -0,0 +1,295 @@
+package org.bouncycastle.pqc.crypto.util;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.pqc.crypto.ExhaustedPrivateKeyException;
+import org.bouncycastle.pqc.crypto.StatefulKeyIndexStore;
+import org.bouncycastle.pqc.crypto.lms.HSSPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSPrivateKeyParameters;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Hands out shards of a stateful hash based signature key (LMS, HSS, XMSS or XMSS^MT) with each shard's
+ * index range reserved in a {@link StatefulKeyIndexStore} before the shard is returned.
+ * <p>
+ * Each signing thread takes its own shard and signs with it independently, so the store is only written
+ * once per shard rather than once per signature, and signers do not contend on a shared key. When the
+ * manager is created the key is moved past anything the store records as already reserved, so restarting
+ * from an out of date copy of the private key cannot reuse an index.
+ * </p>
+ * <p>
+ * If an executor is given the next shard, including any authentication path (BDS) state needed to start
+ * signing from its first index, is prepared on the executor while the current one is in use.
+ * </p>
+ */
+public class StatefulKeyShardManager
+{
+    private final AsymmetricKeyParameter privateKey;
+    private final StatefulKeyIndexStore store;
+    private final byte[] keyID;
+    private final int shardSize;
+    private final Executor executor;
+
+    private FutureTask<AsymmetricKeyParameter> nextShard;
+
+    /**
+     * Create a manager preparing shards on demand.
+     *
+     * @param privateKey the private key to take shards from - this key must not be used directly afterwards.
+     * @param store the store recording the reserved index ranges.
+     * @param shardSize the number of signatures each shard can generate.
+     * @throws IOException if the store cannot be read.
+     */
+    public StatefulKeyShardManager(AsymmetricKeyParameter privateKey, StatefulKeyIndexStore store, int shardSize)
+        throws IOException
+    {
+        this(privateKey, store, shardSize, null);
+    }
+
+    /**
+     * Create a manager preparing the next shard in the background.
+     *
+     * @param privateKey the private key to take shards from - this key must not be used directly afterwards.
+     * @param store the store recording the reserved index ranges.
+     * @param shardSize the number of signatures each shard can generate.
+     * @param executor executor to prepare shards on ahead of demand, null to prepare them on demand.
+     * @throws IOException if the store cannot be read.
+     */
+    public StatefulKeyShardManager(AsymmetricKeyParameter privateKey, StatefulKeyIndexStore store, int shardSize, Executor executor)
+        throws IOException
+    {
+        if (shardSize < 1)
+        {
+            throw new IllegalArgumentException("shardSize must be at least 1");
+        }
+
+        this.privateKey = privateKey;
+        this.store = store;
+        this.keyID = getKeyID(privateKey);
+        this.shardSize = shardSize;
+        this.executor = executor;
+
+        // catch up with anything reserved by an earlier run
+        long limit = store.getReservedLimit(keyID);
+        long index = getIndex(privateKey);
+        if (limit > index)
+        {
+            skip(Math.min(limit - index, getUsagesRemaining(privateKey)));
+        }
+
+        if (executor != null)
+        {
+            scheduleNext();
+        }
+    }
+
+    /**
+     * Return the index store key identifier used for a private key.
+     *
+     * @param privateKey an LMS, HSS, XMSS or XMSS^MT private key.
+     * @return the identifier, made up of the key's public key components.
+     * @throws IOException if the public key cannot be encoded.
+     */
+    public static byte[] getKeyID(AsymmetricKeyParameter privateKey)
+        throws IOException
+    {
+        if (privateKey instanceof HSSPrivateKeyParameters)
+        {
+            return Arrays.prepend(((HSSPrivateKeyParameters)privateKey).getPublicKey().getEncoded(), (byte)'H');
+        }
+        if (privateKey instanceof LMSPrivateKeyParameters)
+        {
+            return Arrays.prepend(((LMSPrivateKeyParameters)privateKey).getPublicKey().getEncoded(), (byte)'L');
+        }
+        if (privateKey instanceof XMSSMTPrivateKeyParameters)
+        {
+            XMSSMTPrivateKeyParameters key = (XMSSMTPrivateKeyParameters)privateKey;
+            return Arrays.prepend(Arrays.concatenate(key.getRoot(), key.getPublicSeed()), (byte)'M');
+        }
+        if (privateKey instanceof XMSSPrivateKeyParameters)
+        {
+            XMSSPrivateKeyParameters key = (XMSSPrivateKeyParameters)privateKey;
+            return Arrays.prepend(Arrays.concatenate(key.getRoot(), key.getPublicSeed()), (byte)'X');
+        }
+        throw new IllegalArgumentException("unsupported stateful private key: " + privateKey.getClass().getName());
+    }
+
+    /**
+     * Return a new shard of the key. The shard's index range has been recorded in the store and
+     * the shard is for the use of the caller only.
+     *
+     * @return a private key of the same type as the managed key.
+     * @throws IOException if the reservation cannot be recorded.
+     * @throws ExhaustedPrivateKeyException if the managed key has no usages left.
+     */
+    public AsymmetricKeyParameter nextShard()
+        throws IOException
+    {
+        FutureTask<AsymmetricKeyParameter> task;
+        synchronized (this)
+        {
+            if (nextShard == null)
+            {
+                scheduleNext();
+            }
+            task = nextShard;
+            nextShard = null;
+            if (executor != null)
+            {
+                scheduleNext();
+            }
+        }
+
+        // does nothing if the executor has already started it.
+        task.run();
+
+        try
+        {
+            return task.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted waiting for shard");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException)cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error)cause;
+            }
+            throw new IllegalStateException("unable to prepare shard: " + cause.getMessage());
+        }
+    }
+
+    private void scheduleNext()
+    {
+        nextShard = new FutureTask<AsymmetricKeyParameter>(new Callable<AsymmetricKeyParameter>()
+        {
+            public AsymmetricKeyParameter call()
+                throws IOException
+            {
+                return prepareShard();
+            }
+        });
+
+        if (executor != null)
+        {
+            try
+            {
+                executor.execute(nextShard);
+            }
+            catch (RejectedExecutionException e)
+            {
+                // the shard will be prepared by the caller when it is collected.
+            }
+        }
+    }
+
+    private AsymmetricKeyParameter prepareShard()
+        throws IOException
+    {
+        // shards are taken from the key one at a time, in reservation order
+        synchronized (privateKey)
+        {
+            long remaining = getUsagesRemaining(privateKey);
+            if (remaining < 1)
+            {
+                throw new ExhaustedPrivateKeyException("no usages remaining for key");
+            }
+
+            long index = getIndex(privateKey);
+            long start = store.reserve(keyID, index, shardSize);
+            if (start - index >= remaining)
+            {
+                throw new ExhaustedPrivateKeyException("no usages remaining for key");
+            }
+            if (start > index)
+            {
+                skip(start - index);
+                remaining -= start - index;
+            }
+
+            return extract((int)Math.min(shardSize, remaining));
+        }
+    }
+
+    private void skip(long count)
+    {
+        while (count > 0)
+        {
+            int step = (int)Math.min(count, Integer.MAX_VALUE);
+
+            extract(step);
+            count -= step;
+        }
+    }
+
+    private AsymmetricKeyParameter extract(int count)
+    {
+        if (privateKey instanceof HSSPrivateKeyParameters)
+        {
+            return ((HSSPrivateKeyParameters)privateKey).extractKeyShard(count);
+        }
+        if (privateKey instanceof LMSPrivateKeyParameters)
+        {
+            return ((LMSPrivateKeyParameters)privateKey).extractKeyShard(count);
+        }
+        if (privateKey instanceof XMSSMTPrivateKeyParameters)
+        {
+            return ((XMSSMTPrivateKeyParameters)privateKey).extractKeyShard(count);
+        }
+        return ((XMSSPrivateKeyParameters)privateKey).extractKeyShard(count);
+    }
+
+    private static long getIndex(AsymmetricKeyParameter privateKey)
+    {
+        if (privateKey instanceof HSSPrivateKeyParameters)
+        {
+            return ((HSSPrivateKeyParameters)privateKey).getIndex();
+        }
+        if (privateKey instanceof LMSPrivateKeyParameters)
+        {
+            return ((LMSPrivateKeyParameters)privateKey).getIndex();
+        }
+        if (privateKey instanceof XMSSMTPrivateKeyParameters)
+        {
+            return ((XMSSMTPrivateKeyParameters)privateKey).getIndex();
+        }
+        return ((XMSSPrivateKeyParameters)privateKey).getIndex();
+    }
+
+    private static long getUsagesRemaining(AsymmetricKeyParameter privateKey)
+    {
+        if (privateKey instanceof HSSPrivateKeyParameters)
+        {
+            return ((HSSPrivateKeyParameters)privateKey).getUsagesRemaining();
+        }
+        if (privateKey instanceof LMSPrivateKeyParameters)
+        {
+            return ((LMSPrivateKeyParameters)privateKey).getUsagesRemaining();
+        }
+        if (privateKey instanceof XMSSMTPrivateKeyParameters)
+        {
+            return ((XMSSMTPrivateKeyParameters)privateKey).getUsagesRemaining();
+        }
+        return ((XMSSPrivateKeyParameters)privateKey).getUsagesRemaining();
+    }
+}
@@ -492,6 +492,58 @@ private void ctrFragmentedTest()
         }
     }
 
+    private void ctrBulkTest()
+    {
+        SecureRandom random = new SecureRandom();
+        KeyParameter kp = new KeyParameter(Hex.decode("5F060D3716B345C253F6749ABAC10917"));
+        byte[] iv = Hex.decode("000102030405060708090a0b0c0d0e");
+
+        byte[] data = new byte[16 * 37 + 5];
+        random.nextBytes(data);
+
+        // reference: one byte at a time through the stream interface
+        CTRModeCipher engine = SICBlockCipher.newInstance(AESEngine.newInstance());
+        engine.init(true, new ParametersWithIV(kp, iv));
+        byte[] expected = new byte[data.length];
+        for (int i = 0; i != data.length; i++)
+        {
+            expected[i] = engine.returnByte(data[i]);
+        }
+
+        byte[] out = new byte[data.length];
+        int[] splits = { 0, 1, 15, 16, 17, 130, 300 };
+        for (int i = 0; i != splits.length; i++)
+        {
+            engine.init(true, new ParametersWithIV(kp, iv));
+            int split = splits[i];
+            engine.processBytes(data, 0, split, out, 0);
+            engine.processBytes(data, split, data.length - split, out, split);
+
+            if (!areEqual(expected, out))
+            {
+                fail("bulk CTR mismatch at split " + split);
+            }
+        }
+
+        engine.init(true, new ParametersWithIV(kp, iv));
+        int blocks = data.length / 16;
+        engine.processBlocks(data, 0, blocks, out, 0);
+        engine.processBytes(data, blocks * 16, data.length - blocks * 16, out, blocks * 16);
+        if (!areEqual(expected, out))
+        {
+            fail("processBlocks CTR mismatch");
+        }
+
+        // in place
+        System.arraycopy(data, 0, out, 0, data.length);
+        engine.init(true, new ParametersWithIV(kp, iv));
+        engine.processBytes(out, 0, out.length, out, 0);
+        if (!areEqual(expected, out))
+        {
+            fail("in place bulk CTR mismatch");
+        }
+    }
+
     public void performTest()
         throws Exception
     {
@@ -538,6 +590,7 @@ public void performTest()
         skipTest();
         ctrCounterTest();
         ctrFragmentedTest();
+        ctrBulkTest();
         testLastByte();
     }
 
@@ -3,6 +3,8 @@
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
 import org.bouncycastle.crypto.params.Argon2Parameters;
@@ -34,6 +36,7 @@ public void performTest()
 
         testPermutations();
         testVectorsFromInternetDraft();
+        testParallelLanes();
 
         int version = Argon2Parameters.ARGON2_VERSION_10;
 
@@ -315,6 +318,66 @@ private void testVectorsFromInternetDraft()
 
     }
 
+    private void testParallelLanes()
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            byte[] ad = Hex.decode("040404040404040404040404");
+            byte[] secret = Hex.decode("0303030303030303");
+            byte[] salt = Hex.decode("02020202020202020202020202020202");
+            byte[] password = Hex.decode("0101010101010101010101010101010101010101010101010101010101010101");
+
+            Argon2Parameters.Builder builder = new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
+                .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+                .withIterations(3)
+                .withMemoryAsKB(32)
+                .withParallelism(4)
+                .withAdditional(ad)
+                .withSecret(secret)
+                .withSalt(salt);
+
+            Argon2BytesGenerator dig = new Argon2BytesGenerator(executor);
+
+            dig.init(builder.build());
+
+            byte[] result = new byte[32];
+            dig.generateBytes(password, result);
+            isTrue("Argon 2id parallel Failed", areEqual(result, Hex.decode("0d640df58d78766c08c037a34a8b53c9d01ef0452" +
+                "d75b65eb52520e96b01e659")));
+
+            int[] types = { Argon2Parameters.ARGON2_d, Argon2Parameters.ARGON2_i, Argon2Parameters.ARGON2_id };
+            int[] lanes = { 2, 3, 8 };
+            for (int t = 0; t != types.length; t++)
+            {
+                for (int l = 0; l != lanes.length; l++)
+                {
+                    builder = new Argon2Parameters.Builder(types[t])
+                        .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+                        .withIterations(2)
+                        .withMemoryAsKB(256)
+                        .withParallelism(lanes[l])
+                        .withSalt(salt);
+
+                    Argon2BytesGenerator sequential = new Argon2BytesGenerator();
+                    sequential.init(builder.build());
+                    Argon2BytesGenerator parallel = new Argon2BytesGenerator(executor);
+                    parallel.init(builder.build());
+
+                    byte[] expected = new byte[32];
+                    sequential.generateBytes(password, expected);
+                    parallel.generateBytes(password, result);
+
+                    isTrue("parallel type " + types[t] + " lanes " + lanes[l] + " Failed", areEqual(expected, result));
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
     private static int getJvmVersion()
     {
         String version = System.getProperty("java.specification.version");
@@ -46,6 +46,7 @@ public void performTest()
             testConsistency(Ed25519.Algorithm.Ed25519ph, context);
         }
 
+        testBatchVerify();
         testRegressionInfiniteLoop();
     }
 
@@ -161,6 +162,48 @@ private void testConsistency(int algorithm, byte[] context)
         }
     }
 
+    private void testBatchVerify()
+        throws Exception
+    {
+        int count = 8;
+        Ed25519PublicKeyParameters[] publicKeys = new Ed25519PublicKeyParameters[count];
+        byte[][] msgs = new byte[count][];
+        byte[][] sigs = new byte[count][];
+        boolean[] results = new boolean[count];
+
+        Ed25519KeyPairGenerator kpg = new Ed25519KeyPairGenerator();
+        kpg.init(new Ed25519KeyGenerationParameters(RANDOM));
+
+        for (int i = 0; i < count; ++i)
+        {
+            AsymmetricCipherKeyPair kp = kpg.generateKeyPair();
+            publicKeys[i] = (Ed25519PublicKeyParameters)kp.getPublic();
+
+            msgs[i] = new byte[RANDOM.nextInt() & 255];
+            RANDOM.nextBytes(msgs[i]);
+
+            Signer signer = new Ed25519Signer();
+            signer.init(true, kp.getPrivate());
+            signer.update(msgs[i], 0, msgs[i].length);
+            sigs[i] = signer.generateSignature();
+        }
+
+        isTrue("Ed25519 batch failed", Ed25519Signer.verifyBatch(publicKeys, msgs, sigs, null, results));
+
+        int bad = RANDOM.nextInt(count);
+        sigs[bad][Ed25519.PUBLIC_KEY_SIZE] ^= 1;
+
+        isTrue("Ed25519 bad batch verified", !Ed25519Signer.verifyBatch(publicKeys, msgs, sigs, RANDOM, results));
+        for (int i = 0; i < count; ++i)
+        {
+            isTrue("Ed25519 batch result " + i + " incorrect", results[i] == (i != bad));
+        }
+
+        // a null random falls back to the default source
+        isTrue("Ed25519 bad batch verified", !Ed25519PublicKeyParameters.verifyBatch(Ed25519.Algorithm.Ed25519, null,
+            publicKeys, msgs, sigs, null, null));
+    }
+
     private void testRegressionInfiniteLoop()
         throws Exception
     {
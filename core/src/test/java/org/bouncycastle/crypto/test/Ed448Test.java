@@ -43,6 +43,7 @@ public void performTest()
             testConsistency(Ed448.Algorithm.Ed448ph, context);
         }
 
+        testBatchVerify();
         testRegressionInfiniteLoop();
     }
 
@@ -170,6 +171,49 @@ private void testConsistency(int algorithm, byte[] context)
         }
     }
 
+    private void testBatchVerify()
+        throws Exception
+    {
+        int count = 8;
+        Ed448PublicKeyParameters[] publicKeys = new Ed448PublicKeyParameters[count];
+        byte[][] msgs = new byte[count][];
+        byte[][] sigs = new byte[count][];
+        boolean[] results = new boolean[count];
+        byte[] context = randomContext(RANDOM.nextInt() & 255);
+
+        Ed448KeyPairGenerator kpg = new Ed448KeyPairGenerator();
+        kpg.init(new Ed448KeyGenerationParameters(RANDOM));
+
+        for (int i = 0; i < count; ++i)
+        {
+            AsymmetricCipherKeyPair kp = kpg.generateKeyPair();
+            publicKeys[i] = (Ed448PublicKeyParameters)kp.getPublic();
+
+            msgs[i] = new byte[RANDOM.nextInt() & 255];
+            RANDOM.nextBytes(msgs[i]);
+
+            Signer signer = new Ed448Signer(context);
+            signer.init(true, kp.getPrivate());
+            signer.update(msgs[i], 0, msgs[i].length);
+            sigs[i] = signer.generateSignature();
+        }
+
+        isTrue("Ed448 batch failed", Ed448Signer.verifyBatch(context, publicKeys, msgs, sigs, null, results));
+
+        int bad = RANDOM.nextInt(count);
+        sigs[bad][Ed448.PUBLIC_KEY_SIZE] ^= 1;
+
+        isTrue("Ed448 bad batch verified", !Ed448Signer.verifyBatch(context, publicKeys, msgs, sigs, RANDOM, results));
+        for (int i = 0; i < count; ++i)
+        {
+            isTrue("Ed448 batch result " + i + " incorrect", results[i] == (i != bad));
+        }
+
+        // a null random falls back to the default source
+        isTrue("Ed448 bad batch verified", !Ed448PublicKeyParameters.verifyBatch(Ed448.Algorithm.Ed448, context,
+            publicKeys, msgs, sigs, null, null));
+    }
+
     private void testRegressionInfiniteLoop()
         throws Exception
     {
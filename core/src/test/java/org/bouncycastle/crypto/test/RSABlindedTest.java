@@ -10,11 +10,14 @@
 import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
 import org.bouncycastle.crypto.params.RSAKeyParameters;
 import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
+import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.encoders.Hex;
 import org.bouncycastle.util.test.SimpleTest;
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class RSABlindedTest
     extends SimpleTest
@@ -192,6 +195,54 @@ private void testOAEP(RSAKeyParameters pubParameters, RSAKeyParameters privParam
         }
     }
 
+    private void testParallelCRT(RSAKeyParameters pubParameters, RSAKeyParameters privParameters)
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            AsymmetricBlockCipher eng = new RSABlindedEngine();
+            AsymmetricBlockCipher parallelEng = new RSABlindedEngine(executor);
+
+            byte[] data = Hex.decode(input);
+
+            eng.init(true, privParameters);
+            parallelEng.init(true, privParameters);
+
+            byte[] sig = eng.processBlock(data, 0, data.length);
+            byte[] parallelSig = parallelEng.processBlock(data, 0, data.length);
+
+            if (!Arrays.areEqual(sig, parallelSig))
+            {
+                fail("parallel CRT result differs");
+            }
+
+            eng.init(false, pubParameters);
+
+            if (!Arrays.areEqual(data, eng.processBlock(parallelSig, 0, parallelSig.length)))
+            {
+                fail("parallel CRT round trip failed");
+            }
+
+            // a rejected task must fall back to the calling thread
+            executor.shutdown();
+
+            parallelSig = parallelEng.processBlock(data, 0, data.length);
+
+            if (!Arrays.areEqual(sig, parallelSig))
+            {
+                fail("parallel CRT result differs after shutdown");
+            }
+        }
+        catch (Exception e)
+        {
+            fail("parallel CRT failed - exception " + e.toString(), e);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
     public void performTest()
     {
         RSAKeyParameters    pubParameters = new RSAKeyParameters(false, mod, pubExp);
@@ -416,6 +467,7 @@ public void performTest()
         testMissingDataPKCS1Block(pubParameters, privParameters);
         testTruncatedPKCS1Block(pubParameters, privParameters);
         testWrongPaddingPKCS1Block(pubParameters, privParameters);
+        testParallelCRT(pubParameters, privParameters);
 
         try
         {
@@ -4,6 +4,8 @@
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.bouncycastle.crypto.generators.SCrypt;
 import org.bouncycastle.test.TestResourceFinder;
@@ -30,6 +32,7 @@ public void performTest()
         testPermutations();
         testParameters();
         testVectors();
+        testParallelVectors();
     }
 
     public void testParameters()
@@ -217,6 +220,55 @@ public void testVectors()
         br.close();
     }
 
+    public void testParallelVectors()
+        throws Exception
+    {
+        BufferedReader br = new BufferedReader(new InputStreamReader(
+            TestResourceFinder.findTestResource("crypto", "SCryptTestVectors.txt")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try
+        {
+            int count = 0;
+            String line = br.readLine();
+
+            while (line != null)
+            {
+                ++count;
+                String header = line;
+                StringBuffer data = new StringBuffer();
+
+                while (!isEndData(line = br.readLine()))
+                {
+                    data.append(line.replace(" ", ""));
+                }
+
+                String[] args = Strings.split(header.substring(header.indexOf('(') + 1, header.lastIndexOf(')')), ',');
+
+                int N = extractInteger(args[2]);
+
+                // This skips very expensive test case(s), remove check to re-enable
+                if (N <= 16384)
+                {
+                    byte[] result = SCrypt.generate(extractQuotedString(args[0]), extractQuotedString(args[1]), N,
+                        extractInteger(args[3]), extractInteger(args[4]), extractInteger(args[5]), executor);
+
+                    if (!areEqual(Hex.decode(data.toString()), result))
+                    {
+                        fail("Parallel result does not match expected value in test case " + count);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        br.close();
+    }
+
     private static boolean isEndData(String line)
     {
         return line == null || line.startsWith("scrypt");
@@ -202,6 +202,65 @@ public void testEd25519phConsistency()
         }
     }
 
+//    @Test
+    public void testEd25519BatchConsistency()
+    {
+        int count = 16;
+        byte[] sk = new byte[Ed25519.SECRET_KEY_SIZE];
+        byte[] ctx = new byte[RANDOM.nextInt() & 7];
+        byte[][] ms = new byte[count][];
+        byte[][] sigs = new byte[count][];
+        byte[][] ctxSigs = new byte[count][];
+        Ed25519.PublicPoint[] publicPoints = new Ed25519.PublicPoint[count];
+        boolean[] results = new boolean[count];
+
+        RANDOM.nextBytes(ctx);
+
+        for (int i = 0; i < count; ++i)
+        {
+            // Reuse some keys so that repeated public points are exercised
+            if ((i & 3) == 0)
+            {
+                Ed25519.generatePrivateKey(RANDOM, sk);
+            }
+
+            publicPoints[i] = Ed25519.generatePublicKey(sk, 0);
+
+            ms[i] = new byte[RANDOM.nextInt() & 255];
+            RANDOM.nextBytes(ms[i]);
+
+            sigs[i] = new byte[Ed25519.SIGNATURE_SIZE];
+            Ed25519.sign(sk, 0, ms[i], 0, ms[i].length, sigs[i], 0);
+
+            ctxSigs[i] = new byte[Ed25519.SIGNATURE_SIZE];
+            Ed25519.sign(sk, 0, ctx, ms[i], 0, ms[i].length, ctxSigs[i], 0);
+        }
+
+        assertTrue("Ed25519 batch verify", Ed25519.verifyBatch(sigs, publicPoints, ms, RANDOM, results));
+        for (int i = 0; i < count; ++i)
+        {
+            assertTrue("Ed25519 batch verify #" + i, results[i]);
+        }
+
+        assertTrue("Ed25519ctx batch verify", Ed25519.verifyBatch(ctxSigs, publicPoints, ctx, ms, RANDOM, null));
+
+        // Signatures made without the context must not verify as Ed25519ctx
+        assertFalse("Ed25519ctx batch context", Ed25519.verifyBatch(sigs, publicPoints, ctx, ms, RANDOM, null));
+
+        int bad = RANDOM.nextInt(count);
+        sigs[bad][Ed25519.PUBLIC_KEY_SIZE - 1] ^= 0x80;
+        int badMessage = (bad + 1) % count;
+        ms[badMessage] = Arrays.append(ms[badMessage], (byte)0);
+
+        assertFalse("Ed25519 batch verification failure", Ed25519.verifyBatch(sigs, publicPoints, ms, RANDOM, null));
+        assertFalse("Ed25519 batch verification failure",
+            Ed25519.verifyBatch(sigs, publicPoints, ms, RANDOM, results));
+        for (int i = 0; i < count; ++i)
+        {
+            assertEquals("Ed25519 batch verification result #" + i, i != bad && i != badMessage, results[i]);
+        }
+    }
+
 //    @Test
     public void testEd25519Vector1()
     {
@@ -144,6 +144,66 @@ public void testEd448phConsistency()
         }
     }
 
+//    @Test
+    public void testEd448BatchConsistency()
+    {
+        int count = 16;
+        byte[] sk = new byte[Ed448.SECRET_KEY_SIZE];
+        byte[] ctx = new byte[RANDOM.nextInt() & 7];
+        byte[][] ms = new byte[count][];
+        byte[][] phs = new byte[count][];
+        byte[][] sigs = new byte[count][];
+        byte[][] phSigs = new byte[count][];
+        Ed448.PublicPoint[] publicPoints = new Ed448.PublicPoint[count];
+        boolean[] results = new boolean[count];
+
+        RANDOM.nextBytes(ctx);
+
+        for (int i = 0; i < count; ++i)
+        {
+            // Reuse some keys so that repeated public points are exercised
+            if ((i & 3) == 0)
+            {
+                Ed448.generatePrivateKey(RANDOM, sk);
+            }
+
+            publicPoints[i] = Ed448.generatePublicKey(sk, 0);
+
+            ms[i] = new byte[RANDOM.nextInt() & 255];
+            RANDOM.nextBytes(ms[i]);
+
+            sigs[i] = new byte[Ed448.SIGNATURE_SIZE];
+            Ed448.sign(sk, 0, ctx, ms[i], 0, ms[i].length, sigs[i], 0);
+
+            phs[i] = new byte[Ed448.PREHASH_SIZE];
+            RANDOM.nextBytes(phs[i]);
+
+            phSigs[i] = new byte[Ed448.SIGNATURE_SIZE];
+            Ed448.signPrehash(sk, 0, ctx, phs[i], 0, phSigs[i], 0);
+        }
+
+        assertTrue("Ed448 batch verify", Ed448.verifyBatch(sigs, publicPoints, ctx, ms, RANDOM, results));
+        for (int i = 0; i < count; ++i)
+        {
+            assertTrue("Ed448 batch verify #" + i, results[i]);
+        }
+
+        assertTrue("Ed448ph batch verify", Ed448.verifyPrehashBatch(phSigs, publicPoints, ctx, phs, RANDOM, null));
+
+        int bad = RANDOM.nextInt(count);
+        sigs[bad][Ed448.PUBLIC_KEY_SIZE - 1] ^= 0x80;
+        int badMessage = (bad + 1) % count;
+        ms[badMessage] = Arrays.append(ms[badMessage], (byte)0);
+
+        assertFalse("Ed448 batch verification failure", Ed448.verifyBatch(sigs, publicPoints, ctx, ms, RANDOM, null));
+        assertFalse("Ed448 batch verification failure",
+            Ed448.verifyBatch(sigs, publicPoints, ctx, ms, RANDOM, results));
+        for (int i = 0; i < count; ++i)
+        {
+            assertEquals("Ed448 batch verification result #" + i, i != bad && i != badMessage, results[i]);
+        }
+    }
+
 //    @Test
     public void testEd448Vector1()
     {
@@ -43,6 +43,13 @@ public void testSumOfMultipliesComplete()
         }
     }
 
+    public void testSumOfManyMultiplies()
+    {
+        // Large enough to use the bucket method, on curves with and without a GLV endomorphism
+        doTestSumOfManyMultiplies(CustomNamedCurves.getByName("secp256r1"), 150);
+        doTestSumOfManyMultiplies(CustomNamedCurves.getByName("secp256k1"), 150);
+    }
+
     public void testSumOfTwoMultiplies()
     {
         X9ECParameters x9 = CustomNamedCurves.getByName("secp256r1");
@@ -86,6 +93,39 @@ private void doTestSumOfMultiplies(X9ECParameters x9)
         }
     }
 
+    private void doTestSumOfManyMultiplies(X9ECParameters x9, int count)
+    {
+        ECPoint[] points = new ECPoint[count];
+        BigInteger[] scalars = new BigInteger[count];
+        for (int i = 0; i < count; ++i)
+        {
+            points[i] = getRandomPoint(x9);
+            scalars[i] = getRandomScalar(x9);
+        }
+
+        // Include a negative scalar, a zero scalar and a repeated point
+        scalars[1] = scalars[1].negate();
+        scalars[2] = BigInteger.ZERO;
+        points[3] = points[4];
+
+        ECPoint u = x9.getCurve().getInfinity();
+        for (int i = 0; i < count; ++i)
+        {
+            u = u.add(points[i].multiply(scalars[i]));
+        }
+
+        // Repeat the sum, so that cached precomputations are also exercised
+        for (int i = 0; i < 2; ++i)
+        {
+            ECPoint v = ECAlgorithms.sumOfMultiplies(points, scalars);
+
+            ECPoint[] results = new ECPoint[]{ u, v };
+            x9.getCurve().normalizeAll(results);
+
+            assertPointsEqual("ECAlgorithms.sumOfMultiplies is incorrect", results[0], results[1]);
+        }
+    }
+
     private void doTestSumOfTwoMultiplies(X9ECParameters x9)
     {
         ECPoint p = getRandomPoint(x9);
@@ -39,6 +39,7 @@ public static Test suite()
         suite.addTestSuite(FalconTest.class);
         suite.addTestSuite(MLKEMTest.class);
         suite.addTestSuite(CrystalsDilithiumTest.class);
+        suite.addTestSuite(MLDSATest.class);
         suite.addTestSuite(NTRULPRimeTest.class);
         suite.addTestSuite(SNTRUPrimeTest.class);
         suite.addTestSuite(BIKETest.class);
@@ -46,6 +47,7 @@ public static Test suite()
         suite.addTestSuite(RainbowVectorTest.class);
         suite.addTestSuite(GeMSSTest.class);
         suite.addTestSuite(XWingTest.class);
+        suite.addTestSuite(StatefulKeyShardManagerTest.class);
         suite.addTestSuite(AllTests.SimpleTestTest.class);
 
         return new BCTestSetup(suite);
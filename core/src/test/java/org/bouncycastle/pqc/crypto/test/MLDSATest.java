@@ -0,0 +1,142 @@
+package org.bouncycastle.pqc.crypto.test;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.pqc.crypto.crystals.dilithium.DilithiumParameters;
+import org.bouncycastle.pqc.crypto.crystals.dilithium.DilithiumPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.crystals.dilithium.DilithiumPublicKeyParameters;
+import org.bouncycastle.pqc.crypto.crystals.dilithium.DilithiumSigner;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAParameters;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAPublicKeyParameters;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSASigner;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Strings;
+
+public class MLDSATest
+    extends TestCase
+{
+    private static final MLDSAParameters[] PARAMETERS = new MLDSAParameters[]{
+        MLDSAParameters.ml_dsa_44,
+        MLDSAParameters.ml_dsa_65,
+        MLDSAParameters.ml_dsa_87,
+    };
+
+    private static final DilithiumParameters[] DILITHIUM_PARAMETERS = new DilithiumParameters[]{
+        DilithiumParameters.dilithium2,
+        DilithiumParameters.dilithium3,
+        DilithiumParameters.dilithium5,
+    };
+
+    private final SecureRandom random = new SecureRandom();
+
+    /*
+     * Signatures made with the cached expanded key must match those of the Dilithium engine, which
+     * unpacks and expands the key on every call, and must stay the same on repeated use of the key.
+     */
+    public void testExpandedKeyReuse()
+    {
+        for (int i = 0; i != PARAMETERS.length; i++)
+        {
+            AsymmetricCipherKeyPair keyPair = generateKeyPair(PARAMETERS[i]);
+            MLDSAPrivateKeyParameters privKey = (MLDSAPrivateKeyParameters)keyPair.getPrivate();
+            MLDSAPublicKeyParameters pubKey = (MLDSAPublicKeyParameters)keyPair.getPublic();
+
+            DilithiumSigner dilithiumSigner = new DilithiumSigner();
+            dilithiumSigner.init(true, new DilithiumPrivateKeyParameters(DILITHIUM_PARAMETERS[i], privKey.getEncoded(), null));
+
+            DilithiumSigner dilithiumVerifier = new DilithiumSigner();
+            dilithiumVerifier.init(false, new DilithiumPublicKeyParameters(DILITHIUM_PARAMETERS[i], pubKey.getEncoded()));
+
+            MLDSASigner signer = new MLDSASigner();
+            signer.init(true, privKey);
+
+            MLDSASigner verifier = new MLDSASigner();
+            verifier.init(false, pubKey);
+
+            for (int count = 0; count != 5; count++)
+            {
+                byte[] msg = Strings.toByteArray("Hello World! " + count);
+                byte[] rnd = new byte[32];
+                random.nextBytes(rnd);
+
+                byte[] sig = signer.internalGenerateSignature(msg, rnd);
+
+                assertTrue(Arrays.areEqual(dilithiumSigner.internalGenerateSignature(msg, rnd), sig));
+                assertTrue(Arrays.areEqual(sig, signer.internalGenerateSignature(msg, rnd)));
+
+                assertTrue(verifier.verifySignature(msg, sig));
+                assertTrue(dilithiumVerifier.verifySignature(msg, sig));
+
+                sig[sig.length - 1 - count] ^= 1;
+                assertFalse(verifier.verifySignature(msg, sig));
+            }
+
+            byte[] msg = Strings.toByteArray("deterministic");
+            assertTrue(Arrays.areEqual(dilithiumSigner.generateSignature(msg), signer.generateSignature(msg)));
+        }
+    }
+
+    public void testConcurrentSignAndVerify()
+        throws Exception
+    {
+        AsymmetricCipherKeyPair keyPair = generateKeyPair(MLDSAParameters.ml_dsa_65);
+        final MLDSAPrivateKeyParameters privKey = (MLDSAPrivateKeyParameters)keyPair.getPrivate();
+        final MLDSAPublicKeyParameters pubKey = (MLDSAPublicKeyParameters)keyPair.getPublic();
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i != threads.length; i++)
+        {
+            final int id = i;
+            threads[i] = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        MLDSASigner signer = new MLDSASigner();
+                        signer.init(true, privKey);
+
+                        MLDSASigner verifier = new MLDSASigner();
+                        verifier.init(false, pubKey);
+
+                        for (int count = 0; count != 20; count++)
+                        {
+                            byte[] msg = Strings.toByteArray("thread " + id + " message " + count);
+                            byte[] sig = signer.generateSignature(msg);
+
+                            assertTrue(verifier.verifySignature(msg, sig));
+                            assertFalse(verifier.verifySignature(Strings.toByteArray("other"), sig));
+                        }
+                    }
+                    catch (Throwable t)
+                    {
+                        failures.add(t);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i != threads.length; i++)
+        {
+            threads[i].join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+    }
+
+    private AsymmetricCipherKeyPair generateKeyPair(MLDSAParameters parameters)
+    {
+        MLDSAKeyPairGenerator kpGen = new MLDSAKeyPairGenerator();
+        kpGen.init(new MLDSAKeyGenerationParameters(random, parameters));
+        return kpGen.generateKeyPair();
+    }
+}
@@ -5,7 +5,10 @@
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 
 import junit.framework.Assert;
 import junit.framework.TestCase;
@@ -527,4 +530,136 @@ public void testKyberRandom()
             assertTrue(Arrays.areEqual(secretEncap.getSecret(), decryptedSharedSecret));
         }
     }
+
+    public void testExpandedKeyReuse()
+    {
+        SecureRandom random = new SecureRandom();
+        MLKEMParameters[] params = new MLKEMParameters[]{
+            MLKEMParameters.ml_kem_512,
+            MLKEMParameters.ml_kem_768,
+            MLKEMParameters.ml_kem_1024,
+        };
+
+        for (int p = 0; p != params.length; p++)
+        {
+            MLKEMKeyPairGenerator keyGen = new MLKEMKeyPairGenerator();
+            keyGen.init(new MLKEMKeyGenerationParameters(random, params[p]));
+
+            AsymmetricCipherKeyPair keyPair = keyGen.generateKeyPair();
+            MLKEMPublicKeyParameters pubKey = (MLKEMPublicKeyParameters)keyPair.getPublic();
+            MLKEMPrivateKeyParameters privKey = (MLKEMPrivateKeyParameters)keyPair.getPrivate();
+
+            MLKEMGenerator kemGen = new MLKEMGenerator(random);
+            MLKEMExtractor kemExtract = new MLKEMExtractor(privKey);
+
+            for (int i = 0; i != 10; i++)
+            {
+                byte[] message = new byte[32];
+                random.nextBytes(message);
+
+                // the same key object is reused, fresh copies have to expand the key again
+                SecretWithEncapsulation secretEncap = kemGen.internalGenerateEncapsulated(pubKey, message);
+                SecretWithEncapsulation freshEncap = kemGen.internalGenerateEncapsulated(
+                    new MLKEMPublicKeyParameters(params[p], pubKey.getEncoded()), message);
+
+                assertTrue(Arrays.areEqual(freshEncap.getSecret(), secretEncap.getSecret()));
+                assertTrue(Arrays.areEqual(freshEncap.getEncapsulation(), secretEncap.getEncapsulation()));
+
+                byte[] encapsulation = secretEncap.getEncapsulation();
+                assertTrue(Arrays.areEqual(secretEncap.getSecret(), kemExtract.extractSecret(encapsulation)));
+
+                // implicit rejection must also match a freshly expanded key
+                encapsulation[i] ^= 1;
+                byte[] rejected = kemExtract.extractSecret(encapsulation);
+                assertFalse(Arrays.areEqual(secretEncap.getSecret(), rejected));
+                assertTrue(Arrays.areEqual(rejected,
+                    new MLKEMExtractor(new MLKEMPrivateKeyParameters(params[p], privKey.getEncoded())).extractSecret(encapsulation)));
+            }
+        }
+    }
+
+    public void testDecapsulationValidation()
+    {
+        SecureRandom random = new SecureRandom();
+
+        MLKEMKeyPairGenerator keyGen = new MLKEMKeyPairGenerator();
+        keyGen.init(new MLKEMKeyGenerationParameters(random, MLKEMParameters.ml_kem_768));
+
+        AsymmetricCipherKeyPair keyPair = keyGen.generateKeyPair();
+        MLKEMPrivateKeyParameters privKey = (MLKEMPrivateKeyParameters)keyPair.getPrivate();
+
+        byte[] encapsulation = new MLKEMGenerator(random).generateEncapsulated(keyPair.getPublic()).getEncapsulation();
+
+        try
+        {
+            new MLKEMExtractor(privKey).extractSecret(Arrays.copyOfRange(encapsulation, 1, encapsulation.length));
+            fail("no exception");
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertEquals("Input validation Error: Type check failed for ml-kem decapsulation", e.getMessage());
+        }
+
+        // H(ek) no longer matches the embedded encapsulation key
+        byte[] dk = privKey.getEncoded();
+        dk[dk.length - 2 * 32] ^= 1;
+
+        try
+        {
+            new MLKEMExtractor(new MLKEMPrivateKeyParameters(MLKEMParameters.ml_kem_768, dk)).extractSecret(encapsulation);
+            fail("no exception");
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertEquals("Input validation: Hash check failed for ml-kem decapsulation", e.getMessage());
+        }
+    }
+
+    public void testConcurrentEncapDecap()
+        throws Exception
+    {
+        SecureRandom random = new SecureRandom();
+        MLKEMKeyPairGenerator keyGen = new MLKEMKeyPairGenerator();
+
+        keyGen.init(new MLKEMKeyGenerationParameters(random, MLKEMParameters.ml_kem_768));
+
+        AsymmetricCipherKeyPair keyPair = keyGen.generateKeyPair();
+        final MLKEMPublicKeyParameters pubKey = (MLKEMPublicKeyParameters)keyPair.getPublic();
+        final MLKEMPrivateKeyParameters privKey = (MLKEMPrivateKeyParameters)keyPair.getPrivate();
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i != threads.length; i++)
+        {
+            threads[i] = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        MLKEMGenerator kemGen = new MLKEMGenerator(new SecureRandom());
+                        MLKEMExtractor kemExtract = new MLKEMExtractor(privKey);
+
+                        for (int count = 0; count != 100; count++)
+                        {
+                            SecretWithEncapsulation secretEncap = kemGen.generateEncapsulated(pubKey);
+
+                            assertTrue(Arrays.areEqual(secretEncap.getSecret(), kemExtract.extractSecret(secretEncap.getEncapsulation())));
+                        }
+                    }
+                    catch (Throwable t)
+                    {
+                        failures.add(t);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i != threads.length; i++)
+        {
+            threads[i].join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+    }
 }
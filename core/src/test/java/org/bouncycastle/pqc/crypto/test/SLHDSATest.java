@@ -8,6 +8,8 @@
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.TestCase;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
@@ -488,6 +490,64 @@ public void testBasicKeyGenerationShake256128fSimpleSign()
         assertTrue(Arrays.areEqual(sigGenerated, signature));
     }
 
+    public void testParallelSigning()
+        throws Exception
+    {
+        SLHDSAParameters[] params = new SLHDSAParameters[]{
+            SLHDSAParameters.sha2_128f, SLHDSAParameters.shake_128f, SLHDSAParameters.sha2_192f, SLHDSAParameters.sha2_128s };
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        SecureRandom random = new SecureRandom();
+
+        try
+        {
+            for (int i = 0; i != params.length; i++)
+            {
+                SLHDSAKeyPairGenerator kpGen = new SLHDSAKeyPairGenerator();
+                kpGen.init(new SLHDSAKeyGenerationParameters(random, params[i]));
+                AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+
+                byte[] message = new byte[37];
+                random.nextBytes(message);
+
+                SLHDSASigner signer = new SLHDSASigner();
+                signer.init(true, kp.getPrivate());
+                byte[] expected = signer.generateSignature(message);
+
+                SLHDSASigner parallelSigner = new SLHDSASigner(executor);
+                parallelSigner.init(true, kp.getPrivate());
+                byte[] sig = parallelSigner.generateSignature(message);
+
+                assertTrue(params[i].getName(), Arrays.areEqual(expected, sig));
+
+                signer.init(false, kp.getPublic());
+                assertTrue(params[i].getName(), signer.verifySignature(message, sig));
+            }
+
+            // tasks rejected by a shut down executor are run by the caller.
+            executor.shutdown();
+
+            SLHDSAKeyPairGenerator kpGen = new SLHDSAKeyPairGenerator();
+            kpGen.init(new SLHDSAKeyGenerationParameters(random, SLHDSAParameters.sha2_128f));
+            AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+
+            byte[] message = new byte[37];
+            random.nextBytes(message);
+
+            SLHDSASigner signer = new SLHDSASigner();
+            signer.init(true, kp.getPrivate());
+            byte[] expected = signer.generateSignature(message);
+
+            SLHDSASigner parallelSigner = new SLHDSASigner(executor);
+            parallelSigner.init(true, kp.getPrivate());
+
+            assertTrue(Arrays.areEqual(expected, parallelSigner.generateSignature(message)));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
     private static String[] splitOn(String input, char c)
     {
         String s = input.trim();
@@ -0,0 +1,284 @@
+package org.bouncycastle.pqc.crypto.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.pqc.crypto.ExhaustedPrivateKeyException;
+import org.bouncycastle.pqc.crypto.MessageSigner;
+import org.bouncycastle.pqc.crypto.lms.HSSKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.lms.HSSKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.lms.HSSPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.lms.HSSSigner;
+import org.bouncycastle.pqc.crypto.lms.LMOtsParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.lms.LMSParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSSigner;
+import org.bouncycastle.pqc.crypto.lms.LMSigParameters;
+import org.bouncycastle.pqc.crypto.util.MappedFileIndexStore;
+import org.bouncycastle.pqc.crypto.util.StatefulKeyShardManager;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTSigner;
+import org.bouncycastle.util.Strings;
+
+public class StatefulKeyShardManagerTest
+    extends TestCase
+{
+    private static final byte[] MSG = Strings.toByteArray("Hello, world!");
+
+    private File storeFile;
+
+    protected void setUp()
+        throws Exception
+    {
+        storeFile = File.createTempFile("index", ".store");
+        storeFile.delete();
+    }
+
+    protected void tearDown()
+    {
+        storeFile.delete();
+    }
+
+    public void testStoreReservations()
+        throws Exception
+    {
+        byte[] key1 = Strings.toByteArray("key1");
+        byte[] key2 = Strings.toByteArray("key2");
+
+        MappedFileIndexStore store = new MappedFileIndexStore(storeFile, 4);
+
+        assertEquals(-1, store.getReservedLimit(key1));
+        assertEquals(0, store.reserve(key1, 0, 10));
+        assertEquals(10, store.reserve(key1, 0, 10));
+        assertEquals(25, store.reserve(key1, 25, 5));
+        assertEquals(3, store.reserve(key2, 3, 1));
+
+        try
+        {
+            new MappedFileIndexStore(storeFile, 4);
+            fail("no exception");
+        }
+        catch (IOException e)
+        {
+            // file is locked
+        }
+
+        store.close();
+
+        // reservations survive reopening, and the recorded capacity is kept
+        store = new MappedFileIndexStore(storeFile, 100);
+
+        assertEquals(30, store.getReservedLimit(key1));
+        assertEquals(4, store.getReservedLimit(key2));
+        assertEquals(30, store.reserve(key1, 0, 1));
+
+        store.reserve(Strings.toByteArray("key3"), 0, 1);
+        store.reserve(Strings.toByteArray("key4"), 0, 1);
+        try
+        {
+            store.reserve(Strings.toByteArray("key5"), 0, 1);
+            fail("no exception");
+        }
+        catch (IOException e)
+        {
+            assertEquals("index store full", e.getMessage());
+        }
+
+        store.close();
+    }
+
+    public void testStoreCorruptCapacity()
+        throws Exception
+    {
+        new MappedFileIndexStore(storeFile, 4).close();
+
+        RandomAccessFile file = new RandomAccessFile(storeFile, "rw");
+        file.seek(8);
+        file.writeInt(0);
+        file.close();
+
+        try
+        {
+            new MappedFileIndexStore(storeFile, 4);
+            fail("no exception");
+        }
+        catch (IOException e)
+        {
+            assertEquals("index store capacity invalid", e.getMessage());
+        }
+    }
+
+    public void testHSSConcurrentShards()
+        throws Exception
+    {
+        HSSKeyPairGenerator kpGen = new HSSKeyPairGenerator();
+        kpGen.init(new HSSKeyGenerationParameters(new LMSParameters[]{
+            new LMSParameters(LMSigParameters.lms_sha256_n32_h5, LMOtsParameters.sha256_n32_w4),
+            new LMSParameters(LMSigParameters.lms_sha256_n32_h5, LMOtsParameters.sha256_n32_w4)
+        }, new SecureRandom()));
+        final AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+        byte[] privEnc = ((HSSPrivateKeyParameters)kp.getPrivate()).getEncoded();
+
+        MappedFileIndexStore store = new MappedFileIndexStore(storeFile, 4);
+        final StatefulKeyShardManager manager = new StatefulKeyShardManager(kp.getPrivate(), store, 7);
+
+        final Set<Long> indexes = Collections.synchronizedSet(new HashSet<Long>());
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i != threads.length; i++)
+        {
+            threads[i] = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for (int s = 0; s != 2; s++)
+                        {
+                            HSSPrivateKeyParameters shard = (HSSPrivateKeyParameters)manager.nextShard();
+                            HSSSigner signer = new HSSSigner();
+
+                            while (shard.getUsagesRemaining() > 0)
+                            {
+                                indexes.add(Long.valueOf(shard.getIndex()));
+                                signer.init(true, shard);
+                                byte[] sig = signer.generateSignature(MSG);
+                                signer.init(false, kp.getPublic());
+                                assertTrue(signer.verifySignature(MSG, sig));
+                            }
+                        }
+                    }
+                    catch (Throwable t)
+                    {
+                        failures.add(t);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i != threads.length; i++)
+        {
+            threads[i].join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertEquals(4 * 2 * 7, indexes.size());
+
+        store.close();
+
+        // restart from the original copy of the private key - nothing reserved is handed out again
+        store = new MappedFileIndexStore(storeFile, 4);
+        StatefulKeyShardManager restarted = new StatefulKeyShardManager(HSSPrivateKeyParameters.getInstance(privEnc), store, 7);
+
+        HSSPrivateKeyParameters shard = (HSSPrivateKeyParameters)restarted.nextShard();
+        assertEquals(4 * 2 * 7, shard.getIndex());
+
+        HSSSigner signer = new HSSSigner();
+        signer.init(true, shard);
+        byte[] sig = signer.generateSignature(MSG);
+        signer.init(false, kp.getPublic());
+        assertTrue(signer.verifySignature(MSG, sig));
+
+        store.close();
+    }
+
+    public void testLMSExhaustion()
+        throws Exception
+    {
+        LMSKeyPairGenerator kpGen = new LMSKeyPairGenerator();
+        kpGen.init(new LMSKeyGenerationParameters(
+            new LMSParameters(LMSigParameters.lms_sha256_n32_h5, LMOtsParameters.sha256_n32_w4), new SecureRandom()));
+        AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+
+        MappedFileIndexStore store = new MappedFileIndexStore(storeFile, 4);
+        StatefulKeyShardManager manager = new StatefulKeyShardManager(kp.getPrivate(), store, 10);
+
+        int total = 0;
+        LMSPrivateKeyParameters last = null;
+        for (int i = 0; i != 4; i++)
+        {
+            last = (LMSPrivateKeyParameters)manager.nextShard();
+            total += last.getUsagesRemaining();
+        }
+        assertEquals(32, total);
+        assertEquals(2, last.getUsagesRemaining());
+
+        LMSSigner signer = new LMSSigner();
+        signer.init(true, last);
+        signer.generateSignature(MSG);
+        byte[] sig = signer.generateSignature(MSG);
+        signer.init(false, kp.getPublic());
+        assertTrue(signer.verifySignature(MSG, sig));
+
+        try
+        {
+            manager.nextShard();
+            fail("no exception");
+        }
+        catch (ExhaustedPrivateKeyException e)
+        {
+            // expected
+        }
+
+        store.close();
+    }
+
+    public void testXMSSMTBackgroundPreparation()
+        throws Exception
+    {
+        XMSSMTKeyPairGenerator kpGen = new XMSSMTKeyPairGenerator();
+        kpGen.init(new XMSSMTKeyGenerationParameters(new XMSSMTParameters(6, 2, new SHA256Digest()), new SecureRandom()));
+        AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        MappedFileIndexStore store = new MappedFileIndexStore(storeFile, 4);
+        try
+        {
+            StatefulKeyShardManager manager = new StatefulKeyShardManager(kp.getPrivate(), store, 5, executor);
+
+            for (int i = 0; i != 3; i++)
+            {
+                XMSSMTPrivateKeyParameters shard = (XMSSMTPrivateKeyParameters)manager.nextShard();
+                assertEquals(5 * i, shard.getIndex());
+
+                MessageSigner signer = new XMSSMTSigner();
+                signer.init(true, shard);
+                byte[] sig = signer.generateSignature(MSG);
+                signer.init(false, kp.getPublic());
+                assertTrue(signer.verifySignature(MSG, sig));
+            }
+
+            // once the executor rejects work the shards are prepared when they are collected.
+            executor.shutdown();
+
+            for (int i = 3; i != 5; i++)
+            {
+                XMSSMTPrivateKeyParameters shard = (XMSSMTPrivateKeyParameters)manager.nextShard();
+                assertEquals(5 * i, shard.getIndex());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            store.close();
+        }
+    }
+}
@@ -0,0 +1,600 @@
+package org.bouncycastle.openpgp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bouncycastle.bcpg.PublicKeyPacket;
+import org.bouncycastle.util.Longs;
+import org.bouncycastle.util.Pack;
+import org.bouncycastle.util.Strings;
+
+/**
+ * Immutable store of the key rings in a key ring collection, with indexes on user ID, email address,
+ * key ID and signer key ID.
+ * <p>
+ * Adding or removing a ring gives a new store which shares its bulk with the original: changes are held
+ * in a small overlay on top of a flat base, and the overlay is folded into a new base, with the base
+ * indexes updated in place of being rebuilt, once it grows past roughly the square root of the base
+ * size. Indexes are built the first time a lookup needs them.
+ * </p>
+ */
+class KeyRingStore<T extends PGPKeyRing>
+{
+    private static final int MIN_OVERLAY_SIZE = 32;
+
+    private final Base<T> base;
+    private final Map<Long, T> added;
+    private final Set<Long> removed;
+
+    private volatile Index<T> overlayIndex;
+
+    KeyRingStore(Map<Long, T> rings, List<Long> order)
+    {
+        this(new Base<T>(rings, order, null), new LinkedHashMap<Long, T>(), new HashSet<Long>());
+    }
+
+    private KeyRingStore(Base<T> base, Map<Long, T> added, Set<Long> removed)
+    {
+        this.base = base;
+        this.added = added;
+        this.removed = removed;
+    }
+
+    int size()
+    {
+        return base.order.size() - removed.size() + added.size();
+    }
+
+    boolean containsRing(Long id)
+    {
+        return getRing(id) != null;
+    }
+
+    /**
+     * Return the ring with the passed in master key ID.
+     */
+    T getRing(Long id)
+    {
+        T ring = added.get(id);
+        if (ring == null && !removed.contains(id))
+        {
+            ring = base.rings.get(id);
+        }
+        return ring;
+    }
+
+    Iterator<T> iterator()
+    {
+        if (added.isEmpty() && removed.isEmpty())
+        {
+            return new KeyRingIterator<T>(base.order, base.rings);
+        }
+
+        List<T> rings = new ArrayList<T>(size());
+        for (Iterator<Long> it = base.order.iterator(); it.hasNext();)
+        {
+            Long id = it.next();
+            if (!removed.contains(id))
+            {
+                rings.add(base.rings.get(id));
+            }
+        }
+        rings.addAll(added.values());
+
+        return Collections.unmodifiableList(rings).iterator();
+    }
+
+    /**
+     * Return a new store with the passed in ring added - the caller must check the ring is not already present.
+     */
+    KeyRingStore<T> add(Long id, T ring)
+    {
+        Map<Long, T> newAdded = new LinkedHashMap<Long, T>(added);
+
+        newAdded.put(id, ring);
+
+        return create(base, newAdded, removed);
+    }
+
+    /**
+     * Return a new store with the ring with the passed in master key ID removed - the caller must check the ring is present.
+     */
+    KeyRingStore<T> remove(Long id)
+    {
+        if (added.containsKey(id))
+        {
+            Map<Long, T> newAdded = new LinkedHashMap<Long, T>(added);
+
+            newAdded.remove(id);
+
+            return create(base, newAdded, removed);
+        }
+
+        Set<Long> newRemoved = new HashSet<Long>(removed);
+
+        newRemoved.add(id);
+
+        return create(base, added, newRemoved);
+    }
+
+    /**
+     * Return the rings (possibly more than once, once for each matching user ID) with a user ID matching userID.
+     */
+    List<T> getRingsByUserID(String userID, boolean matchPartial, boolean ignoreCase)
+    {
+        String lowerID = Strings.toLowerCase(userID);
+        List<T> candidates = new ArrayList<T>();
+
+        // the index is on the lower case form of each user ID, so it can be used to narrow down
+        // the rings to check for both case sensitive and insensitive searches.
+        if (matchPartial)
+        {
+            collectPartial(candidates, base.getIndex().userIDs, lowerID, true);
+            collectPartial(candidates, getOverlayIndex().userIDs, lowerID, false);
+        }
+        else
+        {
+            collect(candidates, base.getIndex().userIDs.get(lowerID), true);
+            collect(candidates, getOverlayIndex().userIDs.get(lowerID), false);
+        }
+
+        if (ignoreCase)
+        {
+            userID = lowerID;
+        }
+
+        List<T> rings = new ArrayList<T>();
+        Map<T, Boolean> seen = new IdentityHashMap<T, Boolean>();
+        for (int i = 0; i != candidates.size(); i++)
+        {
+            T ring = candidates.get(i);
+            if (seen.put(ring, Boolean.TRUE) != null)
+            {
+                continue;
+            }
+
+            Iterator<String> uIt = ring.getPublicKey().getUserIDs();
+            while (uIt.hasNext())
+            {
+                String next = uIt.next();
+                if (ignoreCase)
+                {
+                    next = Strings.toLowerCase(next);
+                }
+
+                if (matchPartial ? next.indexOf(userID) >= 0 : next.equals(userID))
+                {
+                    rings.add(ring);
+                }
+            }
+        }
+
+        return rings;
+    }
+
+    /**
+     * Return the rings with a user ID carrying the passed in email address, compared ignoring case.
+     */
+    List<T> getRingsByEmail(String email)
+    {
+        String lowerEmail = Strings.toLowerCase(email.trim());
+        List<T> rings = new ArrayList<T>();
+
+        collect(rings, base.getIndex().emails.get(lowerEmail), true);
+        collect(rings, getOverlayIndex().emails.get(lowerEmail), false);
+
+        return rings;
+    }
+
+    /**
+     * Return the rings containing an indexed key with the passed in key ID.
+     */
+    List<T> getRingsByKeyID(long keyID)
+    {
+        Long id = Longs.valueOf(keyID);
+        List<T> rings = new ArrayList<T>();
+
+        collect(rings, base.getIndex().keyIDs.get(id), true);
+        collect(rings, getOverlayIndex().keyIDs.get(id), false);
+
+        return rings;
+    }
+
+    /**
+     * Return the rings which may contain an indexed key with the passed in fingerprint - the caller
+     * must check the key is actually present.
+     */
+    List<T> getRingsByFingerprint(byte[] fingerprint)
+    {
+        List<T> rings = new ArrayList<T>();
+
+        // v4 key IDs are the low 64 bits of the fingerprint, v5 and v6 key IDs the high 64 bits
+        if (fingerprint.length >= 8)
+        {
+            long low = Pack.bigEndianToLong(fingerprint, fingerprint.length - 8);
+            long high = Pack.bigEndianToLong(fingerprint, 0);
+
+            rings.addAll(getRingsByKeyID(low));
+            if (high != low)
+            {
+                rings.addAll(getRingsByKeyID(high));
+            }
+        }
+
+        // v3 key IDs are not derived from the fingerprint
+        collect(rings, base.getIndex().v3Rings, true);
+        collect(rings, getOverlayIndex().v3Rings, false);
+
+        return rings;
+    }
+
+    /**
+     * Return the rings containing a key carrying a signature issued by the key with the passed in key ID.
+     */
+    List<T> getRingsBySigner(long keyID)
+    {
+        Long id = Longs.valueOf(keyID);
+        List<T> rings = new ArrayList<T>();
+
+        collect(rings, base.getIndex().signers.get(id), true);
+        collect(rings, getOverlayIndex().signers.get(id), false);
+
+        return rings;
+    }
+
+    private Index<T> getOverlayIndex()
+    {
+        Index<T> index = overlayIndex;
+        if (index == null)
+        {
+            index = new Index<T>();
+            for (Iterator<T> it = added.values().iterator(); it.hasNext();)
+            {
+                index.add(it.next());
+            }
+            index.freeze();
+            overlayIndex = index;
+        }
+        return index;
+    }
+
+    private void collect(List<T> result, List<T> rings, boolean fromBase)
+    {
+        if (rings == null)
+        {
+            return;
+        }
+
+        for (int i = 0; i != rings.size(); i++)
+        {
+            T ring = rings.get(i);
+            if (!fromBase || isVisible(ring))
+            {
+                result.add(ring);
+            }
+        }
+    }
+
+    private void collectPartial(List<T> result, Map<String, List<T>> index, String userID, boolean fromBase)
+    {
+        for (Iterator<Map.Entry<String, List<T>>> it = index.entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry<String, List<T>> entry = it.next();
+            if (entry.getKey().indexOf(userID) >= 0)
+            {
+                collect(result, entry.getValue(), fromBase);
+            }
+        }
+    }
+
+    private boolean isVisible(T baseRing)
+    {
+        return removed.isEmpty() || !removed.contains(Longs.valueOf(baseRing.getPublicKey().getKeyID()));
+    }
+
+    private static <T extends PGPKeyRing> KeyRingStore<T> create(Base<T> base, Map<Long, T> added, Set<Long> removed)
+    {
+        int overlaySize = added.size() + removed.size();
+        if (overlaySize <= MIN_OVERLAY_SIZE || (long)overlaySize * overlaySize <= base.order.size())
+        {
+            return new KeyRingStore<T>(base, added, removed);
+        }
+
+        // fold the overlay into a new base
+        Map<Long, T> rings = new HashMap<Long, T>(base.rings);
+        List<Long> order = new ArrayList<Long>(base.order.size() + added.size());
+
+        for (Iterator<Long> it = base.order.iterator(); it.hasNext();)
+        {
+            Long id = it.next();
+            if (!removed.contains(id))
+            {
+                order.add(id);
+            }
+        }
+
+        Index<T> baseIndex = base.index;
+        Index<T> index = (baseIndex != null) ? baseIndex.copy() : null;
+
+        for (Iterator<Long> it = removed.iterator(); it.hasNext();)
+        {
+            T ring = rings.remove(it.next());
+            if (index != null && ring != null)
+            {
+                index.remove(ring);
+            }
+        }
+        for (Iterator<Map.Entry<Long, T>> it = added.entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry<Long, T> entry = it.next();
+
+            rings.put(entry.getKey(), entry.getValue());
+            order.add(entry.getKey());
+            if (index != null)
+            {
+                index.add(entry.getValue());
+            }
+        }
+
+        if (index != null)
+        {
+            index.freeze();
+        }
+
+        return new KeyRingStore<T>(new Base<T>(rings, order, index), new LinkedHashMap<Long, T>(), new HashSet<Long>());
+    }
+
+    private static class Base<T extends PGPKeyRing>
+    {
+        final Map<Long, T> rings;
+        final List<Long> order;
+
+        volatile Index<T> index;
+
+        Base(Map<Long, T> rings, List<Long> order, Index<T> index)
+        {
+            this.rings = rings;
+            this.order = order;
+            this.index = index;
+        }
+
+        Index<T> getIndex()
+        {
+            Index<T> idx = index;
+            if (idx == null)
+            {
+                idx = new Index<T>();
+
+                boolean duplicates = order.size() != rings.size();
+                Set<Long> indexed = duplicates ? new HashSet<Long>() : null;
+                for (Iterator<Long> it = order.iterator(); it.hasNext();)
+                {
+                    Long id = it.next();
+                    if (indexed == null || indexed.add(id))
+                    {
+                        idx.add(rings.get(id));
+                    }
+                }
+                idx.freeze();
+
+                index = idx;
+            }
+            return idx;
+        }
+    }
+
+    /*
+     * Index maps hold a singleton list where a key belongs to a single ring. Once an index is frozen its
+     * lists are never modified - a copy made to fold in changes replaces any lists it alters rather than
+     * changing them.
+     */
+    private static class Index<T extends PGPKeyRing>
+    {
+        final Map<String, List<T>> userIDs;
+        final Map<String, List<T>> emails;
+        final Map<Long, List<T>> keyIDs;
+        final Map<Long, List<T>> signers;
+
+        List<T> v3Rings;
+
+        private Map<List<T>, Boolean> owned = new IdentityHashMap<List<T>, Boolean>();
+
+        Index()
+        {
+            this(new HashMap<String, List<T>>(), new HashMap<String, List<T>>(), new HashMap<Long, List<T>>(),
+                new HashMap<Long, List<T>>(), new ArrayList<T>());
+        }
+
+        private Index(Map<String, List<T>> userIDs, Map<String, List<T>> emails, Map<Long, List<T>> keyIDs,
+            Map<Long, List<T>> signers, List<T> v3Rings)
+        {
+            this.userIDs = userIDs;
+            this.emails = emails;
+            this.keyIDs = keyIDs;
+            this.signers = signers;
+            this.v3Rings = v3Rings;
+        }
+
+        Index<T> copy()
+        {
+            return new Index<T>(new HashMap<String, List<T>>(userIDs), new HashMap<String, List<T>>(emails),
+                new HashMap<Long, List<T>>(keyIDs), new HashMap<Long, List<T>>(signers), new ArrayList<T>(v3Rings));
+        }
+
+        void freeze()
+        {
+            owned = null;
+        }
+
+        void add(T ring)
+        {
+            for (Iterator<String> it = ring.getPublicKey().getUserIDs(); it.hasNext();)
+            {
+                String userID = Strings.toLowerCase(it.next());
+
+                put(userIDs, userID, ring);
+
+                String email = extractEmail(userID);
+                if (email != null)
+                {
+                    put(emails, email, ring);
+                }
+            }
+
+            boolean isV3 = false;
+            for (Iterator<PGPPublicKey> it = getIndexedKeys(ring); it.hasNext();)
+            {
+                PGPPublicKey key = it.next();
+
+                put(keyIDs, Longs.valueOf(key.getKeyID()), ring);
+
+                for (Iterator<PGPSignature> sIt = key.getSignatures(); sIt.hasNext();)
+                {
+                    put(signers, Longs.valueOf(sIt.next().getKeyID()), ring);
+                }
+
+                isV3 |= key.getVersion() < PublicKeyPacket.VERSION_4;
+            }
+
+            if (isV3)
+            {
+                v3Rings.add(ring);
+            }
+        }
+
+        void remove(T ring)
+        {
+            for (Iterator<String> it = ring.getPublicKey().getUserIDs(); it.hasNext();)
+            {
+                String userID = Strings.toLowerCase(it.next());
+
+                delete(userIDs, userID, ring);
+
+                String email = extractEmail(userID);
+                if (email != null)
+                {
+                    delete(emails, email, ring);
+                }
+            }
+
+            for (Iterator<PGPPublicKey> it = getIndexedKeys(ring); it.hasNext();)
+            {
+                PGPPublicKey key = it.next();
+
+                delete(keyIDs, Longs.valueOf(key.getKeyID()), ring);
+
+                for (Iterator<PGPSignature> sIt = key.getSignatures(); sIt.hasNext();)
+                {
+                    delete(signers, Longs.valueOf(sIt.next().getKeyID()), ring);
+                }
+            }
+
+            for (int i = v3Rings.size() - 1; i >= 0; i--)
+            {
+                if (v3Rings.get(i) == ring)
+                {
+                    v3Rings.remove(i);
+                }
+            }
+        }
+
+        private <K> void put(Map<K, List<T>> map, K key, T ring)
+        {
+            List<T> rings = map.get(key);
+            if (rings == null)
+            {
+                map.put(key, Collections.singletonList(ring));
+            }
+            else if (rings.get(rings.size() - 1) != ring)
+            {
+                if (!owned.containsKey(rings))
+                {
+                    rings = new ArrayList<T>(rings);
+                    owned.put(rings, Boolean.TRUE);
+                    map.put(key, rings);
+                }
+                rings.add(ring);
+            }
+        }
+
+        private <K> void delete(Map<K, List<T>> map, K key, T ring)
+        {
+            List<T> entry = map.get(key);
+            if (entry != null)
+            {
+                List<T> rings = new ArrayList<T>(entry);
+                for (int i = rings.size() - 1; i >= 0; i--)
+                {
+                    if (rings.get(i) == ring)
+                    {
+                        rings.remove(i);
+                    }
+                }
+
+                if (rings.isEmpty())
+                {
+                    map.remove(key);
+                }
+                else if (rings.size() == 1)
+                {
+                    map.put(key, Collections.singletonList(rings.get(0)));
+                }
+                else
+                {
+                    owned.put(rings, Boolean.TRUE);
+                    map.put(key, rings);
+                }
+            }
+        }
+
+        private static Iterator<PGPPublicKey> getIndexedKeys(PGPKeyRing ring)
+        {
+            if (ring instanceof PGPSecretKeyRing)
+            {
+                // secret key collections are searched on the secret keys only
+                List<PGPPublicKey> keys = new ArrayList<PGPPublicKey>();
+                for (Iterator<PGPSecretKey> it = ((PGPSecretKeyRing)ring).getSecretKeys(); it.hasNext();)
+                {
+                    keys.add(it.next().getPublicKey());
+                }
+                return keys.iterator();
+            }
+
+            return ring.getPublicKeys();
+        }
+    }
+
+    /**
+     * Return the address part of a user ID of the form "Name &lt;address&gt;", or the user ID itself
+     * if it is a bare address, null otherwise.
+     */
+    static String extractEmail(String userID)
+    {
+        int start = userID.lastIndexOf('<');
+        if (start >= 0)
+        {
+            int end = userID.indexOf('>', start);
+            if (end > start + 1)
+            {
+                return Strings.toLowerCase(userID.substring(start + 1, end).trim());
+            }
+            return null;
+        }
+
+        String trimmed = userID.trim();
+        if (trimmed.indexOf('@') > 0 && trimmed.indexOf(' ') < 0)
+        {
+            return Strings.toLowerCase(trimmed);
+        }
+
+        return null;
+    }
+}
@@ -16,24 +16,25 @@
 import org.bouncycastle.openpgp.operator.KeyFingerPrintCalculator;
 import org.bouncycastle.util.Iterable;
 import org.bouncycastle.util.Longs;
-import org.bouncycastle.util.Strings;
 
 /**
  * Often a PGP key ring file is made up of a succession of master/sub-key key rings.
  * If you want to read an entire public key file in one hit this is the class for you.
+ * <p>
+ * Lookups by user ID, email address, key ID and fingerprint are served from indexes built on first use,
+ * and collections derived using addPublicKeyRing() and removePublicKeyRing() share most of their state, including
+ * any indexes, with the collection they are derived from.
+ * </p>
  */
 public class PGPPublicKeyRingCollection
     implements Iterable<PGPPublicKeyRing>
 {
-    private Map<Long, PGPPublicKeyRing> pubRings = new HashMap<Long, PGPPublicKeyRing>();
-    private List<Long> order = new ArrayList<Long>();
+    private final KeyRingStore<PGPPublicKeyRing> pubRings;
 
     private PGPPublicKeyRingCollection(
-        Map<Long, PGPPublicKeyRing> pubRings,
-        List<Long> order)
+        KeyRingStore<PGPPublicKeyRing> pubRings)
     {
         this.pubRings = pubRings;
-        this.order = order;
     }
 
     public PGPPublicKeyRingCollection(
@@ -56,6 +57,9 @@ public PGPPublicKeyRingCollection(
         KeyFingerPrintCalculator fingerPrintCalculator)
         throws IOException, PGPException
     {
+        Map<Long, PGPPublicKeyRing> pubRings = new HashMap<Long, PGPPublicKeyRing>();
+        List<Long> order = new ArrayList<Long>();
+
         PGPObjectFactory pgpFact = new PGPObjectFactory(in, fingerPrintCalculator);
         Object obj;
 
@@ -77,11 +81,16 @@ public PGPPublicKeyRingCollection(
             pubRings.put(key, pgpPub);
             order.add(key);
         }
+
+        this.pubRings = new KeyRingStore<PGPPublicKeyRing>(pubRings, order);
     }
 
     public PGPPublicKeyRingCollection(
         Collection<PGPPublicKeyRing> collection)
     {
+        Map<Long, PGPPublicKeyRing> pubRings = new HashMap<Long, PGPPublicKeyRing>();
+        List<Long> order = new ArrayList<Long>();
+
         Iterator<PGPPublicKeyRing> it = collection.iterator();
 
         while (it.hasNext())
@@ -93,6 +102,8 @@ public PGPPublicKeyRingCollection(
             pubRings.put(key, pgpPub);
             order.add(key);
         }
+
+        this.pubRings = new KeyRingStore<PGPPublicKeyRing>(pubRings, order);
     }
 
     /**
@@ -102,7 +113,7 @@ public PGPPublicKeyRingCollection(
      */
     public int size()
     {
-        return order.size();
+        return pubRings.size();
     }
 
     /**
@@ -110,7 +121,7 @@ public int size()
      */
     public Iterator<PGPPublicKeyRing> getKeyRings()
     {
-        return pubRings.values().iterator();
+        return pubRings.iterator();
     }
 
     /**
@@ -154,45 +165,21 @@ public Iterator<PGPPublicKeyRing> getKeyRings(
         boolean matchPartial,
         boolean ignoreCase)
     {
-        Iterator<PGPPublicKeyRing> it = this.getKeyRings();
-        List<PGPPublicKeyRing> rings = new ArrayList<PGPPublicKeyRing>();
-
-        if (ignoreCase)
-        {
-            userID = Strings.toLowerCase(userID);
-        }
-
-        while (it.hasNext())
-        {
-            PGPPublicKeyRing pubRing = (PGPPublicKeyRing)it.next();
-            Iterator<String> uIt = pubRing.getPublicKey().getUserIDs();
-
-            while (uIt.hasNext())
-            {
-                String next = (String)uIt.next();
-                if (ignoreCase)
-                {
-                    next = Strings.toLowerCase(next);
-                }
-
-                if (matchPartial)
-                {
-                    if (next.indexOf(userID) >= 0)
-                    {
-                        rings.add(pubRing);
-                    }
-                }
-                else
-                {
-                    if (next.equals(userID))
-                    {
-                        rings.add(pubRing);
-                    }
-                }
-            }
-        }
+        return pubRings.getRingsByUserID(userID, matchPartial, ignoreCase).iterator();
+    }
 
-        return rings.iterator();
+    /**
+     * Return an iterator of the key rings with a user ID carrying the passed in email address. The address
+     * is taken from between the angle brackets of a user ID of the form "Name &lt;address&gt;", or is the
+     * whole user ID where that is a bare address, and is compared ignoring case.
+     *
+     * @param email the email address to be matched.
+     * @return an iterator (possibly empty) of key rings which matched.
+     */
+    public Iterator<PGPPublicKeyRing> getKeyRingsByEmail(
+        String email)
+    {
+        return pubRings.getRingsByEmail(email).iterator();
     }
 
     /**
@@ -204,7 +191,7 @@ public Iterator<PGPPublicKeyRing> getKeyRings(
     public PGPPublicKey getPublicKey(
         long keyID)
     {
-        Iterator<PGPPublicKeyRing> it = this.getKeyRings();
+        Iterator<PGPPublicKeyRing> it = pubRings.getRingsByKeyID(keyID).iterator();
 
         while (it.hasNext())
         {
@@ -229,14 +216,14 @@ public PGPPublicKey getPublicKey(
     public PGPPublicKeyRing getPublicKeyRing(
         long keyID)
     {
-        Long id = Longs.valueOf(keyID);
+        PGPPublicKeyRing ring = pubRings.getRing(Longs.valueOf(keyID));
 
-        if (pubRings.containsKey(id))
+        if (ring != null)
         {
-            return (PGPPublicKeyRing)pubRings.get(id);
+            return ring;
         }
 
-        Iterator<PGPPublicKeyRing> it = this.getKeyRings();
+        Iterator<PGPPublicKeyRing> it = pubRings.getRingsByKeyID(keyID).iterator();
 
         while (it.hasNext())
         {
@@ -261,7 +248,7 @@ public PGPPublicKeyRing getPublicKeyRing(
     public PGPPublicKey getPublicKey(
         byte[] fingerprint)
     {
-        Iterator<PGPPublicKeyRing> it = this.getKeyRings();
+        Iterator<PGPPublicKeyRing> it = pubRings.getRingsByFingerprint(fingerprint).iterator();
 
         while (it.hasNext())
         {
@@ -286,7 +273,7 @@ public PGPPublicKey getPublicKey(
     public PGPPublicKeyRing getPublicKeyRing(
         byte[] fingerprint)
     {
-        Iterator<PGPPublicKeyRing> it = this.getKeyRings();
+        Iterator<PGPPublicKeyRing> it = pubRings.getRingsByFingerprint(fingerprint).iterator();
 
         while (it.hasNext())
         {
@@ -312,7 +299,7 @@ public Iterator<PGPPublicKey> getKeysWithSignaturesBy(long keyID)
     {
         List<PGPPublicKey> keysWithSigs = new ArrayList<PGPPublicKey>();
 
-        for (Iterator<PGPPublicKeyRing> it = this.iterator(); it.hasNext(); )
+        for (Iterator<PGPPublicKeyRing> it = pubRings.getRingsBySigner(keyID).iterator(); it.hasNext(); )
         {
             PGPPublicKeyRing k = (PGPPublicKeyRing)it.next();
 
@@ -362,10 +349,10 @@ public void encode(OutputStream outStream)
     {
         BCPGOutputStream out = BCPGOutputStream.wrap(outStream);
 
-        Iterator<Long> it = order.iterator();
+        Iterator<PGPPublicKeyRing> it = pubRings.iterator();
         while (it.hasNext())
         {
-            PGPPublicKeyRing sr = (PGPPublicKeyRing)pubRings.get(it.next());
+            PGPPublicKeyRing sr = (PGPPublicKeyRing)it.next();
 
             sr.encode(out);
         }
@@ -387,18 +374,12 @@ public static PGPPublicKeyRingCollection addPublicKeyRing(
     {
         Long key = Longs.valueOf(publicKeyRing.getPublicKey().getKeyID());
 
-        if (ringCollection.pubRings.containsKey(key))
+        if (ringCollection.pubRings.containsRing(key))
         {
             throw new IllegalArgumentException("Collection already contains a key with a keyID for the passed in ring.");
         }
 
-        Map<Long, PGPPublicKeyRing> newPubRings = new HashMap<Long, PGPPublicKeyRing>(ringCollection.pubRings);
-        List<Long> newOrder = new ArrayList<Long>(ringCollection.order);
-
-        newPubRings.put(key, publicKeyRing);
-        newOrder.add(key);
-
-        return new PGPPublicKeyRingCollection(newPubRings, newOrder);
+        return new PGPPublicKeyRingCollection(ringCollection.pubRings.add(key, publicKeyRing));
     }
 
     /**
@@ -416,28 +397,12 @@ public static PGPPublicKeyRingCollection removePublicKeyRing(
     {
         Long key = Longs.valueOf(publicKeyRing.getPublicKey().getKeyID());
 
-        if (!ringCollection.pubRings.containsKey(key))
+        if (!ringCollection.pubRings.containsRing(key))
         {
             throw new IllegalArgumentException("Collection does not contain a key with a keyID for the passed in ring.");
         }
 
-        Map<Long, PGPPublicKeyRing> newPubRings = new HashMap<Long, PGPPublicKeyRing>(ringCollection.pubRings);
-        List<Long> newOrder = new ArrayList<Long>(ringCollection.order);
-
-        newPubRings.remove(key);
-
-        for (int i = 0; i < newOrder.size(); i++)
-        {
-            Long r = (Long)newOrder.get(i);
-
-            if (r.longValue() == key.longValue())
-            {
-                newOrder.remove(i);
-                break;
-            }
-        }
-
-        return new PGPPublicKeyRingCollection(newPubRings, newOrder);
+        return new PGPPublicKeyRingCollection(ringCollection.pubRings.remove(key));
     }
 
     /**
@@ -445,6 +410,6 @@ public static PGPPublicKeyRingCollection removePublicKeyRing(
      */
     public Iterator<PGPPublicKeyRing> iterator()
     {
-        return new KeyRingIterator<PGPPublicKeyRing>(order, pubRings);
+        return pubRings.iterator();
     }
 }
@@ -16,24 +16,25 @@
 import org.bouncycastle.openpgp.operator.KeyFingerPrintCalculator;
 import org.bouncycastle.util.Iterable;
 import org.bouncycastle.util.Longs;
-import org.bouncycastle.util.Strings;
 
 /**
  * Often a PGP key ring file is made up of a succession of master/sub-key key rings.
  * If you want to read an entire secret key file in one hit this is the class for you.
+ * <p>
+ * Lookups by user ID, email address, key ID and fingerprint are served from indexes built on first use,
+ * and collections derived using addSecretKeyRing() and removeSecretKeyRing() share most of their state, including
+ * any indexes, with the collection they are derived from.
+ * </p>
  */
 public class PGPSecretKeyRingCollection
     implements Iterable<PGPSecretKeyRing>
 {
-    private Map<Long, PGPSecretKeyRing> secretRings = new HashMap<Long, PGPSecretKeyRing>();
-    private List<Long> order = new ArrayList<Long>();
+    private final KeyRingStore<PGPSecretKeyRing> secretRings;
 
     private PGPSecretKeyRingCollection(
-        Map<Long, PGPSecretKeyRing> secretRings,
-        List<Long> order)
+        KeyRingStore<PGPSecretKeyRing> secretRings)
     {
         this.secretRings = secretRings;
-        this.order = order;
     }
 
     public PGPSecretKeyRingCollection(
@@ -56,6 +57,9 @@ public PGPSecretKeyRingCollection(
         KeyFingerPrintCalculator fingerPrintCalculator)
         throws IOException, PGPException
     {
+        Map<Long, PGPSecretKeyRing> secretRings = new HashMap<Long, PGPSecretKeyRing>();
+        List<Long> order = new ArrayList<Long>();
+
         PGPObjectFactory pgpFact = new PGPObjectFactory(in, fingerPrintCalculator);
         Object obj;
 
@@ -77,11 +81,16 @@ public PGPSecretKeyRingCollection(
             secretRings.put(key, pgpSecret);
             order.add(key);
         }
+
+        this.secretRings = new KeyRingStore<PGPSecretKeyRing>(secretRings, order);
     }
 
     public PGPSecretKeyRingCollection(
         Collection<PGPSecretKeyRing> collection)
     {
+        Map<Long, PGPSecretKeyRing> secretRings = new HashMap<Long, PGPSecretKeyRing>();
+        List<Long> order = new ArrayList<Long>();
+
         Iterator<PGPSecretKeyRing> it = collection.iterator();
 
         while (it.hasNext())
@@ -92,6 +101,8 @@ public PGPSecretKeyRingCollection(
             secretRings.put(key, pgpSecret);
             order.add(key);
         }
+
+        this.secretRings = new KeyRingStore<PGPSecretKeyRing>(secretRings, order);
     }
 
     /**
@@ -101,7 +112,7 @@ public PGPSecretKeyRingCollection(
      */
     public int size()
     {
-        return order.size();
+        return secretRings.size();
     }
 
     /**
@@ -109,7 +120,7 @@ public int size()
      */
     public Iterator<PGPSecretKeyRing> getKeyRings()
     {
-        return secretRings.values().iterator();
+        return secretRings.iterator();
     }
 
     /**
@@ -153,45 +164,21 @@ public Iterator<PGPSecretKeyRing> getKeyRings(
         boolean matchPartial,
         boolean ignoreCase)
     {
-        Iterator<PGPSecretKeyRing> it = this.getKeyRings();
-        List<PGPSecretKeyRing> rings = new ArrayList<PGPSecretKeyRing>();
-
-        if (ignoreCase)
-        {
-            userID = Strings.toLowerCase(userID);
-        }
-
-        while (it.hasNext())
-        {
-            PGPSecretKeyRing secRing = (PGPSecretKeyRing)it.next();
-            Iterator<String> uIt = secRing.getSecretKey().getUserIDs();
-
-            while (uIt.hasNext())
-            {
-                String next = (String)uIt.next();
-                if (ignoreCase)
-                {
-                    next = Strings.toLowerCase(next);
-                }
-
-                if (matchPartial)
-                {
-                    if (next.indexOf(userID) >= 0)
-                    {
-                        rings.add(secRing);
-                    }
-                }
-                else
-                {
-                    if (next.equals(userID))
-                    {
-                        rings.add(secRing);
-                    }
-                }
-            }
-        }
+        return secretRings.getRingsByUserID(userID, matchPartial, ignoreCase).iterator();
+    }
 
-        return rings.iterator();
+    /**
+     * Return an iterator of the key rings with a user ID carrying the passed in email address. The address
+     * is taken from between the angle brackets of a user ID of the form "Name &lt;address&gt;", or is the
+     * whole user ID where that is a bare address, and is compared ignoring case.
+     *
+     * @param email the email address to be matched.
+     * @return an iterator (possibly empty) of key rings which matched.
+     */
+    public Iterator<PGPSecretKeyRing> getKeyRingsByEmail(
+        String email)
+    {
+        return secretRings.getRingsByEmail(email).iterator();
     }
 
     /**
@@ -203,7 +190,7 @@ public Iterator<PGPSecretKeyRing> getKeyRings(
     public PGPSecretKey getSecretKey(
         long keyID)
     {
-        Iterator<PGPSecretKeyRing> it = this.getKeyRings();
+        Iterator<PGPSecretKeyRing> it = secretRings.getRingsByKeyID(keyID).iterator();
 
         while (it.hasNext())
         {
@@ -228,14 +215,14 @@ public PGPSecretKey getSecretKey(
     public PGPSecretKeyRing getSecretKeyRing(
         long keyID)
     {
-        Long id = Longs.valueOf(keyID);
+        PGPSecretKeyRing ring = secretRings.getRing(Longs.valueOf(keyID));
 
-        if (secretRings.containsKey(id))
+        if (ring != null)
         {
-            return (PGPSecretKeyRing)secretRings.get(id);
+            return ring;
         }
 
-        Iterator<PGPSecretKeyRing> it = this.getKeyRings();
+        Iterator<PGPSecretKeyRing> it = secretRings.getRingsByKeyID(keyID).iterator();
 
         while (it.hasNext())
         {
@@ -251,6 +238,55 @@ public PGPSecretKeyRing getSecretKeyRing(
         return null;
     }
 
+    /**
+     * Return the PGP secret key associated with the given key fingerprint.
+     *
+     * @param fingerprint the key fingerprint to match against.
+     * @return the secret key matching fingerprint.
+     */
+    public PGPSecretKey getSecretKey(
+        byte[] fingerprint)
+    {
+        Iterator<PGPSecretKeyRing> it = secretRings.getRingsByFingerprint(fingerprint).iterator();
+
+        while (it.hasNext())
+        {
+            PGPSecretKeyRing secRing = (PGPSecretKeyRing)it.next();
+            PGPSecretKey sec = secRing.getSecretKey(fingerprint);
+
+            if (sec != null)
+            {
+                return sec;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Return the secret key ring which contains the key associated with the given key fingerprint.
+     *
+     * @param fingerprint the key fingerprint to match against.
+     * @return the secret key ring containing the secret key matching fingerprint.
+     */
+    public PGPSecretKeyRing getSecretKeyRing(
+        byte[] fingerprint)
+    {
+        Iterator<PGPSecretKeyRing> it = secretRings.getRingsByFingerprint(fingerprint).iterator();
+
+        while (it.hasNext())
+        {
+            PGPSecretKeyRing secRing = (PGPSecretKeyRing)it.next();
+
+            if (secRing.getSecretKey(fingerprint) != null)
+            {
+                return secRing;
+            }
+        }
+
+        return null;
+    }
+
     /**
      * Return true if a key matching the passed in key ID is present, false otherwise.
      *
@@ -262,6 +298,17 @@ public boolean contains(long keyID)
         return getSecretKey(keyID) != null;
     }
 
+    /**
+     * Return true if a key matching the passed in fingerprint is present, false otherwise.
+     *
+     * @param fingerprint the key fingerprint to look for.
+     * @return true if fingerprint present, false otherwise.
+     */
+    public boolean contains(byte[] fingerprint)
+    {
+        return getSecretKey(fingerprint) != null;
+    }
+
     public byte[] getEncoded()
         throws IOException
     {
@@ -277,10 +324,10 @@ public void encode(OutputStream outStream)
     {
         BCPGOutputStream out = BCPGOutputStream.wrap(outStream);
 
-        Iterator<Long> it = order.iterator();
+        Iterator<PGPSecretKeyRing> it = secretRings.iterator();
         while (it.hasNext())
         {
-            PGPSecretKeyRing sr = (PGPSecretKeyRing)secretRings.get(it.next());
+            PGPSecretKeyRing sr = (PGPSecretKeyRing)it.next();
 
             sr.encode(out);
         }
@@ -301,18 +348,12 @@ public static PGPSecretKeyRingCollection addSecretKeyRing(
     {
         Long key = Longs.valueOf(secretKeyRing.getPublicKey().getKeyID());
 
-        if (ringCollection.secretRings.containsKey(key))
+        if (ringCollection.secretRings.containsRing(key))
         {
             throw new IllegalArgumentException("Collection already contains a key with a keyID for the passed in ring.");
         }
 
-        Map<Long, PGPSecretKeyRing> newSecretRings = new HashMap<Long, PGPSecretKeyRing>(ringCollection.secretRings);
-        List<Long> newOrder = new ArrayList<Long>(ringCollection.order);
-
-        newSecretRings.put(key, secretKeyRing);
-        newOrder.add(key);
-
-        return new PGPSecretKeyRingCollection(newSecretRings, newOrder);
+        return new PGPSecretKeyRingCollection(ringCollection.secretRings.add(key, secretKeyRing));
     }
 
     /**
@@ -330,28 +371,12 @@ public static PGPSecretKeyRingCollection removeSecretKeyRing(
     {
         Long key = Longs.valueOf(secretKeyRing.getPublicKey().getKeyID());
 
-        if (!ringCollection.secretRings.containsKey(key))
+        if (!ringCollection.secretRings.containsRing(key))
         {
             throw new IllegalArgumentException("Collection does not contain a key with a keyID for the passed in ring.");
         }
 
-        Map<Long, PGPSecretKeyRing> newSecretRings = new HashMap<Long, PGPSecretKeyRing>(ringCollection.secretRings);
-        List<Long> newOrder = new ArrayList<Long>(ringCollection.order);
-
-        newSecretRings.remove(key);
-
-        for (int i = 0; i < newOrder.size(); i++)
-        {
-            Long r = (Long)newOrder.get(i);
-
-            if (r.longValue() == key.longValue())
-            {
-                newOrder.remove(i);
-                break;
-            }
-        }
-
-        return new PGPSecretKeyRingCollection(newSecretRings, newOrder);
+        return new PGPSecretKeyRingCollection(ringCollection.secretRings.remove(key));
     }
 
     /**
@@ -359,6 +384,6 @@ public static PGPSecretKeyRingCollection removeSecretKeyRing(
      */
     public Iterator<PGPSecretKeyRing> iterator()
     {
-        return new KeyRingIterator<PGPSecretKeyRing>(order, secretRings);
+        return secretRings.iterator();
     }
 }
@@ -0,0 +1,262 @@
+package org.bouncycastle.openpgp.test;
+
+import java.security.SecureRandom;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.bouncycastle.bcpg.HashAlgorithmTags;
+import org.bouncycastle.bcpg.PublicKeyAlgorithmTags;
+import org.bouncycastle.crypto.generators.Ed25519KeyPairGenerator;
+import org.bouncycastle.crypto.params.Ed25519KeyGenerationParameters;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.openpgp.PGPKeyPair;
+import org.bouncycastle.openpgp.PGPKeyRingGenerator;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRingCollection;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.bouncycastle.openpgp.PGPSignatureGenerator;
+import org.bouncycastle.openpgp.operator.bc.BcKeyFingerprintCalculator;
+import org.bouncycastle.openpgp.operator.bc.BcPGPContentSignerBuilder;
+import org.bouncycastle.openpgp.operator.bc.BcPGPDigestCalculatorProvider;
+import org.bouncycastle.openpgp.operator.bc.BcPGPKeyPair;
+import org.bouncycastle.util.test.SimpleTest;
+
+public class PGPKeyRingCollectionTest
+    extends SimpleTest
+{
+    private final SecureRandom random = new SecureRandom();
+    private final Date creationTime = new Date((System.currentTimeMillis() / 1000) * 1000);
+
+    public String getName()
+    {
+        return "PGPKeyRingCollectionTest";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        testLookups();
+        testAddRemove();
+        testSecretRings();
+    }
+
+    private void testLookups()
+        throws Exception
+    {
+        PGPSecretKeyRing alice = generate("Alice <Alice@Example.com>");
+        PGPSecretKeyRing bob = generate("bob@example.org");
+        PGPSecretKeyRing carol = generate("Carol <carol@example.net>");
+
+        PGPPublicKeyRing carolPub = certify(alice, carol, "Carol <carol@example.net>");
+
+        List<PGPPublicKeyRing> rings = new ArrayList<PGPPublicKeyRing>();
+        rings.add(toPublic(alice));
+        rings.add(toPublic(bob));
+        rings.add(carolPub);
+
+        PGPPublicKeyRingCollection pubRings = new PGPPublicKeyRingCollection(rings);
+
+        isEquals(1, count(pubRings.getKeyRings("Alice <Alice@Example.com>")));
+        isEquals(0, count(pubRings.getKeyRings("alice <alice@example.com>")));
+        isEquals(1, count(pubRings.getKeyRings("alice <alice@example.com>", false, true)));
+        isEquals(2, count(pubRings.getKeyRings("example", true, false)));
+        isEquals(1, count(pubRings.getKeyRings("Example", true, false)));
+        isEquals(1, count(pubRings.getKeyRings("EXAMPLE.COM", true, true)));
+
+        isTrue(pubRings.getKeyRingsByEmail("ALICE@example.COM").next() == rings.get(0));
+        isTrue(pubRings.getKeyRingsByEmail("bob@example.org").next() == rings.get(1));
+        isEquals(0, count(pubRings.getKeyRingsByEmail("carol")));
+
+        PGPPublicKey carolKey = carolPub.getPublicKey();
+        isTrue(pubRings.getPublicKey(carolKey.getKeyID()) == carolKey);
+        isTrue(pubRings.getPublicKey(carolKey.getFingerprint()) == carolKey);
+        isTrue(pubRings.getPublicKeyRing(carolKey.getFingerprint()) == carolPub);
+        isTrue(pubRings.contains(carolKey.getFingerprint()));
+        isTrue(!pubRings.contains(new byte[20]));
+        isTrue(pubRings.getPublicKey(0x1234L) == null);
+
+        // alice's self certification and her certification of carol
+        List<PGPPublicKey> signed = toList(pubRings.getKeysWithSignaturesBy(alice.getPublicKey().getKeyID()));
+        isEquals(2, signed.size());
+        isTrue(signed.get(0).getKeyID() == alice.getPublicKey().getKeyID());
+        isTrue(signed.get(1) == carolKey);
+    }
+
+    private void testAddRemove()
+        throws Exception
+    {
+        List<PGPPublicKeyRing> rings = new ArrayList<PGPPublicKeyRing>();
+        for (int i = 0; i != 100; i++)
+        {
+            rings.add(toPublic(generate("User " + i + " <user" + i + "@example.com>")));
+        }
+
+        // enough additions and removals to fold the changes into the collection several times
+        PGPPublicKeyRingCollection pubRings = new PGPPublicKeyRingCollection(new ArrayList<PGPPublicKeyRing>());
+        List<PGPPublicKeyRingCollection> versions = new ArrayList<PGPPublicKeyRingCollection>();
+        for (int i = 0; i != rings.size(); i++)
+        {
+            pubRings = PGPPublicKeyRingCollection.addPublicKeyRing(pubRings, (PGPPublicKeyRing)rings.get(i));
+            versions.add(pubRings);
+
+            // lookups as we go, so indexes exist to be carried forward
+            isTrue(pubRings.getKeyRingsByEmail("user" + i + "@example.com").next() == rings.get(i));
+        }
+
+        for (int i = 0; i < rings.size(); i += 2)
+        {
+            pubRings = PGPPublicKeyRingCollection.removePublicKeyRing(pubRings, (PGPPublicKeyRing)rings.get(i));
+        }
+
+        isEquals(50, pubRings.size());
+
+        Iterator<PGPPublicKeyRing> it = pubRings.iterator();
+        for (int i = 1; i < rings.size(); i += 2)
+        {
+            isTrue(it.next() == rings.get(i));
+        }
+        isTrue(!it.hasNext());
+
+        for (int i = 0; i != rings.size(); i++)
+        {
+            PGPPublicKey key = ((PGPPublicKeyRing)rings.get(i)).getPublicKey();
+            boolean present = (i % 2) != 0;
+
+            isEquals(present, pubRings.contains(key.getKeyID()));
+            isEquals(present, pubRings.contains(key.getFingerprint()));
+            isEquals(present ? 1 : 0, count(pubRings.getKeyRings("User " + i + " <user" + i + "@example.com>")));
+            isEquals(present ? 1 : 0, count(pubRings.getKeyRingsByEmail("USER" + i + "@example.com")));
+        }
+
+        // earlier versions are unaffected by later changes
+        for (int i = 0; i != versions.size(); i++)
+        {
+            PGPPublicKeyRingCollection version = (PGPPublicKeyRingCollection)versions.get(i);
+
+            isEquals(i + 1, version.size());
+            isTrue(version.contains(((PGPPublicKeyRing)rings.get(0)).getPublicKey().getKeyID()));
+            isEquals(i + 1, count(version.getKeyRings("@example.com", true)));
+        }
+
+        // a removed ring can be added back
+        pubRings = PGPPublicKeyRingCollection.addPublicKeyRing(pubRings, (PGPPublicKeyRing)rings.get(0));
+        isEquals(51, pubRings.size());
+        isTrue(pubRings.getKeyRings("User 0 <user0@example.com>").next() == rings.get(0));
+
+        PGPPublicKeyRingCollection decoded = new PGPPublicKeyRingCollection(pubRings.getEncoded(), new BcKeyFingerprintCalculator());
+        isEquals(51, decoded.size());
+        isTrue(decoded.contains(((PGPPublicKeyRing)rings.get(0)).getPublicKey().getKeyID()));
+
+        try
+        {
+            PGPPublicKeyRingCollection.removePublicKeyRing(pubRings, (PGPPublicKeyRing)rings.get(2));
+            fail("no exception");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("Collection does not contain a key with a keyID for the passed in ring.", e.getMessage());
+        }
+    }
+
+    private void testSecretRings()
+        throws Exception
+    {
+        PGPSecretKeyRing alice = generate("Alice <alice@example.com>");
+        PGPSecretKeyRing bob = generate("Bob <bob@example.com>");
+
+        List<PGPSecretKeyRing> rings = new ArrayList<PGPSecretKeyRing>();
+        rings.add(alice);
+        rings.add(bob);
+
+        PGPSecretKeyRingCollection secRings = new PGPSecretKeyRingCollection(rings);
+
+        isTrue(secRings.getKeyRingsByEmail("BOB@example.com").next() == bob);
+        isTrue(secRings.getSecretKey(bob.getPublicKey().getFingerprint()) == bob.getSecretKey());
+        isTrue(secRings.getSecretKeyRing(alice.getPublicKey().getFingerprint()) == alice);
+        isTrue(secRings.contains(alice.getPublicKey().getFingerprint()));
+        isTrue(secRings.getSecretKey(alice.getPublicKey().getKeyID()) == alice.getSecretKey());
+        isEquals(1, count(secRings.getKeyRings("alice", true, true)));
+
+        secRings = PGPSecretKeyRingCollection.removeSecretKeyRing(secRings, alice);
+
+        isEquals(1, secRings.size());
+        isTrue(!secRings.contains(alice.getPublicKey().getFingerprint()));
+        isEquals(0, count(secRings.getKeyRingsByEmail("alice@example.com")));
+    }
+
+    private PGPSecretKeyRing generate(String userID)
+        throws Exception
+    {
+        Ed25519KeyPairGenerator kpGen = new Ed25519KeyPairGenerator();
+        kpGen.init(new Ed25519KeyGenerationParameters(random));
+
+        PGPKeyPair keyPair = new BcPGPKeyPair(PublicKeyAlgorithmTags.EDDSA_LEGACY, kpGen.generateKeyPair(), creationTime);
+
+        PGPKeyRingGenerator keyRingGen = new PGPKeyRingGenerator(PGPSignature.POSITIVE_CERTIFICATION, keyPair,
+            userID, new BcPGPDigestCalculatorProvider().get(HashAlgorithmTags.SHA1), null, null,
+            new BcPGPContentSignerBuilder(PublicKeyAlgorithmTags.EDDSA_LEGACY, HashAlgorithmTags.SHA256), null);
+
+        return keyRingGen.generateSecretKeyRing();
+    }
+
+    private PGPPublicKeyRing certify(PGPSecretKeyRing signer, PGPSecretKeyRing subject, String userID)
+        throws Exception
+    {
+        PGPSignatureGenerator sigGen = new PGPSignatureGenerator(
+            new BcPGPContentSignerBuilder(PublicKeyAlgorithmTags.EDDSA_LEGACY, HashAlgorithmTags.SHA256),
+            signer.getPublicKey());
+
+        sigGen.init(PGPSignature.DEFAULT_CERTIFICATION, signer.getSecretKey().extractPrivateKey(null));
+
+        PGPPublicKey subjectKey = subject.getPublicKey();
+        PGPSignature certification = sigGen.generateCertification(userID, subjectKey);
+
+        return PGPPublicKeyRing.insertPublicKey(toPublic(subject),
+            PGPPublicKey.addCertification(subjectKey, userID, certification));
+    }
+
+    private static PGPPublicKeyRing toPublic(PGPSecretKeyRing secretKeyRing)
+        throws Exception
+    {
+        List<PGPPublicKey> keys = new ArrayList<PGPPublicKey>();
+        for (Iterator<PGPPublicKey> it = secretKeyRing.getPublicKeys(); it.hasNext();)
+        {
+            keys.add(it.next());
+        }
+        return new PGPPublicKeyRing(keys);
+    }
+
+    private static <T> List<T> toList(Iterator<T> it)
+    {
+        List<T> list = new ArrayList<T>();
+        while (it.hasNext())
+        {
+            list.add(it.next());
+        }
+        return list;
+    }
+
+    private static int count(Iterator it)
+    {
+        int count = 0;
+        while (it.hasNext())
+        {
+            it.next();
+            count++;
+        }
+        return count;
+    }
+
+    public static void main(String[] args)
+    {
+        Security.addProvider(new BouncyCastleProvider());
+
+        runTest(new PGPKeyRingCollectionTest());
+    }
+}
@@ -9,6 +9,7 @@
 {
     public static Test[] tests = {
         new BcPGPKeyRingTest(),
+        new PGPKeyRingCollectionTest(),
         new PGPKeyRingTest(),
         new BcPGPRSATest(),
         new PGPRSATest(),
@@ -0,0 +1,230 @@
+package org.bouncycastle.cert;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.selector.X509CertificateHolderSelector;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.CollectionStore;
+import org.bouncycastle.util.Selector;
+
+/**
+ * A collection backed store of X509CertificateHolder objects which answers issuer and serial number,
+ * and subject key identifier lookups from hash indexes.
+ * <p>
+ * X509CertificateHolderSelector selectors are resolved using the indexes, which are built on the first such
+ * lookup. Any other selector is matched against every certificate in the store. In either case the matches
+ * are returned in the order the certificates were originally presented.
+ * </p>
+ */
+public class X509CertificateHolderStore
+    extends CollectionStore<X509CertificateHolder>
+{
+    private final X509CertificateHolder[] certs;
+
+    private volatile Indexes indexes;
+
+    /**
+     * Basic constructor.
+     *
+     * @param collection - initial contents for the store, this is copied.
+     */
+    public X509CertificateHolderStore(Collection<X509CertificateHolder> collection)
+    {
+        super(collection);
+
+        this.certs = collection.toArray(new X509CertificateHolder[collection.size()]);
+    }
+
+    /**
+     * Return the matches in the collection for the passed in selector.
+     *
+     * @param selector the selector to match against.
+     * @return a possibly empty collection of matching objects.
+     */
+    public Collection<X509CertificateHolder> getMatches(Selector<X509CertificateHolder> selector)
+    {
+        if (selector instanceof X509CertificateHolderSelector)
+        {
+            return getIndexedMatches((X509CertificateHolderSelector)selector);
+        }
+
+        return super.getMatches(selector);
+    }
+
+    /**
+     * Return the matches in the collection for the passed in certificate selector, using the indexes.
+     *
+     * @param selector the selector to match against.
+     * @return a possibly empty collection of matching objects.
+     */
+    protected Collection<X509CertificateHolder> getIndexedMatches(X509CertificateHolderSelector selector)
+    {
+        List<X509CertificateHolder> col = new ArrayList<X509CertificateHolder>();
+        BigInteger serialNumber = selector.getSerialNumber();
+        byte[] subjectKeyId = selector.getSubjectKeyIdentifier();
+
+        // the selectors only ever match on the serial number if one is present, and on the subject key identifier otherwise.
+        List<Integer> candidates;
+        if (serialNumber != null)
+        {
+            candidates = getIndexes().bySerialNumber.get(serialNumber);
+        }
+        else if (subjectKeyId != null)
+        {
+            Indexes indexes = getIndexes();
+
+            candidates = merge(indexes.bySubjectKeyId.get(new KeyId(subjectKeyId)), indexes.noSubjectKeyId);
+        }
+        else
+        {
+            return col;
+        }
+
+        if (candidates != null)
+        {
+            for (int i = 0; i != candidates.size(); i++)
+            {
+                X509CertificateHolder cert = certs[candidates.get(i).intValue()];
+
+                if (selector.match(cert))
+                {
+                    col.add(cert);
+                }
+            }
+        }
+
+        return col;
+    }
+
+    private Indexes getIndexes()
+    {
+        Indexes indexes = this.indexes;
+        if (indexes == null)
+        {
+            synchronized (this)
+            {
+                indexes = this.indexes;
+                if (indexes == null)
+                {
+                    indexes = new Indexes(certs);
+                    this.indexes = indexes;
+                }
+            }
+        }
+        return indexes;
+    }
+
+    private static List<Integer> merge(List<Integer> a, List<Integer> b)
+    {
+        if (a == null || a.isEmpty())
+        {
+            return b;
+        }
+        if (b.isEmpty())
+        {
+            return a;
+        }
+
+        List<Integer> merged = new ArrayList<Integer>(a.size() + b.size());
+        int i = 0, j = 0;
+        while (i < a.size() && j < b.size())
+        {
+            if (a.get(i).intValue() < b.get(j).intValue())
+            {
+                merged.add(a.get(i++));
+            }
+            else
+            {
+                merged.add(b.get(j++));
+            }
+        }
+        merged.addAll(a.subList(i, a.size()));
+        merged.addAll(b.subList(j, b.size()));
+
+        return merged;
+    }
+
+    private static class Indexes
+    {
+        final Map<BigInteger, List<Integer>> bySerialNumber = new HashMap<BigInteger, List<Integer>>();
+        final Map<KeyId, List<Integer>> bySubjectKeyId = new HashMap<KeyId, List<Integer>>();
+        // certificates without a usable subject key identifier extension are matched on a calculated key ID.
+        final List<Integer> noSubjectKeyId = new ArrayList<Integer>();
+
+        Indexes(X509CertificateHolder[] certs)
+        {
+            for (int i = 0; i != certs.length; i++)
+            {
+                X509CertificateHolder cert = certs[i];
+                Integer position = Integer.valueOf(i);
+
+                add(bySerialNumber, cert.getSerialNumber(), position);
+
+                byte[] subjectKeyId = getSubjectKeyId(cert);
+                if (subjectKeyId != null)
+                {
+                    add(bySubjectKeyId, new KeyId(subjectKeyId), position);
+                }
+                else
+                {
+                    noSubjectKeyId.add(position);
+                }
+            }
+        }
+
+        private static byte[] getSubjectKeyId(X509CertificateHolder cert)
+        {
+            Extension ext = cert.getExtension(Extension.subjectKeyIdentifier);
+            if (ext != null)
+            {
+                try
+                {
+                    return ASN1OctetString.getInstance(ext.getParsedValue()).getOctets();
+                }
+                catch (Exception e)
+                {
+                    // leave it to the selector
+                }
+            }
+            return null;
+        }
+
+        private static <K> void add(Map<K, List<Integer>> map, K key, Integer position)
+        {
+            List<Integer> list = map.get(key);
+            if (list == null)
+            {
+                list = new ArrayList<Integer>(1);
+                map.put(key, list);
+            }
+            list.add(position);
+        }
+    }
+
+    private static class KeyId
+    {
+        private final byte[] id;
+
+        KeyId(byte[] id)
+        {
+            this.id = id;
+        }
+
+        public int hashCode()
+        {
+            return Arrays.hashCode(id);
+        }
+
+        public boolean equals(Object o)
+        {
+            return o instanceof KeyId && Arrays.areEqual(id, ((KeyId)o).id);
+        }
+    }
+}
@@ -9,7 +9,7 @@
 import java.util.List;
 
 import org.bouncycastle.cert.X509CertificateHolder;
-import org.bouncycastle.util.CollectionStore;
+import org.bouncycastle.cert.X509CertificateHolderStore;
 
 /**
  * Class for storing Certificates for later lookup.
@@ -18,7 +18,7 @@
  * </p>
  */
 public class JcaCertStore
-    extends CollectionStore
+    extends X509CertificateHolderStore
 {
     /**
      * Basic constructor.
@@ -0,0 +1,35 @@
+package org.bouncycastle.cms;
+
+import java.util.Collection;
+
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509CertificateHolderStore;
+import org.bouncycastle.cert.selector.X509CertificateHolderSelector;
+import org.bouncycastle.util.Selector;
+
+/**
+ * Certificate store for the certificates carried in a CMS message, which also resolves SignerId lookups
+ * using the store's indexes.
+ */
+class CMSCertificateStore
+    extends X509CertificateHolderStore
+{
+    CMSCertificateStore(Collection<X509CertificateHolder> collection)
+    {
+        super(collection);
+    }
+
+    public Collection<X509CertificateHolder> getMatches(Selector<X509CertificateHolder> selector)
+    {
+        if (selector instanceof SignerId)
+        {
+            SignerId signerId = (SignerId)selector;
+
+            // a SignerId matches a certificate exactly as its underlying certificate selector does.
+            return getIndexedMatches(new X509CertificateHolderSelector(signerId.getIssuer(),
+                signerId.getSerialNumber(), signerId.getSubjectKeyIdentifier()));
+        }
+
+        return super.getMatches(selector);
+    }
+}
@@ -12,6 +12,11 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.bouncycastle.asn1.ASN1Encodable;
 import org.bouncycastle.asn1.ASN1EncodableVector;
@@ -460,6 +465,116 @@ public boolean verifySignatures(SignerInformationVerifierProvider verifierProvid
         return true;
     }
 
+    /**
+     * Verify all the SignerInformation objects and optionally their associated counter signatures attached
+     * to this CMS SignedData object, using executor to carry out the individual verifications concurrently.
+     * <p>
+     * Verifiers are obtained from verifierProvider on the calling thread, before any verification is started,
+     * and the calling thread takes part in the verifications itself. Note: where the content is detached it
+     * will be read once for each signer, possibly concurrently, so it must support being written more than once.
+     * </p>
+     *
+     * @param verifierProvider        a provider of SignerInformationVerifier objects.
+     * @param ignoreCounterSignatures if true don't check counter signatures. If false check counter signatures as well.
+     * @param executor                the executor to run verifications on.
+     * @return true if all verify, false otherwise.
+     * @throws CMSException if an exception occurs during the verification process.
+     */
+    public boolean verifySignatures(SignerInformationVerifierProvider verifierProvider, boolean ignoreCounterSignatures, Executor executor)
+        throws CMSException
+    {
+        List<FutureTask<Boolean>> tasks = new ArrayList<FutureTask<Boolean>>();
+
+        try
+        {
+            addVerificationTasks(tasks, this.getSignerInfos().getSigners(), verifierProvider, !ignoreCounterSignatures);
+        }
+        catch (OperatorCreationException e)
+        {
+            throw new CMSException("failure in verifier provider: " + e.getMessage(), e);
+        }
+
+        for (int i = 0; i != tasks.size(); i++)
+        {
+            FutureTask<Boolean> task = tasks.get(i);
+            try
+            {
+                executor.execute(task);
+            }
+            catch (RejectedExecutionException e)
+            {
+                task.run();
+            }
+        }
+
+        // run anything the executor has not got to yet here - FutureTask.run() is a no-op once a task has started.
+        for (int i = tasks.size() - 1; i >= 0; i--)
+        {
+            tasks.get(i).run();
+        }
+
+        boolean verified = true;
+        try
+        {
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                if (!tasks.get(i).get().booleanValue())
+                {
+                    verified = false;
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new CMSException("interrupted during signature verification");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof CMSException)
+            {
+                throw (CMSException)cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error)cause;
+            }
+            throw new CMSException("exception during signature verification: " + cause.getMessage(), (Exception)cause);
+        }
+
+        return verified;
+    }
+
+    private static void addVerificationTasks(List<FutureTask<Boolean>> tasks, Collection<SignerInformation> signers, SignerInformationVerifierProvider verifierProvider,
+        boolean includeCounterSignatures)
+        throws OperatorCreationException
+    {
+        for (Iterator<SignerInformation> it = signers.iterator(); it.hasNext(); )
+        {
+            final SignerInformation signer = it.next();
+            final SignerInformationVerifier verifier = verifierProvider.get(signer.getSID());
+
+            tasks.add(new FutureTask<Boolean>(new Callable<Boolean>()
+            {
+                public Boolean call()
+                    throws Exception
+                {
+                    return Boolean.valueOf(signer.verify(verifier));
+                }
+            }));
+
+            if (includeCounterSignatures)
+            {
+                addVerificationTasks(tasks, signer.getCounterSignatures().getSigners(), verifierProvider, true);
+            }
+        }
+    }
+
     private boolean verifyCounterSignature(SignerInformation counterSigner, SignerInformationVerifierProvider verifierProvider)
         throws OperatorCreationException, CMSException
     {
@@ -12,6 +12,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.bouncycastle.asn1.ASN1Encodable;
 import org.bouncycastle.asn1.ASN1EncodableVector;
@@ -94,6 +95,7 @@
     private ASN1ObjectIdentifier    _signedContentType;
     private CMSTypedStream          _signedContent;
     private Map                     digests;
+    private ParallelDigestInputStream digestStream;
     private Set<AlgorithmIdentifier> digestAlgorithms;
 
     private SignerInformationStore  _signerInfoStore;
@@ -266,6 +268,18 @@ public SignerInformationStore getSignerInfos()
         {
             populateCertCrlSets();
             
+            if (digestStream != null)
+            {
+                try
+                {
+                    digestStream.finish();
+                }
+                catch (IOException e)
+                {
+                    throw new CMSException("unable to complete content digests: " + e.getMessage(), e);
+                }
+            }
+
             List      signerInfos = new ArrayList();
             Map       hashes = new HashMap();
             
@@ -403,6 +417,27 @@ public CMSTypedStream getSignedContent()
         return new CMSTypedStream(_signedContent.getContentType(), digStream);
     }
 
+    /**
+     * Return the signed content with the digests required for signature verification calculated on the
+     * passed in executor. The content is read once, in blocks, with the digests of each block being
+     * calculated concurrently while the next block is read. The digests are complete once the returned
+     * stream has been fully read, or closed.
+     *
+     * @param executor the executor to calculate the digests on.
+     * @return the signed content, null if the content is detached and was not provided.
+     */
+    public CMSTypedStream getSignedContent(Executor executor)
+    {
+        if (_signedContent == null)
+        {
+            return null;
+        }
+
+        digestStream = new ParallelDigestInputStream(_signedContent.getContentStream(), digests.values(), executor);
+
+        return new CMSTypedStream(_signedContent.getContentType(), digestStream);
+    }
+
     /**
      * Replace the signerinformation store associated with the passed
      * in message contained in the stream original with the new one passed in.
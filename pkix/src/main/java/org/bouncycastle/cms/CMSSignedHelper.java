@@ -163,10 +163,10 @@ Store getCertificates(ASN1Set certSet)
                 }
             }
 
-            return new CollectionStore(certList);
+            return new CMSCertificateStore(certList);
         }
 
-        return new CollectionStore(new ArrayList());
+        return new CMSCertificateStore(new ArrayList());
     }
 
     Store getAttributeCertificates(ASN1Set certSet)
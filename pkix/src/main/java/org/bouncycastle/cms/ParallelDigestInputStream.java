@@ -0,0 +1,247 @@
+package org.bouncycastle.cms;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.bouncycastle.operator.DigestCalculator;
+
+/**
+ * An input stream which passes the data read through a set of digest calculators, with each calculator
+ * updated on the executor. Data is collected into blocks, and while one block is being digested the next
+ * is being read, so the content is only read once however many digests are being calculated.
+ */
+class ParallelDigestInputStream
+    extends FilterInputStream
+{
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private final OutputStream[] digestStreams;
+    private final Executor executor;
+
+    // two blocks - one being filled while the other is digested.
+    private byte[] block = new byte[BLOCK_SIZE];
+    private byte[] spare = new byte[BLOCK_SIZE];
+    private int blockOff = 0;
+
+    private List<FutureTask<Void>> pending;
+
+    ParallelDigestInputStream(InputStream in, Collection digests, Executor executor)
+    {
+        super(in);
+
+        this.digestStreams = new OutputStream[digests.size()];
+        this.executor = executor;
+
+        int i = 0;
+        for (Iterator it = digests.iterator(); it.hasNext();)
+        {
+            digestStreams[i++] = ((DigestCalculator)it.next()).getOutputStream();
+        }
+    }
+
+    public int read()
+        throws IOException
+    {
+        int ch = in.read();
+
+        if (ch >= 0)
+        {
+            if (blockOff == block.length)
+            {
+                dispatch();
+            }
+            block[blockOff++] = (byte)ch;
+        }
+        else
+        {
+            finish();
+        }
+
+        return ch;
+    }
+
+    public int read(byte[] buf, int off, int len)
+        throws IOException
+    {
+        int numRead = in.read(buf, off, len);
+
+        if (numRead > 0)
+        {
+            int pos = 0;
+            while (pos < numRead)
+            {
+                if (blockOff == block.length)
+                {
+                    dispatch();
+                }
+
+                int count = Math.min(numRead - pos, block.length - blockOff);
+                System.arraycopy(buf, off + pos, block, blockOff, count);
+                blockOff += count;
+                pos += count;
+            }
+        }
+        else if (numRead < 0)
+        {
+            finish();
+        }
+
+        return numRead;
+    }
+
+    public long skip(long n)
+        throws IOException
+    {
+        // skipped data still needs to be digested
+        byte[] buf = new byte[(int)Math.min(n, BLOCK_SIZE)];
+
+        long total = 0;
+        while (total < n)
+        {
+            int numRead = read(buf, 0, (int)Math.min(n - total, buf.length));
+            if (numRead < 0)
+            {
+                break;
+            }
+            total += numRead;
+        }
+
+        return total;
+    }
+
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    public void close()
+        throws IOException
+    {
+        try
+        {
+            finish();
+        }
+        finally
+        {
+            super.close();
+        }
+    }
+
+    /**
+     * Digest any remaining data and wait for all the digest calculators to be brought up to date.
+     *
+     * @throws IOException if a digest calculator fails.
+     */
+    void finish()
+        throws IOException
+    {
+        if (blockOff > 0)
+        {
+            dispatch();
+        }
+        await();
+    }
+
+    private void dispatch()
+        throws IOException
+    {
+        // the previous block must be fully digested before its buffer can be reused and to keep the updates in order.
+        await();
+
+        final byte[] data = block;
+        final int dataLen = blockOff;
+
+        block = spare;
+        blockOff = 0;
+        spare = data;
+
+        List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(digestStreams.length);
+        for (int i = 0; i != digestStreams.length; i++)
+        {
+            final OutputStream dOut = digestStreams[i];
+
+            tasks.add(new FutureTask<Void>(new Callable<Void>()
+            {
+                public Void call()
+                    throws Exception
+                {
+                    dOut.write(data, 0, dataLen);
+                    return null;
+                }
+            }));
+        }
+
+        pending = tasks;
+        for (int i = 0; i != tasks.size(); i++)
+        {
+            FutureTask<Void> task = tasks.get(i);
+            try
+            {
+                executor.execute(task);
+            }
+            catch (RejectedExecutionException e)
+            {
+                task.run();
+            }
+        }
+    }
+
+    private void await()
+        throws IOException
+    {
+        if (pending == null)
+        {
+            return;
+        }
+
+        List<FutureTask<Void>> tasks = pending;
+        pending = null;
+
+        // run anything the executor has not got to yet here - FutureTask.run() is a no-op once a task has started.
+        for (int i = tasks.size() - 1; i >= 0; i--)
+        {
+            tasks.get(i).run();
+        }
+
+        try
+        {
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                tasks.get(i).get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while calculating digests");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException)cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error)cause;
+            }
+            throw new IOException("exception calculating digest: " + cause.getMessage());
+        }
+    }
+}
@@ -3,7 +3,7 @@
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.ref.WeakReference;
+import java.io.InterruptedIOException;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.security.cert.CRL;
@@ -12,13 +12,19 @@
 import java.security.cert.X509CRL;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.naming.Context;
 import javax.naming.NamingException;
@@ -32,66 +38,403 @@
 import org.bouncycastle.util.Iterable;
 import org.bouncycastle.util.Selector;
 import org.bouncycastle.util.Store;
+import org.bouncycastle.util.io.Streams;
 
-class CrlCache
+/**
+ * A bounded cache of CRLs downloaded from CRL distribution points, for use with
+ * {@link X509RevocationChecker}. Entries are held until the nextUpdate of the CRLs they contain has
+ * passed (or, for CRLs without a nextUpdate, until a configurable maximum age), subject to limits on
+ * the number of distribution points and the total encoded size retained. Concurrent requests for the
+ * same distribution point share a single download, and if an {@link Executor} is configured an entry
+ * is refreshed in the background shortly before its nextUpdate. Background refreshes of a distribution
+ * point are attempted at most once per refresh retry interval, so a CA which has yet to publish a new
+ * CRL, or a distribution point which is unreachable, is not polled on every lookup.
+ * <p>
+ * A cache instance is thread safe and is intended to be shared by all the checkers in an application.
+ * </p>
+ */
+public class CrlCache
 {
+    private static final Logger LOG = Logger.getLogger(CrlCache.class.getName());
+
     private static final int DEFAULT_TIMEOUT = 15000;
 
-    private static Map<URI, WeakReference<PKIXCRLStore>> cache =
-        Collections.synchronizedMap(new WeakHashMap<URI, WeakReference<PKIXCRLStore>>());
+    static final CrlCache DEFAULT = new Builder().build();
+
+    public static class Builder
+    {
+        private int maxEntries = 256;
+        private long maxBytes = 64L * 1024 * 1024;
+        private long maxAge = 24L * 60 * 60 * 1000;
+        private long prefetchWindow = 5L * 60 * 1000;
+        private long refreshRetryInterval = 60L * 1000;
+        private int timeout = DEFAULT_TIMEOUT;
+        private Executor executor;
+
+        public Builder()
+        {
+        }
+
+        /**
+         * Set the maximum number of distribution points to retain CRLs for (default 256).
+         *
+         * @param maxEntries the maximum number of cache entries.
+         * @return the current builder instance.
+         */
+        public Builder setMaxEntries(int maxEntries)
+        {
+            if (maxEntries < 1)
+            {
+                throw new IllegalArgumentException("maxEntries must be at least 1");
+            }
+            this.maxEntries = maxEntries;
+
+            return this;
+        }
+
+        /**
+         * Set the maximum total encoded size of the CRLs retained (default 64MB). The most recently
+         * fetched entry is always retained, even if it alone exceeds the limit.
+         *
+         * @param maxBytes the maximum number of bytes of encoded CRL data to hold.
+         * @return the current builder instance.
+         */
+        public Builder setMaxBytes(long maxBytes)
+        {
+            if (maxBytes < 1)
+            {
+                throw new IllegalArgumentException("maxBytes must be at least 1");
+            }
+            this.maxBytes = maxBytes;
+
+            return this;
+        }
+
+        /**
+         * Set how long CRLs which carry no nextUpdate are retained for (default 24 hours).
+         *
+         * @param maxAge the maximum age, in milliseconds.
+         * @return the current builder instance.
+         */
+        public Builder setMaxAge(long maxAge)
+        {
+            this.maxAge = maxAge;
+
+            return this;
+        }
+
+        /**
+         * Set how long before the nextUpdate of a cached CRL a background refresh may be started
+         * (default 5 minutes). Only used if an executor has been configured.
+         *
+         * @param prefetchWindow the prefetch window, in milliseconds.
+         * @return the current builder instance.
+         */
+        public Builder setPrefetchWindow(long prefetchWindow)
+        {
+            this.prefetchWindow = prefetchWindow;
+
+            return this;
+        }
+
+        /**
+         * Set the minimum time between background refreshes of the same distribution point (default 1 minute).
+         *
+         * @param refreshRetryInterval the minimum retry interval, in milliseconds.
+         * @return the current builder instance.
+         */
+        public Builder setRefreshRetryInterval(long refreshRetryInterval)
+        {
+            this.refreshRetryInterval = refreshRetryInterval;
+
+            return this;
+        }
 
-    static synchronized PKIXCRLStore getCrl(CertificateFactory certFact, Date validDate, URI distributionPoint)
+        /**
+         * Set the connect and read timeout used for HTTP downloads (default 15 seconds).
+         *
+         * @param timeout the timeout, in milliseconds.
+         * @return the current builder instance.
+         */
+        public Builder setTimeout(int timeout)
+        {
+            this.timeout = timeout;
+
+            return this;
+        }
+
+        /**
+         * Set an executor to refresh entries on before they expire. If no executor is set, CRLs are
+         * only downloaded when a lookup finds the cached copy has expired.
+         *
+         * @param executor the executor to run background refreshes on.
+         * @return the current builder instance.
+         */
+        public Builder setExecutor(Executor executor)
+        {
+            this.executor = executor;
+
+            return this;
+        }
+
+        /**
+         * Build a CRL cache conforming to the current builder.
+         *
+         * @return a new CrlCache.
+         */
+        public CrlCache build()
+        {
+            return new CrlCache(this);
+        }
+    }
+
+    private final ConcurrentMap<URI, Entry> entries = new ConcurrentHashMap<URI, Entry>();
+    private final ConcurrentMap<URI, FutureTask<Entry>> inFlight = new ConcurrentHashMap<URI, FutureTask<Entry>>();
+    // when a background refresh of each distribution point was last started.
+    private final ConcurrentMap<URI, Long> lastRefresh = new ConcurrentHashMap<URI, Long>();
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long maxAge;
+    private final long prefetchWindow;
+    private final long refreshRetryInterval;
+    private final int timeout;
+    private final Executor executor;
+
+    private long totalBytes = 0;
+
+    private CrlCache(Builder bldr)
+    {
+        this.maxEntries = bldr.maxEntries;
+        this.maxBytes = bldr.maxBytes;
+        this.maxAge = bldr.maxAge;
+        this.prefetchWindow = bldr.prefetchWindow;
+        this.refreshRetryInterval = bldr.refreshRetryInterval;
+        this.timeout = bldr.timeout;
+        this.executor = bldr.executor;
+    }
+
+    /**
+     * Return the number of distribution points currently cached.
+     *
+     * @return the number of cache entries.
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+        lastRefresh.clear();
+        totalBytes = 0;
+    }
+
+    PKIXCRLStore getCrl(CertificateFactory certFact, Date validDate, URI distributionPoint)
         throws IOException, CRLException
     {
-        PKIXCRLStore crlStore = null;
+        long now = System.currentTimeMillis();
 
-        WeakReference<PKIXCRLStore> markerRef = (WeakReference)cache.get(distributionPoint);
-        if (markerRef != null)
+        Entry entry = entries.get(distributionPoint);
+        if (entry != null && !entry.isExpired(validDate, now))
         {
-            crlStore = (PKIXCRLStore)markerRef.get();
+            entry.lastAccess = now;
+
+            if (executor != null && entry.isDueForRefresh(now, prefetchWindow))
+            {
+                prefetch(certFact, distributionPoint, now);
+            }
+
+            return entry.store;
         }
 
-        if (crlStore != null)
+        return fetch(certFact, distributionPoint).store;
+    }
+
+    /*
+     * Download the CRLs for a distribution point, with at most one download per distribution point in
+     * progress at a time - other callers wait for, and share, the result of the running one.
+     */
+    private Entry fetch(final CertificateFactory certFact, final URI distributionPoint)
+        throws IOException, CRLException
+    {
+        FutureTask<Entry> task = new FutureTask<Entry>(new Callable<Entry>()
         {
-            boolean isExpired = false;
-            for (Iterator it = crlStore.getMatches(null).iterator(); it.hasNext();)
+            public Entry call()
+                throws Exception
             {
-                X509CRL crl = (X509CRL)it.next();
+                return load(certFact, distributionPoint);
+            }
+        });
 
-                Date nextUpdate = crl.getNextUpdate();
-                if (nextUpdate != null && nextUpdate.before(validDate))
-                {
-                    isExpired = true;
-                    break;
-                }
+        FutureTask<Entry> running = inFlight.putIfAbsent(distributionPoint, task);
+        if (running == null)
+        {
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                inFlight.remove(distributionPoint, task);
             }
+            running = task;
+        }
 
-            if (!isExpired)
+        try
+        {
+            return running.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for CRL from: " + distributionPoint);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
             {
-                return crlStore;
+                throw (IOException)cause;
             }
+            if (cause instanceof CRLException)
+            {
+                throw (CRLException)cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error)cause;
+            }
+            throw new CRLException("unable to fetch CRL from: " + distributionPoint, cause);
         }
+    }
 
-        Collection crls;
+    private void prefetch(CertificateFactory certFact, final URI distributionPoint, long now)
+    {
+        if (inFlight.containsKey(distributionPoint))
+        {
+            return;
+        }
+
+        // the refresh state is kept by distribution point, as a refresh may well return the same CRL again.
+        Long last = lastRefresh.get(distributionPoint);
+        if (last == null)
+        {
+            if (lastRefresh.putIfAbsent(distributionPoint, Long.valueOf(now)) != null)
+            {
+                return;
+            }
+        }
+        else if (now - last.longValue() < refreshRetryInterval
+            || !lastRefresh.replace(distributionPoint, last, Long.valueOf(now)))
+        {
+            return;
+        }
+
+        final CertificateFactory refreshFact;
+        try
+        {
+            // CertificateFactory instances are not thread safe, so the refresh gets its own.
+            refreshFact = CertificateFactory.getInstance(certFact.getType(), certFact.getProvider());
+        }
+        catch (Exception e)
+        {
+            LOG.log(Level.FINE, "unable to create CertificateFactory for CRL refresh: " + e.getMessage(), e);
+            return;
+        }
+
+        try
+        {
+            executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        fetch(refreshFact, distributionPoint);
+                    }
+                    catch (Exception e)
+                    {
+                        // the existing entry stays usable until it expires
+                        LOG.log(Level.INFO, "background refresh of CRL from " + distributionPoint + " failed: " + e.getMessage());
+                    }
+                }
+            });
+        }
+        catch (RuntimeException e)
+        {
+            LOG.log(Level.FINE, "unable to schedule CRL refresh: " + e.getMessage(), e);
+        }
+    }
+
+    private Entry load(CertificateFactory certFact, URI distributionPoint)
+        throws IOException, CRLException
+    {
+        byte[] encoding;
 
         if (distributionPoint.getScheme().equals("ldap"))
         {
-            crls = getCrlsFromLDAP(certFact, distributionPoint);
+            encoding = getCrlsFromLDAP(distributionPoint);
         }
         else
         {
             // http, https, ftp
-            crls = getCrls(certFact, distributionPoint);
+            encoding = getCrls(distributionPoint, timeout);
+        }
+
+        Collection crls = certFact.generateCRLs(new ByteArrayInputStream(encoding));
+
+        Entry entry = new Entry(new LocalCRLStore(new CollectionStore<CRL>(crls)), encoding.length,
+            System.currentTimeMillis(), maxAge);
+
+        store(distributionPoint, entry);
+
+        return entry;
+    }
+
+    private synchronized void store(URI distributionPoint, Entry entry)
+    {
+        Entry previous = entries.put(distributionPoint, entry);
+        if (previous != null)
+        {
+            totalBytes -= previous.size;
         }
+        totalBytes += entry.size;
 
-        LocalCRLStore localCRLStore = new LocalCRLStore(new CollectionStore<CRL>(crls));
+        // evict least recently used entries, always keeping the one just added
+        while (entries.size() > maxEntries || (totalBytes > maxBytes && entries.size() > 1))
+        {
+            Map.Entry<URI, Entry> eldest = null;
+            for (Iterator<Map.Entry<URI, Entry>> it = entries.entrySet().iterator(); it.hasNext();)
+            {
+                Map.Entry<URI, Entry> candidate = it.next();
+                if (candidate.getValue() != entry
+                    && (eldest == null || candidate.getValue().lastAccess < eldest.getValue().lastAccess))
+                {
+                    eldest = candidate;
+                }
+            }
 
-        cache.put(distributionPoint, new WeakReference<PKIXCRLStore>(localCRLStore));
+            if (eldest == null)
+            {
+                break;
+            }
 
-        return localCRLStore;
+            entries.remove(eldest.getKey());
+            lastRefresh.remove(eldest.getKey());
+            totalBytes -= eldest.getValue().size;
+        }
     }
 
-    private static Collection getCrlsFromLDAP(CertificateFactory certFact, URI distributionPoint)
+    private static byte[] getCrlsFromLDAP(URI distributionPoint)
         throws IOException, CRLException
     {
         Map<String, String> env = new Hashtable<String, String>();
@@ -118,24 +461,69 @@ private static Collection getCrlsFromLDAP(CertificateFactory certFact, URI distr
         }
         else
         {
-            return certFact.generateCRLs(new ByteArrayInputStream(val));
+            return val;
         }
     }
 
-    private static Collection getCrls(CertificateFactory certFact, URI distributionPoint)
-        throws IOException, CRLException
+    private static byte[] getCrls(URI distributionPoint, int timeout)
+        throws IOException
     {
         HttpURLConnection crlCon = (HttpURLConnection)distributionPoint.toURL().openConnection();
-        crlCon.setConnectTimeout(DEFAULT_TIMEOUT);
-        crlCon.setReadTimeout(DEFAULT_TIMEOUT);
+        crlCon.setConnectTimeout(timeout);
+        crlCon.setReadTimeout(timeout);
 
         InputStream crlIn = crlCon.getInputStream();
 
-        Collection crls = certFact.generateCRLs(crlIn);
+        byte[] encoding = Streams.readAll(crlIn);
 
         crlIn.close();
 
-        return crls;
+        return encoding;
+    }
+
+    private static class Entry
+    {
+        final PKIXCRLStore store;
+        final int size;
+        final long fetchedAt;
+        final long nextUpdate;
+        final long maxAge;
+
+        volatile long lastAccess;
+
+        Entry(PKIXCRLStore store, int size, long fetchedAt, long maxAge)
+        {
+            this.store = store;
+            this.size = size;
+            this.fetchedAt = fetchedAt;
+            this.maxAge = maxAge;
+            this.lastAccess = fetchedAt;
+
+            long earliest = Long.MAX_VALUE;
+            for (Iterator it = store.getMatches(null).iterator(); it.hasNext();)
+            {
+                Date crlNextUpdate = ((X509CRL)it.next()).getNextUpdate();
+                if (crlNextUpdate != null && crlNextUpdate.getTime() < earliest)
+                {
+                    earliest = crlNextUpdate.getTime();
+                }
+            }
+            this.nextUpdate = earliest;
+        }
+
+        boolean isExpired(Date validDate, long now)
+        {
+            if (nextUpdate != Long.MAX_VALUE)
+            {
+                return nextUpdate < validDate.getTime();
+            }
+            return now - fetchedAt > maxAge;
+        }
+
+        boolean isDueForRefresh(long now, long prefetchWindow)
+        {
+            return nextUpdate != Long.MAX_VALUE && now >= nextUpdate - prefetchWindow;
+        }
     }
 
     private static class LocalCRLStore<T extends CRL>
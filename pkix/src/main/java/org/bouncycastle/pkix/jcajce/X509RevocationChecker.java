@@ -101,6 +101,7 @@
         private long failLogMaxTime;
         private long failHardMaxTime;
         private Date validityDate = new Date();
+        private CrlCache crlCache = CrlCache.DEFAULT;
 
         /**
          * Base constructor.
@@ -182,6 +183,24 @@ public Builder setDate(Date validityDate)
             return this;
         }
 
+        /**
+         * Set the cache used for CRLs downloaded from CRL distribution points. By default a
+         * cache shared by all checkers not otherwise configured is used.
+         *
+         * @param crlCache the CRL cache to use.
+         * @return the current builder instance.
+         */
+        public Builder setCrlCache(CrlCache crlCache)
+        {
+            if (crlCache == null)
+            {
+                throw new NullPointerException("crlCache cannot be null");
+            }
+            this.crlCache = crlCache;
+
+            return this;
+        }
+
         /**
          * @param isTrue true if only end-entities should be checked, false otherwise.
          * @return the current builder instance.
@@ -298,6 +317,7 @@ public X509RevocationChecker build()
     private final long failLogMaxTime;
     private final long failHardMaxTime;
     private final Date validationDate;
+    private final CrlCache crlCache;
 
     private Date currentDate;
     private X500Principal workingIssuerName;
@@ -315,6 +335,7 @@ private X509RevocationChecker(Builder bldr)
         this.failLogMaxTime = bldr.failLogMaxTime;
         this.failHardMaxTime = bldr.failHardMaxTime;
         this.validationDate = bldr.validityDate;
+        this.crlCache = bldr.crlCache;
 
         if (bldr.provider != null)
         {
@@ -622,7 +643,7 @@ private Set<CRL> downloadCRLs(X500Principal issuer, Date currentDate, ASN1Primit
                         {
                             url = new URI(((ASN1String)name.getName()).getString());
 
-                            PKIXCRLStore store = CrlCache.getCrl(certFact, validationDate, url);
+                            PKIXCRLStore store = crlCache.getCrl(certFact, validationDate, url);
 
                             if (store != null)
                             {
@@ -39,6 +39,7 @@ public static Test suite()
         TestSuite suite = new TestSuite("OCSP Tests");
         
         suite.addTestSuite(AllTests.class);
+        suite.addTestSuite(OcspCacheTest.class);
         
         return suite;
     }
@@ -0,0 +1,340 @@
+package org.bouncycastle.cert.ocsp.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.security.KeyPair;
+import java.security.Security;
+import java.security.cert.CertPath;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertificateFactory;
+import java.security.cert.PKIXParameters;
+import java.security.cert.PKIXRevocationChecker;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.RespID;
+import org.bouncycastle.cert.ocsp.jcajce.JcaBasicOCSPRespBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.jce.provider.OcspCache;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.util.Strings;
+import org.bouncycastle.util.io.Streams;
+
+public class OcspCacheTest
+    extends TestCase
+{
+    private static final String BC = "BC";
+
+    private static boolean initialized = false;
+
+    static KeyPair rootKp;
+    static KeyPair caKp;
+    static KeyPair ocspKp;
+
+    static X509Certificate root;
+    static X509Certificate ca;
+    static X509Certificate ocsp;
+
+    private OcspServer server;
+
+    public void setUp()
+        throws Exception
+    {
+        if (!initialized)
+        {
+            Security.addProvider(new BouncyCastleProvider());
+
+            rootKp = OCSPTestUtil.makeKeyPair();
+            caKp = OCSPTestUtil.makeKeyPair();
+            ocspKp = OCSPTestUtil.makeKeyPair();
+
+            root = OCSPTestUtil.makeRootCertificate(rootKp, "CN=Root");
+            ca = OCSPTestUtil.makeCertificate(caKp, "CN=CA", rootKp, root, true);
+            ocsp = OCSPTestUtil.makeRootCertificate(ocspKp, "CN=OCSP");
+
+            initialized = true;
+        }
+
+        server = new OcspServer();
+    }
+
+    public void tearDown()
+        throws Exception
+    {
+        server.close();
+    }
+
+    public void testRepeatedChecksQueryOnce()
+        throws Exception
+    {
+        X509Certificate ee = makeEe();
+
+        server.setResponse(makeResponse(ee, new Date(System.currentTimeMillis() + 60 * 60 * 1000L)));
+
+        long hits = OcspCache.getHitCount();
+        long misses = OcspCache.getMissCount();
+
+        for (int i = 0; i != 3; i++)
+        {
+            checkGood(ee);
+        }
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, OcspCache.getMissCount() - misses);
+        assertEquals(2, OcspCache.getHitCount() - hits);
+    }
+
+    public void testConcurrentChecksShareQuery()
+        throws Exception
+    {
+        final X509Certificate ee = makeEe();
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        server.setResponse(makeResponse(ee, new Date(System.currentTimeMillis() + 60 * 60 * 1000L)));
+        server.setDelay(500);
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i != threads.length; i++)
+        {
+            threads[i] = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        checkGood(ee);
+                    }
+                    catch (Throwable t)
+                    {
+                        failures.add(t);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i != threads.length; i++)
+        {
+            threads[i].join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    public void testExpiredResponseRefetched()
+        throws Exception
+    {
+        X509Certificate ee = makeEe();
+
+        server.setResponse(makeResponse(ee, new Date(System.currentTimeMillis() + 2000)));
+
+        checkGood(ee);
+
+        Thread.sleep(3000);
+
+        server.setResponse(makeResponse(ee, new Date(System.currentTimeMillis() + 60 * 60 * 1000L)));
+
+        checkGood(ee);
+        checkGood(ee);
+
+        assertEquals(2, server.getRequestCount());
+    }
+
+    public void testSnapshot()
+        throws Exception
+    {
+        X509Certificate ee = makeEe();
+
+        server.setResponse(makeResponse(ee, new Date(System.currentTimeMillis() + 60 * 60 * 1000L)));
+
+        checkGood(ee);
+
+        File snapshot = File.createTempFile("ocsp", ".cache");
+        try
+        {
+            OcspCache.saveSnapshot(snapshot);
+            OcspCache.clear();
+
+            assertEquals(0, OcspCache.size());
+            assertTrue(OcspCache.loadSnapshot(snapshot) >= 1);
+
+            checkGood(ee);
+
+            assertEquals(1, server.getRequestCount());
+        }
+        finally
+        {
+            snapshot.delete();
+        }
+    }
+
+    private static X509Certificate makeEe()
+        throws Exception
+    {
+        return OCSPTestUtil.makeCertificate(OCSPTestUtil.makeKeyPair(), "CN=EE", caKp, ca, false);
+    }
+
+    private static byte[] makeResponse(X509Certificate ee, Date nextUpdate)
+        throws Exception
+    {
+        DigestCalculatorProvider digCalcProv = new JcaDigestCalculatorProviderBuilder().setProvider(BC).build();
+
+        BasicOCSPRespBuilder respGen = new JcaBasicOCSPRespBuilder(ocspKp.getPublic(), digCalcProv.get(RespID.HASH_SHA1));
+
+        CertificateID eeID = new CertificateID(digCalcProv.get(CertificateID.HASH_SHA1), new JcaX509CertificateHolder(ca), ee.getSerialNumber());
+
+        respGen.addResponse(eeID, CertificateStatus.GOOD, new Date(), nextUpdate);
+
+        BasicOCSPResp resp = respGen.build(new JcaContentSignerBuilder("SHA1withRSA").setProvider(BC).build(ocspKp.getPrivate()), null, new Date());
+
+        return new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, resp).getEncoded();
+    }
+
+    private void checkGood(X509Certificate ee)
+        throws Exception
+    {
+        List<X509Certificate> list = new ArrayList<X509Certificate>();
+        list.add(ee);
+        list.add(ca);
+
+        CertPath certPath = CertificateFactory.getInstance("X.509", BC).generateCertPath(list);
+
+        CertPathValidator cpv = CertPathValidator.getInstance("PKIX", BC);
+
+        PKIXRevocationChecker rv = (PKIXRevocationChecker)cpv.getRevocationChecker();
+
+        rv.setOcspResponder(new URI("http://localhost:" + server.getPort() + "/"));
+        rv.setOptions(Collections.singleton(PKIXRevocationChecker.Option.ONLY_END_ENTITY));
+        rv.setOcspResponderCert(ocsp);
+
+        PKIXParameters param = new PKIXParameters(Collections.singleton(new TrustAnchor(root, null)));
+
+        param.addCertPathChecker(rv);
+
+        cpv.validate(certPath, param);
+    }
+
+    private static class OcspServer
+        implements Runnable
+    {
+        private final ServerSocket ss;
+        private final AtomicInteger requestCount = new AtomicInteger(0);
+
+        private volatile byte[] response;
+        private volatile long delay;
+
+        OcspServer()
+            throws Exception
+        {
+            this.ss = new ServerSocket(0);
+
+            Thread t = new Thread(this);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        int getPort()
+        {
+            return ss.getLocalPort();
+        }
+
+        int getRequestCount()
+        {
+            return requestCount.get();
+        }
+
+        void setResponse(byte[] response)
+        {
+            this.response = response;
+        }
+
+        void setDelay(long delay)
+        {
+            this.delay = delay;
+        }
+
+        void close()
+            throws Exception
+        {
+            ss.close();
+        }
+
+        public void run()
+        {
+            try
+            {
+                for (;;)
+                {
+                    Socket s = ss.accept();
+
+                    InputStream sIn = s.getInputStream();
+                    ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+                    int ch;
+                    int contentLength = 0;
+                    while ((ch = sIn.read()) >= 0)
+                    {
+                        bOut.write(ch);
+                        if (ch == '\n')
+                        {
+                            String line = Strings.fromByteArray(bOut.toByteArray()).trim();
+                            if (Strings.toLowerCase(line).startsWith("content-length:"))
+                            {
+                                contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+                            }
+                            if (line.length() == 0)
+                            {
+                                break;
+                            }
+                            bOut.reset();
+                        }
+                    }
+
+                    byte[] request = new byte[contentLength];
+                    Streams.readFully(sIn, request);
+
+                    requestCount.incrementAndGet();
+
+                    if (delay > 0)
+                    {
+                        Thread.sleep(delay);
+                    }
+
+                    byte[] resp = response;
+                    OutputStream sOut = s.getOutputStream();
+
+                    sOut.write(Strings.toByteArray("HTTP/1.1 200 OK\r\n"));
+                    sOut.write(Strings.toByteArray("Content-type: application/ocsp-response\r\n"));
+                    sOut.write(Strings.toByteArray("Content-Length: " + resp.length + "\r\n"));
+                    sOut.write(Strings.toByteArray("Connection: close\r\n"));
+                    sOut.write(Strings.toByteArray("\r\n"));
+                    sOut.write(resp);
+                    sOut.flush();
+                    s.close();
+                }
+            }
+            catch (Exception e)
+            {
+                // server closed
+            }
+        }
+    }
+}
@@ -16,7 +16,7 @@
     public void testSimpleTests()
     {
         org.bouncycastle.util.test.Test[] tests = new org.bouncycastle.util.test.Test[] { new CertTest(), new DANETest(), new PKCS10Test(), new AttrCertSelectorTest(), new AttrCertTest(), new X509ExtensionUtilsTest(),
-            new CertPathLoopTest(), new GOST3410_2012CMSTest(), new ExternalKeyTest() };
+            new CertPathLoopTest(), new GOST3410_2012CMSTest(), new ExternalKeyTest(), new X509CertificateHolderStoreTest() };
 
         for (int i = 0; i != tests.length; i++)
         {
@@ -40,6 +40,7 @@
 import java.security.spec.X509EncodedKeySpec;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -5374,6 +5375,121 @@ private void testMalformedIndirect()
         }
     }
 
+    // an indirect CRL may list the same serial number for more than one issuer
+    private void testIndirectDuplicateSerial()
+        throws Exception
+    {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12", BC);
+
+        ByteArrayInputStream input = new ByteArrayInputStream(testCAp12);
+
+        keyStore.load(input, "test".toCharArray());
+
+        X509Certificate certificate = (X509Certificate)keyStore.getCertificate("ca");
+        PrivateKey privateKey = (PrivateKey)keyStore.getKey("ca", null);
+
+        X500Name crlIssuer = X500Name.getInstance(certificate.getSubjectX500Principal().getEncoded());
+        X500Name caName = X500Name.getInstance(certificate.getIssuerX500Principal().getEncoded());
+
+        X509v2CRLBuilder builder = new X509v2CRLBuilder(crlIssuer, new Date());
+
+        builder.addExtension(Extension.issuingDistributionPoint, true, new IssuingDistributionPoint(null, true, false));
+
+        builder.addCRLEntry(certificate.getSerialNumber(), new Date(), CRLReason.keyCompromise);
+
+        ExtensionsGenerator extGen = new ExtensionsGenerator();
+
+        extGen.addExtension(Extension.reasonCode, false, CRLReason.lookup(CRLReason.cACompromise));
+        extGen.addExtension(Extension.certificateIssuer, true, new GeneralNames(new GeneralName(caName)));
+
+        builder.addCRLEntry(certificate.getSerialNumber(), new Date(), extGen.generate());
+
+        JcaContentSignerBuilder contentSignerBuilder = new JcaContentSignerBuilder("SHA256WithRSAEncryption");
+
+        contentSignerBuilder.setProvider(BC);
+
+        X509CRLHolder cRLHolder = builder.build(contentSignerBuilder.build(privateKey));
+
+        JcaX509CRLConverter converter = new JcaX509CRLConverter();
+
+        converter.setProvider(BC);
+
+        X509CRL crl = converter.getCRL(cRLHolder);
+
+        // the first entry is for the CRL issuer, the second for the certificate's actual issuer
+        if (!crl.isRevoked(certificate))
+        {
+            fail("Certificate should be revoked");
+        }
+
+        X509CRLEntry crlEntry = crl.getRevokedCertificate(certificate.getSerialNumber());
+
+        if (crlEntry.getCertificateIssuer() != null)
+        {
+            fail("first matching entry not returned");
+        }
+    }
+
+    private void testLargeCRLLookup()
+        throws Exception
+    {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12", BC);
+
+        ByteArrayInputStream input = new ByteArrayInputStream(testCAp12);
+
+        keyStore.load(input, "test".toCharArray());
+
+        X509Certificate certificate = (X509Certificate)keyStore.getCertificate("ca");
+        PrivateKey privateKey = (PrivateKey)keyStore.getKey("ca", null);
+
+        X500Name crlIssuer = X500Name.getInstance(certificate.getSubjectX500Principal().getEncoded());
+
+        X509v2CRLBuilder builder = new X509v2CRLBuilder(crlIssuer, new Date());
+
+        SecureRandom random = new SecureRandom();
+        Set serials = new HashSet();
+
+        for (int i = 0; i != 5000; i++)
+        {
+            BigInteger serial = new BigInteger(1 + random.nextInt(159), random);
+            if (serials.add(serial))
+            {
+                builder.addCRLEntry(serial, new Date(), CRLReason.keyCompromise);
+            }
+        }
+
+        X509CRLHolder cRLHolder = builder.build(new JcaContentSignerBuilder("SHA256WithRSAEncryption").setProvider(BC).build(privateKey));
+
+        X509CRL crl = new JcaX509CRLConverter().setProvider(BC).getCRL(cRLHolder);
+
+        for (Iterator it = serials.iterator(); it.hasNext();)
+        {
+            BigInteger serial = (BigInteger)it.next();
+            X509CRLEntry crlEntry = crl.getRevokedCertificate(serial);
+
+            if (crlEntry == null || !serial.equals(crlEntry.getSerialNumber()))
+            {
+                fail("revoked serial " + serial + " not found");
+            }
+        }
+
+        for (int i = 0; i != 1000; i++)
+        {
+            BigInteger serial = new BigInteger(160, random);
+            if (!serials.contains(serial) && crl.getRevokedCertificate(serial) != null)
+            {
+                fail("unrevoked serial " + serial + " found");
+            }
+        }
+
+        if (crl.isRevoked(certificate) != serials.contains(certificate.getSerialNumber()))
+        {
+            fail("isRevoked() inconsistent");
+        }
+
+        isEquals(serials.size(), crl.getRevokedCertificates().size());
+    }
+
     private void zeroDataTest()
         throws Exception
     {
@@ -5592,6 +5708,8 @@ public void performTest()
         testIndirect();
         testIndirect2();
         testMalformedIndirect();
+        testIndirectDuplicateSerial();
+        testLargeCRLLookup();
 
         checkCertificate(1, cert1);
         checkCertificate(2, cert2);
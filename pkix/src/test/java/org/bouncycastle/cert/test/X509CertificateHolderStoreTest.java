@@ -0,0 +1,178 @@
+package org.bouncycastle.cert.test;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.Security;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509CertificateHolderStore;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.cert.selector.X509CertificateHolderSelector;
+import org.bouncycastle.cert.selector.jcajce.JcaX509CertificateHolderSelector;
+import org.bouncycastle.cms.SignerId;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.util.CollectionStore;
+import org.bouncycastle.util.Selector;
+import org.bouncycastle.util.test.SimpleTest;
+
+public class X509CertificateHolderStoreTest
+    extends SimpleTest
+{
+    private static final X500Name CA1 = new X500Name("CN=CA 1, O=Bouncy Castle, C=AU");
+    private static final X500Name CA2 = new X500Name("CN=CA 2, O=Bouncy Castle, C=AU");
+
+    private ContentSigner signer;
+
+    public String getName()
+    {
+        return "X509CertificateHolderStore";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        KeyPairGenerator kpGen = KeyPairGenerator.getInstance("EC", "BC");
+        kpGen.initialize(256);
+
+        KeyPair signKp = kpGen.generateKeyPair();
+        signer = new JcaContentSignerBuilder("SHA256withECDSA").setProvider("BC").build(signKp.getPrivate());
+
+        KeyPair kpA = kpGen.generateKeyPair();
+        KeyPair kpB = kpGen.generateKeyPair();
+        KeyPair kpC = kpGen.generateKeyPair();
+
+        List<X509CertificateHolder> certs = new ArrayList<X509CertificateHolder>();
+        for (int i = 0; i != 100; i++)
+        {
+            certs.add(makeCert(CA2, BigInteger.valueOf(1000 + i), kpGen.generateKeyPair(), true));
+        }
+        certs.add(makeCert(CA1, BigInteger.valueOf(1), kpA, true));
+        certs.add(makeCert(CA2, BigInteger.valueOf(1), kpB, true));
+        certs.add(makeCert(CA1, BigInteger.valueOf(2), kpC, false));
+        certs.add(makeCert(CA1, BigInteger.valueOf(3), kpA, true));
+        certs.add(makeCert(new X500Name("C=AU, O=Bouncy Castle, CN=CA 1"), BigInteger.valueOf(4), kpB, true));
+
+        CollectionStore<X509CertificateHolder> scanned = new CollectionStore<X509CertificateHolder>(certs);
+        X509CertificateHolderStore indexed = new X509CertificateHolderStore(certs);
+
+        byte[] skiA = getSubjectKeyId(certs.get(100));
+        byte[] skiB = getSubjectKeyId(certs.get(101));
+        byte[] outlookC = outlookKeyId(certs.get(102).getSubjectPublicKeyInfo());
+
+        // issuer and serial, the same serial under two issuers
+        checkMatches(scanned, indexed, new X509CertificateHolderSelector(CA1, BigInteger.valueOf(1)), 1);
+        checkMatches(scanned, indexed, new X509CertificateHolderSelector(CA2, BigInteger.valueOf(1)), 1);
+        checkMatches(scanned, indexed, new X509CertificateHolderSelector(CA2, BigInteger.valueOf(1050)), 1);
+        checkMatches(scanned, indexed, new X509CertificateHolderSelector(CA1, BigInteger.valueOf(1050)), 0);
+        checkMatches(scanned, indexed, new X509CertificateHolderSelector(CA1, BigInteger.valueOf(99)), 0);
+        // the serial number takes precedence over the key identifier when both are given
+        checkMatches(scanned, indexed, new X509CertificateHolderSelector(CA1, BigInteger.valueOf(3), skiB), 1);
+
+        // subject key identifiers, including a key shared by two certificates and one with no extension
+        checkMatches(scanned, indexed, new X509CertificateHolderSelector(skiA), 2);
+        checkMatches(scanned, indexed, new X509CertificateHolderSelector(skiB), 2);
+        checkMatches(scanned, indexed, new X509CertificateHolderSelector(outlookC), 1);
+        checkMatches(scanned, indexed, new X509CertificateHolderSelector(new byte[20]), 0);
+
+        checkMatches(scanned, indexed, new SignerId(CA1, BigInteger.valueOf(2)), 1);
+        checkMatches(scanned, indexed, new SignerId(skiA), 2);
+        checkMatches(scanned, indexed, new SignerId(null, null, null), 0);
+
+        checkMatches(scanned, indexed, new JcaX509CertificateHolderSelector(
+            new JcaX509CertificateConverter().setProvider("BC").getCertificate(certs.get(101))), 1);
+
+        // anything else is scanned
+        Selector<X509CertificateHolder> issuerSelector = new Selector<X509CertificateHolder>()
+        {
+            public boolean match(X509CertificateHolder obj)
+            {
+                return obj.getIssuer().equals(CA1);
+            }
+
+            public Object clone()
+            {
+                return this;
+            }
+        };
+        checkMatches(scanned, indexed, issuerSelector, 4);
+        isEquals(certs.size(), indexed.getMatches(null).size());
+
+        List<Certificate> jcaCerts = new ArrayList<Certificate>();
+        for (Iterator<X509CertificateHolder> it = certs.iterator(); it.hasNext();)
+        {
+            jcaCerts.add(new JcaX509CertificateConverter().setProvider("BC").getCertificate((X509CertificateHolder)it.next()));
+        }
+        JcaCertStore jcaStore = new JcaCertStore(jcaCerts);
+        isEquals(2, jcaStore.getMatches(new SignerId(skiB)).size());
+        isEquals(1, jcaStore.getMatches(new SignerId(CA2, BigInteger.valueOf(1))).size());
+    }
+
+    private void checkMatches(CollectionStore<X509CertificateHolder> scanned, X509CertificateHolderStore indexed, Selector selector, int count)
+    {
+        Collection expected = scanned.getMatches(selector);
+        Collection found = indexed.getMatches(selector);
+
+        isEquals(count, expected.size());
+        isEquals(expected.size(), found.size());
+
+        Iterator eIt = expected.iterator();
+        Iterator fIt = found.iterator();
+        while (eIt.hasNext())
+        {
+            isTrue(eIt.next() == fIt.next());
+        }
+    }
+
+    private X509CertificateHolder makeCert(X500Name issuer, BigInteger serialNumber, KeyPair kp, boolean addSubjectKeyId)
+        throws Exception
+    {
+        SubjectPublicKeyInfo info = SubjectPublicKeyInfo.getInstance(kp.getPublic().getEncoded());
+
+        X509v3CertificateBuilder certBuilder = new X509v3CertificateBuilder(issuer, serialNumber,
+            new Date(System.currentTimeMillis() - 50000), new Date(System.currentTimeMillis() + 50000),
+            new X500Name("CN=Subject " + serialNumber), info);
+
+        if (addSubjectKeyId)
+        {
+            certBuilder.addExtension(Extension.subjectKeyIdentifier, false,
+                new JcaX509ExtensionUtils().createSubjectKeyIdentifier(info));
+        }
+
+        return certBuilder.build(signer);
+    }
+
+    private static byte[] getSubjectKeyId(X509CertificateHolder cert)
+    {
+        return SubjectKeyIdentifier.fromExtensions(cert.getExtensions()).getKeyIdentifier();
+    }
+
+    private static byte[] outlookKeyId(SubjectPublicKeyInfo info)
+        throws Exception
+    {
+        return MessageDigest.getInstance("SHA-1").digest(info.getEncoded());
+    }
+
+    public static void main(String[] args)
+    {
+        Security.addProvider(new BouncyCastleProvider());
+
+        runTest(new X509CertificateHolderStoreTest());
+    }
+}
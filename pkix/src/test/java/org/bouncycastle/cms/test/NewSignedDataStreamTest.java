@@ -4,9 +4,11 @@
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.KeyPair;
 import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.security.Security;
 import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
@@ -19,6 +21,8 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -58,6 +62,7 @@
 import org.bouncycastle.operator.ContentSigner;
 import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
 import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.CollectionStore;
 import org.bouncycastle.util.Store;
 import org.bouncycastle.util.encoders.Base64;
@@ -587,6 +592,94 @@ public void testSHA1AndMD5WithRSA()
         verifySignatures(sp);
     }
     
+    public void testParallelContentDigests()
+        throws Exception
+    {
+        List                  certList = new ArrayList();
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+
+        certList.add(_origCert);
+        certList.add(_signCert);
+
+        Store           certs = new JcaCertStore(certList);
+
+        CMSSignedDataStreamGenerator gen = new CMSSignedDataStreamGenerator();
+        JcaSignerInfoGeneratorBuilder signerInfoGeneratorBuilder = new JcaSignerInfoGeneratorBuilder(new JcaDigestCalculatorProviderBuilder().setProvider(BC).build());
+
+        gen.addSignerInfoGenerator(signerInfoGeneratorBuilder.build(
+            new JcaContentSignerBuilder("SHA1withRSA").setProvider(BC).build(_origKP.getPrivate()), _origCert));
+        gen.addSignerInfoGenerator(signerInfoGeneratorBuilder.build(
+            new JcaContentSignerBuilder("SHA256withRSA").setProvider(BC).build(_origKP.getPrivate()), _origCert));
+        gen.addSignerInfoGenerator(signerInfoGeneratorBuilder.build(
+            new JcaContentSignerBuilder("SHA512withRSA").setProvider(BC).build(_signKP.getPrivate()), _signCert));
+
+        gen.addCertificates(certs);
+
+        // several blocks worth of content, not a multiple of the block size
+        byte[] data = new byte[300 * 1024 + 17];
+        new SecureRandom().nextBytes(data);
+
+        OutputStream sigOut = gen.open(bOut, true);
+
+        sigOut.write(data);
+
+        sigOut.close();
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            CMSSignedDataParser sp = new CMSSignedDataParser(new JcaDigestCalculatorProviderBuilder().setProvider(BC).build(), bOut.toByteArray());
+
+            InputStream content = sp.getSignedContent(executor).getContentStream();
+            ByteArrayOutputStream cOut = new ByteArrayOutputStream();
+
+            // read in odd sized pieces, with some single bytes
+            byte[] buf = new byte[5000];
+            int len;
+            while ((len = content.read(buf, 0, 1 + cOut.size() % buf.length)) >= 0)
+            {
+                cOut.write(buf, 0, len);
+
+                int ch = content.read();
+                if (ch < 0)
+                {
+                    break;
+                }
+                cOut.write(ch);
+            }
+
+            assertTrue(Arrays.areEqual(data, cOut.toByteArray()));
+
+            verifySignatures(sp);
+
+            sp.close();
+
+            // detached content, read by drain()
+            sp = new CMSSignedDataParser(new JcaDigestCalculatorProviderBuilder().setProvider(BC).build(),
+                new CMSTypedStream(new ByteArrayInputStream(data)), bOut.toByteArray());
+
+            sp.getSignedContent(executor).drain();
+
+            verifySignatures(sp);
+
+            sp.close();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // a shut down executor rejects the digest updates - they are run by the reader instead
+        CMSSignedDataParser sp = new CMSSignedDataParser(new JcaDigestCalculatorProviderBuilder().setProvider(BC).build(),
+            new CMSTypedStream(new ByteArrayInputStream(data)), bOut.toByteArray());
+
+        sp.getSignedContent(executor).drain();
+
+        verifySignatures(sp);
+
+        sp.close();
+    }
+
     public void testSHA1WithRSAEncapsulatedBufferedStream()
         throws Exception
     {
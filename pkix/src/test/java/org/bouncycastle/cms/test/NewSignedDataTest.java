@@ -19,6 +19,9 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.Assert;
 import junit.framework.Test;
@@ -2207,6 +2210,93 @@ else if (_origCert.getSerialNumber().equals(signerId.getSerialNumber()))
         assertTrue(s.verifySignatures(vProv, false));
     }
 
+    public void testVerifySignaturesWithExecutor()
+        throws Exception
+    {
+        List                certList = new ArrayList();
+        CMSTypedData        msg = new CMSProcessableByteArray("Hello World!".getBytes());
+
+        certList.add(_signCert);
+        certList.add(_origCert);
+
+        Store           certStore = new JcaCertStore(certList);
+
+        CMSSignedDataGenerator gen = new CMSSignedDataGenerator();
+        JcaSignerInfoGeneratorBuilder signerInfoGeneratorBuilder = new JcaSignerInfoGeneratorBuilder(new JcaDigestCalculatorProviderBuilder().setProvider(BC).build());
+
+        gen.addSignerInfoGenerator(signerInfoGeneratorBuilder.build(
+            new JcaContentSignerBuilder("SHA1withRSA").setProvider(BC).build(_signKP.getPrivate()), _signCert));
+        gen.addSignerInfoGenerator(signerInfoGeneratorBuilder.build(
+            new JcaContentSignerBuilder("SHA256withRSA").setProvider(BC).build(_origKP.getPrivate()), _origCert));
+        gen.addSignerInfoGenerator(signerInfoGeneratorBuilder.build(
+            new JcaContentSignerBuilder("SHA512withRSA").setProvider(BC).build(_signKP.getPrivate()), _signCert));
+
+        gen.addCertificates(certStore);
+
+        CMSSignedData s = gen.generate(msg, true);
+
+        // counter sign the first signer
+        SignerInformation origSigner = (SignerInformation)s.getSignerInfos().getSigners().toArray()[0];
+
+        gen = new CMSSignedDataGenerator();
+        gen.addSignerInfoGenerator(signerInfoGeneratorBuilder.build(
+            new JcaContentSignerBuilder("SHA256withRSA").setProvider(BC).build(_origKP.getPrivate()), _origCert));
+
+        List signers = new ArrayList(s.getSignerInfos().getSigners());
+        signers.set(0, SignerInformation.addCounterSigners(origSigner, gen.generateCounterSigners(origSigner)));
+
+        s = CMSSignedData.replaceSigners(s, new SignerInformationStore(signers));
+
+        SignerInformationVerifierProvider vProv = new SignerInformationVerifierProvider()
+        {
+            public SignerInformationVerifier get(SignerId signerId)
+                throws OperatorCreationException
+            {
+                if (_signCert.getSerialNumber().equals(signerId.getSerialNumber()))
+                {
+                    return new JcaSimpleSignerInfoVerifierBuilder().setProvider(BC).build(_signCert);
+                }
+
+                return new JcaSimpleSignerInfoVerifierBuilder().setProvider(BC).build(_origCert);
+            }
+        };
+        SignerInformationVerifierProvider signCertOnly = new SignerInformationVerifierProvider()
+        {
+            public SignerInformationVerifier get(SignerId signerId)
+                throws OperatorCreationException
+            {
+                return new JcaSimpleSignerInfoVerifierBuilder().setProvider(BC).build(_signCert);
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            assertTrue(s.verifySignatures(vProv, false, executor));
+            assertTrue(s.verifySignatures(vProv, true, executor));
+            assertFalse(s.verifySignatures(signCertOnly, true, executor));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // an executor which never runs anything - the calling thread does all the work
+        Executor idle = new Executor()
+        {
+            public void execute(Runnable command)
+            {
+            }
+        };
+
+        assertTrue(s.verifySignatures(vProv, false, idle));
+        assertEquals(s.verifySignatures(vProv, false), s.verifySignatures(vProv, false, idle));
+
+        // a shut down executor rejects everything - the calling thread runs it instead
+        assertTrue(s.verifySignatures(vProv, false, executor));
+        assertFalse(s.verifySignatures(signCertOnly, true, executor));
+    }
+
     public void testAddDigestAlgorithm()
         throws Exception
     {
@@ -22,6 +22,7 @@ public static Test suite()
         
         suite.addTestSuite(CheckerTest.class);
         suite.addTestSuite(RevocationTest.class);
+        suite.addTestSuite(CrlCacheTest.class);
         suite.addTestSuite(CheckNameConstraintsTest.class);
 
         return new BCTestSetup(suite);
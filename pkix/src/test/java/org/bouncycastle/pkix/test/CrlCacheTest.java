@@ -0,0 +1,395 @@
+package org.bouncycastle.pkix.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.cert.CertPath;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.PKIXParameters;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.pkix.jcajce.CrlCache;
+import org.bouncycastle.pkix.jcajce.X509RevocationChecker;
+import org.bouncycastle.util.Strings;
+
+public class CrlCacheTest
+    extends TestCase
+{
+    private static boolean initialized = false;
+
+    static KeyPair trustKp;
+    static KeyPair caKp;
+    static KeyPair eeKp;
+
+    static X509Certificate trustCert;
+    static X509Certificate caCert;
+
+    private CrlServer server;
+
+    public void setUp()
+        throws Exception
+    {
+        if (!initialized)
+        {
+            Security.addProvider(new BouncyCastleProvider());
+            KeyPairGenerator kpGen = KeyPairGenerator.getInstance("RSA", "BC");
+
+            kpGen.initialize(2048);
+
+            trustKp = kpGen.generateKeyPair();
+            caKp = kpGen.generateKeyPair();
+            eeKp = kpGen.generateKeyPair();
+
+            trustCert = TestUtil.makeTrustAnchor(trustKp, "CN=Trust Anchor");
+            caCert = TestUtil.makeCaCertificate(trustCert, trustKp.getPrivate(), caKp.getPublic(), "CN=CA Cert");
+
+            initialized = true;
+        }
+
+        server = new CrlServer();
+    }
+
+    public void tearDown()
+        throws Exception
+    {
+        server.close();
+    }
+
+    public void testRepeatedChecksDownloadOnce()
+        throws Exception
+    {
+        X509Certificate eeCert = makeRevokedEe("/ca.crl");
+
+        CrlCache crlCache = new CrlCache.Builder().build();
+
+        for (int i = 0; i != 3; i++)
+        {
+            checkRevoked(eeCert, crlCache);
+        }
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, crlCache.size());
+    }
+
+    public void testConcurrentChecksShareDownload()
+        throws Exception
+    {
+        final X509Certificate eeCert = makeRevokedEe("/ca.crl");
+        final CrlCache crlCache = new CrlCache.Builder().build();
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        server.setDelay(500);
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i != threads.length; i++)
+        {
+            threads[i] = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        checkRevoked(eeCert, crlCache);
+                    }
+                    catch (Throwable t)
+                    {
+                        failures.add(t);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i != threads.length; i++)
+        {
+            threads[i].join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    public void testMaxEntries()
+        throws Exception
+    {
+        X509Certificate eeCertA = makeRevokedEe("/a.crl");
+        X509Certificate eeCertB = makeRevokedEe("/b.crl");
+
+        CrlCache crlCache = new CrlCache.Builder().setMaxEntries(1).build();
+
+        revoke(eeCertA);
+        checkRevoked(eeCertA, crlCache);
+        revoke(eeCertB);
+        checkRevoked(eeCertB, crlCache);
+
+        assertEquals(1, crlCache.size());
+        assertEquals(2, server.getRequestCount());
+
+        // a.crl was evicted to make room for b.crl
+        revoke(eeCertA);
+        checkRevoked(eeCertA, crlCache);
+
+        assertEquals(1, crlCache.size());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    public void testMaxBytes()
+        throws Exception
+    {
+        X509Certificate eeCertA = makeRevokedEe("/a.crl");
+        X509Certificate eeCertB = makeRevokedEe("/b.crl");
+
+        // too small for any CRL, so only the most recently fetched one is kept
+        CrlCache crlCache = new CrlCache.Builder().setMaxBytes(1).build();
+
+        revoke(eeCertA);
+        checkRevoked(eeCertA, crlCache);
+        revoke(eeCertB);
+        checkRevoked(eeCertB, crlCache);
+
+        assertEquals(1, crlCache.size());
+        assertEquals(2, server.getRequestCount());
+
+        checkRevoked(eeCertB, crlCache);
+
+        assertEquals(2, server.getRequestCount());
+
+        revoke(eeCertA);
+        checkRevoked(eeCertA, crlCache);
+
+        assertEquals(1, crlCache.size());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    public void testExpiry()
+        throws Exception
+    {
+        X509Certificate eeCert = makeRevokedEe("/ca.crl");
+
+        long nextUpdate = System.currentTimeMillis() + 2000;
+        server.setCrl(TestUtil.makeCrl(caCert, caKp.getPrivate(), eeCert.getSerialNumber(), new Date(nextUpdate))
+            .getEncoded());
+
+        CrlCache crlCache = new CrlCache.Builder().build();
+
+        checkRevoked(eeCert, crlCache);
+        checkRevoked(eeCert, crlCache);
+
+        assertEquals(1, server.getRequestCount());
+
+        // once the nextUpdate has passed the cached copy can't be used.
+        while (System.currentTimeMillis() <= nextUpdate)
+        {
+            Thread.sleep(100);
+        }
+
+        revoke(eeCert);
+        checkRevoked(eeCert, crlCache);
+        checkRevoked(eeCert, crlCache);
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, crlCache.size());
+    }
+
+    public void testPrefetch()
+        throws Exception
+    {
+        X509Certificate eeCert = makeRevokedEe("/ca.crl");
+
+        Executor direct = new Executor()
+        {
+            public void execute(Runnable task)
+            {
+                task.run();
+            }
+        };
+
+        // the CRL's nextUpdate is always inside the prefetch window, so each lookup finds it due for refresh
+        CrlCache crlCache = new CrlCache.Builder()
+            .setExecutor(direct)
+            .setPrefetchWindow(200000)
+            .build();
+
+        for (int i = 0; i != 4; i++)
+        {
+            checkRevoked(eeCert, crlCache);
+        }
+
+        // one download, then a single refresh - later refreshes wait for the retry interval
+        assertEquals(2, server.getRequestCount());
+
+        crlCache = new CrlCache.Builder()
+            .setExecutor(direct)
+            .setPrefetchWindow(200000)
+            .setRefreshRetryInterval(0)
+            .build();
+
+        for (int i = 0; i != 4; i++)
+        {
+            checkRevoked(eeCert, crlCache);
+        }
+
+        assertEquals(2 + 4, server.getRequestCount());
+    }
+
+    private X509Certificate makeRevokedEe(String path)
+        throws Exception
+    {
+        X509Certificate eeCert = TestUtil.makeEeCertificate(caCert, caKp.getPrivate(), eeKp.getPublic(),
+            "CN=End Entity", "http://localhost:" + server.getPort() + path);
+
+        revoke(eeCert);
+
+        return eeCert;
+    }
+
+    private void revoke(X509Certificate eeCert)
+        throws Exception
+    {
+        server.setCrl(TestUtil.makeCrl(caCert, caKp.getPrivate(), eeCert.getSerialNumber()).getEncoded());
+    }
+
+    private static void checkRevoked(X509Certificate eeCert, CrlCache crlCache)
+        throws Exception
+    {
+        List<X509Certificate> certchain = new ArrayList<X509Certificate>();
+        certchain.add(eeCert);
+        certchain.add(caCert);
+
+        CertPath cp = CertificateFactory.getInstance("X.509", "BC").generateCertPath(certchain);
+
+        X509RevocationChecker revocationChecker = new X509RevocationChecker
+            .Builder(new TrustAnchor(trustCert, null))
+            .setCheckEndEntityOnly(true)
+            .setCrlCache(crlCache)
+            .usingProvider("BC")
+            .build();
+
+        CertPathValidator cpv = CertPathValidator.getInstance("PKIX", "BC");
+        PKIXParameters param = new PKIXParameters(Collections.singleton(new TrustAnchor(trustCert, null)));
+        param.setRevocationEnabled(false);
+
+        param.addCertPathChecker(revocationChecker);
+
+        try
+        {
+            cpv.validate(cp, param);
+            fail("no exception");
+        }
+        catch (CertPathValidatorException e)
+        {
+            assertTrue(e.getMessage(), e.getMessage().endsWith(", reason: privilegeWithdrawn"));
+        }
+    }
+
+    private static class CrlServer
+        implements Runnable
+    {
+        private final ServerSocket ss;
+        private final AtomicInteger requestCount = new AtomicInteger(0);
+
+        private volatile byte[] crl;
+        private volatile long delay;
+
+        CrlServer()
+            throws Exception
+        {
+            this.ss = new ServerSocket(0);
+
+            Thread t = new Thread(this);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        int getPort()
+        {
+            return ss.getLocalPort();
+        }
+
+        int getRequestCount()
+        {
+            return requestCount.get();
+        }
+
+        void setCrl(byte[] crl)
+        {
+            this.crl = crl;
+        }
+
+        void setDelay(long delay)
+        {
+            this.delay = delay;
+        }
+
+        void close()
+            throws Exception
+        {
+            ss.close();
+        }
+
+        public void run()
+        {
+            try
+            {
+                for (;;)
+                {
+                    Socket s = ss.accept();
+
+                    InputStream sIn = s.getInputStream();
+                    ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+                    int ch;
+                    while ((ch = sIn.read()) >= 0)
+                    {
+                        bOut.write(ch);
+                        if (ch == '\n')
+                        {
+                            if (Strings.fromByteArray(bOut.toByteArray()).trim().length() == 0)
+                            {
+                                break;
+                            }
+                            bOut.reset();
+                        }
+                    }
+
+                    requestCount.incrementAndGet();
+
+                    if (delay > 0)
+                    {
+                        Thread.sleep(delay);
+                    }
+
+                    byte[] resp = crl;
+                    OutputStream sOut = s.getOutputStream();
+
+                    sOut.write(Strings.toByteArray("HTTP/1.1 200 OK\r\n"));
+                    sOut.write(Strings.toByteArray("Content-type: application/pkix-crl\r\n"));
+                    sOut.write(Strings.toByteArray("Content-Length: " + resp.length + "\r\n"));
+                    sOut.write(Strings.toByteArray("Connection: close\r\n"));
+                    sOut.write(Strings.toByteArray("\r\n"));
+                    sOut.write(resp);
+                    sOut.flush();
+                    s.close();
+                }
+            }
+            catch (Exception e)
+            {
+                // server closed
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.bouncycastle.jce.provider;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.util.Strings;
+
+/**
+ * Generates the service index read by {@link ServiceIndex}, by loading every Mappings class in a provider and
+ * collecting the keys each one registers, in the order they are loaded. This is only used by the build, it is not
+ * part of the provider.
+ */
+class ServiceIndexGenerator
+    implements ServiceIndex.Recorder
+{
+    private final Map<String, Map<String, Set<String>>> entries = new LinkedHashMap<String, Map<String, Set<String>>>();
+    private final Map<String, Set<String>> converters = new HashMap<String, Set<String>>();
+
+    private String currentClass;
+
+    public void begin(String className)
+    {
+        currentClass = className;
+        entries.put(className, new TreeMap<String, Set<String>>());
+    }
+
+    public void end(String className, Set<Object> addedKeys, Map<Object, Object> properties)
+    {
+        Map<String, Set<String>> byType = entries.get(className);
+
+        for (Iterator<Object> it = addedKeys.iterator(); it.hasNext();)
+        {
+            String key = (String)it.next();
+            if (key.indexOf(' ') >= 0)
+            {
+                continue;   // attribute
+            }
+
+            boolean isAlias = key.startsWith(ServiceIndex.ALIAS_PREFIX);
+            if (isAlias)
+            {
+                key = key.substring(ServiceIndex.ALIAS_PREFIX.length());
+            }
+
+            int dot = key.indexOf('.');
+            String type = key.substring(0, dot);
+            String entry = Strings.toUpperCase(key.substring(dot + 1));
+            if (isAlias)
+            {
+                entry += "=" + Strings.toUpperCase((String)properties.get(ServiceIndex.ALIAS_PREFIX + key));
+            }
+
+            Set<String> typeEntries = byType.get(type);
+            if (typeEntries == null)
+            {
+                typeEntries = new TreeSet<String>();
+                byType.put(type, typeEntries);
+            }
+            typeEntries.add(entry);
+        }
+
+        currentClass = null;
+    }
+
+    public void addConverter(ASN1ObjectIdentifier oid)
+    {
+        if (currentClass == null || oid == null)
+        {
+            return;     // registered directly by the provider, or nothing to look up.
+        }
+
+        Set<String> oids = converters.get(currentClass);
+        if (oids == null)
+        {
+            oids = new TreeSet<String>();
+            converters.put(currentClass, oids);
+        }
+        oids.add(oid.getId());
+    }
+
+    void write(Writer writer)
+    {
+        PrintWriter pWriter = new PrintWriter(writer);
+
+        pWriter.println("# Generated by org.bouncycastle.jce.provider.ServiceIndexGenerator - do not edit.");
+        for (Iterator<Map.Entry<String, Map<String, Set<String>>>> it = entries.entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry<String, Map<String, Set<String>>> classEntry = it.next();
+            String className = classEntry.getKey();
+
+            pWriter.println("@" + className);
+
+            for (Iterator<Map.Entry<String, Set<String>>> tIt = classEntry.getValue().entrySet().iterator(); tIt.hasNext();)
+            {
+                Map.Entry<String, Set<String>> typeEntry = tIt.next();
+
+                writeLine(pWriter, typeEntry.getKey(), typeEntry.getValue());
+            }
+
+            Set<String> oids = converters.get(className);
+            if (oids != null)
+            {
+                writeLine(pWriter, "!", oids);
+            }
+        }
+
+        pWriter.flush();
+    }
+
+    private static void writeLine(PrintWriter pWriter, String first, Set<String> entries)
+    {
+        pWriter.print(first);
+        for (Iterator<String> it = entries.iterator(); it.hasNext();)
+        {
+            String entry = it.next();
+            if (entry.indexOf(' ') >= 0)
+            {
+                throw new IllegalStateException("provider key \"" + entry + "\" cannot be indexed");
+            }
+            pWriter.print(' ');
+            pWriter.print(entry);
+        }
+        pWriter.println();
+    }
+
+    /**
+     * Generate the index.
+     *
+     * @param args the file to write the index to.
+     */
+    public static void main(String[] args)
+        throws IOException
+    {
+        if (args.length != 1)
+        {
+            System.err.println("usage: ServiceIndexGenerator <output file>");
+            System.exit(1);
+        }
+
+        // services which are only registered when asked for still need to be in the index.
+        System.setProperty("org.bouncycastle.bks.enable_v1", "true");
+
+        ServiceIndexGenerator generator = new ServiceIndexGenerator();
+
+        new BouncyCastleProvider(generator);
+
+        File outFile = new File(args[0]);
+        if (outFile.getParentFile() != null)
+        {
+            outFile.getParentFile().mkdirs();
+        }
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(outFile), "UTF-8");
+        try
+        {
+            generator.write(writer);
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+}
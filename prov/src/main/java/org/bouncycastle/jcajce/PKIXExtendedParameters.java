@@ -3,12 +3,14 @@
 import java.security.cert.CertPathParameters;
 import java.security.cert.CertSelector;
 import java.security.cert.CertStore;
+import java.security.cert.PKIXBuilderParameters;
 import java.security.cert.PKIXParameters;
 import java.security.cert.TrustAnchor;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -59,7 +61,9 @@
         private boolean revocationEnabled;
         private int validityModel = PKIX_VALIDITY_MODEL;
         private boolean useDeltas = false;
+        // always a private, unmodifiable set - the provider indexes trust anchor sets by identity.
         private Set<TrustAnchor> trustAnchors;
+        private PKIXVerificationCache verificationCache;
 
         public Builder(PKIXParameters baseParameters)
         {
@@ -72,7 +76,16 @@ public Builder(PKIXParameters baseParameters)
             this.validityDate = baseParameters.getDate();
             this.date = (validityDate == null) ? new Date() : validityDate;
             this.revocationEnabled = baseParameters.isRevocationEnabled();
-            this.trustAnchors = baseParameters.getTrustAnchors();
+            // the JDK's own classes only ever hand back an unmodifiable copy, anything else may be a live view.
+            Class paramsClass = baseParameters.getClass();
+            if (paramsClass == PKIXParameters.class || paramsClass == PKIXBuilderParameters.class)
+            {
+                this.trustAnchors = baseParameters.getTrustAnchors();
+            }
+            else
+            {
+                this.trustAnchors = copyOf(baseParameters.getTrustAnchors());
+            }
         }
 
         public Builder(PKIXExtendedParameters baseParameters)
@@ -89,6 +102,7 @@ public Builder(PKIXExtendedParameters baseParameters)
             this.validityModel = baseParameters.validityModel;
             this.revocationEnabled = baseParameters.isRevocationEnabled();
             this.trustAnchors = baseParameters.getTrustAnchors();
+            this.verificationCache = baseParameters.verificationCache;
         }
 
         public Builder addCertificateStore(PKIXCertStore store)
@@ -138,6 +152,19 @@ public Builder setUseDeltasEnabled(boolean useDeltas)
             return this;
         }
 
+        /**
+         * Set a cache of certificate signature verifications to consult during validation, null (the default) for no cache.
+         *
+         * @param verificationCache the cache to use.
+         * @return the current builder.
+         */
+        public Builder setVerificationCache(PKIXVerificationCache verificationCache)
+        {
+            this.verificationCache = verificationCache;
+
+            return this;
+        }
+
         /**
          * @param validityModel The validity model to set.
          * @see #CHAIN_VALIDITY_MODEL
@@ -164,14 +191,14 @@ public Builder setTrustAnchor(TrustAnchor trustAnchor)
         }
 
         /**
-         * Set the set of trustAnchors to be used with these parameters.
+         * Set the set of trustAnchors to be used with these parameters. The set is copied.
          *
          * @param trustAnchors  a set of trustAnchors, one of which a particular end-entity and it's associated CRLs must be based on.
          * @return the current builder.
          */
         public Builder setTrustAnchors(Set<TrustAnchor> trustAnchors)
         {
-            this.trustAnchors = trustAnchors;
+            this.trustAnchors = copyOf(trustAnchors);
 
             return this;
         }
@@ -190,6 +217,11 @@ public PKIXExtendedParameters build()
         {
             return new PKIXExtendedParameters(this);
         }
+
+        private static Set<TrustAnchor> copyOf(Set<TrustAnchor> trustAnchors)
+        {
+            return Collections.unmodifiableSet(new LinkedHashSet<TrustAnchor>(trustAnchors));
+        }
     }
 
     private final PKIXParameters baseParameters;
@@ -204,6 +236,7 @@ public PKIXExtendedParameters build()
     private final boolean useDeltas;
     private final int validityModel;
     private final Set<TrustAnchor> trustAnchors;
+    private final PKIXVerificationCache verificationCache;
 
     private PKIXExtendedParameters(Builder builder)
     {
@@ -218,7 +251,8 @@ private PKIXExtendedParameters(Builder builder)
         this.revocationEnabled = builder.revocationEnabled;
         this.useDeltas = builder.useDeltas;
         this.validityModel = builder.validityModel;
-        this.trustAnchors = Collections.unmodifiableSet(builder.trustAnchors);
+        this.trustAnchors = builder.trustAnchors;
+        this.verificationCache = builder.verificationCache;
     }
 
     public List<PKIXCertStore> getCertificateStores()
@@ -281,6 +315,16 @@ public int getValidityModel()
         return validityModel;
     }
 
+    /**
+     * Return the cache of certificate signature verifications, if one has been set.
+     *
+     * @return the verification cache, null if there is none.
+     */
+    public PKIXVerificationCache getVerificationCache()
+    {
+        return verificationCache;
+    }
+
     public Object clone()
     {
         return this;
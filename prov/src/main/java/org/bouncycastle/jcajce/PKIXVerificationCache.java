@@ -0,0 +1,204 @@
+package org.bouncycastle.jcajce;
+
+import java.security.PublicKey;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A bounded cache of successful certificate signature verifications for use with
+ * {@link PKIXExtendedParameters.Builder#setVerificationCache(PKIXVerificationCache)}.
+ * <p>
+ * Entries are keyed on a digest of the verifying public key and the full encoding of the certificate,
+ * so a hit means exactly this certificate has already been checked against exactly this key. Only the
+ * signature check is skipped - validity periods, policies, name constraints and revocation are still
+ * evaluated on every validation. Entries expire after the given lifetime, and the least recently used
+ * entry is dropped when the cache is full. A cache may be shared between threads and validations.
+ * </p>
+ */
+public class PKIXVerificationCache
+{
+    private final int maxEntries;
+    private final long lifetime;
+    private final Map<Key, Long> cache;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Base constructor.
+     *
+     * @param maxEntries the maximum number of verifications to remember.
+     * @param lifetime how long, in milliseconds, a verification is remembered for.
+     */
+    public PKIXVerificationCache(int maxEntries, long lifetime)
+    {
+        if (maxEntries < 1)
+        {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        if (lifetime < 1)
+        {
+            throw new IllegalArgumentException("lifetime must be positive");
+        }
+
+        this.maxEntries = maxEntries;
+        this.lifetime = lifetime;
+        this.cache = new LinkedHashMap<Key, Long>(16, 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest)
+            {
+                return size() > PKIXVerificationCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Return true if cert has been verified against publicKey within the cache lifetime.
+     *
+     * @param cert the certificate to check.
+     * @param publicKey the key the certificate's signature is to be verified with.
+     * @return true if a successful verification has been recorded, false otherwise.
+     */
+    public boolean isVerified(X509Certificate cert, PublicKey publicKey)
+    {
+        Key key = getKey(cert, publicKey);
+        if (key == null)
+        {
+            return false;
+        }
+
+        synchronized (cache)
+        {
+            Long expiry = (Long)cache.get(key);
+            if (expiry != null && expiry.longValue() > System.currentTimeMillis())
+            {
+                hits++;
+                return true;
+            }
+            if (expiry != null)
+            {
+                cache.remove(key);
+            }
+            misses++;
+            return false;
+        }
+    }
+
+    /**
+     * Record a successful verification of cert against publicKey.
+     *
+     * @param cert the certificate verified.
+     * @param publicKey the key used to verify it.
+     */
+    public void addVerified(X509Certificate cert, PublicKey publicKey)
+    {
+        Key key = getKey(cert, publicKey);
+        if (key != null)
+        {
+            synchronized (cache)
+            {
+                cache.put(key, Long.valueOf(System.currentTimeMillis() + lifetime));
+            }
+        }
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public void clear()
+    {
+        synchronized (cache)
+        {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Return the number of entries currently held, including any which have expired but not yet been removed.
+     */
+    public int size()
+    {
+        synchronized (cache)
+        {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Return the number of lookups which found a current verification.
+     */
+    public long getHitCount()
+    {
+        synchronized (cache)
+        {
+            return hits;
+        }
+    }
+
+    /**
+     * Return the number of lookups which did not find a current verification.
+     */
+    public long getMissCount()
+    {
+        synchronized (cache)
+        {
+            return misses;
+        }
+    }
+
+    private static Key getKey(X509Certificate cert, PublicKey publicKey)
+    {
+        byte[] keyEnc = publicKey.getEncoded();
+        if (keyEnc == null)
+        {
+            return null;
+        }
+
+        byte[] certEnc;
+        try
+        {
+            certEnc = cert.getEncoded();
+        }
+        catch (CertificateEncodingException e)
+        {
+            return null;
+        }
+
+        Digest digest = new SHA256Digest();
+        byte[] hash = new byte[digest.getDigestSize()];
+
+        digest.update(keyEnc, 0, keyEnc.length);
+        digest.update(certEnc, 0, certEnc.length);
+        digest.doFinal(hash, 0);
+
+        return new Key(hash);
+    }
+
+    private static class Key
+    {
+        private final byte[] hash;
+        private final int hashCode;
+
+        Key(byte[] hash)
+        {
+            this.hash = hash;
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        public boolean equals(Object o)
+        {
+            return o instanceof Key && Arrays.areEqual(hash, ((Key)o).hash);
+        }
+    }
+}
@@ -18,12 +18,15 @@
 import java.security.cert.X509CRL;
 import java.security.cert.X509CRLEntry;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.security.auth.x500.X500Principal;
@@ -54,6 +57,7 @@
 import org.bouncycastle.jcajce.util.JcaJceHelper;
 import org.bouncycastle.jce.X509Principal;
 import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Integers;
 import org.bouncycastle.util.Strings;
 
 /**
@@ -74,6 +78,8 @@
     protected byte[] sigAlgParams;
     protected boolean isIndirect;
 
+    private volatile RevokedIndex revokedIndex;
+
     X509CRLImpl(JcaJceHelper bcHelper, CertificateList c, String sigAlgName, byte[] sigAlgParams, boolean isIndirect)
     {
         this.bcHelper = bcHelper;
@@ -430,13 +436,13 @@ private Set loadCRLEntries()
             TBSCertList.CRLEntry entry = (TBSCertList.CRLEntry)certs.nextElement();
             X509CRLEntryObject crlEntry = new X509CRLEntryObject(entry, isIndirect, previousCertificateIssuer);
             entrySet.add(crlEntry);
-            if (isIndirect && entry.hasExtensions())
+            if (isIndirect)
             {
-                Extension currentCaName = entry.getExtensions().getExtension(Extension.certificateIssuer);
+                X500Name currentCaName = getCertificateIssuer(entry);
 
                 if (currentCaName != null)
                 {
-                    previousCertificateIssuer = X500Name.getInstance(GeneralNames.getInstance(currentCaName.getParsedValue()).getNames()[0].getName());
+                    previousCertificateIssuer = currentCaName;
                 }
             }
         }
@@ -446,26 +452,16 @@ private Set loadCRLEntries()
 
     public X509CRLEntry getRevokedCertificate(BigInteger serialNumber)
     {
-        Enumeration certs = c.getRevokedCertificateEnumeration();
+        RevokedIndex index = getRevokedIndex();
 
-        X500Name previousCertificateIssuer = null; // the issuer
-        while (certs.hasMoreElements())
+        // candidates are in CRL order, so the first match is the one a linear scan would find
+        for (int pos = index.find(serialNumber); pos >= 0; pos = index.next(pos))
         {
-            TBSCertList.CRLEntry entry = (TBSCertList.CRLEntry)certs.nextElement();
+            TBSCertList.CRLEntry entry = index.getEntry(pos);
 
             if (entry.getUserCertificate().hasValue(serialNumber))
             {
-                return new X509CRLEntryObject(entry, isIndirect, previousCertificateIssuer);
-            }
-
-            if (isIndirect && entry.hasExtensions())
-            {
-                Extension currentCaName = entry.getExtensions().getExtension(Extension.certificateIssuer);
-
-                if (currentCaName != null)
-                {
-                    previousCertificateIssuer = X500Name.getInstance(GeneralNames.getInstance(currentCaName.getParsedValue()).getNames()[0].getName());
-                }
+                return new X509CRLEntryObject(entry, isIndirect, index.getPreviousIssuer(pos));
             }
         }
 
@@ -643,61 +639,92 @@ public boolean isRevoked(Certificate cert)
             throw new IllegalArgumentException("X.509 CRL used with non X.509 Cert");
         }
 
-        Enumeration certs = c.getRevokedCertificateEnumeration();
+        RevokedIndex index = getRevokedIndex();
 
-        X500Name caName = c.getIssuer();
+        BigInteger serial = ((X509Certificate)cert).getSerialNumber();
+        X500Name issuer = null;
 
-        if (certs.hasMoreElements())
+        for (int pos = index.find(serial); pos >= 0; pos = index.next(pos))
         {
-            BigInteger serial = ((X509Certificate)cert).getSerialNumber();
+            TBSCertList.CRLEntry entry = index.getEntry(pos);
 
-            while (certs.hasMoreElements())
+            if (!entry.getUserCertificate().hasValue(serial))
             {
-                TBSCertList.CRLEntry entry = TBSCertList.CRLEntry.getInstance(certs.nextElement());
+                continue;
+            }
 
-                if (isIndirect && entry.hasExtensions())
-                {
-                    Extension currentCaName = entry.getExtensions().getExtension(Extension.certificateIssuer);
+            X500Name caName = c.getIssuer();
 
-                    if (currentCaName != null)
-                    {
-                        caName = X500Name.getInstance(GeneralNames.getInstance(currentCaName.getParsedValue()).getNames()[0].getName());
-                    }
+            if (isIndirect)
+            {
+                X500Name currentCaName = getCertificateIssuer(entry);
+                if (currentCaName == null)
+                {
+                    currentCaName = index.getPreviousIssuer(pos);
                 }
-
-                if (entry.getUserCertificate().hasValue(serial))
+                if (currentCaName != null)
                 {
-                    X500Name issuer;
-
-                    if (cert instanceof X509Certificate)
-                    {
-                        issuer = X500Name.getInstance(((X509Certificate)cert).getIssuerX500Principal().getEncoded());
-                    }
-                    else
-                    {
-                        try
-                        {
-                            issuer = org.bouncycastle.asn1.x509.Certificate.getInstance(cert.getEncoded()).getIssuer();
-                        }
-                        catch (CertificateEncodingException e)
-                        {
-                            throw new IllegalArgumentException("Cannot process certificate: " + e.getMessage());
-                        }
-                    }
+                    caName = currentCaName;
+                }
+            }
 
-                    if (!caName.equals(issuer))
-                    {
-                        return false;
-                    }
+            if (issuer == null)
+            {
+                issuer = getIssuer(cert);
+            }
 
-                    return true;
-                }
+            if (caName.equals(issuer))
+            {
+                return true;
             }
         }
 
         return false;
     }
 
+    private RevokedIndex getRevokedIndex()
+    {
+        RevokedIndex index = revokedIndex;
+        if (index == null)
+        {
+            index = new RevokedIndex(c.getRevokedCertificateEnumeration(), isIndirect);
+            revokedIndex = index;
+        }
+        return index;
+    }
+
+    private static X500Name getIssuer(Certificate cert)
+    {
+        if (cert instanceof X509Certificate)
+        {
+            return X500Name.getInstance(((X509Certificate)cert).getIssuerX500Principal().getEncoded());
+        }
+
+        try
+        {
+            return org.bouncycastle.asn1.x509.Certificate.getInstance(cert.getEncoded()).getIssuer();
+        }
+        catch (CertificateEncodingException e)
+        {
+            throw new IllegalArgumentException("Cannot process certificate: " + e.getMessage());
+        }
+    }
+
+    private static X500Name getCertificateIssuer(TBSCertList.CRLEntry entry)
+    {
+        if (entry.hasExtensions())
+        {
+            Extension currentCaName = entry.getExtensions().getExtension(Extension.certificateIssuer);
+
+            if (currentCaName != null)
+            {
+                return X500Name.getInstance(GeneralNames.getInstance(currentCaName.getParsedValue()).getNames()[0].getName());
+            }
+        }
+
+        return null;
+    }
+
     protected static byte[] getExtensionOctets(CertificateList c, String oid)
     {
         ASN1OctetString extValue = getExtensionValue(c, oid);
@@ -721,5 +748,146 @@ protected static ASN1OctetString getExtensionValue(CertificateList c, String oid
         }
         return null;
     }
-}
 
+    /**
+     * A compact index over the revoked certificate entries, built once per CRL. Entries are held sorted by the
+     * hash of their serial number (and by position in the CRL for equal hashes), so a lookup is a binary search
+     * followed by a check of the few entries sharing the hash. For an indirect CRL the certificate issuer in
+     * effect before each entry is kept as an index into a table of the distinct issuers.
+     */
+    private static class RevokedIndex
+    {
+        private final int count;
+        private final int[] serialHashes;
+        private final ASN1Encodable[] entries;
+        private final int[] previousIssuers;
+        private final X500Name[] issuers;
+
+        RevokedIndex(Enumeration<?> certs, boolean isIndirect)
+        {
+            int count = 0;
+            int[] hashes = new int[16];
+            ASN1Encodable[] entries = new ASN1Encodable[16];
+            int[] previousIssuers = isIndirect ? new int[16] : null;
+
+            // issuer number 0 is "no certificate issuer seen yet"
+            List<X500Name> issuerList = new ArrayList<X500Name>();
+            Map<X500Name, Integer> issuerNumbers = new HashMap<X500Name, Integer>();
+            issuerList.add(null);
+            int currentIssuer = 0;
+
+            while (certs.hasMoreElements())
+            {
+                TBSCertList.CRLEntry entry = (TBSCertList.CRLEntry)certs.nextElement();
+
+                if (count == entries.length)
+                {
+                    int newLength = count * 2;
+                    hashes = Arrays.copyOf(hashes, newLength);
+                    entries = copyOf(entries, newLength);
+                    if (isIndirect)
+                    {
+                        previousIssuers = Arrays.copyOf(previousIssuers, newLength);
+                    }
+                }
+
+                hashes[count] = entry.getUserCertificate().getValue().hashCode();
+                entries[count] = entry.toASN1Primitive();
+
+                if (isIndirect)
+                {
+                    previousIssuers[count] = currentIssuer;
+
+                    X500Name currentCaName = getCertificateIssuer(entry);
+                    if (currentCaName != null)
+                    {
+                        Integer number = issuerNumbers.get(currentCaName);
+                        if (number == null)
+                        {
+                            number = Integers.valueOf(issuerList.size());
+                            issuerNumbers.put(currentCaName, number);
+                            issuerList.add(currentCaName);
+                        }
+                        currentIssuer = number.intValue();
+                    }
+                }
+
+                ++count;
+            }
+
+            long[] order = new long[count];
+            for (int i = 0; i < count; ++i)
+            {
+                order[i] = ((long)hashes[i] << 32) | (i & 0xFFFFFFFFL);
+            }
+            java.util.Arrays.sort(order);
+
+            this.count = count;
+            this.serialHashes = new int[count];
+            this.entries = new ASN1Encodable[count];
+            this.previousIssuers = isIndirect ? new int[count] : null;
+            this.issuers = issuerList.toArray(new X500Name[issuerList.size()]);
+
+            for (int pos = 0; pos < count; ++pos)
+            {
+                int i = (int)order[pos];
+                this.serialHashes[pos] = hashes[i];
+                this.entries[pos] = entries[i];
+                if (isIndirect)
+                {
+                    this.previousIssuers[pos] = previousIssuers[i];
+                }
+            }
+        }
+
+        /**
+         * Return the position of the first entry that may have the given serial number, or -1 if there is none.
+         */
+        int find(BigInteger serialNumber)
+        {
+            int hash = serialNumber.hashCode();
+
+            int lo = 0, hi = count;
+            while (lo < hi)
+            {
+                int mid = (lo + hi) >>> 1;
+                if (serialHashes[mid] < hash)
+                {
+                    lo = mid + 1;
+                }
+                else
+                {
+                    hi = mid;
+                }
+            }
+
+            return (lo < count && serialHashes[lo] == hash) ? lo : -1;
+        }
+
+        /**
+         * Return the position of the next entry with the same serial number hash as pos, or -1 if there is none.
+         */
+        int next(int pos)
+        {
+            int nextPos = pos + 1;
+            return (nextPos < count && serialHashes[nextPos] == serialHashes[pos]) ? nextPos : -1;
+        }
+
+        TBSCertList.CRLEntry getEntry(int pos)
+        {
+            return TBSCertList.CRLEntry.getInstance(entries[pos]);
+        }
+
+        X500Name getPreviousIssuer(int pos)
+        {
+            return previousIssuers == null ? null : issuers[previousIssuers[pos]];
+        }
+
+        private static ASN1Encodable[] copyOf(ASN1Encodable[] data, int newLength)
+        {
+            ASN1Encodable[] tmp = new ASN1Encodable[newLength];
+            System.arraycopy(data, 0, tmp, 0, data.length);
+            return tmp;
+        }
+    }
+}
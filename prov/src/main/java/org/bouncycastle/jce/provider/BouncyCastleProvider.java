@@ -6,9 +6,15 @@
 import java.security.PrivilegedAction;
 import java.security.Provider;
 import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -47,6 +53,7 @@
 import org.bouncycastle.pqc.jcajce.provider.sphincsplus.SPHINCSPlusKeyFactorySpi;
 import org.bouncycastle.pqc.jcajce.provider.xmss.XMSSKeyFactorySpi;
 import org.bouncycastle.pqc.jcajce.provider.xmss.XMSSMTKeyFactorySpi;
+import org.bouncycastle.util.Properties;
 import org.bouncycastle.util.Strings;
 
 /**
@@ -72,6 +79,12 @@
  * most preferred).
  * <p>Note: JCE algorithm names should be upper-case only so the case insensitive
  * test for getInstance works.
+ * <p>
+ * If the system property "org.bouncycastle.provider.lazy_loading" is set to true the provider
+ * registers its services from a prebuilt index and only loads the classes configuring a group of
+ * services when one of them is first asked for. Methods which list the provider's contents, such as
+ * getServices() and keySet(), load everything, other Map methods, such as containsKey(), only reflect
+ * the services loaded so far.
  */
 public final class BouncyCastleProvider extends Provider
     implements ConfigurableProvider
@@ -162,17 +175,41 @@ public final class BouncyCastleProvider extends Provider
         "DRBG"
     };
 
+    private static final String LAZY_LOADING = "org.bouncycastle.provider.lazy_loading";
+
     private Map<String, Service> serviceMap = new ConcurrentHashMap<String, Service>();
 
+    private final ServiceIndex.Recorder indexRecorder;
+    private final ServiceIndex serviceIndex;
+
+    // Mappings classes waiting to be loaded, in the order they would have been loaded up front.
+    private final List<String> deferred = new ArrayList<String>();
+    private final Map<String, Integer> deferredOrder = new HashMap<String, Integer>();
+    private final Set<String> loaded = new HashSet<String>();
+    private volatile boolean allLoaded;
+    private int configuringOrder = Integer.MAX_VALUE;
+
     /**
      * Construct a new provider.  This should only be required when
      * using runtime registration of the provider using the
      * <code>Security.addProvider()</code> mechanism.
      */
     public BouncyCastleProvider()
+    {
+        this(null);
+    }
+
+    /**
+     * Construct a provider which loads everything up front, reporting what each Mappings class registers
+     * to the passed in recorder if there is one.
+     */
+    BouncyCastleProvider(ServiceIndex.Recorder indexRecorder)
     {
         super(PROVIDER_NAME, 1.7899, info);
 
+        this.indexRecorder = indexRecorder;
+        this.serviceIndex = (indexRecorder == null && Properties.isOverrideSet(LAZY_LOADING)) ? ServiceIndex.getInstance() : null;
+
         AccessController.doPrivileged(new PrivilegedAction()
         {
             public Object run()
@@ -277,6 +314,11 @@ public final Service getService(final String type, final String algorithm)
                         @Override
                         public Service run()
                         {
+                            if (serviceIndex != null)
+                            {
+                                loadServices(Strings.toUpperCase(type) + "." + upperCaseAlgName);
+                            }
+
                             Service service = BouncyCastleProvider.super.getService(type, algorithm);
                             if (service == null)
                             {
@@ -332,7 +374,36 @@ private void loadAlgorithms(String packageName, CryptoServiceProperties[] servic
 
     private void loadServiceClass(String packageName, String serviceName)
     {
-        Class clazz = ClassUtil.loadClass(BouncyCastleProvider.class, packageName + serviceName + "$Mappings");
+        String className = packageName + serviceName + "$Mappings";
+
+        // the JDK looks for a default SecureRandom without asking for it by name, so those are always loaded.
+        if (serviceIndex != null && !SECURE_RANDOM_PACKAGE.equals(packageName) && serviceIndex.isIndexed(className))
+        {
+            deferredOrder.put(className, Integer.valueOf(deferred.size()));
+            deferred.add(className);
+            return;
+        }
+
+        if (indexRecorder != null)
+        {
+            Set<Object> existing = new HashSet<Object>(keySet());
+
+            indexRecorder.begin(className);
+            configureServiceClass(className);
+
+            Set<Object> added = new HashSet<Object>(keySet());
+            added.removeAll(existing);
+            indexRecorder.end(className, added, this);
+        }
+        else
+        {
+            configureServiceClass(className);
+        }
+    }
+
+    private void configureServiceClass(String className)
+    {
+        Class clazz = ClassUtil.loadClass(BouncyCastleProvider.class, className);
 
         if (clazz != null)
         {
@@ -343,11 +414,145 @@ private void loadServiceClass(String packageName, String serviceName)
             catch (Exception e)
             {   // this should never ever happen!!
                 throw new InternalError("cannot create instance of "
-                    + packageName + serviceName + "$Mappings : " + e);
+                    + className + " : " + e);
+            }
+        }
+    }
+
+    /**
+     * Load the deferred Mappings class registering the passed in index key, and the one registering the
+     * service it refers to if it is an alias.
+     */
+    private void loadServices(String indexKey)
+    {
+        if (allLoaded)
+        {
+            return;
+        }
+
+        loadDeferred(serviceIndex.getOwner(indexKey));
+
+        String target = serviceIndex.getAliasTarget(indexKey);
+        if (target != null)
+        {
+            loadDeferred(serviceIndex.getOwner(target));
+        }
+    }
+
+    private void loadDeferred(final String className)
+    {
+        if (className == null)
+        {
+            return;
+        }
+
+        synchronized (this)
+        {
+            Integer order = (Integer)deferredOrder.get(className);
+            if (order == null || !loaded.add(className))
+            {
+                return;
+            }
+
+            int previousOrder = configuringOrder;
+            configuringOrder = order.intValue();
+            try
+            {
+                AccessController.doPrivileged(new PrivilegedAction()
+                {
+                    public Object run()
+                    {
+                        configureServiceClass(className);
+                        return null;
+                    }
+                });
+            }
+            finally
+            {
+                configuringOrder = previousOrder;
             }
         }
     }
 
+    private void loadAllDeferred()
+    {
+        if (serviceIndex == null || allLoaded)
+        {
+            return;
+        }
+
+        synchronized (this)
+        {
+            for (int i = 0; i != deferred.size(); i++)
+            {
+                loadDeferred((String)deferred.get(i));
+            }
+            allLoaded = true;
+        }
+    }
+
+    public Set<Service> getServices()
+    {
+        loadAllDeferred();
+
+        return super.getServices();
+    }
+
+    public String getProperty(String key)
+    {
+        if (serviceIndex != null)
+        {
+            loadServices(ServiceIndex.toIndexKey(key));
+        }
+
+        return super.getProperty(key);
+    }
+
+    public Object get(Object key)
+    {
+        if (serviceIndex != null && key instanceof String)
+        {
+            loadServices(ServiceIndex.toIndexKey((String)key));
+        }
+
+        return super.get(key);
+    }
+
+    public Set<Object> keySet()
+    {
+        loadAllDeferred();
+
+        return super.keySet();
+    }
+
+    public Set<Map.Entry<Object, Object>> entrySet()
+    {
+        loadAllDeferred();
+
+        return super.entrySet();
+    }
+
+    public Collection<Object> values()
+    {
+        loadAllDeferred();
+
+        return super.values();
+    }
+
+    public Enumeration<Object> keys()
+    {
+        loadAllDeferred();
+
+        return super.keys();
+    }
+
+    public Enumeration<Object> elements()
+    {
+        loadAllDeferred();
+
+        return super.elements();
+    }
+
     private void loadPQCKeys()
     {
         addKeyInfoConverter(BCObjectIdentifiers.sphincsPlus, new SPHINCSPlusKeyFactorySpi());
@@ -466,7 +671,25 @@ public void setParameter(String parameterName, Object parameter)
 
     public boolean hasAlgorithm(String type, String name)
     {
-        return containsKey(type + "." + name) || containsKey("Alg.Alias." + type + "." + name);
+        if (containsKey(type + "." + name) || containsKey("Alg.Alias." + type + "." + name))
+        {
+            return true;
+        }
+
+        if (serviceIndex != null)
+        {
+            String owner = serviceIndex.getOwner(Strings.toUpperCase(type + "." + name));
+
+            // answer as if everything was loaded up front - a Mappings class only sees those loaded before it.
+            synchronized (this)
+            {
+                Integer order = (Integer)deferredOrder.get(owner);
+
+                return order != null && order.intValue() < configuringOrder;
+            }
+        }
+
+        return false;
     }
 
     public void addAlgorithm(String key, String value)
@@ -504,10 +727,20 @@ public void addKeyInfoConverter(ASN1ObjectIdentifier oid, AsymmetricKeyInfoConve
         {
             keyInfoConverters.put(oid, keyInfoConverter);
         }
+
+        if (indexRecorder != null)
+        {
+            indexRecorder.addConverter(oid);
+        }
     }
 
     public AsymmetricKeyInfoConverter getKeyInfoConverter(ASN1ObjectIdentifier oid)
     {
+        if (serviceIndex != null)
+        {
+            loadDeferred(serviceIndex.getConverterOwner(oid));
+        }
+
         return (AsymmetricKeyInfoConverter)keyInfoConverters.get(oid);
     }
 
@@ -530,6 +763,55 @@ public void addAttributes(String key, Map<String, String> attributeMap)
 
     private static AsymmetricKeyInfoConverter getAsymmetricKeyInfoConverter(ASN1ObjectIdentifier algorithm)
     {
+        AsymmetricKeyInfoConverter converter;
+        synchronized (keyInfoConverters)
+        {
+            converter = (AsymmetricKeyInfoConverter)keyInfoConverters.get(algorithm);
+        }
+
+        if (converter == null && Properties.isOverrideSet(LAZY_LOADING))
+        {
+            ServiceIndex serviceIndex = ServiceIndex.getInstance();
+            if (serviceIndex != null)
+            {
+                String className = serviceIndex.getConverterOwner(algorithm);
+                if (className != null)
+                {
+                    converter = loadKeyInfoConverter(className, algorithm);
+                }
+            }
+        }
+
+        return converter;
+    }
+
+    /**
+     * Register the key info converters of a Mappings class which has not been loaded by any provider yet.
+     */
+    private static AsymmetricKeyInfoConverter loadKeyInfoConverter(final String className, ASN1ObjectIdentifier algorithm)
+    {
+        AccessController.doPrivileged(new PrivilegedAction()
+        {
+            public Object run()
+            {
+                Class clazz = ClassUtil.loadClass(BouncyCastleProvider.class, className);
+
+                if (clazz != null)
+                {
+                    try
+                    {
+                        ((AlgorithmProvider)clazz.newInstance()).configure(new KeyInfoConverterCollector());
+                    }
+                    catch (Exception e)
+                    {   // this should never ever happen!!
+                        throw new InternalError("cannot create instance of "
+                            + className + " : " + e);
+                    }
+                }
+                return null;
+            }
+        });
+
         synchronized (keyInfoConverters)
         {
             return (AsymmetricKeyInfoConverter)keyInfoConverters.get(algorithm);
@@ -571,6 +853,56 @@ private static CryptoServiceProperties service(String name, int bitsOfSecurity)
         return new JcaCryptoService(name, bitsOfSecurity);
     }
 
+    /**
+     * A provider which only keeps the key info converters registered with it, for loading a Mappings class
+     * just for its converters.
+     */
+    private static class KeyInfoConverterCollector
+        implements ConfigurableProvider
+    {
+        public void setParameter(String parameterName, Object parameter)
+        {
+        }
+
+        public void addAlgorithm(String key, String value)
+        {
+        }
+
+        public void addAlgorithm(String key, String value, Map<String, String> attributes)
+        {
+        }
+
+        public void addAlgorithm(String type, ASN1ObjectIdentifier oid, String className)
+        {
+        }
+
+        public void addAlgorithm(String type, ASN1ObjectIdentifier oid, String className, Map<String, String> attributes)
+        {
+        }
+
+        public boolean hasAlgorithm(String type, String name)
+        {
+            return false;
+        }
+
+        public void addKeyInfoConverter(ASN1ObjectIdentifier oid, AsymmetricKeyInfoConverter keyInfoConverter)
+        {
+            synchronized (keyInfoConverters)
+            {
+                keyInfoConverters.put(oid, keyInfoConverter);
+            }
+        }
+
+        public AsymmetricKeyInfoConverter getKeyInfoConverter(ASN1ObjectIdentifier oid)
+        {
+            return getAsymmetricKeyInfoConverter(oid);
+        }
+
+        public void addAttributes(String key, Map<String, String> attributeMap)
+        {
+        }
+    }
+
     private static class JcaCryptoService
         implements CryptoServiceProperties
     {
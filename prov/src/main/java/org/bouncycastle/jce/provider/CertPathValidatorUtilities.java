@@ -74,6 +74,7 @@
 import org.bouncycastle.jcajce.PKIXCertStoreSelector;
 import org.bouncycastle.jcajce.PKIXExtendedBuilderParameters;
 import org.bouncycastle.jcajce.PKIXExtendedParameters;
+import org.bouncycastle.jcajce.PKIXVerificationCache;
 import org.bouncycastle.jcajce.util.JcaJceHelper;
 import org.bouncycastle.jce.exception.ExtCertPathBuilderException;
 import org.bouncycastle.jce.exception.ExtCertPathValidatorException;
@@ -192,76 +193,66 @@ protected static TrustAnchor findTrustAnchor(
         String sigProvider)
         throws AnnotatedException
     {
-        TrustAnchor trust = null;
-        PublicKey trustPublicKey = null;
-        Exception invalidKeyEx = null;
+        return findTrustAnchor(cert, trustAnchors, sigProvider, null);
+    }
 
-        X509CertSelector certSelectX509 = new X509CertSelector();
+    static TrustAnchor findTrustAnchor(
+        X509Certificate cert,
+        Set trustAnchors,
+        String sigProvider,
+        PKIXVerificationCache verificationCache)
+        throws AnnotatedException
+    {
+        return findTrustAnchor(cert, new TrustAnchorIndex(trustAnchors), sigProvider, verificationCache);
+    }
 
-        final X500Principal certIssuerPrincipal = cert.getIssuerX500Principal();
-        certSelectX509.setSubject(certIssuerPrincipal);
+    /**
+     * Search the trust anchors of the passed in parameters for one that is the issuer of the given X509
+     * certificate, using the parameters' signature provider and verification cache.
+     */
+    static TrustAnchor findTrustAnchor(
+        X509Certificate cert,
+        PKIXExtendedParameters paramsPKIX)
+        throws AnnotatedException
+    {
+        return findTrustAnchor(cert, TrustAnchorIndex.getInstance(paramsPKIX), paramsPKIX.getSigProvider(),
+            paramsPKIX.getVerificationCache());
+    }
 
-        X500Name certIssuerName = null;
+    private static TrustAnchor findTrustAnchor(
+        X509Certificate cert,
+        TrustAnchorIndex trustAnchorIndex,
+        String sigProvider,
+        PKIXVerificationCache verificationCache)
+        throws AnnotatedException
+    {
+        TrustAnchor trust = null;
+        Exception invalidKeyEx = null;
 
-        Iterator iter = trustAnchors.iterator();
+        // only anchors with a subject matching the certificate's issuer are candidates
+        Iterator iter = trustAnchorIndex.getCandidates(cert, cert.getIssuerX500Principal()).iterator();
         while (iter.hasNext() && trust == null)
         {
             trust = (TrustAnchor)iter.next();
+
+            PublicKey trustPublicKey;
             if (trust.getTrustedCert() != null)
             {
-                if (certSelectX509.match(trust.getTrustedCert()))
-                {
-                    trustPublicKey = trust.getTrustedCert().getPublicKey();
-                }
-                else
-                {
-                    trust = null;
-                }
-            }
-            else if (trust.getCA() != null
-                && trust.getCAName() != null
-                && trust.getCAPublicKey() != null)
-            {
-                if (certIssuerName == null)
-                {
-                    certIssuerName = X500Name.getInstance(certIssuerPrincipal.getEncoded());
-                }
-
-                try
-                {
-                    X500Name caName = X500Name.getInstance(trust.getCA().getEncoded());
-
-                    if (certIssuerName.equals(caName))
-                    {
-                        trustPublicKey = trust.getCAPublicKey();
-                    }
-                    else
-                    {
-                        trust = null;
-                    }
-                }
-                catch (IllegalArgumentException ex)
-                {
-                    trust = null;
-                }
+                trustPublicKey = trust.getTrustedCert().getPublicKey();
             }
             else
             {
-                trust = null;
+                trustPublicKey = trust.getCAPublicKey();
             }
 
-            if (trustPublicKey != null)
+            try
             {
-                try
-                {
-                    verifyX509Certificate(cert, trustPublicKey, sigProvider);
-                }
-                catch (Exception ex)
-                {
-                    invalidKeyEx = ex;
-                    trust = null;
-                    trustPublicKey = null;
-                }
+                verifyX509Certificate(cert, trustPublicKey, sigProvider, verificationCache);
+            }
+            catch (Exception ex)
+            {
+                invalidKeyEx = ex;
+                trust = null;
             }
         }
 
@@ -278,10 +269,35 @@ static boolean isIssuerTrustAnchor(
         Set trustAnchors,
         String sigProvider)
         throws AnnotatedException
+    {
+        return isIssuerTrustAnchor(cert, trustAnchors, sigProvider, null);
+    }
+
+    static boolean isIssuerTrustAnchor(
+        X509Certificate cert,
+        Set trustAnchors,
+        String sigProvider,
+        PKIXVerificationCache verificationCache)
+        throws AnnotatedException
     {
         try
         {
-            return findTrustAnchor(cert, trustAnchors, sigProvider) != null;
+            return findTrustAnchor(cert, trustAnchors, sigProvider, verificationCache) != null;
+        }
+        catch (Exception e)
+        {
+            return false;
+        }
+    }
+
+    static boolean isIssuerTrustAnchor(
+        X509Certificate cert,
+        PKIXExtendedParameters paramsPKIX)
+        throws AnnotatedException
+    {
+        try
+        {
+            return findTrustAnchor(cert, paramsPKIX) != null;
         }
         catch (Exception e)
         {
@@ -1332,12 +1348,34 @@ static Collection findIssuerCerts(
         List<CertStore> certStores,
         List<PKIXCertStore> pkixCertStores)
         throws AnnotatedException
+    {
+        return findIssuerCerts(cert, certStores, pkixCertStores, null);
+    }
+
+    /**
+     * Find the issuer certificates of a given certificate, using issuerIndex for any
+     * collection based CertStores.
+     *
+     * @param cert       The certificate for which an issuer should be found.
+     * @param issuerIndex index to use for the CertStores, null to search them directly.
+     * @return A <code>Collection</code> object containing the issuer
+     *         <code>X509Certificate</code>s. Never <code>null</code>.
+     * @throws AnnotatedException if an error occurs.
+     */
+    static Collection findIssuerCerts(
+        X509Certificate cert,
+        List<CertStore> certStores,
+        List<PKIXCertStore> pkixCertStores,
+        IssuerIndex issuerIndex)
+        throws AnnotatedException
     {
         X509CertSelector selector = new X509CertSelector();
+        X500Principal issuer;
 
         try
         {
-            selector.setSubject(PrincipalUtils.getIssuerPrincipal(cert).getEncoded());
+            issuer = new X500Principal(PrincipalUtils.getIssuerPrincipal(cert).getEncoded());
+            selector.setSubject(issuer);
         }
         catch (Exception e)
         {
@@ -1368,7 +1406,21 @@ static Collection findIssuerCerts(
 
         try
         {
-            CertPathValidatorUtilities.findCertificates(certs, certSelect, certStores);
+            if (issuerIndex == null)
+            {
+                CertPathValidatorUtilities.findCertificates(certs, certSelect, certStores);
+            }
+            else
+            {
+                for (int i = 0; i != certStores.size(); i++)
+                {
+                    CertStore certStore = (CertStore)certStores.get(i);
+                    if (!issuerIndex.findCertificates(certs, issuer, certSelect, certStore))
+                    {
+                        CertPathValidatorUtilities.findCertificates(certs, certSelect, Collections.singletonList(certStore));
+                    }
+                }
+            }
             CertPathValidatorUtilities.findCertificates(certs, certSelect, pkixCertStores);
         }
         catch (AnnotatedException e)
@@ -1381,6 +1433,22 @@ static Collection findIssuerCerts(
         return certs;
     }
 
+    static void verifyX509Certificate(X509Certificate cert, PublicKey publicKey, String sigProvider,
+        PKIXVerificationCache verificationCache)
+        throws GeneralSecurityException
+    {
+        if (verificationCache == null)
+        {
+            verifyX509Certificate(cert, publicKey, sigProvider);
+        }
+        else if (!verificationCache.isVerified(cert, publicKey))
+        {
+            verifyX509Certificate(cert, publicKey, sigProvider);
+
+            verificationCache.addVerified(cert, publicKey);
+        }
+    }
+
     protected static void verifyX509Certificate(X509Certificate cert, PublicKey publicKey, String sigProvider)
         throws GeneralSecurityException
     {
@@ -0,0 +1,95 @@
+package org.bouncycastle.jce.provider;
+
+import java.security.cert.CertStore;
+import java.security.cert.CertStoreParameters;
+import java.security.cert.CollectionCertStoreParameters;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.bouncycastle.jcajce.PKIXCertStoreSelector;
+
+/**
+ * Subject index over the collection based CertStores used while building a single path, so the
+ * repeated issuer searches made as the builder recurses do not rescan every certificate each time.
+ * <p>
+ * A collection CertStore may be backed by a live collection, so an index is only good for the
+ * duration of one build - a new IssuerIndex should be created for each.
+ * </p>
+ */
+class IssuerIndex
+{
+    private final Map<CertStore, Map<X500Principal, List<X509Certificate>>> indexes
+        = new HashMap<CertStore, Map<X500Principal, List<X509Certificate>>>();
+
+    /**
+     * Add the certificates in certStore matching certSelect to certs.
+     *
+     * @return false if certStore cannot be indexed and needs to be searched directly.
+     */
+    boolean findCertificates(Collection certs, X500Principal subject, PKIXCertStoreSelector certSelect, CertStore certStore)
+    {
+        Map<X500Principal, List<X509Certificate>> index = getIndex(certStore);
+        if (index == null)
+        {
+            return false;
+        }
+
+        List<X509Certificate> candidates = (List<X509Certificate>)index.get(subject);
+        if (candidates != null)
+        {
+            for (int i = 0; i != candidates.size(); i++)
+            {
+                X509Certificate candidate = (X509Certificate)candidates.get(i);
+                if (certSelect.match(candidate))
+                {
+                    certs.add(candidate);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private Map<X500Principal, List<X509Certificate>> getIndex(CertStore certStore)
+    {
+        if (indexes.containsKey(certStore))
+        {
+            return (Map<X500Principal, List<X509Certificate>>)indexes.get(certStore);
+        }
+
+        Map<X500Principal, List<X509Certificate>> index = null;
+
+        CertStoreParameters params = certStore.getCertStoreParameters();
+        if (params instanceof CollectionCertStoreParameters)
+        {
+            index = new HashMap<X500Principal, List<X509Certificate>>();
+            for (Iterator it = ((CollectionCertStoreParameters)params).getCollection().iterator(); it.hasNext();)
+            {
+                Object obj = it.next();
+                if (obj instanceof X509Certificate)
+                {
+                    X509Certificate cert = (X509Certificate)obj;
+
+                    List<X509Certificate> certs = (List<X509Certificate>)index.get(cert.getSubjectX500Principal());
+                    if (certs == null)
+                    {
+                        certs = new ArrayList<X509Certificate>(1);
+                        index.put(cert.getSubjectX500Principal(), certs);
+                    }
+                    certs.add(cert);
+                }
+            }
+        }
+
+        indexes.put(certStore, index);
+
+        return index;
+    }
+}
@@ -1,29 +1,43 @@
 package org.bouncycastle.jce.provider;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.ref.WeakReference;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.security.cert.CertPathValidatorException;
 import java.security.cert.Extension;
 import java.security.cert.X509Certificate;
 import java.text.ParseException;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bouncycastle.asn1.ASN1Encodable;
 import org.bouncycastle.asn1.ASN1EncodableVector;
 import org.bouncycastle.asn1.ASN1GeneralizedTime;
+import org.bouncycastle.asn1.ASN1InputStream;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
-import org.bouncycastle.asn1.ASN1OctetString;
 import org.bouncycastle.asn1.ASN1Sequence;
 import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.DERUTF8String;
 import org.bouncycastle.asn1.ocsp.BasicOCSPResponse;
 import org.bouncycastle.asn1.ocsp.CertID;
 import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
@@ -38,76 +52,358 @@
 import org.bouncycastle.asn1.x509.Extensions;
 import org.bouncycastle.jcajce.PKIXCertRevocationCheckerParameters;
 import org.bouncycastle.jcajce.util.JcaJceHelper;
+import org.bouncycastle.util.Properties;
 import org.bouncycastle.util.io.Streams;
 
-class OcspCache
+/**
+ * Cache of the OCSP responses retrieved by the provider's PKIX revocation checker. Responses are
+ * held per responder and CertID until the nextUpdate they carry has passed (or, for responses without
+ * a nextUpdate, until a maximum age measured from their thisUpdate), subject to a bound on the number
+ * of entries with the least recently used entries evicted first. Concurrent requests for the same
+ * CertID share a single responder query.
+ * <p>
+ * The cache can be configured using the following system or security properties:
+ * <ul>
+ * <li>org.bouncycastle.ocsp.cache.max_entries - the maximum number of responses held (default 4096).</li>
+ * <li>org.bouncycastle.ocsp.cache.max_age_secs - how long responses without a nextUpdate are used for (default 3600).</li>
+ * <li>org.bouncycastle.ocsp.cache.snapshot - a file the cache is loaded from when first used and saved to, by a background
+ * thread, as new responses arrive, allowing the cache to survive a restart.</li>
+ * <li>org.bouncycastle.ocsp.cache.snapshot_interval_secs - the minimum time between saves of the snapshot file (default 60).</li>
+ * </ul>
+ * Responses read from a snapshot are validated again the first time they are used.
+ * </p>
+ */
+public class OcspCache
 {
+    private static final Logger LOG = Logger.getLogger(OcspCache.class.getName());
+
     private static final int DEFAULT_TIMEOUT = 15000;
     private static final int DEFAULT_MAX_RESPONSE_SIZE = 32 * 1024;
 
-    private static Map<URI, WeakReference<Map<CertID, OCSPResponse>>> cache
-        = Collections.synchronizedMap(new WeakHashMap<URI, WeakReference<Map<CertID, OCSPResponse>>>());
+    private static final String MAX_ENTRIES = "org.bouncycastle.ocsp.cache.max_entries";
+    private static final String MAX_AGE = "org.bouncycastle.ocsp.cache.max_age_secs";
+    private static final String SNAPSHOT = "org.bouncycastle.ocsp.cache.snapshot";
+    private static final String SNAPSHOT_INTERVAL = "org.bouncycastle.ocsp.cache.snapshot_interval_secs";
 
-    static OCSPResponse getOcspResponse(
-        CertID certID, PKIXCertRevocationCheckerParameters parameters,
-        URI ocspResponder, X509Certificate responderCert, List<Extension> ocspExtensions,
-        JcaJceHelper helper)
-        throws CertPathValidatorException
-    {
-        Map<CertID, OCSPResponse> responseMap = null;
+    private static final int maxEntries = Math.max(1, Properties.asInteger(MAX_ENTRIES, 4096));
+    private static final long maxAge = Properties.asInteger(MAX_AGE, 3600) * 1000L;
 
-        WeakReference<Map<CertID, OCSPResponse>> markerRef = cache.get(ocspResponder);
-        if (markerRef != null)
+    // access ordered, so the eldest entry is the least recently used - all access is synchronized on the map.
+    private static final Map<Key, CacheEntry> entries = new LinkedHashMap<Key, CacheEntry>(16, 0.75f, true)
+    {
+        protected boolean removeEldestEntry(Map.Entry<Key, CacheEntry> eldest)
         {
-            responseMap = markerRef.get();
+            return size() > maxEntries;
         }
+    };
+    private static final ConcurrentMap<Key, FutureTask<OCSPResponse>> inFlight = new ConcurrentHashMap<Key, FutureTask<OCSPResponse>>();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private static final File snapshotFile;
+    private static final long snapshotInterval = Properties.asInteger(SNAPSHOT_INTERVAL, 60) * 1000L;
+    private static final AtomicLong lastSnapshot = new AtomicLong();
+    private static final AtomicBoolean snapshotPending = new AtomicBoolean();
+    private static final Object snapshotLock = new Object();
+
+    static
+    {
+        String snapshot = Properties.getPropertyValue(SNAPSHOT);
 
-        if (responseMap != null)
+        if (snapshot != null)
         {
-            OCSPResponse response = responseMap.get(certID);
-            if (response != null)
+            snapshotFile = new File(snapshot);
+            if (snapshotFile.exists())
             {
-                BasicOCSPResponse basicResp = BasicOCSPResponse.getInstance(
-                    ASN1OctetString.getInstance(response.getResponseBytes().getResponse()).getOctets());
+                try
+                {
+                    loadSnapshot(snapshotFile);
+                }
+                catch (IOException e)
+                {
+                    LOG.log(Level.WARNING, "unable to load OCSP cache snapshot " + snapshotFile + ": " + e.getMessage());
+                }
+            }
+            lastSnapshot.set(System.currentTimeMillis());
+        }
+        else
+        {
+            snapshotFile = null;
+        }
+    }
 
-                ResponseData responseData = ResponseData.getInstance(basicResp.getTbsResponseData());
+    private OcspCache()
+    {
+    }
 
-                ASN1Sequence s = responseData.getResponses();
+    /**
+     * Return the number of lookups which have been satisfied from the cache.
+     *
+     * @return the cache hit count.
+     */
+    public static long getHitCount()
+    {
+        return hits.get();
+    }
 
-                for (int i = 0; i != s.size(); i++)
+    /**
+     * Return the number of lookups which required a request to an OCSP responder.
+     *
+     * @return the cache miss count.
+     */
+    public static long getMissCount()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Return the number of responses currently cached.
+     *
+     * @return the number of cache entries.
+     */
+    public static int size()
+    {
+        synchronized (entries)
+        {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Remove all responses from the cache.
+     */
+    public static void clear()
+    {
+        synchronized (entries)
+        {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Write the current, unexpired, contents of the cache to a file.
+     *
+     * @param file the file to write to.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void saveSnapshot(File file)
+        throws IOException
+    {
+        long now = System.currentTimeMillis();
+        ASN1EncodableVector v = new ASN1EncodableVector();
+
+        List<Map.Entry<Key, CacheEntry>> contents;
+        synchronized (entries)
+        {
+            contents = new ArrayList<Map.Entry<Key, CacheEntry>>(entries.entrySet());
+        }
+
+        for (Iterator<Map.Entry<Key, CacheEntry>> it = contents.iterator(); it.hasNext();)
+        {
+            Map.Entry<Key, CacheEntry> mapEntry = it.next();
+            Key key = mapEntry.getKey();
+            CacheEntry entry = mapEntry.getValue();
+
+            if (!entry.isExpired(now))
+            {
+                v.add(new DERSequence(new ASN1Encodable[]{ new DERUTF8String(key.responder.toString()), key.certID, entry.response }));
+            }
+        }
+
+        synchronized (snapshotLock)
+        {
+            // write a new file and rename it, so an interrupted save leaves the previous snapshot intact
+            File tmpFile = new File(file.getPath() + ".tmp");
+            OutputStream fOut = new FileOutputStream(tmpFile);
+            try
+            {
+                fOut.write(new DERSequence(v).getEncoded());
+            }
+            finally
+            {
+                fOut.close();
+            }
+
+            if (!tmpFile.renameTo(file))
+            {
+                file.delete();
+                if (!tmpFile.renameTo(file))
                 {
-                    SingleResponse resp = SingleResponse.getInstance(s.getObjectAt(i));
+                    throw new IOException("unable to rename " + tmpFile + " to " + file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the unexpired responses in a file written by {@link #saveSnapshot(File)} to the cache.
+     *
+     * @param file the file to read.
+     * @return the number of responses added.
+     * @throws IOException if the file cannot be read or parsed.
+     */
+    public static int loadSnapshot(File file)
+        throws IOException
+    {
+        long now = System.currentTimeMillis();
+        int count = 0;
+
+        InputStream fIn = new FileInputStream(file);
+        try
+        {
+            ASN1Sequence seq = ASN1Sequence.getInstance(new ASN1InputStream(fIn, (int)file.length()).readObject());
+
+            for (int i = 0; i != seq.size(); i++)
+            {
+                ASN1Sequence item = ASN1Sequence.getInstance(seq.getObjectAt(i));
 
-                    if (certID.equals(resp.getCertID()))
+                Key key = new Key(new URI(DERUTF8String.getInstance(item.getObjectAt(0)).getString()),
+                    CertID.getInstance(item.getObjectAt(1)));
+                CacheEntry entry = createEntry(key.certID, OCSPResponse.getInstance(item.getObjectAt(2)), false);
+
+                if (entry != null && !entry.isExpired(now))
+                {
+                    synchronized (entries)
                     {
-                        ASN1GeneralizedTime nextUp = resp.getNextUpdate();
-                        try
+                        if (!entries.containsKey(key))
                         {
-                            if (nextUp != null && parameters.getValidDate().after(nextUp.getDate()))
-                            {
-                                responseMap.remove(certID);
-                                response = null;
-                            }
-                        }
-                        catch (ParseException e)
-                        {
-                            // this should never happen, but...
-                            responseMap.remove(certID);
-                            response = null;
+                            entries.put(key, entry);
+                            count++;
                         }
                     }
                 }
-                if (response != null)
+            }
+        }
+        catch (URISyntaxException e)
+        {
+            throw new IOException("malformed OCSP cache snapshot: " + e.getMessage());
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IOException("malformed OCSP cache snapshot: " + e.getMessage());
+        }
+        finally
+        {
+            fIn.close();
+        }
+
+        return count;
+    }
+
+    static OCSPResponse getOcspResponse(
+        CertID certID, PKIXCertRevocationCheckerParameters parameters,
+        URI ocspResponder, X509Certificate responderCert, List<Extension> ocspExtensions,
+        JcaJceHelper helper)
+        throws CertPathValidatorException
+    {
+        Key key = new Key(ocspResponder, certID);
+
+        CacheEntry entry;
+        synchronized (entries)
+        {
+            entry = entries.get(key);
+        }
+
+        if (entry != null)
+        {
+            if (entry.isUsable(parameters.getValidDate().getTime(), System.currentTimeMillis())
+                && (entry.validated || revalidate(entry, parameters, responderCert, ocspExtensions, helper)))
+            {
+                hits.incrementAndGet();
+
+                return entry.response;
+            }
+
+            synchronized (entries)
+            {
+                if (entries.get(key) == entry)
                 {
-                    return response;
+                    entries.remove(key);
                 }
             }
         }
 
+        misses.incrementAndGet();
+
+        return fetch(key, parameters, responderCert, ocspExtensions, helper);
+    }
+
+    /*
+     * Query the responder, with at most one query per CertID in progress at a time - other callers wait
+     * for, and share, the result of the running one.
+     */
+    private static OCSPResponse fetch(final Key key, final PKIXCertRevocationCheckerParameters parameters,
+        final X509Certificate responderCert, final List<Extension> ocspExtensions, final JcaJceHelper helper)
+        throws CertPathValidatorException
+    {
+        FutureTask<OCSPResponse> task = new FutureTask<OCSPResponse>(new Callable<OCSPResponse>()
+        {
+            public OCSPResponse call()
+                throws Exception
+            {
+                return load(key, parameters, responderCert, ocspExtensions, helper);
+            }
+        });
+
+        FutureTask<OCSPResponse> running = inFlight.putIfAbsent(key, task);
+        if (running == null)
+        {
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                inFlight.remove(key, task);
+            }
+            running = task;
+        }
+
+        try
+        {
+            return running.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new CertPathValidatorException("interrupted waiting for OCSP response from: " + key.responder,
+                e, parameters.getCertPath(), parameters.getIndex());
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof CertPathValidatorException)
+            {
+                if (running == task)
+                {
+                    throw (CertPathValidatorException)cause;
+                }
+                // report against our own path rather than that of the caller that made the request
+                throw new CertPathValidatorException(cause.getMessage(), cause.getCause(),
+                    parameters.getCertPath(), parameters.getIndex());
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error)cause;
+            }
+            throw new CertPathValidatorException("unable to fetch OCSP response: " + cause.getMessage(),
+                cause, parameters.getCertPath(), parameters.getIndex());
+        }
+    }
+
+    private static OCSPResponse load(Key key, PKIXCertRevocationCheckerParameters parameters,
+        X509Certificate responderCert, List<Extension> ocspExtensions, JcaJceHelper helper)
+        throws CertPathValidatorException
+    {
         URL ocspUrl;
         try
         {
-            ocspUrl = ocspResponder.toURL();
+            ocspUrl = key.responder.toURL();
         }
         catch (MalformedURLException e)
         {
@@ -120,7 +416,7 @@ static OCSPResponse getOcspResponse(
         //
         ASN1EncodableVector requests = new ASN1EncodableVector();
 
-        requests.add(new Request(certID, null));
+        requests.add(new Request(key.certID, null));
 
         List exts = ocspExtensions;
         ASN1EncodableVector requestExtensions = new ASN1EncodableVector();
@@ -199,21 +495,10 @@ static OCSPResponse getOcspResponse(
                         "OCSP response failed to validate", null, parameters.getCertPath(), parameters.getIndex());
                 }
 
-                markerRef = cache.get(ocspResponder);
-                if (markerRef != null)
-                {
-                    responseMap = markerRef.get();
-                }
-
-                if (responseMap != null)
+                CacheEntry entry = createEntry(key.certID, response, true);
+                if (entry != null)
                 {
-                    responseMap.put(certID, response);
-                }
-                else
-                {
-                    responseMap = new HashMap<CertID, OCSPResponse>();
-                    responseMap.put(certID, response);
-                    cache.put(ocspResponder, new WeakReference<Map<CertID, OCSPResponse>>(responseMap));
+                    store(key, entry);
                 }
 
                 return response;
@@ -231,4 +516,198 @@ static OCSPResponse getOcspResponse(
                      e, parameters.getCertPath(), parameters.getIndex());
         }
     }
+
+    /*
+     * Validate a response read from a snapshot, which has not been checked by this process yet.
+     */
+    private static boolean revalidate(CacheEntry entry, PKIXCertRevocationCheckerParameters parameters,
+        X509Certificate responderCert, List<Extension> ocspExtensions, JcaJceHelper helper)
+    {
+        byte[] nonce = null;
+        for (int i = 0; i != ocspExtensions.size(); i++)
+        {
+            Extension ext = (Extension)ocspExtensions.get(i);
+
+            if (OCSPObjectIdentifiers.id_pkix_ocsp_nonce.getId().equals(ext.getId()))
+            {
+                nonce = ext.getValue();
+            }
+        }
+
+        try
+        {
+            ResponseBytes respBytes = ResponseBytes.getInstance(entry.response.getResponseBytes());
+            BasicOCSPResponse basicResp = BasicOCSPResponse.getInstance(respBytes.getResponse().getOctets());
+
+            if (ProvOcspRevocationChecker.validatedOcspResponse(basicResp, parameters, nonce, responderCert, helper))
+            {
+                entry.validated = true;
+                return true;
+            }
+        }
+        catch (CertPathValidatorException e)
+        {
+            LOG.log(Level.FINE, "cached OCSP response failed to validate: " + e.getMessage());
+        }
+
+        return false;
+    }
+
+    private static void store(Key key, CacheEntry entry)
+    {
+        synchronized (entries)
+        {
+            entries.put(key, entry);
+        }
+
+        if (snapshotFile != null)
+        {
+            long now = System.currentTimeMillis();
+            long last = lastSnapshot.get();
+
+            if (now - last >= snapshotInterval && lastSnapshot.compareAndSet(last, now)
+                && snapshotPending.compareAndSet(false, true))
+            {
+                // the save is kept off the validation path.
+                Thread writer = new Thread(new Runnable()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            saveSnapshot(snapshotFile);
+                        }
+                        catch (IOException e)
+                        {
+                            LOG.log(Level.WARNING, "unable to save OCSP cache snapshot " + snapshotFile + ": " + e.getMessage());
+                        }
+                        finally
+                        {
+                            snapshotPending.set(false);
+                        }
+                    }
+                }, "BC-OcspCacheSnapshot");
+
+                writer.setDaemon(true);
+                writer.start();
+            }
+        }
+    }
+
+    private static CacheEntry createEntry(CertID certID, OCSPResponse response, boolean validated)
+    {
+        ResponseBytes respBytes = response.getResponseBytes();
+        if (respBytes == null || !respBytes.getResponseType().equals(OCSPObjectIdentifiers.id_pkix_ocsp_basic))
+        {
+            return null;
+        }
+
+        BasicOCSPResponse basicResp = BasicOCSPResponse.getInstance(respBytes.getResponse().getOctets());
+
+        ResponseData responseData = ResponseData.getInstance(basicResp.getTbsResponseData());
+
+        ASN1Sequence s = responseData.getResponses();
+
+        for (int i = 0; i != s.size(); i++)
+        {
+            SingleResponse resp = SingleResponse.getInstance(s.getObjectAt(i));
+
+            if (isSameCertID(certID, resp.getCertID()))
+            {
+                try
+                {
+                    ASN1GeneralizedTime nextUp = resp.getNextUpdate();
+
+                    return new CacheEntry(response, resp.getThisUpdate().getDate().getTime(),
+                        nextUp != null ? nextUp.getDate().getTime() : Long.MAX_VALUE, validated);
+                }
+                catch (ParseException e)
+                {
+                    // this should never happen, but...
+                    return null;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /*
+     * Responders may encode the hash algorithm parameters differently from the request, so only the
+     * algorithm, hashes, and serial number are compared.
+     */
+    private static boolean isSameCertID(CertID requested, CertID returned)
+    {
+        return requested.getHashAlgorithm().getAlgorithm().equals(returned.getHashAlgorithm().getAlgorithm())
+            && requested.getIssuerNameHash().equals(returned.getIssuerNameHash())
+            && requested.getIssuerKeyHash().equals(returned.getIssuerKeyHash())
+            && requested.getSerialNumber().equals(returned.getSerialNumber());
+    }
+
+    private static class Key
+    {
+        final URI responder;
+        final CertID certID;
+
+        private final int hashCode;
+
+        Key(URI responder, CertID certID)
+        {
+            this.responder = responder;
+            this.certID = certID;
+            this.hashCode = responder.hashCode() * 31 + certID.hashCode();
+        }
+
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        public boolean equals(Object o)
+        {
+            if (o == this)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+
+            Key other = (Key)o;
+
+            return hashCode == other.hashCode && responder.equals(other.responder) && certID.equals(other.certID);
+        }
+    }
+
+    private static class CacheEntry
+    {
+        final OCSPResponse response;
+        final long thisUpdate;
+        final long nextUpdate;
+
+        volatile boolean validated;
+
+        CacheEntry(OCSPResponse response, long thisUpdate, long nextUpdate, boolean validated)
+        {
+            this.response = response;
+            this.thisUpdate = thisUpdate;
+            this.nextUpdate = nextUpdate;
+            this.validated = validated;
+        }
+
+        boolean isUsable(long validDate, long now)
+        {
+            if (nextUpdate != Long.MAX_VALUE)
+            {
+                return validDate <= nextUpdate;
+            }
+            return now - thisUpdate <= maxAge;
+        }
+
+        boolean isExpired(long now)
+        {
+            return !isUsable(now, now);
+        }
+    }
 }
@@ -122,6 +122,9 @@ public CertPathBuilderResult engineBuild(CertPathParameters params)
         CertPathBuilderResult result = null;
 
         // check all potential target certificates
+        // issuer searches are repeated as the builder recurses, index the CertStores for this build
+        issuerIndex = new IssuerIndex();
+
         targetIter = targets.iterator();
         while (targetIter.hasNext() && result == null)
         {
@@ -184,6 +187,7 @@ public CertPathBuilderResult engineBuild(CertPathParameters params)
     }
 
     private Exception certPathException;
+    private IssuerIndex issuerIndex;
 
     private CertPathBuilderResult build(X509AttributeCertificate attrCert, X509Certificate tbvCert,
             PKIXExtendedBuilderParameters pkixParams, List tbvPath)
@@ -233,8 +237,7 @@ private CertPathBuilderResult build(X509AttributeCertificate attrCert, X509Certi
         {
             // check whether the issuer of <tbvCert> is a TrustAnchor
             PKIXExtendedParameters baseParams = pkixParams.getBaseParameters();
-            if (CertPathValidatorUtilities.isIssuerTrustAnchor(tbvCert, baseParams.getTrustAnchors(),
-                baseParams.getSigProvider()))
+            if (CertPathValidatorUtilities.isIssuerTrustAnchor(tbvCert, baseParams))
             {
                 CertPath certPath;
                 try
@@ -284,7 +287,7 @@ private CertPathBuilderResult build(X509AttributeCertificate attrCert, X509Certi
                 // of the stores
                 try
                 {
-                    issuers.addAll(CertPathValidatorUtilities.findIssuerCerts(tbvCert, baseParams.getCertStores(), stores));
+                    issuers.addAll(CertPathValidatorUtilities.findIssuerCerts(tbvCert, baseParams.getCertStores(), stores, issuerIndex));
                 }
                 catch (AnnotatedException e)
                 {
@@ -103,6 +103,9 @@ else if (params instanceof PKIXExtendedBuilderParameters)
         CertPathBuilderResult result = null;
 
         // check all potential target certificates
+        // issuer searches are repeated as the builder recurses, index the CertStores for this build
+        issuerIndex = new IssuerIndex();
+
         targetIter = targets.iterator();
         while (targetIter.hasNext() && result == null)
         {
@@ -131,6 +134,7 @@ else if (params instanceof PKIXExtendedBuilderParameters)
     }
 
     private Exception certPathException;
+    private IssuerIndex issuerIndex;
 
     protected CertPathBuilderResult build(X509Certificate tbvCert,
         PKIXExtendedBuilderParameters pkixParams, List tbvPath)
@@ -177,8 +181,7 @@ protected CertPathBuilderResult build(X509Certificate tbvCert,
         try
         {
             // check whether the issuer of <tbvCert> is a TrustAnchor
-            if (CertPathValidatorUtilities.isIssuerTrustAnchor(tbvCert, pkixParams.getBaseParameters().getTrustAnchors(),
-                pkixParams.getBaseParameters().getSigProvider()))
+            if (CertPathValidatorUtilities.isIssuerTrustAnchor(tbvCert, pkixParams.getBaseParameters()))
             {
                 // exception message from possibly later tried certification
                 // chains
@@ -235,7 +238,7 @@ protected CertPathBuilderResult build(X509Certificate tbvCert,
                 // of the stores
                 try
                 {
-                    issuers.addAll(CertPathValidatorUtilities.findIssuerCerts(tbvCert, pkixParams.getBaseParameters().getCertStores(), stores));
+                    issuers.addAll(CertPathValidatorUtilities.findIssuerCerts(tbvCert, pkixParams.getBaseParameters().getCertStores(), stores, issuerIndex));
                 }
                 catch (AnnotatedException e)
                 {
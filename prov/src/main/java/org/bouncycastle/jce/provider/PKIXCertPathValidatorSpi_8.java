@@ -134,14 +134,17 @@ else if (params instanceof PKIXExtendedParameters)
         try
         {
             trust = CertPathValidatorUtilities.findTrustAnchor((X509Certificate) certs.get(certs.size() - 1),
-                    paramsPKIX.getTrustAnchors(), paramsPKIX.getSigProvider());
+                    paramsPKIX);
 
             if (trust == null)
             {
                 throw new CertPathValidatorException("Trust anchor for certification path not found.", null, certPath, -1);
             }
 
-            checkCertificate(trust.getTrustedCert());
+            if (trust.getTrustedCert() != null)
+            {
+                checkCertificate(trust.getTrustedCert());
+            }
         }
         catch (AnnotatedException e)
         {
@@ -1415,7 +1415,7 @@ protected static void processCertA(
                 // (a) (1)
                 //
                 CertPathValidatorUtilities.verifyX509Certificate(cert, workingPublicKey,
-                    paramsPKIX.getSigProvider());
+                    paramsPKIX.getSigProvider(), paramsPKIX.getVerificationCache());
             }
             catch (GeneralSecurityException e)
             {
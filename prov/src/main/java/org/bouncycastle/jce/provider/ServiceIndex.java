@@ -0,0 +1,247 @@
+package org.bouncycastle.jce.provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.util.Strings;
+import org.bouncycastle.util.io.Streams;
+
+/**
+ * An index of the provider keys and key info converters each of the provider's Mappings classes registers, allowing
+ * the loading of a Mappings class to be put off until one of its services is actually asked for.
+ * <p>
+ * The index is read from the resource bc_services.idx in this package, which is generated by the build. Each
+ * Mappings class has a section starting with a line "@&lt;class name&gt;", followed by one line per service type of the
+ * form "&lt;type&gt; &lt;name&gt;... &lt;alias&gt;=&lt;name&gt;...", with the names in upper case, and, where the class
+ * registers key info converters, a line "! &lt;oid&gt;...". Attribute keys are not indexed, they are always registered
+ * with their service.
+ * </p>
+ */
+class ServiceIndex
+{
+    static final String RESOURCE_NAME = "bc_services.idx";
+
+    static final String ALIAS_PREFIX = "Alg.Alias.";
+
+    private static volatile ServiceIndex instance;
+    private static volatile boolean instanceLoaded;
+
+    // upper case "type.name" -> class name, for both names and aliases.
+    private final Map<String, String> owners = new HashMap<String, String>();
+    // upper case "type.alias" -> upper case "type.name".
+    private final Map<String, String> aliases = new HashMap<String, String>();
+    // key info converter OID -> class name.
+    private final Map<String, String> converterOwners = new HashMap<String, String>();
+    private final Set<String> classNames = new HashSet<String>();
+
+    private ServiceIndex()
+    {
+    }
+
+    /**
+     * Return the index for the provider, or null if the index resource is not available.
+     */
+    static ServiceIndex getInstance()
+    {
+        if (!instanceLoaded)
+        {
+            synchronized (ServiceIndex.class)
+            {
+                if (!instanceLoaded)
+                {
+                    instance = load();
+                    instanceLoaded = true;
+                }
+            }
+        }
+        return instance;
+    }
+
+    private static ServiceIndex load()
+    {
+        InputStream in = ServiceIndex.class.getResourceAsStream(RESOURCE_NAME);
+        if (in == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            try
+            {
+                return parse(Streams.readAll(in));
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch (Exception e)
+        {
+            // a damaged index just means the provider loads everything up front.
+            return null;
+        }
+    }
+
+    // the index is plain ASCII and is read on every start up, so it is parsed directly from the bytes.
+    private static ServiceIndex parse(byte[] data)
+        throws IOException
+    {
+        ServiceIndex index = new ServiceIndex();
+
+        String className = null;
+        int pos = 0;
+        while (pos < data.length)
+        {
+            int lineEnd = pos;
+            while (lineEnd < data.length && data[lineEnd] != '\n')
+            {
+                lineEnd++;
+            }
+
+            if (lineEnd == pos || data[pos] == '#')
+            {
+                pos = lineEnd + 1;
+                continue;
+            }
+
+            if (data[pos] == '@')
+            {
+                className = toString(data, pos + 1, lineEnd).trim();
+                index.classNames.add(className);
+                pos = lineEnd + 1;
+                continue;
+            }
+
+            if (className == null)
+            {
+                throw new IOException("index entry found outside of a class section");
+            }
+
+            int tokEnd = nextSpace(data, pos, lineEnd);
+            String type = toString(data, pos, tokEnd);
+            boolean isConverters = type.equals("!");
+            String prefix = Strings.toUpperCase(type) + ".";
+
+            for (pos = tokEnd + 1; pos < lineEnd; pos = tokEnd + 1)
+            {
+                tokEnd = nextSpace(data, pos, lineEnd);
+
+                int eq = pos;
+                while (eq < tokEnd && data[eq] != '=')
+                {
+                    eq++;
+                }
+
+                // names are written in upper case by the generator.
+                if (isConverters)
+                {
+                    index.converterOwners.put(toString(data, pos, tokEnd), className);
+                }
+                else if (eq == tokEnd)
+                {
+                    index.owners.put(prefix + toString(data, pos, tokEnd), className);
+                }
+                else
+                {
+                    String alias = prefix + toString(data, pos, eq);
+
+                    index.owners.put(alias, className);
+                    index.aliases.put(alias, prefix + toString(data, eq + 1, tokEnd));
+                }
+            }
+
+            pos = lineEnd + 1;
+        }
+
+        return index;
+    }
+
+    private static int nextSpace(byte[] data, int pos, int end)
+    {
+        while (pos < end && data[pos] != ' ' && data[pos] != '\r')
+        {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static String toString(byte[] data, int start, int end)
+    {
+        char[] chars = new char[end - start];
+        for (int i = 0; i != chars.length; i++)
+        {
+            chars[i] = (char)(data[start + i] & 0xff);
+        }
+        return new String(chars);
+    }
+
+    boolean isIndexed(String className)
+    {
+        return classNames.contains(className);
+    }
+
+    /**
+     * Return the Mappings class registering the passed in type and name or alias.
+     *
+     * @param key an upper case key of the form "type.name".
+     * @return the class name, null if the key is not in the index.
+     */
+    String getOwner(String key)
+    {
+        return owners.get(key);
+    }
+
+    /**
+     * Return the key an alias refers to.
+     *
+     * @param key an upper case key of the form "type.alias".
+     * @return the upper case key of the aliased service, null if the key is not an alias.
+     */
+    String getAliasTarget(String key)
+    {
+        return aliases.get(key);
+    }
+
+    String getConverterOwner(ASN1ObjectIdentifier oid)
+    {
+        return converterOwners.get(oid.getId());
+    }
+
+    /**
+     * Convert a provider property key into the upper case "type.name" form used for index look ups.
+     */
+    static String toIndexKey(String propertyKey)
+    {
+        if (propertyKey.startsWith(ALIAS_PREFIX))
+        {
+            propertyKey = propertyKey.substring(ALIAS_PREFIX.length());
+        }
+
+        int space = propertyKey.indexOf(' ');
+        if (space >= 0)
+        {
+            propertyKey = propertyKey.substring(0, space);
+        }
+
+        return Strings.toUpperCase(propertyKey);
+    }
+
+    /**
+     * Told what each Mappings class registers while a provider loads them, in the order they are loaded. Used by
+     * the build to generate the index.
+     */
+    interface Recorder
+    {
+        void begin(String className);
+
+        void end(String className, Set<Object> addedKeys, Map<Object, Object> properties);
+
+        void addConverter(ASN1ObjectIdentifier oid);
+    }
+}
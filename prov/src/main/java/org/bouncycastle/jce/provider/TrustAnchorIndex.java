@@ -0,0 +1,234 @@
+package org.bouncycastle.jce.provider;
+
+import java.lang.ref.WeakReference;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.jcajce.PKIXExtendedParameters;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Index of a set of trust anchors by subject, so the anchors that could have issued a certificate
+ * can be found without checking every anchor in the set.
+ * <p>
+ * Indexes are kept for the trust anchor sets of the most recently used parameters, matched by identity.
+ * PKIXExtendedParameters only holds private, unmodifiable copies, so the same set seen again has the same
+ * content. Any other set is indexed afresh each time.
+ * </p>
+ */
+class TrustAnchorIndex
+{
+    private static final int CACHE_SIZE = 8;
+
+    private static final List<TrustAnchorIndex> cache = new ArrayList<TrustAnchorIndex>(CACHE_SIZE);
+
+    private final WeakReference<Set> trustAnchors;
+    private final Map<X500Principal, List<Entry>> bySubject = new HashMap<X500Principal, List<Entry>>();
+    private final Map<X500Name, List<Entry>> byCAName = new HashMap<X500Name, List<Entry>>();
+
+    static TrustAnchorIndex getInstance(PKIXExtendedParameters paramsPKIX)
+    {
+        Set trustAnchors = paramsPKIX.getTrustAnchors();
+
+        synchronized (cache)
+        {
+            for (int i = 0; i != cache.size(); i++)
+            {
+                TrustAnchorIndex index = (TrustAnchorIndex)cache.get(i);
+                if (index.trustAnchors.get() == trustAnchors)
+                {
+                    if (i != 0)
+                    {
+                        cache.remove(i);
+                        cache.add(0, index);
+                    }
+                    return index;
+                }
+            }
+        }
+
+        TrustAnchorIndex index = new TrustAnchorIndex(trustAnchors);
+
+        synchronized (cache)
+        {
+            for (Iterator it = cache.iterator(); it.hasNext();)
+            {
+                if (((TrustAnchorIndex)it.next()).trustAnchors.get() == null)
+                {
+                    it.remove();
+                }
+            }
+            if (cache.size() == CACHE_SIZE)
+            {
+                cache.remove(CACHE_SIZE - 1);
+            }
+            cache.add(0, index);
+        }
+
+        return index;
+    }
+
+    TrustAnchorIndex(Set trustAnchors)
+    {
+        this.trustAnchors = new WeakReference<Set>(trustAnchors);
+
+        int ordinal = 0;
+        for (Iterator it = trustAnchors.iterator(); it.hasNext(); ordinal++)
+        {
+            TrustAnchor trust = (TrustAnchor)it.next();
+
+            X509Certificate trustedCert = trust.getTrustedCert();
+            if (trustedCert != null)
+            {
+                add(bySubject, trustedCert.getSubjectX500Principal(), new Entry(trust, ordinal, getSubjectKeyIdentifier(trustedCert)));
+            }
+            else if (trust.getCA() != null
+                && trust.getCAName() != null
+                && trust.getCAPublicKey() != null)
+            {
+                try
+                {
+                    add(byCAName, X500Name.getInstance(trust.getCA().getEncoded()), new Entry(trust, ordinal, null));
+                }
+                catch (IllegalArgumentException ex)
+                {
+                    // cannot match anything - leave it out.
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the trust anchors whose subject matches the issuer of cert, in set order but with any
+     * anchor whose subject key identifier matches the authority key identifier of cert first.
+     */
+    List<TrustAnchor> getCandidates(X509Certificate cert, X500Principal certIssuerPrincipal)
+    {
+        List<Entry> certMatches = (List<Entry>)bySubject.get(certIssuerPrincipal);
+        List<Entry> nameMatches = byCAName.isEmpty() ? null
+            : (List<Entry>)byCAName.get(X500Name.getInstance(certIssuerPrincipal.getEncoded()));
+
+        if (certMatches == null && nameMatches == null)
+        {
+            return Collections.emptyList();
+        }
+
+        List<Entry> entries = new ArrayList<Entry>();
+        if (certMatches != null)
+        {
+            entries.addAll(certMatches);
+        }
+        if (nameMatches != null)
+        {
+            entries.addAll(nameMatches);
+        }
+        if (certMatches != null && nameMatches != null)
+        {
+            Collections.sort(entries);
+        }
+
+        List<TrustAnchor> candidates = new ArrayList<TrustAnchor>(entries.size());
+        if (entries.size() > 1)
+        {
+            byte[] aki = getAuthorityKeyIdentifier(cert);
+            if (aki != null)
+            {
+                for (Iterator<Entry> it = entries.iterator(); it.hasNext();)
+                {
+                    Entry entry = (Entry)it.next();
+                    if (Arrays.areEqual(aki, entry.subjectKeyIdentifier))
+                    {
+                        candidates.add(entry.trustAnchor);
+                        it.remove();
+                    }
+                }
+            }
+        }
+        for (int i = 0; i != entries.size(); i++)
+        {
+            candidates.add(((Entry)entries.get(i)).trustAnchor);
+        }
+
+        return candidates;
+    }
+
+    private static void add(Map map, Object key, Entry entry)
+    {
+        List<Entry> entries = (List<Entry>)map.get(key);
+        if (entries == null)
+        {
+            entries = new ArrayList<Entry>(1);
+            map.put(key, entries);
+        }
+        entries.add(entry);
+    }
+
+    private static byte[] getSubjectKeyIdentifier(X509Certificate cert)
+    {
+        try
+        {
+            byte[] ext = cert.getExtensionValue(Extension.subjectKeyIdentifier.getId());
+            if (ext != null)
+            {
+                return ASN1OctetString.getInstance(ASN1OctetString.getInstance(ext).getOctets()).getOctets();
+            }
+        }
+        catch (Exception e)
+        {
+            // ignore - the anchor is still indexed by subject
+        }
+        return null;
+    }
+
+    private static byte[] getAuthorityKeyIdentifier(X509Certificate cert)
+    {
+        try
+        {
+            byte[] ext = cert.getExtensionValue(Extension.authorityKeyIdentifier.getId());
+            if (ext != null)
+            {
+                return AuthorityKeyIdentifier.getInstance(ASN1OctetString.getInstance(ext).getOctets()).getKeyIdentifier();
+            }
+        }
+        catch (Exception e)
+        {
+            // ignore - candidates are returned in set order
+        }
+        return null;
+    }
+
+    private static class Entry
+        implements Comparable
+    {
+        final TrustAnchor trustAnchor;
+        final int ordinal;
+        final byte[] subjectKeyIdentifier;
+
+        Entry(TrustAnchor trustAnchor, int ordinal, byte[] subjectKeyIdentifier)
+        {
+            this.trustAnchor = trustAnchor;
+            this.ordinal = ordinal;
+            this.subjectKeyIdentifier = subjectKeyIdentifier;
+        }
+
+        public int compareTo(Object o)
+        {
+            int other = ((Entry)o).ordinal;
+
+            return ordinal < other ? -1 : (ordinal == other ? 0 : 1);
+        }
+    }
+}
@@ -74,6 +74,7 @@
 import org.bouncycastle.jcajce.PKIXCertStoreSelector;
 import org.bouncycastle.jcajce.PKIXExtendedBuilderParameters;
 import org.bouncycastle.jcajce.PKIXExtendedParameters;
+import org.bouncycastle.jcajce.PKIXVerificationCache;
 import org.bouncycastle.jcajce.util.JcaJceHelper;
 import org.bouncycastle.jce.exception.ExtCertPathBuilderException;
 import org.bouncycastle.jce.exception.ExtCertPathValidatorException;
@@ -191,6 +192,25 @@ protected static TrustAnchor findTrustAnchor(
         Set trustAnchors,
         String sigProvider)
         throws AnnotatedException
+    {
+        return findTrustAnchor(cert, trustAnchors, sigProvider, null);
+    }
+
+    static TrustAnchor findTrustAnchor(
+        X509Certificate cert,
+        PKIXExtendedParameters paramsPKIX)
+        throws AnnotatedException
+    {
+        return findTrustAnchor(cert, paramsPKIX.getTrustAnchors(), paramsPKIX.getSigProvider(),
+            paramsPKIX.getVerificationCache());
+    }
+
+    static TrustAnchor findTrustAnchor(
+        X509Certificate cert,
+        Set trustAnchors,
+        String sigProvider,
+        PKIXVerificationCache verificationCache)
+        throws AnnotatedException
     {
         TrustAnchor trust = null;
         PublicKey trustPublicKey = null;
@@ -260,7 +280,7 @@ else if (trust.getCAName() != null
             {
                 try
                 {
-                    verifyX509Certificate(cert, trustPublicKey, sigProvider);
+                    verifyX509Certificate(cert, trustPublicKey, sigProvider, verificationCache);
                 }
                 catch (Exception ex)
                 {
@@ -284,10 +304,20 @@ static boolean isIssuerTrustAnchor(
         Set trustAnchors,
         String sigProvider)
         throws AnnotatedException
+    {
+        return isIssuerTrustAnchor(cert, trustAnchors, sigProvider, null);
+    }
+
+    static boolean isIssuerTrustAnchor(
+        X509Certificate cert,
+        Set trustAnchors,
+        String sigProvider,
+        PKIXVerificationCache verificationCache)
+        throws AnnotatedException
     {
         try
         {
-            return findTrustAnchor(cert, trustAnchors, sigProvider) != null;
+            return findTrustAnchor(cert, trustAnchors, sigProvider, verificationCache) != null;
         }
         catch (Exception e)
         {
@@ -295,6 +325,15 @@ static boolean isIssuerTrustAnchor(
         }
     }
 
+    static boolean isIssuerTrustAnchor(
+        X509Certificate cert,
+        PKIXExtendedParameters paramsPKIX)
+        throws AnnotatedException
+    {
+        return isIssuerTrustAnchor(cert, paramsPKIX.getTrustAnchors(), paramsPKIX.getSigProvider(),
+            paramsPKIX.getVerificationCache());
+    }
+
     static List<PKIXCertStore> getAdditionalStoresFromAltNames(
         byte[] issuerAlternativeName,
         Map<GeneralName, PKIXCertStore> altNameCertStoreMap)
@@ -1333,6 +1372,17 @@ protected static PublicKey getNextWorkingKey(List certs, int index, JcaJceHelper
      *         <code>X509Certificate</code>s. Never <code>null</code>.
      * @throws AnnotatedException if an error occurs.
      */
+    static Collection findIssuerCerts(
+        X509Certificate cert,
+        List<CertStore> certStores,
+        List<PKIXCertStore> pkixCertStores,
+        IssuerIndex issuerIndex)
+        throws AnnotatedException
+    {
+        // no index support on this platform, the stores are searched directly.
+        return findIssuerCerts(cert, certStores, pkixCertStores);
+    }
+
     static Collection findIssuerCerts(
         X509Certificate cert,
         List<CertStore> certStores,
@@ -1387,6 +1437,22 @@ static Collection findIssuerCerts(
         return certs;
     }
 
+    static void verifyX509Certificate(X509Certificate cert, PublicKey publicKey, String sigProvider,
+        PKIXVerificationCache verificationCache)
+        throws GeneralSecurityException
+    {
+        if (verificationCache == null)
+        {
+            verifyX509Certificate(cert, publicKey, sigProvider);
+        }
+        else if (!verificationCache.isVerified(cert, publicKey))
+        {
+            verifyX509Certificate(cert, publicKey, sigProvider);
+
+            verificationCache.addVerified(cert, publicKey);
+        }
+    }
+
     protected static void verifyX509Certificate(X509Certificate cert, PublicKey publicKey, String sigProvider)
         throws GeneralSecurityException
     {
@@ -0,0 +1,147 @@
+package org.bouncycastle.pqc.crypto.mlkem;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * NTT and inverse NTT over the ML-KEM ring using the (incubating) Vector API. Coefficients are widened to
+ * int lanes for the arithmetic and narrowed again on store, so the results are bit for bit those of the
+ * scalar code in {@link Ntt}. Layers whose butterfly distance is below the lane count fall back to scalar
+ * loops.
+ * <p>
+ * This class must only be loaded once {@link Ntt} has established that the jdk.incubator.vector module is
+ * present.
+ * </p>
+ */
+class VectorNtt
+{
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> SHORT_SPECIES =
+        VectorSpecies.of(short.class, VectorShape.forBitSize(INT_SPECIES.vectorBitSize() / 2));
+
+    private static final int LANES = INT_SPECIES.length();
+
+    static boolean isUsable()
+    {
+        return LANES >= 4 && SHORT_SPECIES.length() == LANES;
+    }
+
+    static short[] ntt(short[] inp)
+    {
+        short[] r = new short[MLKEMEngine.KyberN];
+        System.arraycopy(inp, 0, r, 0, r.length);
+
+        int k = 1;
+        for (int len = 128; len >= 2; len >>= 1)
+        {
+            for (int start = 0; start < 256; start += 2 * len)
+            {
+                short zeta = Ntt.nttZetas[k++];
+                int j = start;
+
+                if (len >= LANES)
+                {
+                    for (; j < start + len; j += LANES)
+                    {
+                        IntVector a = load(r, j);
+                        IntVector t = montgomeryReduce(load(r, j + len).mul(zeta));
+
+                        store(a.sub(t), r, j + len);
+                        store(a.add(t), r, j);
+                    }
+                }
+
+                for (; j < start + len; ++j)
+                {
+                    short t = Ntt.factorQMulMont(zeta, r[j + len]);
+                    r[j + len] = (short)(r[j] - t);
+                    r[j] = (short)(r[j] + t);
+                }
+            }
+        }
+        return r;
+    }
+
+    static short[] invNtt(short[] inp)
+    {
+        short[] r = new short[MLKEMEngine.KyberN];
+        System.arraycopy(inp, 0, r, 0, MLKEMEngine.KyberN);
+
+        int k = 0;
+        for (int len = 2; len <= 128; len <<= 1)
+        {
+            for (int start = 0; start < 256; start += 2 * len)
+            {
+                short zeta = Ntt.nttZetasInv[k++];
+                int j = start;
+
+                if (len >= LANES)
+                {
+                    for (; j < start + len; j += LANES)
+                    {
+                        IntVector a = load(r, j);
+                        IntVector b = load(r, j + len);
+
+                        store(barrettReduce(signExtend(a.add(b))), r, j);
+                        store(montgomeryReduce(signExtend(a.sub(b)).mul(zeta)), r, j + len);
+                    }
+                }
+
+                for (; j < start + len; ++j)
+                {
+                    short t = r[j];
+                    r[j] = Reduce.barretReduce((short)(t + r[j + len]));
+                    r[j + len] = (short)(t - r[j + len]);
+                    r[j + len] = Ntt.factorQMulMont(zeta, r[j + len]);
+                }
+            }
+        }
+
+        short f = Ntt.nttZetasInv[127];
+        for (int j = 0; j < 256; j += LANES)
+        {
+            store(montgomeryReduce(load(r, j).mul(f)), r, j);
+        }
+        return r;
+    }
+
+    private static IntVector load(short[] a, int off)
+    {
+        return (IntVector)ShortVector.fromArray(SHORT_SPECIES, a, off).convertShape(VectorOperators.S2I, INT_SPECIES, 0);
+    }
+
+    private static void store(IntVector v, short[] a, int off)
+    {
+        // narrowing truncates in the same way as the (short) casts in the scalar code
+        ((ShortVector)v.convertShape(VectorOperators.I2S, SHORT_SPECIES, 0)).intoArray(a, off);
+    }
+
+    private static IntVector signExtend(IntVector v)
+    {
+        return v.lanewise(VectorOperators.LSHL, 16).lanewise(VectorOperators.ASHR, 16);
+    }
+
+    /**
+     * Lane-wise {@link Reduce#montgomeryReduce(int)}.
+     */
+    private static IntVector montgomeryReduce(IntVector a)
+    {
+        IntVector u = signExtend(a.mul(MLKEMEngine.KyberQinv));
+
+        return a.sub(u.mul(MLKEMEngine.KyberQ)).lanewise(VectorOperators.ASHR, 16);
+    }
+
+    /**
+     * Lane-wise {@link Reduce#barretReduce(short)}, for lanes already holding sign extended shorts.
+     */
+    private static IntVector barrettReduce(IntVector a)
+    {
+        int v = (int)(((1L << 26) + (MLKEMEngine.KyberQ / 2)) / MLKEMEngine.KyberQ);
+        IntVector t = a.mul(v).lanewise(VectorOperators.ASHR, 26);
+
+        return a.sub(t.mul(MLKEMEngine.KyberQ));
+    }
+}
@@ -6,6 +6,7 @@
 import java.security.Security;
 import java.security.cert.CertPath;
 import java.security.cert.CertPathBuilder;
+import java.security.cert.CertPathBuilderException;
 import java.security.cert.CertStore;
 import java.security.cert.CertificateFactory;
 import java.security.cert.CollectionCertStoreParameters;
@@ -22,6 +23,8 @@
 import java.util.List;
 import java.util.Set;
 
+import javax.security.auth.x500.X500Principal;
+
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.util.test.SimpleTest;
 
@@ -203,6 +206,147 @@ private void eeOnlyInSelectorTest()
         }
     }
 
+    private void manyAnchorsTest()
+        throws Exception
+    {
+        KeyPair         oldRootPair = TestUtils.generateRSAKeyPair();
+        KeyPair         rootPair = TestUtils.generateRSAKeyPair();
+        KeyPair         interPair = TestUtils.generateRSAKeyPair();
+        KeyPair         endPair = TestUtils.generateRSAKeyPair();
+
+        X509Certificate oldRootCert = TestUtils.generateRootCert(oldRootPair);
+        X509Certificate rootCert = TestUtils.generateRootCert(rootPair);
+        X509Certificate interCert = TestUtils.generateIntermediateCert(interPair.getPublic(), rootPair.getPrivate(), rootCert);
+        X509Certificate endCert = TestUtils.generateEndEntityCert(endPair.getPublic(), interPair.getPrivate(), interCert);
+
+        // an old root with the same name as the real one, lost among unrelated anchors
+        Set anchors = new HashSet();
+        for (int i = 0; i != 200; i++)
+        {
+            anchors.add(new TrustAnchor(TestUtils.createSelfSignedCert("CN=Filler " + i, "SHA256withRSA", oldRootPair), null));
+        }
+        anchors.add(new TrustAnchor(oldRootCert, null));
+        anchors.add(new TrustAnchor(rootCert, null));
+
+        List list = new ArrayList();
+
+        list.add(interCert);
+        list.add(endCert);
+
+        CertStore store = CertStore.getInstance("Collection", new CollectionCertStoreParameters(list));
+
+        CertPathBuilder  builder = CertPathBuilder.getInstance("PKIX", "BC");
+        X509CertSelector pathConstraints = new X509CertSelector();
+
+        pathConstraints.setSubject(endCert.getSubjectX500Principal().getEncoded());
+
+        PKIXBuilderParameters buildParams = new PKIXBuilderParameters(anchors, pathConstraints);
+
+        buildParams.addCertStore(store);
+        buildParams.setRevocationEnabled(false);
+
+        // second time round with a copy of the parameters, as a server would for each connection
+        for (int i = 0; i != 2; i++)
+        {
+            PKIXCertPathBuilderResult result = (PKIXCertPathBuilderResult)builder.build((PKIXBuilderParameters)buildParams.clone());
+
+            isEquals(2, result.getCertPath().getCertificates().size());
+            isTrue(rootCert.equals(result.getTrustAnchor().getTrustedCert()));
+        }
+
+        // anchors given as a name and key rather than a certificate
+        anchors = new HashSet();
+        for (int i = 0; i != 20; i++)
+        {
+            anchors.add(new TrustAnchor(new X500Principal("CN=Filler " + i), oldRootPair.getPublic(), null));
+        }
+        anchors.add(new TrustAnchor(rootCert.getSubjectX500Principal(), oldRootPair.getPublic(), null));
+        anchors.add(new TrustAnchor(rootCert.getSubjectX500Principal(), rootPair.getPublic(), null));
+
+        buildParams = new PKIXBuilderParameters(anchors, pathConstraints);
+
+        buildParams.addCertStore(store);
+        buildParams.setRevocationEnabled(false);
+
+        PKIXCertPathBuilderResult result = (PKIXCertPathBuilderResult)builder.build(buildParams);
+
+        isEquals(2, result.getCertPath().getCertificates().size());
+        isTrue(rootPair.getPublic().equals(result.getTrustAnchor().getCAPublicKey()));
+    }
+
+    private void changedAnchorsTest()
+        throws Exception
+    {
+        KeyPair         rootPair = TestUtils.generateRSAKeyPair();
+        KeyPair         interPair = TestUtils.generateRSAKeyPair();
+        KeyPair         endPair = TestUtils.generateRSAKeyPair();
+
+        X509Certificate rootCert = TestUtils.generateRootCert(rootPair);
+        X509Certificate interCert = TestUtils.generateIntermediateCert(interPair.getPublic(), rootPair.getPrivate(), rootCert);
+        X509Certificate endCert = TestUtils.generateEndEntityCert(endPair.getPublic(), interPair.getPrivate(), interCert);
+
+        TrustAnchor rootAnchor = new TrustAnchor(rootCert, null);
+
+        Set anchors = new HashSet();
+        anchors.add(rootAnchor);
+        anchors.add(new TrustAnchor(TestUtils.createSelfSignedCert("CN=Filler 1", "SHA256withRSA", rootPair), null));
+
+        List list = new ArrayList();
+
+        list.add(interCert);
+        list.add(endCert);
+
+        CertStore store = CertStore.getInstance("Collection", new CollectionCertStoreParameters(list));
+
+        CertPathBuilder  builder = CertPathBuilder.getInstance("PKIX", "BC");
+        X509CertSelector pathConstraints = new X509CertSelector();
+
+        pathConstraints.setSubject(endCert.getSubjectX500Principal().getEncoded());
+
+        // parameters handing back a view of a set which is changed between builds
+        LiveAnchorParameters buildParams = new LiveAnchorParameters(anchors, pathConstraints);
+
+        buildParams.addCertStore(store);
+        buildParams.setRevocationEnabled(false);
+
+        PKIXCertPathBuilderResult result = (PKIXCertPathBuilderResult)builder.build(buildParams);
+
+        isTrue(rootCert.equals(result.getTrustAnchor().getTrustedCert()));
+
+        // same size, but the root is no longer trusted
+        anchors.remove(rootAnchor);
+        anchors.add(new TrustAnchor(TestUtils.createSelfSignedCert("CN=Filler 2", "SHA256withRSA", rootPair), null));
+
+        try
+        {
+            builder.build(buildParams);
+            fail("path built to removed trust anchor");
+        }
+        catch (CertPathBuilderException e)
+        {
+            // expected
+        }
+    }
+
+    private static class LiveAnchorParameters
+        extends PKIXBuilderParameters
+    {
+        private final Set trustAnchors;
+
+        LiveAnchorParameters(Set trustAnchors, X509CertSelector targetConstraints)
+            throws Exception
+        {
+            super(trustAnchors, targetConstraints);
+
+            this.trustAnchors = Collections.unmodifiableSet(trustAnchors);
+        }
+
+        public Set getTrustAnchors()
+        {
+            return trustAnchors;
+        }
+    }
+
     public void performTest()
         throws Exception
     {
@@ -210,6 +354,8 @@ public void performTest()
         v0Test();
         eeInSelectorTest();
         eeOnlyInSelectorTest();
+        manyAnchorsTest();
+        changedAnchorsTest();
     }
     
     public String getName()
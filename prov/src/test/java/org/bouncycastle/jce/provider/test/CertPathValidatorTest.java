@@ -80,6 +80,8 @@
 import org.bouncycastle.internal.asn1.misc.NetscapeCertType;
 import org.bouncycastle.internal.asn1.misc.NetscapeRevocationURL;
 import org.bouncycastle.internal.asn1.misc.VerisignCzagExtension;
+import org.bouncycastle.jcajce.PKIXExtendedParameters;
+import org.bouncycastle.jcajce.PKIXVerificationCache;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.Integers;
@@ -669,6 +671,7 @@ public void performTest()
         checkCircProcessing();
         checkPolicyProcessingAtDomainMatch();
         validateWithExtendedKeyUsage();
+        validateWithVerificationCache();
         testEmptyPath();
         checkInvalidCertPath();
     }
@@ -712,6 +715,57 @@ private void validateWithExtendedKeyUsage()
         PKIXCertPathValidatorResult result = (PKIXCertPathValidatorResult)cpv.validate(cp, param);
     }
 
+    private void validateWithVerificationCache()
+        throws Exception
+    {
+        CertificateFactory cf = CertificateFactory.getInstance("X.509", "BC");
+
+        X509Certificate rootCert = (X509Certificate)cf.generateCertificate(new ByteArrayInputStream(extTrust));
+        X509Certificate interCert = (X509Certificate)cf.generateCertificate(new ByteArrayInputStream(extCA));
+        X509Certificate finalCert = (X509Certificate)cf.generateCertificate(new ByteArrayInputStream(extEE));
+
+        List certchain = new ArrayList();
+        certchain.add(finalCert);
+        certchain.add(interCert);
+        CertPath cp = cf.generateCertPath(certchain);
+
+        PKIXParameters param = new PKIXParameters(Collections.singleton(new TrustAnchor(rootCert, null)));
+        param.setDate(new Date(rootCert.getNotBefore().getTime() + 60 * 60 * 1000));
+        param.setRevocationEnabled(false);
+
+        PKIXVerificationCache cache = new PKIXVerificationCache(16, 60 * 60 * 1000L);
+        PKIXExtendedParameters extParam = new PKIXExtendedParameters.Builder(param)
+            .setVerificationCache(cache)
+            .build();
+
+        CertPathValidator cpv = CertPathValidator.getInstance("PKIX", "BC");
+
+        cpv.validate(cp, extParam);
+
+        isEquals(0, cache.getHitCount());
+        isEquals(2, cache.size());
+
+        PKIXCertPathValidatorResult result = (PKIXCertPathValidatorResult)cpv.validate(cp, extParam);
+
+        isEquals(2, cache.getHitCount());
+        isTrue(result.getPublicKey().equals(finalCert.getPublicKey()));
+
+        // a cached signature check does not stand in for the rest of the validation
+        param.setDate(new Date(rootCert.getNotAfter().getTime() + 60 * 60 * 1000));
+        try
+        {
+            cpv.validate(cp, new PKIXExtendedParameters.Builder(param).setVerificationCache(cache).build());
+            fail("expired path validated");
+        }
+        catch (CertPathValidatorException e)
+        {
+            // expected
+        }
+
+        // a certificate is only remembered against the key it was verified with
+        isTrue(!cache.isVerified(finalCert, rootCert.getPublicKey()));
+    }
+
     // invalid EE certificate
     static byte[] extInvEE = Base64.decode("MIICJjCCAY+gAwIBAAIGAV3Y0TnDMA0GCSqGSIb3DQEBCwUAMBExDzANBgNVBAMMBktQMSBDQTAeFw0xNzA4MTIyMzM5MzJaFw0xNzA4MTMwMDA5MzdaMBExDzANBgNVBAMMBktQMSBFRTCBnzANBgkqhkiG9w0BAQEFAAOBjQAwgYkCgYEAuOcqkp2+HBCuwRDwfR7kkUYXMdhScDG8m6A3Af6hpG86nAimNoVIQe3REaQ6IO0XSdd13rjjRwIXsUFLsrQhQJczF5JeyWXcaYqZyNNbUwFuLeSqOsLS63ltjOJYqOJRxY03Cr//baGWvxGXcRvHoZkg1nEXPcMZhgsy/9JxVoUCAwEAAaOBiDCBhTBABgNVHSMEOTA3gBSPMqzNmTdyjQmr9W1TSDW1h0ZzFaEXpBUwEzERMA8GA1UEAwwIS1AxIFJPT1SCBgFd2NE5wjAdBgNVHQ4EFgQUC1rtYrQdQkA3CLTeV1kbVIdysKQwEgYDVR0TAQH/BAgwBgEB/wIBADAOBgNVHQ8BAf8EBAMCAYYwDQYJKoZIhvcNAQELBQADgYEAGr841G7E84Ow9+fFGW1zzXeTRfxsafdT/bHXCS75bjF2YPitKLcRLkm92VPxANRXIpmt++3iU/oduWqkLsfXnfTGmCwtjj/XrCvkCBQ4GONwmegltJEThMud0XOEB1UN6tfTINfLYpbyfOdE/wLy4Rte0t43aOTTOBo+/SapYOE=");
     static byte[] extInvCA = Base64.decode("MIICKDCCAZGgAwIBAgIGAV3Y0TnCMA0GCSqGSIb3DQEBCwUAMBMxETAPBgNVBAMMCEtQMSBST09UMB4XDTE3MDgxMjIzMzkzMloXDTE3MDgxMzAwMDkzN1owETEPMA0GA1UEAwwGS1AxIENBMIGfMA0GCSqGSIb3DQEBAQUAA4GNADCBiQKBgQC7Qd/cTP5S0GoPcomcZU5QlJcb1uWydvmQx3U6p4/KOZBhk6JXQeSzT8QZ/gd+9vfosA62SEX+dq7MvxxzeERxdIsVU0zZ1TrYNxlQjnYXiYRVXBczowsxseQ9oSGD94Y4buhrMAltmIHijdzGRVMY41FZmWqNXqsEwQXj6ULX+QIDAQABo4GIMIGFMEAGA1UdIwQ5MDeAFAbfd2S3aiwFww3/0ocLa6ULQjJMoRekFTATMREwDwYDVQQDDAhLUDEgUk9PVIIGAV3Y0TnBMB0GA1UdDgQWBBSPMqzNmTdyjQmr9W1TSDW1h0ZzFTASBgNVHRMBAf8ECDAGAQH/AgEAMA4GA1UdDwEB/wQEAwIBhjANBgkqhkiG9w0BAQsFAAOBgQCnmxQYy6LnvRSMxkTsGIQa4LB51O8skbWc4KYVDfcvTYQuvn6rE/ZoYf82jKXJzXksffanfjn/b38l4l8hwAcBQ8we9yjCkjO8OVDUlYiSGYUhH2ZJrl2+K2Z6wpakZ9Lz3pZ/PSS1FIsVd4I1jkexAdAm1+uMlfWXVt/uTZx98w==");
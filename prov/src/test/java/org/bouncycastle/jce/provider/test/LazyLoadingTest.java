@@ -0,0 +1,169 @@
+package org.bouncycastle.jce.provider.test;
+
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.Provider;
+import java.security.Security;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+import javax.crypto.Cipher;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.Strings;
+import org.bouncycastle.util.io.Streams;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check a provider loading its services on demand from the service index ends up the same as one loading
+ * everything up front, and that the index is up to date.
+ */
+public class LazyLoadingTest
+    extends SimpleTest
+{
+    private static final String LAZY_LOADING = "org.bouncycastle.provider.lazy_loading";
+
+    public String getName()
+    {
+        return "LazyLoading";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        Provider eager = new BouncyCastleProvider();
+
+        indexTest(eager);
+        onDemandTest();
+        servicesTest(eager);
+    }
+
+    private void indexTest(Provider eager)
+        throws Exception
+    {
+        Set<String> indexed = readIndex();
+        Provider lazy = createLazyProvider();
+
+        // anything missing from the index must be registered by the provider directly.
+        for (Iterator it = eager.keySet().iterator(); it.hasNext();)
+        {
+            String key = (String)it.next();
+            if (key.indexOf(' ') >= 0)
+            {
+                continue;
+            }
+
+            String indexKey = Strings.toUpperCase(key.startsWith("Alg.Alias.") ? key.substring(10) : key);
+            if (!indexed.contains(indexKey) && !lazy.containsKey(key))
+            {
+                fail("service index out of date, " + key + " missing - regenerate it using ServiceIndexGenerator");
+            }
+        }
+    }
+
+    private void onDemandTest()
+        throws Exception
+    {
+        Provider lazy = createLazyProvider();
+
+        isTrue(!lazy.containsKey("Cipher.AES"));
+        isTrue(((BouncyCastleProvider)lazy).hasAlgorithm("MessageDigest", "SHA-256"));
+        isTrue(!((BouncyCastleProvider)lazy).hasAlgorithm("MessageDigest", "SHA-257"));
+
+        Cipher.getInstance("AES/GCM/NoPadding", lazy);
+        isTrue(lazy.containsKey("Cipher.AES"));
+
+        // aliases bring in the service they refer to.
+        isTrue(!lazy.containsKey("MessageDigest.SHA-1"));
+        isEquals("SHA-1", MessageDigest.getInstance("SHA1", lazy).getAlgorithm());
+        isTrue(lazy.containsKey("MessageDigest.SHA-1"));
+
+        isTrue(!lazy.containsKey("MessageDigest.SHA-512"));
+        isEquals("org.bouncycastle.jcajce.provider.digest.SHA512$Digest", lazy.getProperty("MessageDigest.SHA-512"));
+        isTrue(lazy.containsKey("MessageDigest.SHA-512"));
+
+        isTrue(lazy.getService("MessageDigest", "SHA-257") == null);
+    }
+
+    private void servicesTest(Provider eager)
+        throws Exception
+    {
+        Provider lazy = createLazyProvider();
+
+        for (Iterator it = eager.getServices().iterator(); it.hasNext();)
+        {
+            Provider.Service service = (Provider.Service)it.next();
+            Provider.Service lazyService = lazy.getService(service.getType(), service.getAlgorithm());
+
+            isTrue(service.getType() + "." + service.getAlgorithm() + " not found", lazyService != null);
+            isEquals(service.getClassName(), lazyService.getClassName());
+        }
+
+        lazy = createLazyProvider();
+
+        Set<Object> eagerKeys = new HashSet<Object>(eager.keySet());
+        for (Iterator it = eagerKeys.iterator(); it.hasNext();)
+        {
+            String key = (String)it.next();
+
+            isEquals(key, eager.getProperty(key), lazy.getProperty(key));
+        }
+
+        isTrue(eagerKeys.equals(new HashSet<Object>(createLazyProvider().keySet())));
+        isEquals(eager.getServices().size(), createLazyProvider().getServices().size());
+    }
+
+    private Set<String> readIndex()
+        throws Exception
+    {
+        InputStream in = BouncyCastleProvider.class.getResourceAsStream("bc_services.idx");
+        isTrue("service index not found", in != null);
+
+        Set<String> keys = new HashSet<String>();
+        StringTokenizer lines = new StringTokenizer(Strings.fromByteArray(Streams.readAll(in)), "\r\n");
+        in.close();
+
+        while (lines.hasMoreTokens())
+        {
+            String line = lines.nextToken();
+            if (line.startsWith("#") || line.startsWith("@") || line.startsWith("!"))
+            {
+                continue;
+            }
+
+            StringTokenizer tok = new StringTokenizer(line, " ");
+            String type = Strings.toUpperCase(tok.nextToken());
+            while (tok.hasMoreTokens())
+            {
+                String entry = tok.nextToken();
+                int eq = entry.indexOf('=');
+
+                keys.add(type + "." + (eq < 0 ? entry : entry.substring(0, eq)));
+            }
+        }
+
+        return keys;
+    }
+
+    private static Provider createLazyProvider()
+    {
+        System.setProperty(LAZY_LOADING, "true");
+        try
+        {
+            return new BouncyCastleProvider();
+        }
+        finally
+        {
+            System.clearProperty(LAZY_LOADING);
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        Security.addProvider(new BouncyCastleProvider());
+
+        runTest(new LazyLoadingTest());
+    }
+}
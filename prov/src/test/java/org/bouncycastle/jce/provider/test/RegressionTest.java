@@ -93,7 +93,8 @@
         new SipHash128Test(),
         new XOFTest(),
         new XIESTest(),
-        new CertLocaleTest()
+        new CertLocaleTest(),
+        new LazyLoadingTest()
     };
 
     public static void main(String[] args)
@@ -3,6 +3,7 @@
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
+import org.bouncycastle.pqc.crypto.mlkem.VectorNttTest;
 import org.bouncycastle.test.PrintTestResult;
 
 
@@ -21,6 +22,7 @@ public static Test suite()
         suite.addTestSuite(NTRUKEMTest.class);
         suite.addTestSuite(SNTRUPrimeKEMTest.class);
         suite.addTestSuite(MLKEMTest.class);
+        suite.addTestSuite(VectorNttTest.class);
         return suite;
     }
 }
@@ -0,0 +1,40 @@
+package org.bouncycastle.pqc.crypto.mlkem;
+
+import java.security.SecureRandom;
+
+import junit.framework.TestCase;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Check the Vector API NTT gives exactly the same results as the scalar code. The test is in the same
+ * package as the NTT classes, as they are not visible outside it.
+ */
+public class VectorNttTest
+    extends TestCase
+{
+    private static final int ITERATIONS = 100000;
+
+    public void testEquivalence()
+    {
+        if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() || !VectorNtt.isUsable())
+        {
+            System.err.println("VectorNttTest: jdk.incubator.vector not available, skipping");
+            return;
+        }
+
+        SecureRandom random = new SecureRandom();
+        short[] inp = new short[MLKEMEngine.KyberN];
+
+        for (int i = 0; i != ITERATIONS; i++)
+        {
+            for (int j = 0; j != inp.length; j++)
+            {
+                // alternate between any short and a coefficient in the range the engine produces
+                inp[j] = (i & 1) == 0 ? (short)random.nextInt() : (short)(random.nextInt(2 * MLKEMEngine.KyberQ - 1) - (MLKEMEngine.KyberQ - 1));
+            }
+
+            assertTrue("ntt mismatch", Arrays.areEqual(Ntt.scalarNtt(inp), VectorNtt.ntt(inp)));
+            assertTrue("invNtt mismatch", Arrays.areEqual(Ntt.scalarInvNtt(inp), VectorNtt.invNtt(inp)));
+        }
+    }
+}
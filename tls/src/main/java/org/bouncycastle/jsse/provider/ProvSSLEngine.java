@@ -31,10 +31,14 @@
 import org.bouncycastle.tls.TlsFatalAlert;
 import org.bouncycastle.tls.TlsProtocol;
 import org.bouncycastle.tls.TlsServerProtocol;
+import org.bouncycastle.tls.TlsUtils;
 
 /*
- * TODO[jsse] Known limitations (relative to SSLEngine javadoc): 1. The wrap() and unwrap() methods
- * are synchronized, so will not execute concurrently with each other. 2. Never delegates tasks i.e.
+ * NOTE: The wrap() and unwrap() methods are each serialized on their own lock. Until the initial
+ * handshake has completed they also take the engine lock, so do not execute concurrently with each
+ * other; after that a reader thread and a writer thread may use them concurrently.
+ * 
+ * TODO[jsse] Known limitations (relative to SSLEngine javadoc): 1. Never delegates tasks i.e.
  * getDelegatedTasks() will always return null; CPU-intensive parts of the handshake will execute
  * during wrap/unwrap calls.
  */
@@ -53,7 +57,7 @@
 
     protected boolean closedEarly = false;
     protected boolean initialHandshakeBegun = false;
-    protected boolean returnedFinished = false;
+    protected volatile boolean returnedFinished = false;
     protected TlsProtocol protocol = null;
     protected ProvTlsPeer protocolPeer = null;
     protected ProvSSLConnection connection = null;
@@ -61,6 +65,9 @@
 
     protected SSLException deferredException = null;
 
+    private final Object unwrapLock = new Object();
+    private final Object wrapLock = new Object();
+
     protected ProvSSLEngine(ContextData contextData)
     {
         this(contextData, null, -1);
@@ -440,11 +447,28 @@ public synchronized void setWantClientAuth(boolean want)
     }
 
     @Override
-    public synchronized SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts, int offset, int length)
+    public SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts, int offset, int length)
         throws SSLException
     {
         // TODO[jsse] Argument checks - see javadoc
 
+        synchronized (unwrapLock)
+        {
+            if (isApplicationDataPhase())
+            {
+                return unwrapApplicationData(src, dsts, offset, length);
+            }
+
+            synchronized (this)
+            {
+                return implUnwrap(src, dsts, offset, length);
+            }
+        }
+    }
+
+    private SSLEngineResult implUnwrap(ByteBuffer src, ByteBuffer[] dsts, int offset, int length)
+        throws SSLException
+    {
         final HandshakeStatus initialHandshakeStatus = getHandshakeStatus();
 
         if (isInboundDone())
@@ -480,10 +504,8 @@ public synchronized SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts, in
             }
 
             bytesConsumed = preview.getRecordSize();
-            byte[] record = new byte[bytesConsumed];
-            src.get(record);
 
-            protocol.offerInput(record, 0, record.length);
+            protocol.offerInput(src, bytesConsumed);
         }
         catch (IOException e)
         {
@@ -507,20 +529,7 @@ public synchronized SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts, in
             return new SSLEngineResult(Status.OK, HandshakeStatus.NEED_WRAP, bytesConsumed, 0);
         }
 
-        int appDataAvailable = protocol.getAvailableInputBytes(), bytesProduced = 0;
-        for (int dstIndex = 0; appDataAvailable > 0; ++dstIndex)
-        {
-            ByteBuffer dst = dsts[offset + dstIndex];
-            int count = Math.min(dst.remaining(), appDataAvailable);
-            if (count > 0)
-            {
-                int numRead = protocol.readInput(dst, count);
-                assert numRead == count;
-
-                bytesProduced += count;
-                appDataAvailable -= count;
-            }
-        }
+        int bytesProduced = readApplicationData(dsts, offset);
 
         HandshakeStatus resultHandshakeStatus = getHandshakeStatus();
         if (resultHandshakeStatus == HandshakeStatus.NOT_HANDSHAKING)
@@ -536,7 +545,24 @@ public synchronized SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts, in
     }
 
     @Override
-    public synchronized SSLEngineResult wrap(ByteBuffer[] srcs, int offset, int length, ByteBuffer dst)
+    public SSLEngineResult wrap(ByteBuffer[] srcs, int offset, int length, ByteBuffer dst)
+        throws SSLException
+    {
+        synchronized (wrapLock)
+        {
+            if (isApplicationDataPhase())
+            {
+                return wrapApplicationData(srcs, offset, length, dst);
+            }
+
+            synchronized (this)
+            {
+                return implWrap(srcs, offset, length, dst);
+            }
+        }
+    }
+
+    private SSLEngineResult implWrap(ByteBuffer[] srcs, int offset, int length, ByteBuffer dst)
         throws SSLException
     {
         if (deferredException != null)
@@ -594,57 +620,7 @@ public synchronized SSLEngineResult wrap(ByteBuffer[] srcs, int offset, int leng
         }
         else if (protocol.isConnected())
         {
-            try
-            {
-                int bytesConsumed = 0;
-
-                /*
-                 * Generate at most one maximum-sized application data record per call.
-                 */
-                int srcRemaining = getTotalRemaining(srcs, offset, length, protocol.getApplicationDataLimit());
-                if (srcRemaining > 0)
-                {
-                    RecordPreview preview = protocol.previewOutputRecord(srcRemaining);
-
-                    int srcLimit = preview.getContentLimit();
-                    int dstLimit = preview.getRecordSize();
-
-                    if (dst.remaining() < dstLimit)
-                    {
-                        return new SSLEngineResult(Status.BUFFER_OVERFLOW, HandshakeStatus.NOT_HANDSHAKING, 0, 0);
-                    }
-
-                    // TODO Support writing application data using ByteBuffer array directly
-
-                    byte[] buffer = new byte[srcLimit];
-
-                    for (int srcIndex = 0; srcIndex < length && bytesConsumed < srcLimit; ++srcIndex)
-                    {
-                        ByteBuffer src = srcs[offset + srcIndex];
-                        int count = Math.min(src.remaining(), srcLimit - bytesConsumed);
-                        if (count > 0)
-                        {
-                            src.get(buffer, bytesConsumed, count);
-                            bytesConsumed += count;
-                        }
-                    }
-
-                    protocol.writeApplicationData(buffer, 0, bytesConsumed);
-
-                    bytesProduced = protocol.getAvailableOutputBytes();
-                    assert bytesProduced <= dstLimit;
-
-                    int numRead = protocol.readOutput(dst, bytesProduced);
-                    assert numRead == bytesProduced;
-                }
-
-                return new SSLEngineResult(getStatus(), HandshakeStatus.NOT_HANDSHAKING, bytesConsumed, bytesProduced);
-            }
-            catch (IOException e)
-            {
-                // TODO[jsse] Throw a subclass of SSLException?
-                throw new SSLException(e);
-            }
+            return wrapApplicationData(srcs, offset, length, dst);
         }
 
         if (protocol.isHandshaking())
@@ -739,29 +715,109 @@ private RecordPreview getRecordPreview(ByteBuffer src)
         return protocol.previewInputRecord(recordHeader);
     }
 
-    private Status getStatus()
+    /*
+     * Once the initial handshake has completed (and FINISHED has been reported), application data is protected and
+     * unprotected without taking the engine lock. TlsProtocol keeps its inbound and outbound record state apart, and
+     * serializes any records generated while processing input with the outbound records.
+     */
+    private boolean isApplicationDataPhase()
     {
-        return protocol.isClosed() ? Status.CLOSED : Status.OK;
+        return returnedFinished && protocol.isConnected();
     }
 
-    private int getTotalRemaining(ByteBuffer[] bufs, int off, int len, int limit)
+    private HandshakeStatus getApplicationDataHandshakeStatus()
     {
-        int result = 0;
-        for (int i = 0; i < len; ++i)
+        return protocol.getAvailableOutputBytes() > 0 ? HandshakeStatus.NEED_WRAP : HandshakeStatus.NOT_HANDSHAKING;
+    }
+
+    private SSLEngineResult unwrapApplicationData(ByteBuffer src, ByteBuffer[] dsts, int offset, int length)
+        throws SSLException
+    {
+        if (isInboundDone())
+        {
+            return new SSLEngineResult(Status.CLOSED, getApplicationDataHandshakeStatus(), 0, 0);
+        }
+
+        int bytesConsumed;
+        try
         {
-            ByteBuffer buf = bufs[off + i];
-            int next = buf.remaining();
-            if (next >= (limit - result))
+            RecordPreview preview = getRecordPreview(src);
+            if (preview == null || src.remaining() < preview.getRecordSize())
+            {
+                return new SSLEngineResult(Status.BUFFER_UNDERFLOW, getApplicationDataHandshakeStatus(), 0, 0);
+            }
+            if (hasInsufficientSpace(dsts, offset, length, preview.getContentLimit()))
             {
-                return limit;
+                return new SSLEngineResult(Status.BUFFER_OVERFLOW, getApplicationDataHandshakeStatus(), 0, 0);
             }
-            result += next;
+
+            bytesConsumed = preview.getRecordSize();
+
+            protocol.offerInput(src, bytesConsumed);
         }
-        return result;
+        catch (IOException e)
+        {
+            throw new SSLException(e);
+        }
+
+        int bytesProduced = readApplicationData(dsts, offset);
+
+        return new SSLEngineResult(getStatus(), getApplicationDataHandshakeStatus(), bytesConsumed, bytesProduced);
+    }
+
+    /*
+     * Generates as many complete records as fit in dst, after first flushing any queued output.
+     */
+    private SSLEngineResult wrapApplicationData(ByteBuffer[] srcs, int offset, int length, ByteBuffer dst)
+        throws SSLException
+    {
+        int dstStart = dst.position(), bytesConsumed;
+        try
+        {
+            bytesConsumed = protocol.writeApplicationRecords(srcs, offset, length, dst);
+        }
+        catch (IOException e)
+        {
+            // TODO[jsse] Throw a subclass of SSLException?
+            throw new SSLException(e);
+        }
+
+        int bytesProduced = dst.position() - dstStart;
+
+        if (bytesProduced < 1 && TlsUtils.getTotalRemaining(srcs, offset, length, 1) > 0)
+        {
+            return new SSLEngineResult(Status.BUFFER_OVERFLOW, getApplicationDataHandshakeStatus(), 0, 0);
+        }
+
+        return new SSLEngineResult(getStatus(), getApplicationDataHandshakeStatus(), bytesConsumed, bytesProduced);
+    }
+
+    private int readApplicationData(ByteBuffer[] dsts, int offset)
+    {
+        int appDataAvailable = protocol.getAvailableInputBytes(), bytesProduced = 0;
+        for (int dstIndex = 0; appDataAvailable > 0; ++dstIndex)
+        {
+            ByteBuffer dst = dsts[offset + dstIndex];
+            int count = Math.min(dst.remaining(), appDataAvailable);
+            if (count > 0)
+            {
+                int numRead = protocol.readInput(dst, count);
+                assert numRead == count;
+
+                bytesProduced += count;
+                appDataAvailable -= count;
+            }
+        }
+        return bytesProduced;
+    }
+
+    private Status getStatus()
+    {
+        return protocol.isClosed() ? Status.CLOSED : Status.OK;
     }
 
     private boolean hasInsufficientSpace(ByteBuffer[] dsts, int off, int len, int amount)
     {
-        return getTotalRemaining(dsts, off, len, amount) < amount;
+        return TlsUtils.getTotalRemaining(dsts, off, len, amount) < amount;
     }
 }
@@ -2,14 +2,24 @@
 
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.net.ssl.SSLSession;
@@ -28,31 +38,59 @@
     private static final int provSessionCacheSize = PropertyUtils
         .getIntegerSystemProperty("javax.net.ssl.sessionCacheSize", 20480, 0, Integer.MAX_VALUE);
 
-    // NOTE: This is configured as a simple LRU cache using the "access order" constructor
-    @SuppressWarnings("serial")
-    protected final Map<SessionID, SessionEntry> sessionsByID = new LinkedHashMap<SessionID, SessionEntry>(16, 0.75f, true)
-    {
-        protected boolean removeEldestEntry(Map.Entry<SessionID, SessionEntry> eldest)
-        {
-            boolean shouldRemove = sessionCacheSize > 0 && size() > sessionCacheSize;
-            if (shouldRemove)
-            {
-                removeSessionByPeer(eldest.getValue());
-            }
-            return shouldRemove;
-        }
-    };
-    protected final Map<String, SessionEntry> sessionsByPeer = new HashMap<String, SessionEntry>();
+    private static final int provSessionCacheShards = PropertyUtils
+        .getIntegerSystemProperty("org.bouncycastle.jsse.sessionCacheShards", 16, 1, 1024);
+
+    /*
+     * NOTE: Set to 0 to disable the background sweep; expired sessions are then only removed as they
+     * are found, and whenever the whole cache is inspected or reconfigured.
+     */
+    private static final int provSessionCacheSweepInterval = PropertyUtils
+        .getIntegerSystemProperty("org.bouncycastle.jsse.sessionCacheSweepInterval", 60, 0, 86400);
+
+    /*
+     * NOTE: Sessions are spread by ID over a power-of-two number of shards, each an LRU cache with
+     * its own lock, so concurrent handshakes only contend when they hit the same shard. The size
+     * limit is enforced across the whole cache by evicting the eldest entry of a shard, which
+     * approximates global LRU order.
+     */
+    private final Shard[] shards;
+    private final int shardMask;
+    protected final AtomicInteger sessionCount = new AtomicInteger(0);
+    protected final ConcurrentMap<String, SessionEntry> sessionsByPeer = new ConcurrentHashMap<String, SessionEntry>();
     protected final ReferenceQueue<ProvSSLSession> sessionsQueue = new ReferenceQueue<ProvSSLSession>();
 
     protected final ContextData contextData;
 
-    protected int sessionCacheSize = provSessionCacheSize;
-    protected int sessionTimeoutSeconds = 86400; // 24hrs (in seconds)
+    protected volatile int sessionCacheSize = provSessionCacheSize;
+    protected volatile int sessionTimeoutSeconds = 86400; // 24hrs (in seconds)
 
     ProvSSLSessionContext(ContextData contextData)
+    {
+        this(contextData, provSessionCacheShards, provSessionCacheSweepInterval);
+    }
+
+    ProvSSLSessionContext(ContextData contextData, int shardCount, int sweepIntervalSeconds)
     {
         this.contextData = contextData;
+
+        int count = 1;
+        while (count < shardCount)
+        {
+            count <<= 1;
+        }
+
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; ++i)
+        {
+            shards[i] = new Shard();
+        }
+        this.shardMask = count - 1;
+
+        if (sweepIntervalSeconds > 0)
+        {
+            Sweeper.schedule(this, sweepIntervalSeconds);
+        }
     }
 
     ProvSSLContextSpi getSSLContext()
@@ -65,14 +103,20 @@ JcaTlsCrypto getCrypto()
         return contextData.getCrypto();
     }
 
-    synchronized ProvSSLSession getSessionImpl(byte[] sessionID)
+    ProvSSLSession getSessionImpl(byte[] sessionID)
     {
         processQueue();
 
-        return accessSession(mapGet(sessionsByID, makeSessionID(sessionID)));
+        SessionID id = makeSessionID(sessionID);
+        if (null == id)
+        {
+            return null;
+        }
+
+        return accessSession(getShard(id).get(id));
     }
 
-    synchronized ProvSSLSession getSessionImpl(String hostName, int port)
+    ProvSSLSession getSessionImpl(String hostName, int port)
     {
         processQueue();
 
@@ -80,22 +124,26 @@ synchronized ProvSSLSession getSessionImpl(String hostName, int port)
         ProvSSLSession session = accessSession(sessionEntry);
         if (session != null)
         {
-            // NOTE: For the current simple cache implementation, need to 'access' the sessionByIDs entry
-            sessionsByID.get(sessionEntry.getSessionID());
+            // NOTE: Need to 'access' the sessionsByID entry to keep its LRU position current
+            getShard(sessionEntry.getSessionID()).touch(sessionEntry);
         }
         return session;
     }
 
-    synchronized void removeSession(byte[] sessionID)
+    void removeSession(byte[] sessionID)
     {
-        SessionEntry sessionEntry = mapRemove(sessionsByID, makeSessionID(sessionID));
-        if (null != sessionEntry)
+        SessionID id = makeSessionID(sessionID);
+        if (null != id)
         {
-            removeSessionByPeer(sessionEntry);
+            SessionEntry sessionEntry = getShard(id).remove(id);
+            if (null != sessionEntry)
+            {
+                removeSessionByPeer(sessionEntry);
+            }
         }
     }
 
-    synchronized ProvSSLSession reportSession(String peerHost, int peerPort, TlsSession tlsSession,
+    ProvSSLSession reportSession(String peerHost, int peerPort, TlsSession tlsSession,
         JsseSessionParameters jsseSessionParameters, boolean addToCache)
     {
         processQueue();
@@ -106,36 +154,54 @@ synchronized ProvSSLSession reportSession(String peerHost, int peerPort, TlsSess
         }
 
         SessionID sessionID = makeSessionID(tlsSession.getSessionID());
-        SessionEntry sessionEntry = mapGet(sessionsByID, sessionID);
+        if (null == sessionID)
+        {
+            return new ProvSSLSession(this, peerHost, peerPort, tlsSession, jsseSessionParameters);
+        }
+
+        Shard shard = getShard(sessionID);
 
-        ProvSSLSession session = sessionEntry == null ? null : sessionEntry.get();
-        if (null == session || session.getTlsSession() != tlsSession)
+        SessionEntry sessionEntry;
+        ProvSSLSession session;
+        boolean added = false;
+
+        synchronized (shard)
         {
-            session = new ProvSSLSession(this, peerHost, peerPort, tlsSession, jsseSessionParameters);
+            sessionEntry = shard.peek(sessionID);
 
-            if (null != sessionID)
+            session = sessionEntry == null ? null : sessionEntry.get();
+            if (null == session || session.getTlsSession() != tlsSession)
             {
+                session = new ProvSSLSession(this, peerHost, peerPort, tlsSession, jsseSessionParameters);
                 sessionEntry = new SessionEntry(sessionID, session, sessionsQueue);
-                sessionsByID.put(sessionID, sessionEntry);
+
+                SessionEntry previous = shard.put(sessionEntry);
+                if (null != previous)
+                {
+                    removeSessionByPeer(previous);
+                }
+                added = true;
             }
+
+            mapAdd(sessionsByPeer, sessionEntry.getPeerKey(), sessionEntry);
         }
 
-        if (null != sessionEntry)
+        if (added)
         {
-            mapAdd(sessionsByPeer, sessionEntry.getPeerKey(), sessionEntry);
+            evictExcessSessions(shard, sessionEntry);
         }
 
         return session;
     }
 
-    public synchronized Enumeration<byte[]> getIds()
+    public Enumeration<byte[]> getIds()
     {
         removeAllExpiredSessions();
 
-        ArrayList<byte[]> ids = new ArrayList<byte[]>(sessionsByID.size());
-        for (SessionID sessionID : sessionsByID.keySet())
+        ArrayList<byte[]> ids = new ArrayList<byte[]>(sessionCount.get());
+        for (int i = 0; i < shards.length; ++i)
         {
-            ids.add(sessionID.getBytes());
+            shards[i].collectIds(ids);
         }
         return Collections.enumeration(ids);
     }
@@ -150,12 +216,12 @@ public SSLSession getSession(byte[] sessionID)
         return getSessionImpl(sessionID);
     }
 
-    public synchronized int getSessionCacheSize()
+    public int getSessionCacheSize()
     {
         return sessionCacheSize;
     }
 
-    public synchronized int getSessionTimeout()
+    public int getSessionTimeout()
     {
         return sessionTimeoutSeconds;
     }
@@ -177,21 +243,7 @@ public synchronized void setSessionCacheSize(int size) throws IllegalArgumentExc
         removeAllExpiredSessions();
 
         // Immediately remove LRU sessions in excess of the new limit
-        if (sessionCacheSize > 0)
-        {
-            int currentSize = sessionsByID.size();
-            if (currentSize > sessionCacheSize)
-            {
-                Iterator<SessionEntry> iter = sessionsByID.values().iterator();
-                while (iter.hasNext() && currentSize > sessionCacheSize)
-                {
-                    SessionEntry sessionEntry = iter.next();
-                    iter.remove();
-                    removeSessionByPeer(sessionEntry);
-                    --currentSize;
-                }
-            }
-        }
+        evictExcessSessions(shards[0], null);
     }
 
     public synchronized void setSessionTimeout(int seconds) throws IllegalArgumentException
@@ -211,6 +263,42 @@ public synchronized void setSessionTimeout(int seconds) throws IllegalArgumentEx
         removeAllExpiredSessions();
     }
 
+    /**
+     * Return a snapshot of the per-shard counters of this cache, in shard order.
+     */
+    ShardStatistics[] getShardStatistics()
+    {
+        ShardStatistics[] result = new ShardStatistics[shards.length];
+        for (int i = 0; i < shards.length; ++i)
+        {
+            result[i] = shards[i].getStatistics();
+        }
+        return result;
+    }
+
+    /**
+     * Remove all sessions that have expired, been invalidated, or been reclaimed by the garbage
+     * collector. Called periodically by the background sweeper (if enabled) and whenever the whole
+     * cache is inspected or reconfigured.
+     */
+    void removeAllExpiredSessions()
+    {
+        processQueue();
+
+        long creationTimeLimit = getCreationTimeLimit(System.currentTimeMillis());
+
+        int count = 0;
+        for (int i = 0; i < shards.length; ++i)
+        {
+            count += shards[i].removeExpired(creationTimeLimit);
+        }
+
+        if (count > 0 && LOG.isLoggable(Level.FINE))
+        {
+            LOG.fine("Removed " + count + " expired session entries, " + sessionCount.get() + " remaining");
+        }
+    }
+
     private ProvSSLSession accessSession(SessionEntry sessionEntry)
     {
         if (sessionEntry != null)
@@ -231,23 +319,49 @@ private ProvSSLSession accessSession(SessionEntry sessionEntry)
         return null;
     }
 
-    private long getCreationTimeLimit(long expiryTimeMillis)
+    private void evictExcessSessions(Shard startShard, SessionEntry keep)
     {
-        return sessionTimeoutSeconds < 1 ? Long.MIN_VALUE : (expiryTimeMillis - 1000L * sessionTimeoutSeconds);
-    }
+        int limit = sessionCacheSize;
+        if (limit < 1)
+        {
+            return;
+        }
 
-    private boolean invalidateIfCreatedBefore(SessionEntry sessionEntry, long creationTimeLimit)
-    {
-        ProvSSLSession session = sessionEntry.get();
-        if (session == null)
+        int start = 0;
+        while (shards[start] != startShard)
         {
-            return true;
+            ++start;
         }
-        if (session.getCreationTime() < creationTimeLimit)
+
+        /*
+         * Prefer the eldest entry of the shard that just grew; fall back to the other shards (e.g. when
+         * the new entry is alone in its shard, or the limit was lowered).
+         */
+        int index = 0;
+        while (sessionCount.get() > limit && index < shards.length)
         {
-            session.invalidatedBySessionContext();
+            SessionEntry evicted = shards[(start + index) & shardMask].evictEldest(keep);
+            if (null == evicted)
+            {
+                ++index;
+                continue;
+            }
+
+            removeSessionByPeer(evicted);
         }
-        return !session.isValid();
+    }
+
+    private long getCreationTimeLimit(long expiryTimeMillis)
+    {
+        int timeoutSeconds = sessionTimeoutSeconds;
+        return timeoutSeconds < 1 ? Long.MIN_VALUE : (expiryTimeMillis - 1000L * timeoutSeconds);
+    }
+
+    private Shard getShard(SessionID sessionID)
+    {
+        int h = sessionID.hashCode();
+        h ^= (h >>> 16);
+        return shards[h & shardMask];
     }
 
     private void processQueue()
@@ -267,34 +381,31 @@ private void processQueue()
         }
     }
 
-    private void removeAllExpiredSessions()
-    {
-        processQueue();
-
-        long creationTimeLimit = getCreationTimeLimit(System.currentTimeMillis());
-
-        Iterator<SessionEntry> iter = sessionsByID.values().iterator();
-        while (iter.hasNext())
-        {
-            SessionEntry sessionEntry = iter.next();
-            if (invalidateIfCreatedBefore(sessionEntry, creationTimeLimit))
-            {
-                iter.remove();
-                removeSessionByPeer(sessionEntry);
-            }
-        }
-    }
-
     private void removeSession(SessionEntry sessionEntry)
     {
-        mapRemove(sessionsByID, sessionEntry.getSessionID(), sessionEntry);
+        getShard(sessionEntry.getSessionID()).remove(sessionEntry);
 
         removeSessionByPeer(sessionEntry);
     }
 
     private boolean removeSessionByPeer(SessionEntry sessionEntry)
     {
-        return mapRemove(sessionsByPeer, sessionEntry.getPeerKey(), sessionEntry);
+        String peerKey = sessionEntry.getPeerKey();
+        return peerKey != null && sessionsByPeer.remove(peerKey, sessionEntry);
+    }
+
+    private static boolean invalidateIfCreatedBefore(SessionEntry sessionEntry, long creationTimeLimit)
+    {
+        ProvSSLSession session = sessionEntry.get();
+        if (session == null)
+        {
+            return true;
+        }
+        if (session.getCreationTime() < creationTimeLimit)
+        {
+            session.invalidatedBySessionContext();
+        }
+        return !session.isValid();
     }
 
     private static String makePeerKey(ProvSSLSession session)
@@ -333,35 +444,260 @@ private static <K, V> V mapGet(Map<K, V> map, K key)
         return key == null ? null : map.get(key);
     }
 
-    private static <K, V> V mapRemove(Map<K, V> map, K key)
+    /**
+     * One lock stripe of the session cache: an access-ordered map plus its counters, all guarded by
+     * the shard's own monitor.
+     */
+    private final class Shard
     {
-        if (map == null)
+        // NOTE: This is configured as a simple LRU cache using the "access order" constructor
+        private final LinkedHashMap<SessionID, SessionEntry> sessionsByID = new LinkedHashMap<SessionID, SessionEntry>(16, 0.75f, true);
+
+        private long hits = 0, misses = 0, evictions = 0, expirations = 0;
+
+        synchronized SessionEntry get(SessionID sessionID)
         {
-            throw new NullPointerException();
+            SessionEntry sessionEntry = sessionsByID.get(sessionID);
+            if (null == sessionEntry)
+            {
+                ++misses;
+            }
+            else
+            {
+                ++hits;
+            }
+            return sessionEntry;
+        }
+
+        synchronized SessionEntry peek(SessionID sessionID)
+        {
+            return sessionsByID.get(sessionID);
+        }
+
+        synchronized void touch(SessionEntry sessionEntry)
+        {
+            ++hits;
+            sessionsByID.get(sessionEntry.getSessionID());
+        }
+
+        synchronized SessionEntry put(SessionEntry sessionEntry)
+        {
+            SessionEntry previous = sessionsByID.put(sessionEntry.getSessionID(), sessionEntry);
+            if (null == previous)
+            {
+                sessionCount.incrementAndGet();
+            }
+            return previous;
+        }
+
+        synchronized SessionEntry remove(SessionID sessionID)
+        {
+            SessionEntry removed = sessionsByID.remove(sessionID);
+            if (null != removed)
+            {
+                sessionCount.decrementAndGet();
+            }
+            return removed;
+        }
+
+        synchronized boolean remove(SessionEntry sessionEntry)
+        {
+            SessionID sessionID = sessionEntry.getSessionID();
+            if (sessionsByID.get(sessionID) != sessionEntry)
+            {
+                return false;
+            }
+
+            sessionsByID.remove(sessionID);
+            sessionCount.decrementAndGet();
+            ++expirations;
+            return true;
+        }
+
+        synchronized SessionEntry evictEldest(SessionEntry keep)
+        {
+            Iterator<SessionEntry> iter = sessionsByID.values().iterator();
+            while (iter.hasNext())
+            {
+                SessionEntry sessionEntry = iter.next();
+                if (sessionEntry != keep)
+                {
+                    iter.remove();
+                    sessionCount.decrementAndGet();
+                    ++evictions;
+                    return sessionEntry;
+                }
+            }
+            return null;
+        }
+
+        synchronized int removeExpired(long creationTimeLimit)
+        {
+            int count = 0;
+
+            Iterator<SessionEntry> iter = sessionsByID.values().iterator();
+            while (iter.hasNext())
+            {
+                SessionEntry sessionEntry = iter.next();
+                if (invalidateIfCreatedBefore(sessionEntry, creationTimeLimit))
+                {
+                    iter.remove();
+                    sessionCount.decrementAndGet();
+                    removeSessionByPeer(sessionEntry);
+                    ++count;
+                }
+            }
+
+            expirations += count;
+            return count;
+        }
+
+        synchronized void collectIds(List<byte[]> ids)
+        {
+            for (SessionID sessionID : sessionsByID.keySet())
+            {
+                ids.add(sessionID.getBytes());
+            }
+        }
+
+        synchronized ShardStatistics getStatistics()
+        {
+            return new ShardStatistics(sessionsByID.size(), hits, misses, evictions, expirations);
         }
-        return key == null ? null : map.remove(key);
     }
 
-    private static <K, V> boolean mapRemove(Map<K, V> map, K key, V value)
+    /**
+     * A point-in-time snapshot of the counters of a single cache shard.
+     */
+    static final class ShardStatistics
     {
-        if (map == null || value == null)
+        private final int size;
+        private final long hits, misses, evictions, expirations;
+
+        ShardStatistics(int size, long hits, long misses, long evictions, long expirations)
         {
-            throw new NullPointerException();
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
         }
-        if (key != null)
+
+        int getSize()
+        {
+            return size;
+        }
+
+        long getHits()
+        {
+            return hits;
+        }
+
+        long getMisses()
+        {
+            return misses;
+        }
+
+        long getEvictions()
+        {
+            return evictions;
+        }
+
+        long getExpirations()
+        {
+            return expirations;
+        }
+
+        public String toString()
+        {
+            return "size=" + size + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                + ", expirations=" + expirations;
+        }
+    }
+
+    /**
+     * Periodically removes expired sessions from a context, from a single shared daemon thread. Only
+     * a weak reference to the context is held, and the task cancels itself once the context has been
+     * collected. The thread is started when the first context is scheduled, and shut down again once
+     * no contexts remain.
+     */
+    private static final class Sweeper
+        implements Runnable
+    {
+        private static ScheduledExecutorService executor = null;
+        private static int scheduledCount = 0;
+
+        static synchronized void schedule(ProvSSLSessionContext context, int intervalSeconds)
         {
-            // TODO[jsse] From 1.8 there is a 2-argument remove method to accomplish this 
-            V removed = map.remove(key);
-            if (removed == value)
+            Sweeper sweeper = new Sweeper(context);
+            try
+            {
+                sweeper.future = getExecutor().scheduleWithFixedDelay(sweeper, intervalSeconds, intervalSeconds,
+                    TimeUnit.SECONDS);
+                ++scheduledCount;
+            }
+            catch (RuntimeException e)
+            {
+                LOG.log(Level.WARNING, "Unable to schedule session cache sweeping; expired sessions will only be removed on access", e);
+            }
+        }
+
+        private static synchronized void cancel(ScheduledFuture<?> future)
+        {
+            if (future.cancel(false) && --scheduledCount == 0)
+            {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+
+        private static ScheduledExecutorService getExecutor()
+        {
+            if (null == executor)
+            {
+                executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+                {
+                    public Thread newThread(Runnable r)
+                    {
+                        Thread t = new Thread(r, "BCJSSE-SessionCacheSweeper");
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+            }
+            return executor;
+        }
+
+        private final WeakReference<ProvSSLSessionContext> contextRef;
+        private volatile ScheduledFuture<?> future;
+
+        private Sweeper(ProvSSLSessionContext context)
+        {
+            this.contextRef = new WeakReference<ProvSSLSessionContext>(context);
+        }
+
+        public void run()
+        {
+            ProvSSLSessionContext context = contextRef.get();
+            if (null == context)
+            {
+                ScheduledFuture<?> f = future;
+                if (null != f)
+                {
+                    cancel(f);
+                }
+                return;
+            }
+
+            try
             {
-                return true;
+                context.removeAllExpiredSessions();
             }
-            if (removed != null)
+            catch (RuntimeException e)
             {
-                map.put(key, removed);
+                LOG.log(Level.WARNING, "Session cache sweep failed", e);
             }
         }
-        return false;
     }
 
     private static final class SessionEntry
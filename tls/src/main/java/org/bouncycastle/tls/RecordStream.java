@@ -5,7 +5,10 @@
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 
+import org.bouncycastle.tls.crypto.TlsByteBufferCipher;
 import org.bouncycastle.tls.crypto.TlsCipher;
 import org.bouncycastle.tls.crypto.TlsDecodeResult;
 import org.bouncycastle.tls.crypto.TlsEncodeResult;
@@ -210,6 +213,50 @@ boolean readFullRecord(byte[] input, int inputOff, int inputLen)
         return true;
     }
 
+    /**
+     * Process a single complete record starting at the current position of the input buffer. If the input is not
+     * exactly one record, nothing is consumed and false is returned; otherwise the buffer position is advanced past
+     * the record. Any decoded content is passed on to the handler, which takes its own copy.
+     */
+    boolean readFullRecord(ByteBuffer input, int inputLen)
+        throws IOException
+    {
+        if (inputLen < RecordFormat.FRAGMENT_OFFSET || input.remaining() < inputLen)
+        {
+            return false;
+        }
+
+        int pos = input.position();
+
+        int length = ((input.get(pos + RecordFormat.LENGTH_OFFSET) & 0xFF) << 8)
+            | (input.get(pos + RecordFormat.LENGTH_OFFSET + 1) & 0xFF);
+        if (inputLen != (RecordFormat.FRAGMENT_OFFSET + length))
+        {
+            return false;
+        }
+
+        short recordType = checkRecordType((short)(input.get(pos + RecordFormat.TYPE_OFFSET) & 0xFF));
+
+        ProtocolVersion recordVersion = ProtocolVersion.get(input.get(pos + RecordFormat.VERSION_OFFSET) & 0xFF,
+            input.get(pos + RecordFormat.VERSION_OFFSET + 1) & 0xFF);
+
+        checkLength(length, ciphertextLimit, AlertDescription.record_overflow);
+
+        if (ignoreChangeCipherSpec && ContentType.change_cipher_spec == recordType)
+        {
+            checkChangeCipherSpec(input, pos + RecordFormat.FRAGMENT_OFFSET, length);
+            ((Buffer)input).position(pos + inputLen);
+            return true;
+        }
+
+        ((Buffer)input).position(pos + RecordFormat.FRAGMENT_OFFSET);
+
+        TlsDecodeResult decoded = decodeAndVerify(recordType, recordVersion, input, length);
+
+        handler.processRecord(decoded.contentType, decoded.buf, decoded.off, decoded.len);
+        return true;
+    }
+
     boolean readRecord()
         throws IOException
     {
@@ -254,6 +301,33 @@ TlsDecodeResult decodeAndVerify(short recordType, ProtocolVersion recordVersion,
         long seqNo = readSeqNo.nextValue(AlertDescription.unexpected_message);
         TlsDecodeResult decoded = readCipher.decodeCiphertext(seqNo, recordType, recordVersion, ciphertext, off, len);
 
+        return checkDecoded(decoded);
+    }
+
+    TlsDecodeResult decodeAndVerify(short recordType, ProtocolVersion recordVersion, ByteBuffer ciphertext, int len)
+        throws IOException
+    {
+        long seqNo = readSeqNo.nextValue(AlertDescription.unexpected_message);
+        TlsCipher cipher = readCipher;
+
+        TlsDecodeResult decoded;
+        if (cipher instanceof TlsByteBufferCipher)
+        {
+            decoded = ((TlsByteBufferCipher)cipher).decodeCiphertext(seqNo, recordType, recordVersion, ciphertext, len);
+        }
+        else
+        {
+            byte[] buf = new byte[len];
+            ciphertext.get(buf);
+            decoded = cipher.decodeCiphertext(seqNo, recordType, recordVersion, buf, 0, len);
+        }
+
+        return checkDecoded(decoded);
+    }
+
+    private TlsDecodeResult checkDecoded(TlsDecodeResult decoded)
+        throws IOException
+    {
         checkLength(decoded.len, plaintextLimit, AlertDescription.record_overflow);
 
         /*
@@ -316,6 +390,78 @@ void writeRecord(short contentType, byte[] plaintext, int plaintextOffset, int p
         output.flush();
     }
 
+    /**
+     * Write a single record directly into the output buffer, taking the plaintext from a sequence of buffers.
+     *
+     * @return the total number of bytes written to the output buffer, including the record header.
+     */
+    int writeRecord(short contentType, ByteBuffer[] plaintext, int offset, int length, int plaintextLength,
+        ByteBuffer output) throws IOException
+    {
+        // Never send anything until a valid ClientHello has been received
+        if (writeVersion == null)
+        {
+            // NOTE: The plaintext is still consumed, as for the byte[] variant
+            TlsUtils.readFully(plaintext, offset, length, new byte[plaintextLength], 0, plaintextLength);
+            return 0;
+        }
+
+        /*
+         * RFC 5246 6.2.1 The length should not exceed 2^14.
+         */
+        checkLength(plaintextLength, plaintextLimit, AlertDescription.internal_error);
+
+        /*
+         * RFC 5246 6.2.1 Implementations MUST NOT send zero-length fragments of Handshake, Alert,
+         * or ChangeCipherSpec content types.
+         */
+        if (plaintextLength < 1 && contentType != ContentType.application_data)
+        {
+            throw new TlsFatalAlert(AlertDescription.internal_error);
+        }
+
+        if (output.remaining() < RecordFormat.FRAGMENT_OFFSET)
+        {
+            throw new TlsFatalAlert(AlertDescription.internal_error);
+        }
+
+        long seqNo = writeSeqNo.nextValue(AlertDescription.internal_error);
+        ProtocolVersion recordVersion = writeVersion;
+
+        int recordPos = output.position();
+        ((Buffer)output).position(recordPos + RecordFormat.FRAGMENT_OFFSET);
+
+        TlsCipher cipher = writeCipher;
+
+        short recordType;
+        if (cipher instanceof TlsByteBufferCipher)
+        {
+            recordType = ((TlsByteBufferCipher)cipher).encodePlaintext(seqNo, contentType, recordVersion, plaintext,
+                offset, length, plaintextLength, output);
+        }
+        else
+        {
+            byte[] buf = new byte[plaintextLength];
+            TlsUtils.readFully(plaintext, offset, length, buf, 0, plaintextLength);
+
+            TlsEncodeResult encoded = cipher.encodePlaintext(seqNo, contentType, recordVersion, 0, buf, 0,
+                plaintextLength);
+            output.put(encoded.buf, encoded.off, encoded.len);
+            recordType = encoded.recordType;
+        }
+
+        int ciphertextLength = output.position() - (recordPos + RecordFormat.FRAGMENT_OFFSET);
+        TlsUtils.checkUint16(ciphertextLength);
+
+        output.put(recordPos + RecordFormat.TYPE_OFFSET, (byte)recordType);
+        output.put(recordPos + RecordFormat.VERSION_OFFSET, (byte)recordVersion.getMajorVersion());
+        output.put(recordPos + RecordFormat.VERSION_OFFSET + 1, (byte)recordVersion.getMinorVersion());
+        output.put(recordPos + RecordFormat.LENGTH_OFFSET, (byte)(ciphertextLength >>> 8));
+        output.put(recordPos + RecordFormat.LENGTH_OFFSET + 1, (byte)ciphertextLength);
+
+        return RecordFormat.FRAGMENT_OFFSET + ciphertextLength;
+    }
+
     void close() throws IOException
     {
         inputRecord.reset();
@@ -363,11 +509,25 @@ private void checkChangeCipherSpec(byte[] buf, int off, int len)
         }
     }
 
+    private void checkChangeCipherSpec(ByteBuffer buf, int pos, int len)
+        throws IOException
+    {
+        if (1 != len || (byte)ChangeCipherSpec.change_cipher_spec != buf.get(pos))
+        {
+            throw new TlsFatalAlert(AlertDescription.unexpected_message,
+                "Malformed " + ContentType.getText(ContentType.change_cipher_spec));
+        }
+    }
+
     private short checkRecordType(byte[] buf, int off)
         throws IOException
     {
-        short recordType = TlsUtils.readUint8(buf, off);
+        return checkRecordType(TlsUtils.readUint8(buf, off));
+    }
 
+    private short checkRecordType(short recordType)
+        throws IOException
+    {
         if (null != readCipherDeferred && recordType == ContentType.application_data)
         {
             this.readCipher = readCipherDeferred;
@@ -149,7 +149,7 @@ protected boolean isTLSv13ConnectionState()
     private volatile boolean appDataSplitEnabled = true;
     private volatile boolean keyUpdateEnabled = false;
 //    private volatile boolean keyUpdatePendingReceive = false;
-    private volatile boolean keyUpdatePendingSend = false;
+    private boolean keyUpdatePendingSend = false;
     private volatile boolean resumableHandshake = false;
     private volatile int appDataSplitMode = ADS_MODE_1_Nsub1;
 
@@ -925,45 +925,91 @@ protected boolean safeReadFullRecord(byte[] input, int inputOff, int inputLen)
         {
             return recordStream.readFullRecord(input, inputOff, inputLen);
         }
-        catch (TlsFatalAlert e)
+        catch (IOException e)
         {
-            handleException(e.getAlertDescription(), "Failed to process record", e);
-            throw e;
+            throw handleRecordException("Failed to process record", e);
+        }
+        catch (RuntimeException e)
+        {
+            throw handleRecordException("Failed to process record", e);
+        }
+    }
+
+    protected boolean safeReadFullRecord(ByteBuffer input, int inputLen)
+        throws IOException
+    {
+        try
+        {
+            return recordStream.readFullRecord(input, inputLen);
         }
         catch (IOException e)
         {
-            handleException(AlertDescription.internal_error, "Failed to process record", e);
-            throw e;
+            throw handleRecordException("Failed to process record", e);
         }
         catch (RuntimeException e)
         {
-            handleException(AlertDescription.internal_error, "Failed to process record", e);
-            throw new TlsFatalAlert(AlertDescription.internal_error, e);
+            throw handleRecordException("Failed to process record", e);
         }
     }
 
     protected void safeWriteRecord(short type, byte[] buf, int offset, int len)
         throws IOException
     {
-        try
+        /*
+         * NOTE: Records may also be written while processing input (e.g. alerts), so writes are serialized with
+         * each other and with the reading of queued output.
+         */
+        synchronized (recordWriteLock)
         {
-            recordStream.writeRecord(type, buf, offset, len);
+            try
+            {
+                recordStream.writeRecord(type, buf, offset, len);
+            }
+            catch (IOException e)
+            {
+                throw handleRecordException("Failed to write record", e);
+            }
+            catch (RuntimeException e)
+            {
+                throw handleRecordException("Failed to write record", e);
+            }
         }
-        catch (TlsFatalAlert e)
+    }
+
+    protected int safeWriteRecord(short type, ByteBuffer[] bufs, int offset, int length, int len, ByteBuffer output)
+        throws IOException
+    {
+        try
         {
-            handleException(e.getAlertDescription(), "Failed to write record", e);
-            throw e;
+            return recordStream.writeRecord(type, bufs, offset, length, len, output);
         }
         catch (IOException e)
         {
-            handleException(AlertDescription.internal_error, "Failed to write record", e);
-            throw e;
+            throw handleRecordException("Failed to write record", e);
         }
         catch (RuntimeException e)
         {
-            handleException(AlertDescription.internal_error, "Failed to write record", e);
-            throw new TlsFatalAlert(AlertDescription.internal_error, e);
+            throw handleRecordException("Failed to write record", e);
+        }
+    }
+
+    private IOException handleRecordException(String message, Exception e)
+        throws IOException
+    {
+        if (e instanceof TlsFatalAlert)
+        {
+            TlsFatalAlert fatalAlert = (TlsFatalAlert)e;
+            handleException(fatalAlert.getAlertDescription(), message, fatalAlert);
+            return fatalAlert;
+        }
+
+        handleException(AlertDescription.internal_error, message, e);
+
+        if (e instanceof IOException)
+        {
+            return (IOException)e;
         }
+        return new TlsFatalAlert(AlertDescription.internal_error, e);
     }
 
     /**
@@ -1014,63 +1060,203 @@ public void writeApplicationData(byte[] buf, int off, int len)
                     throw new IOException("Cannot write application data on closed/failed TLS connection");
                 }
 
-                /*
-                 * RFC 5246 6.2.1. Zero-length fragments of Application data MAY be sent as they are
-                 * potentially useful as a traffic analysis countermeasure.
-                 * 
-                 * NOTE: Actually, implementations appear to have settled on 1/n-1 record splitting.
-                 */
-                if (appDataSplitEnabled)
+                int splitLength = prepareApplicationRecord(len);
+                if (splitLength >= 0)
                 {
-                    /*
-                     * Protect against known IV attack!
-                     * 
-                     * DO NOT REMOVE THIS CODE, EXCEPT YOU KNOW EXACTLY WHAT YOU ARE DOING HERE.
-                     */
-                    switch (appDataSplitMode)
-                    {
-                    case ADS_MODE_0_N_FIRSTONLY:
-                    {
-                        this.appDataSplitEnabled = false;
-                        // NB: Fall through to next case label
-                    }
-                    case ADS_MODE_0_N:
-                    {
-                        safeWriteRecord(ContentType.application_data, TlsUtils.EMPTY_BYTES, 0, 0);
-                        break;
-                    }
-                    case ADS_MODE_1_Nsub1:
-                    default:
-                    {
-                        if (len > 1)
-                        {
-                            safeWriteRecord(ContentType.application_data, buf, off, 1);
-                            ++off;
-                            --len;
-                        }
-                        break;
-                    }
-                    }
+                    safeWriteRecord(ContentType.application_data, buf, off, splitLength);
+                    off += splitLength;
+                    len -= splitLength;
                 }
-                else if (keyUpdateEnabled)
+
+                // Fragment data according to the current fragment limit.
+                int toWrite = Math.min(len, recordStream.getPlaintextLimit());
+                safeWriteRecord(ContentType.application_data, buf, off, toWrite);
+                off += toWrite;
+                len -= toWrite;
+            }
+        }
+    }
+
+    /**
+     * Write as many complete application data records as will fit into an output buffer, taking the data from a
+     * sequence of buffers. Only allowed in non-blocking mode.<br>
+     * <br>
+     * Any output already queued (see {@link #getAvailableOutputBytes()}) is moved into <code>dst</code> first, one
+     * whole record at a time, and no application data is written unless all of it fits. This is done atomically with
+     * respect to records generated while processing input, so the records in <code>dst</code> are always in
+     * sequence. Input may be offered concurrently from another thread.
+     *
+     * @param srcs   The buffers containing application data to send
+     * @param offset The index of the first buffer in <code>srcs</code> to use
+     * @param length The number of buffers in <code>srcs</code> to use
+     * @param dst    The buffer to receive the protected records
+     * @return The number of bytes of application data consumed from <code>srcs</code>.
+     * @throws IllegalStateException If called before the initial handshake has completed.
+     * @throws IOException           If connection is already closed, or for encryption errors.
+     */
+    public int writeApplicationRecords(ByteBuffer[] srcs, int offset, int length, ByteBuffer dst)
+        throws IOException
+    {
+        synchronized (recordWriteLock)
+        {
+            int outputAvailable;
+            while ((outputAvailable = getAvailableOutputBytes()) > 0)
+            {
+                int recordSize = dst.remaining() >= outputAvailable ? outputAvailable : previewOutputRecord();
+                if (dst.remaining() < recordSize)
                 {
-                    if (keyUpdatePendingSend)
-                    {
-                        send13KeyUpdate(false);
-                    }
-                    else if (recordStream.needsKeyUpdate())
+                    return 0;
+                }
+
+                readOutput(dst, recordSize);
+            }
+
+            int bytesConsumed = 0;
+            for (;;)
+            {
+                int srcRemaining = TlsUtils.getTotalRemaining(srcs, offset, length, getApplicationDataLimit());
+                if (srcRemaining < 1)
+                {
+                    break;
+                }
+
+                boolean keyUpdatePending = isKeyUpdatePending();
+                RecordPreview preview = previewOutputRecord(srcRemaining);
+                if (dst.remaining() < preview.getRecordSize())
+                {
+                    break;
+                }
+
+                // The preview only allows for a KeyUpdate if one was pending when it was made
+                if (keyUpdatePending != isKeyUpdatePending())
+                {
+                    continue;
+                }
+
+                int contentLength = preview.getContentLimit();
+                writeApplicationData(srcs, offset, length, contentLength, dst);
+                bytesConsumed += contentLength;
+            }
+            return bytesConsumed;
+        }
+    }
+
+    /**
+     * Write some application data directly into an output buffer, taking the data from a sequence of buffers.
+     * Fragmentation is handled internally. Only allowed in non-blocking mode.<br>
+     * <br>
+     * The records are encrypted straight into <code>dst</code> rather than being queued for
+     * {@link #readOutput(ByteBuffer, int)}; the caller is responsible for ensuring it has room for them (see
+     * {@link #previewOutputRecord(int)}). Any output already queued should be drained first, so that records are
+     * not reordered; {@link #writeApplicationRecords(ByteBuffer[], int, int, ByteBuffer)} takes care of both.
+     *
+     * @param srcs   The buffers containing application data to send
+     * @param offset The index of the first buffer in <code>srcs</code> to use
+     * @param length The number of buffers in <code>srcs</code> to use
+     * @param len    The number of bytes of application data to take from the buffers
+     * @param dst    The buffer to receive the protected records
+     * @return The number of bytes written to <code>dst</code>.
+     * @throws IllegalStateException If called before the initial handshake has completed.
+     * @throws IOException           If connection is already closed, or for encryption errors.
+     */
+    public int writeApplicationData(ByteBuffer[] srcs, int offset, int length, int len, ByteBuffer dst)
+        throws IOException
+    {
+        if (blocking)
+        {
+            throw new IllegalStateException("Cannot write application data to a ByteBuffer in blocking mode!");
+        }
+
+        if (!appDataReady)
+        {
+            throw new IllegalStateException("Cannot write application data until initial handshake completed.");
+        }
+
+        int dstStart = dst.position();
+
+        synchronized (recordWriteLock)
+        {
+            while (len > 0)
+            {
+                if (closed)
+                {
+                    throw new IOException("Cannot write application data on closed/failed TLS connection");
+                }
+
+                int splitLength = prepareApplicationRecord(len);
+                if (splitLength >= 0)
+                {
+                    safeWriteRecord(ContentType.application_data, srcs, offset, length, splitLength, dst);
+                    len -= splitLength;
+                }
+
+                // A KeyUpdate (if any) was queued as output; it must precede the records that follow
+                int keyUpdateLength = getAvailableOutputBytes();
+                if (keyUpdateLength > 0)
+                {
+                    if (dst.remaining() < keyUpdateLength)
                     {
-                        send13KeyUpdate(true);
+                        throw new TlsFatalAlert(AlertDescription.internal_error);
                     }
+                    readOutput(dst, keyUpdateLength);
                 }
 
                 // Fragment data according to the current fragment limit.
                 int toWrite = Math.min(len, recordStream.getPlaintextLimit());
-                safeWriteRecord(ContentType.application_data, buf, off, toWrite);
-                off += toWrite;
+                safeWriteRecord(ContentType.application_data, srcs, offset, length, toWrite, dst);
                 len -= toWrite;
             }
         }
+
+        return dst.position() - dstStart;
+    }
+
+    /**
+     * Called before each application data record is written, to send any pending KeyUpdate or to determine the
+     * length of a record to split off the front of the data.
+     *
+     * @param len the number of bytes of application data remaining to be written.
+     * @return the number of bytes of application data to write as a separate record first, or -1 if none.
+     */
+    private int prepareApplicationRecord(int len)
+        throws IOException
+    {
+        /*
+         * RFC 5246 6.2.1. Zero-length fragments of Application data MAY be sent as they are
+         * potentially useful as a traffic analysis countermeasure.
+         * 
+         * NOTE: Actually, implementations appear to have settled on 1/n-1 record splitting.
+         */
+        if (appDataSplitEnabled)
+        {
+            /*
+             * Protect against known IV attack!
+             * 
+             * DO NOT REMOVE THIS CODE, EXCEPT YOU KNOW EXACTLY WHAT YOU ARE DOING HERE.
+             */
+            switch (appDataSplitMode)
+            {
+            case ADS_MODE_0_N_FIRSTONLY:
+            {
+                this.appDataSplitEnabled = false;
+                // NB: Fall through to next case label
+            }
+            case ADS_MODE_0_N:
+            {
+                return 0;
+            }
+            case ADS_MODE_1_Nsub1:
+            default:
+            {
+                return len > 1 ? 1 : -1;
+            }
+            }
+        }
+        else if (keyUpdateEnabled)
+        {
+            sendPendingKeyUpdate();
+        }
+        return -1;
     }
 
     public int getAppDataSplitMode()
@@ -1242,21 +1428,24 @@ public int previewOutputRecord()
             throw new IllegalStateException("Cannot use previewOutputRecord() in blocking mode!");
         }
 
-        ByteQueue buffer = outputBuffer.getBuffer();
-        int available = buffer.available();
-        if (available < 1)
-        {
-            return 0;
-        }
-
-        if (available >= RecordFormat.FRAGMENT_OFFSET)
+        synchronized (recordWriteLock)
         {
-            int length = buffer.readUint16(RecordFormat.LENGTH_OFFSET);
-            int recordSize = RecordFormat.FRAGMENT_OFFSET + length;
+            ByteQueue buffer = outputBuffer.getBuffer();
+            int available = buffer.available();
+            if (available < 1)
+            {
+                return 0;
+            }
 
-            if (available >= recordSize)
+            if (available >= RecordFormat.FRAGMENT_OFFSET)
             {
-                return recordSize;
+                int length = buffer.readUint16(RecordFormat.LENGTH_OFFSET);
+                int recordSize = RecordFormat.FRAGMENT_OFFSET + length;
+
+                if (available >= recordSize)
+                {
+                    return recordSize;
+                }
             }
         }
 
@@ -1273,7 +1462,7 @@ public RecordPreview previewOutputRecord(int applicationDataSize) throws IOExcep
         {
             throw new IllegalStateException("Cannot use previewOutputRecord() in blocking mode!");
         }
-        if (outputBuffer.getBuffer().available() != 0)
+        if (getAvailableOutputBytes() != 0)
         {
             throw new IllegalStateException("Can only use previewOutputRecord() for record-aligned output.");
         }
@@ -1315,7 +1504,7 @@ public RecordPreview previewOutputRecord(int applicationDataSize) throws IOExcep
         else
         {
             RecordPreview a = recordStream.previewOutputRecord(applicationDataSize);
-            if (keyUpdateEnabled && (keyUpdatePendingSend || recordStream.needsKeyUpdate()))
+            if (isKeyUpdatePending())
             {
                 int keyUpdateLength = HandshakeMessageOutput.getLength(1);
                 int recordSize = recordStream.previewOutputRecordSize(keyUpdateLength);
@@ -1411,6 +1600,48 @@ public void offerInput(byte[] input, int inputOff, int inputLen) throws IOExcept
         }
     }
 
+    /**
+     * Offer input from a {@link ByteBuffer}, starting at its current position. Only allowed in non-blocking
+     * mode.<br>
+     * <br>
+     * Behaves as {@link #offerInput(byte[], int, int)}, and the buffer's position is advanced by
+     * <code>inputLen</code>. When exactly one whole record is offered and no partial record is pending, it is
+     * decrypted directly from the buffer without an intermediate copy.
+     * @param input The input buffer to offer
+     * @param inputLen The number of bytes of input being offered
+     * @throws IOException If an error occurs while decrypting or processing a record
+     */
+    public void offerInput(ByteBuffer input, int inputLen) throws IOException
+    {
+        if (blocking)
+        {
+            throw new IllegalStateException("Cannot use offerInput() in blocking mode! Use getInputStream() instead.");
+        }
+        if (closed)
+        {
+            throw new IOException("Connection is closed, cannot accept any more input");
+        }
+
+        // Fast path if the input is arriving one record at a time
+        if (inputBuffers.available() == 0 && safeReadFullRecord(input, inputLen))
+        {
+            if (closed)
+            {
+                if (!appDataReady)
+                {
+                    // NOTE: Any close during the handshake should have raised an exception.
+                    throw new TlsFatalAlert(AlertDescription.internal_error);
+                }
+            }
+            return;
+        }
+
+        byte[] buf = new byte[inputLen];
+        input.get(buf);
+
+        offerInput(buf, 0, inputLen);
+    }
+
     public int getApplicationDataLimit()
     {
         return recordStream.getPlaintextLimit();
@@ -1506,8 +1737,11 @@ public int getAvailableOutputBytes()
         {
             throw new IllegalStateException("Cannot use getAvailableOutputBytes() in blocking mode! Use getOutputStream() instead.");
         }
-        
-        return outputBuffer.getBuffer().available();
+
+        synchronized (recordWriteLock)
+        {
+            return outputBuffer.getBuffer().available();
+        }
     }
 
     /**
@@ -1529,10 +1763,13 @@ public int readOutput(byte[] buffer, int offset, int length)
         {
             throw new IllegalStateException("Cannot use readOutput() in blocking mode! Use getOutputStream() instead.");
         }
-        
-        int bytesToRead = Math.min(getAvailableOutputBytes(), length);
-        outputBuffer.getBuffer().removeData(buffer, offset, bytesToRead, 0);
-        return bytesToRead;
+
+        synchronized (recordWriteLock)
+        {
+            int bytesToRead = Math.min(getAvailableOutputBytes(), length);
+            outputBuffer.getBuffer().removeData(buffer, offset, bytesToRead, 0);
+            return bytesToRead;
+        }
     }
 
     /**
@@ -1554,9 +1791,12 @@ public int readOutput(ByteBuffer buffer, int length)
             throw new IllegalStateException("Cannot use readOutput() in blocking mode! Use getOutputStream() instead.");
         }
 
-        int bytesToRead = Math.min(getAvailableOutputBytes(), length);
-        outputBuffer.getBuffer().removeData(buffer, bytesToRead, 0);
-        return bytesToRead;
+        synchronized (recordWriteLock)
+        {
+            int bytesToRead = Math.min(getAvailableOutputBytes(), length);
+            outputBuffer.getBuffer().removeData(buffer, bytesToRead, 0);
+            return bytesToRead;
+        }
     }
 
     protected boolean establishSession(TlsSession sessionToResume)
@@ -1701,13 +1941,16 @@ protected void raiseAlertFatal(short alertDescription, String message, Throwable
 
         byte[] alert = new byte[]{ (byte)AlertLevel.fatal, (byte)alertDescription };
 
-        try
-        {
-            recordStream.writeRecord(ContentType.alert, alert, 0, 2);
-        }
-        catch (Exception e)
+        synchronized (recordWriteLock)
         {
-            // We are already processing an exception, so just ignore this
+            try
+            {
+                recordStream.writeRecord(ContentType.alert, alert, 0, 2);
+            }
+            catch (Exception e)
+            {
+                // We are already processing an exception, so just ignore this
+            }
         }
     }
 
@@ -1745,7 +1988,14 @@ protected void receive13KeyUpdate(ByteArrayInputStream buf) throws IOException
         recordStream.notifyKeyUpdateReceived();
 
 //        this.keyUpdatePendingReceive &= updateRequested;
-        this.keyUpdatePendingSend |= updateRequested;
+        if (updateRequested)
+        {
+            // NOTE: The flag is read and cleared by the write path, see sendPendingKeyUpdate
+            synchronized (recordWriteLock)
+            {
+                this.keyUpdatePendingSend = true;
+            }
+        }
     }
 
     protected void sendCertificateMessage(Certificate certificate, OutputStream endPointHash)
@@ -1877,7 +2127,37 @@ protected void send13KeyUpdate(boolean updateRequested) throws IOException
         recordStream.notifyKeyUpdateSent();
 
 //        this.keyUpdatePendingReceive |= updateRequested;
-        this.keyUpdatePendingSend &= updateRequested;
+        synchronized (recordWriteLock)
+        {
+            this.keyUpdatePendingSend &= updateRequested;
+        }
+    }
+
+    private boolean isKeyUpdatePending()
+    {
+        synchronized (recordWriteLock)
+        {
+            return keyUpdateEnabled && (keyUpdatePendingSend || recordStream.needsKeyUpdate());
+        }
+    }
+
+    /*
+     * Send a KeyUpdate if the peer requested one or our own write keys are due to be updated. The check and the
+     * send are made under recordWriteLock so a KeyUpdate arriving on the read path can't be lost or sent twice.
+     */
+    private void sendPendingKeyUpdate() throws IOException
+    {
+        synchronized (recordWriteLock)
+        {
+            if (keyUpdatePendingSend)
+            {
+                send13KeyUpdate(false);
+            }
+            else if (recordStream.needsKeyUpdate())
+            {
+                send13KeyUpdate(true);
+            }
+        }
     }
 
     protected void sendSupplementalDataMessage(Vector supplementalData)
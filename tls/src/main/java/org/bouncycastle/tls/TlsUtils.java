@@ -7,6 +7,7 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Vector;
@@ -960,6 +961,48 @@ public static void readFully(byte[] buf, InputStream input)
         }
     }
 
+    /**
+     * Read exactly len bytes from a sequence of buffers into buf, advancing the position of each buffer past the
+     * bytes taken from it.
+     */
+    public static void readFully(ByteBuffer[] bufs, int bufsOff, int bufsLen, byte[] buf, int off, int len)
+        throws IOException
+    {
+        for (int i = 0; i < bufsLen && len > 0; ++i)
+        {
+            ByteBuffer src = bufs[bufsOff + i];
+            int count = Math.min(src.remaining(), len);
+            if (count > 0)
+            {
+                src.get(buf, off, count);
+                off += count;
+                len -= count;
+            }
+        }
+        if (len > 0)
+        {
+            throw new EOFException();
+        }
+    }
+
+    /**
+     * Return the total number of bytes remaining in a sequence of buffers, or limit if there are at least that many.
+     */
+    public static int getTotalRemaining(ByteBuffer[] bufs, int off, int len, int limit)
+    {
+        int result = 0;
+        for (int i = 0; i < len; ++i)
+        {
+            int next = bufs[off + i].remaining();
+            if (next >= (limit - result))
+            {
+                return limit;
+            }
+            result += next;
+        }
+        return result;
+    }
+
     public static byte[] readOpaque8(InputStream input)
         throws IOException
     {
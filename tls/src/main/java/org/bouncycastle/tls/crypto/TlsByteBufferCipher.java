@@ -0,0 +1,51 @@
+package org.bouncycastle.tls.crypto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.tls.ProtocolVersion;
+
+/**
+ * Optional interface for a TLS bulk cipher which can protect records held in {@link ByteBuffer}s directly. Ciphers
+ * which do not implement it have the data copied to and from byte arrays for them.
+ */
+public interface TlsByteBufferCipher
+    extends TlsCipher
+{
+    /**
+     * Encode plaintext gathered from a sequence of {@link ByteBuffer}s using the current bulk cipher, writing the
+     * record fragment (without the record header) directly to the output buffer. The buffers may be heap or direct
+     * buffers. The positions of the plaintext buffers are advanced past the plaintext consumed, and that of the
+     * output buffer past the fragment.
+     *
+     * @param seqNo sequence number of the message represented by plaintext.
+     * @param contentType content type of the message represented by plaintext.
+     * @param recordVersion {@link ProtocolVersion} used for the record.
+     * @param plaintext buffers holding input plaintext to the cipher.
+     * @param offset index of the first buffer holding plaintext.
+     * @param length number of buffers holding plaintext.
+     * @param plaintextLength total length of the plaintext to consume.
+     * @param output buffer to write the record fragment to, which must have at least
+     *            {@link #getCiphertextEncodeLimit(int)} bytes remaining.
+     * @return the record type to use for the record.
+     * @throws IOException
+     */
+    short encodePlaintext(long seqNo, short contentType, ProtocolVersion recordVersion, ByteBuffer[] plaintext,
+        int offset, int length, int plaintextLength, ByteBuffer output) throws IOException;
+
+    /**
+     * Decode ciphertext read from a {@link ByteBuffer} using the current bulk cipher. The buffer may be a heap or
+     * direct buffer; its contents are not modified and its position is advanced past the ciphertext. The result
+     * may refer to storage owned by the cipher, which is only valid until the next call to decode.
+     *
+     * @param seqNo sequence number of the message represented by ciphertext.
+     * @param recordType content type used in the record for this message.
+     * @param recordVersion {@link ProtocolVersion} used for the record.
+     * @param ciphertext buffer holding input ciphertext to the cipher at its position.
+     * @param len length of the ciphertext in the buffer.
+     * @return A {@link TlsDecodeResult} containing the result of decoding.
+     * @throws IOException
+     */
+    TlsDecodeResult decodeCiphertext(long seqNo, short recordType, ProtocolVersion recordVersion,
+        ByteBuffer ciphertext, int len) throws IOException;
+}
@@ -1,6 +1,8 @@
 package org.bouncycastle.tls.crypto.impl;
 
 import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 
 import org.bouncycastle.tls.AlertDescription;
 import org.bouncycastle.tls.ContentType;
@@ -8,7 +10,7 @@
 import org.bouncycastle.tls.SecurityParameters;
 import org.bouncycastle.tls.TlsFatalAlert;
 import org.bouncycastle.tls.TlsUtils;
-import org.bouncycastle.tls.crypto.TlsCipher;
+import org.bouncycastle.tls.crypto.TlsByteBufferCipher;
 import org.bouncycastle.tls.crypto.TlsCryptoParameters;
 import org.bouncycastle.tls.crypto.TlsCryptoUtils;
 import org.bouncycastle.tls.crypto.TlsDecodeResult;
@@ -20,7 +22,7 @@
  * A generic TLS 1.2 AEAD cipher.
  */
 public final class TlsAEADCipher
-    implements TlsCipher
+    implements TlsByteBufferCipher
 {
     public static final int AEAD_CCM = 1;
     public static final int AEAD_CHACHA20_POLY1305 = 2;
@@ -44,6 +46,9 @@
     private final boolean isTLSv13;
     private final int nonceMode;
 
+    // Scratch space for the ByteBuffer record paths; encoding and decoding may run on different threads
+    private byte[] encodeBuffer, decodeBuffer;
+
     public TlsAEADCipher(TlsCryptoParameters cryptoParams, TlsAEADCipherImpl encryptCipher, TlsAEADCipherImpl decryptCipher,
         int keySize, int macSize, int aeadType) throws IOException
     {
@@ -153,6 +158,155 @@ public int getPlaintextEncodeLimit(int ciphertextLimit)
 
     public TlsEncodeResult encodePlaintext(long seqNo, short contentType, ProtocolVersion recordVersion,
         int headerAllocation, byte[] plaintext, int plaintextOffset, int plaintextLength) throws IOException
+    {
+        byte[] nonce = createEncryptNonce(seqNo);
+
+        // TODO[tls13, cid] If we support adding padding to (D)TLSInnerPlaintext, this will need review
+        int innerPlaintextLength = plaintextLength + (encryptUseInnerPlaintext ? 1 : 0);
+
+        encryptCipher.init(nonce, macSize);
+
+        int encryptionLength = encryptCipher.getOutputSize(innerPlaintextLength);
+        int ciphertextLength = record_iv_length + encryptionLength;
+
+        byte[] output = new byte[headerAllocation + ciphertextLength];
+
+        System.arraycopy(plaintext, plaintextOffset, output, headerAllocation + record_iv_length, plaintextLength);
+
+        short recordType = implEncode(seqNo, contentType, recordVersion, nonce, plaintextLength, ciphertextLength,
+            output, headerAllocation);
+
+        return new TlsEncodeResult(output, 0, output.length, recordType);
+    }
+
+    public short encodePlaintext(long seqNo, short contentType, ProtocolVersion recordVersion,
+        ByteBuffer[] plaintext, int offset, int length, int plaintextLength, ByteBuffer output) throws IOException
+    {
+        byte[] nonce = createEncryptNonce(seqNo);
+
+        // TODO[tls13, cid] If we support adding padding to (D)TLSInnerPlaintext, this will need review
+        int innerPlaintextLength = plaintextLength + (encryptUseInnerPlaintext ? 1 : 0);
+
+        encryptCipher.init(nonce, macSize);
+
+        int encryptionLength = encryptCipher.getOutputSize(innerPlaintextLength);
+        int ciphertextLength = record_iv_length + encryptionLength;
+
+        if (output.remaining() < ciphertextLength)
+        {
+            throw new TlsFatalAlert(AlertDescription.internal_error);
+        }
+
+        /*
+         * For heap buffers the record is assembled and encrypted directly in the backing array; otherwise a
+         * scratch buffer owned by this cipher is used and copied out once.
+         */
+        boolean inPlace = output.hasArray();
+
+        byte[] buf;
+        int bufOff;
+        if (inPlace)
+        {
+            buf = output.array();
+            bufOff = output.arrayOffset() + output.position();
+        }
+        else
+        {
+            if (encodeBuffer == null || encodeBuffer.length < ciphertextLength)
+            {
+                encodeBuffer = new byte[ciphertextLength];
+            }
+            buf = encodeBuffer;
+            bufOff = 0;
+        }
+
+        TlsUtils.readFully(plaintext, offset, length, buf, bufOff + record_iv_length, plaintextLength);
+
+        short recordType = implEncode(seqNo, contentType, recordVersion, nonce, plaintextLength, ciphertextLength, buf,
+            bufOff);
+
+        if (inPlace)
+        {
+            ((Buffer)output).position(output.position() + ciphertextLength);
+        }
+        else
+        {
+            output.put(buf, 0, ciphertextLength);
+        }
+
+        return recordType;
+    }
+
+    public TlsDecodeResult decodeCiphertext(long seqNo, short recordType, ProtocolVersion recordVersion,
+        byte[] ciphertext, int ciphertextOffset, int ciphertextLength) throws IOException
+    {
+        if (getPlaintextDecodeLimit(ciphertextLength) < 0)
+        {
+            throw new TlsFatalAlert(AlertDescription.decode_error);
+        }
+
+        int encryptionOffset = ciphertextOffset + record_iv_length;
+
+        return implDecode(seqNo, recordType, recordVersion, ciphertext, ciphertextOffset, ciphertextLength,
+            ciphertext, encryptionOffset);
+    }
+
+    public TlsDecodeResult decodeCiphertext(long seqNo, short recordType, ProtocolVersion recordVersion,
+        ByteBuffer ciphertext, int ciphertextLength) throws IOException
+    {
+        if (getPlaintextDecodeLimit(ciphertextLength) < 0)
+        {
+            throw new TlsFatalAlert(AlertDescription.decode_error);
+        }
+
+        if (decodeBuffer == null || decodeBuffer.length < ciphertextLength)
+        {
+            decodeBuffer = new byte[ciphertextLength];
+        }
+
+        TlsDecodeResult result;
+        if (ciphertext.hasArray())
+        {
+            // Decrypt straight out of the caller's array; the input itself is left untouched
+            int ciphertextOffset = ciphertext.arrayOffset() + ciphertext.position();
+
+            result = implDecode(seqNo, recordType, recordVersion, ciphertext.array(), ciphertextOffset,
+                ciphertextLength, decodeBuffer, 0);
+
+            ((Buffer)ciphertext).position(ciphertext.position() + ciphertextLength);
+        }
+        else
+        {
+            ciphertext.get(decodeBuffer, 0, ciphertextLength);
+
+            result = implDecode(seqNo, recordType, recordVersion, decodeBuffer, 0, ciphertextLength, decodeBuffer,
+                record_iv_length);
+        }
+
+        return result;
+    }
+
+    public void rekeyDecoder() throws IOException
+    {
+        rekeyCipher(cryptoParams.getSecurityParametersConnection(), decryptCipher, decryptNonce, !cryptoParams.isServer());
+    }
+
+    public void rekeyEncoder() throws IOException
+    {
+        rekeyCipher(cryptoParams.getSecurityParametersConnection(), encryptCipher, encryptNonce, cryptoParams.isServer());
+    }
+
+    public boolean usesOpaqueRecordTypeDecode()
+    {
+        return decryptUseInnerPlaintext;
+    }
+
+    public boolean usesOpaqueRecordTypeEncode()
+    {
+        return encryptUseInnerPlaintext;
+    }
+
+    private byte[] createEncryptNonce(long seqNo) throws IOException
     {
         byte[] nonce = new byte[encryptNonce.length + record_iv_length];
 
@@ -174,16 +328,18 @@ public TlsEncodeResult encodePlaintext(long seqNo, short contentType, ProtocolVe
             throw new TlsFatalAlert(AlertDescription.internal_error);
         }
 
-        // TODO[tls13, cid] If we support adding padding to (D)TLSInnerPlaintext, this will need review
-        int innerPlaintextLength = plaintextLength + (encryptUseInnerPlaintext ? 1 : 0);
-
-        encryptCipher.init(nonce, macSize);
-
-        int encryptionLength = encryptCipher.getOutputSize(innerPlaintextLength);
-        int ciphertextLength = record_iv_length + encryptionLength;
+        return nonce;
+    }
 
-        byte[] output = new byte[headerAllocation + ciphertextLength];
-        int outputPos = headerAllocation;
+    /*
+     * Expects the plaintext to already be at output[outputOffset + record_iv_length]; writes the explicit nonce and
+     * any inner content type around it, then encrypts in place.
+     */
+    private short implEncode(long seqNo, short contentType, ProtocolVersion recordVersion, byte[] nonce,
+        int plaintextLength, int ciphertextLength, byte[] output, int outputOffset) throws IOException
+    {
+        int innerPlaintextLength = plaintextLength + (encryptUseInnerPlaintext ? 1 : 0);
+        int outputPos = outputOffset;
 
         if (record_iv_length != 0)
         {
@@ -202,7 +358,6 @@ public TlsEncodeResult encodePlaintext(long seqNo, short contentType, ProtocolVe
 
         try
         {
-            System.arraycopy(plaintext, plaintextOffset, output, outputPos, plaintextLength);
             if (encryptUseInnerPlaintext)
             {
                 output[outputPos + plaintextLength] = (byte)contentType;
@@ -216,23 +371,22 @@ public TlsEncodeResult encodePlaintext(long seqNo, short contentType, ProtocolVe
             throw new TlsFatalAlert(AlertDescription.internal_error, e);
         }
 
-        if (outputPos != output.length)
+        if (outputPos != outputOffset + ciphertextLength)
         {
             // NOTE: The additional data mechanism for AEAD ciphers requires exact output size prediction.
             throw new TlsFatalAlert(AlertDescription.internal_error);
         }
 
-        return new TlsEncodeResult(output, 0, output.length, recordType);
+        return recordType;
     }
 
-    public TlsDecodeResult decodeCiphertext(long seqNo, short recordType, ProtocolVersion recordVersion,
-        byte[] ciphertext, int ciphertextOffset, int ciphertextLength) throws IOException
+    /*
+     * Decrypts the record at ciphertext[ciphertextOffset] into output[outputOffset], which may be the encrypted
+     * content's own position (in-place) or a separate buffer.
+     */
+    private TlsDecodeResult implDecode(long seqNo, short recordType, ProtocolVersion recordVersion, byte[] ciphertext,
+        int ciphertextOffset, int ciphertextLength, byte[] output, int outputOffset) throws IOException
     {
-        if (getPlaintextDecodeLimit(ciphertextLength) < 0)
-        {
-            throw new TlsFatalAlert(AlertDescription.decode_error);
-        }
-
         byte[] nonce = new byte[decryptNonce.length + record_iv_length];
 
         switch (nonceMode)
@@ -265,7 +419,7 @@ public TlsDecodeResult decodeCiphertext(long seqNo, short recordType, ProtocolVe
         try
         {
             outputPos = decryptCipher.doFinal(additionalData, ciphertext, encryptionOffset, encryptionLength,
-                ciphertext, encryptionOffset);
+                output, outputOffset);
         }
         catch (RuntimeException e)
         {
@@ -291,7 +445,7 @@ public TlsDecodeResult decodeCiphertext(long seqNo, short recordType, ProtocolVe
                     throw new TlsFatalAlert(AlertDescription.unexpected_message);
                 }
 
-                byte octet = ciphertext[encryptionOffset + plaintextLength];
+                byte octet = output[outputOffset + plaintextLength];
                 if (0 != octet)
                 {
                     contentType = (short)(octet & 0xFF);
@@ -300,27 +454,7 @@ public TlsDecodeResult decodeCiphertext(long seqNo, short recordType, ProtocolVe
             }
         }
 
-        return new TlsDecodeResult(ciphertext, encryptionOffset, plaintextLength, contentType);
-    }
-
-    public void rekeyDecoder() throws IOException
-    {
-        rekeyCipher(cryptoParams.getSecurityParametersConnection(), decryptCipher, decryptNonce, !cryptoParams.isServer());
-    }
-
-    public void rekeyEncoder() throws IOException
-    {
-        rekeyCipher(cryptoParams.getSecurityParametersConnection(), encryptCipher, encryptNonce, cryptoParams.isServer());
-    }
-
-    public boolean usesOpaqueRecordTypeDecode()
-    {
-        return decryptUseInnerPlaintext;
-    }
-
-    public boolean usesOpaqueRecordTypeEncode()
-    {
-        return encryptUseInnerPlaintext;
+        return new TlsDecodeResult(output, outputOffset, plaintextLength, contentType);
     }
 
     private byte[] getAdditionalData(long seqNo, short recordType, ProtocolVersion recordVersion,
@@ -0,0 +1,303 @@
+package org.bouncycastle.jsse.provider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.net.ssl.SSLContext;
+
+import junit.framework.TestCase;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.tls.CipherSuite;
+import org.bouncycastle.tls.ProtocolVersion;
+import org.bouncycastle.tls.SessionID;
+import org.bouncycastle.tls.SessionParameters;
+import org.bouncycastle.tls.TlsUtils;
+import org.bouncycastle.util.Pack;
+
+/**
+ * Tests for the sharded session cache. The test is in the same package as ProvSSLSessionContext, as
+ * the cache is not visible outside it.
+ */
+public class ProvSSLSessionContextTest
+    extends TestCase
+{
+    private ContextData contextData;
+
+    protected void setUp()
+        throws Exception
+    {
+        SSLContext sslContext = SSLContext.getInstance("TLS", new BouncyCastleJsseProvider(new BouncyCastleProvider()));
+        sslContext.init(null, null, null);
+
+        this.contextData = ((ProvSSLSessionContext)sslContext.getClientSessionContext()).contextData;
+    }
+
+    public void testShardedLookup()
+    {
+        ProvSSLSessionContext context = new ProvSSLSessionContext(contextData, 4, 0);
+
+        ProvSSLSession[] sessions = new ProvSSLSession[100];
+        for (int i = 0; i != sessions.length; i++)
+        {
+            sessions[i] = report(context, i);
+        }
+
+        for (int i = 0; i != sessions.length; i++)
+        {
+            assertSame(sessions[i], context.getSessionImpl(sessionID(i)));
+            assertSame(sessions[i], context.getSessionImpl(peerHost(i), 443));
+        }
+
+        assertNull(context.getSessionImpl(sessionID(sessions.length)));
+        assertNull(context.getSessionImpl(peerHost(sessions.length), 443));
+        assertEquals(sessions.length, countIds(context));
+
+        // reporting a session already cached returns the existing one
+        ProvSSLSession session = sessions[0];
+        assertSame(session, context.reportSession(peerHost(0), 443, session.getTlsSession(),
+            session.getJsseSessionParameters(), true));
+        assertEquals(sessions.length, countIds(context));
+    }
+
+    public void testEviction()
+    {
+        ProvSSLSessionContext context = new ProvSSLSessionContext(contextData, 4, 0);
+        context.setSessionCacheSize(10);
+
+        for (int i = 0; i != 50; i++)
+        {
+            report(context, i);
+
+            assertTrue(countIds(context) <= 10);
+            assertNotNull(context.getSessionImpl(sessionID(i)));
+        }
+
+        assertEquals(10, countIds(context));
+
+        // lowering the limit removes sessions straight away
+        context.setSessionCacheSize(3);
+
+        assertEquals(3, countIds(context));
+        assertEquals(3, context.sessionCount.get());
+    }
+
+    public void testShardStatistics()
+        throws Exception
+    {
+        ProvSSLSessionContext context = new ProvSSLSessionContext(contextData, 4, 0);
+        context.setSessionCacheSize(10);
+
+        for (int i = 0; i != 20; i++)
+        {
+            report(context, i);
+        }
+
+        assertNotNull(context.getSessionImpl(sessionID(19)));
+        assertNotNull(context.getSessionImpl(peerHost(19), 443));
+        assertNull(context.getSessionImpl(sessionID(0)));
+
+        ProvSSLSessionContext.ShardStatistics[] statistics = context.getShardStatistics();
+        assertEquals(4, statistics.length);
+        assertEquals(10, sumSize(statistics));
+        assertEquals(2, sumHits(statistics));
+        assertEquals(1, sumMisses(statistics));
+        assertEquals(10, sumEvictions(statistics));
+        assertEquals(0, sumExpirations(statistics));
+
+        context.setSessionTimeout(1);
+        Thread.sleep(1100);
+        assertEquals(0, countIds(context));
+
+        statistics = context.getShardStatistics();
+        assertEquals(0, sumSize(statistics));
+        assertEquals(10, sumExpirations(statistics));
+    }
+
+    public void testTimeout()
+        throws Exception
+    {
+        ProvSSLSessionContext context = new ProvSSLSessionContext(contextData, 4, 0);
+        context.setSessionTimeout(1);
+
+        ProvSSLSession session = report(context, 0);
+        assertSame(session, context.getSessionImpl(sessionID(0)));
+
+        Thread.sleep(1100);
+
+        assertNull(context.getSessionImpl(sessionID(0)));
+        assertNull(context.getSessionImpl(peerHost(0), 443));
+        assertFalse(session.isValid());
+        assertEquals(0, context.sessionCount.get());
+    }
+
+    public void testSweeper()
+        throws Exception
+    {
+        ProvSSLSessionContext context = new ProvSSLSessionContext(contextData, 4, 1);
+        context.setSessionTimeout(1);
+
+        for (int i = 0; i != 10; i++)
+        {
+            report(context, i);
+        }
+
+        // expired sessions are removed without being looked up
+        for (int i = 0; i != 50 && context.sessionCount.get() > 0; i++)
+        {
+            Thread.sleep(100);
+        }
+
+        assertEquals(0, context.sessionCount.get());
+        assertTrue(context.sessionsByPeer.isEmpty());
+    }
+
+    public void testConcurrentInvalidation()
+        throws Exception
+    {
+        final ProvSSLSessionContext context = new ProvSSLSessionContext(contextData, 4, 0);
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        final int perThread = 200;
+
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t != threads.length; t++)
+        {
+            final int base = t * perThread;
+
+            threads[t] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for (int i = base; i != base + perThread; i++)
+                        {
+                            ProvSSLSession session = report(context, i);
+
+                            assertSame(session, context.getSessionImpl(sessionID(i)));
+
+                            // invalidate every other session, which removes it from the cache
+                            if ((i & 1) != 0)
+                            {
+                                session.invalidate();
+
+                                assertNull(context.getSessionImpl(sessionID(i)));
+                                assertNull(context.getSessionImpl(peerHost(i), 443));
+                            }
+                        }
+                    }
+                    catch (Throwable e)
+                    {
+                        failures.add(e);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t != threads.length; t++)
+        {
+            threads[t].join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+
+        Set<SessionID> expected = new HashSet<SessionID>();
+        for (int i = 0; i != threads.length * perThread; i += 2)
+        {
+            expected.add(new SessionID(sessionID(i)));
+        }
+
+        Set<SessionID> ids = new HashSet<SessionID>();
+        for (Enumeration<byte[]> en = context.getIds(); en.hasMoreElements();)
+        {
+            ids.add(new SessionID(en.nextElement()));
+        }
+
+        assertEquals(expected, ids);
+        assertEquals(expected.size(), context.sessionCount.get());
+        assertEquals(expected.size(), context.sessionsByPeer.size());
+    }
+
+    private static int sumSize(ProvSSLSessionContext.ShardStatistics[] statistics)
+    {
+        int sum = 0;
+        for (int i = 0; i != statistics.length; i++)
+        {
+            sum += statistics[i].getSize();
+        }
+        return sum;
+    }
+
+    private static long sumHits(ProvSSLSessionContext.ShardStatistics[] statistics)
+    {
+        long sum = 0;
+        for (int i = 0; i != statistics.length; i++)
+        {
+            sum += statistics[i].getHits();
+        }
+        return sum;
+    }
+
+    private static long sumMisses(ProvSSLSessionContext.ShardStatistics[] statistics)
+    {
+        long sum = 0;
+        for (int i = 0; i != statistics.length; i++)
+        {
+            sum += statistics[i].getMisses();
+        }
+        return sum;
+    }
+
+    private static long sumEvictions(ProvSSLSessionContext.ShardStatistics[] statistics)
+    {
+        long sum = 0;
+        for (int i = 0; i != statistics.length; i++)
+        {
+            sum += statistics[i].getEvictions();
+        }
+        return sum;
+    }
+
+    private static long sumExpirations(ProvSSLSessionContext.ShardStatistics[] statistics)
+    {
+        long sum = 0;
+        for (int i = 0; i != statistics.length; i++)
+        {
+            sum += statistics[i].getExpirations();
+        }
+        return sum;
+    }
+
+    private static ProvSSLSession report(ProvSSLSessionContext context, int index)
+    {
+        // only a resumable session is valid
+        SessionParameters sessionParameters = new SessionParameters.Builder()
+            .setCipherSuite(CipherSuite.TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256)
+            .setMasterSecret(context.getCrypto().createSecret(new byte[48]))
+            .setNegotiatedVersion(ProtocolVersion.TLSv12)
+            .build();
+
+        return context.reportSession(peerHost(index), 443, TlsUtils.importSession(sessionID(index), sessionParameters),
+            new JsseSessionParameters(null, null), true);
+    }
+
+    private static int countIds(ProvSSLSessionContext context)
+    {
+        return Collections.list(context.getIds()).size();
+    }
+
+    private static String peerHost(int index)
+    {
+        return "host" + index + ".example.com";
+    }
+
+    private static byte[] sessionID(int index)
+    {
+        byte[] id = new byte[32];
+        Pack.intToBigEndian(index, id, 0);
+        return id;
+    }
+}
@@ -4,6 +4,7 @@
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
+import org.bouncycastle.jsse.provider.ProvSSLSessionContextTest;
 import org.bouncycastle.test.PrintTestResult;
 
 public class AllTests
@@ -28,7 +29,9 @@ public static Test suite()
         suite.addTestSuite(InstanceTest.class);
         suite.addTestSuite(KeyManagerFactoryTest.class);
         suite.addTestSuite(PSSCredentialsTest.class);
+        suite.addTestSuite(ProvSSLSessionContextTest.class);
         suite.addTestSuite(SSLServerSocketTest.class);
+        suite.addTestSuite(SSLEngineTest.class);
         suite.addTestSuite(SSLSocketTest.class);
 
         if (hasClass("javax.net.ssl.CertPathTrustManagerParameters"))
@@ -65,11 +65,12 @@ protected void runTest() throws Throwable
             return;
         }
 
-        runTestConnection();
-        runTestConnection();
+        runTestConnection(false);
+        // Direct buffers exercise the non-array record protection path
+        runTestConnection(true);
     }
 
-    private void runTestConnection() throws Throwable
+    private void runTestConnection(boolean direct) throws Throwable
     {
         SSLContext clientContext = createSSLContextClient();
         SSLContext serverContext = createSSLContextServer();
@@ -94,14 +95,14 @@ private void runTestConnection() throws Throwable
         final int clientNetBufSize = clientSession.getPacketBufferSize();
         final int serverNetBufSize = serverSession.getPacketBufferSize();
 
-        ByteBuffer clientIn = ByteBuffer.allocate(clientAppBufSize + 64);
-        ByteBuffer serverIn = ByteBuffer.allocate(serverAppBufSize + 64);
+        ByteBuffer clientIn = allocate(clientAppBufSize + 64, direct);
+        ByteBuffer serverIn = allocate(serverAppBufSize + 64, direct);
 
-        ByteBuffer clientToServer = ByteBuffer.allocate(clientNetBufSize);
-        ByteBuffer serverToClient = ByteBuffer.allocate(serverNetBufSize);
+        ByteBuffer clientToServer = allocate(clientNetBufSize, direct);
+        ByteBuffer serverToClient = allocate(serverNetBufSize, direct);
 
-        ByteBuffer clientOut = ByteBuffer.wrap(Strings.toUTF8ByteArray("Dear Prudence, won't you come out to play?"));
-        ByteBuffer serverOut = ByteBuffer.wrap(Strings.toUTF8ByteArray("Impudence! I won't come out to today."));
+        ByteBuffer clientOut = wrap(Strings.toUTF8ByteArray("Dear Prudence, won't you come out to play?"), direct);
+        ByteBuffer serverOut = wrap(Strings.toUTF8ByteArray("Impudence! I won't come out to today."), direct);
 
         SSLEngineResult clientResult;
         SSLEngineResult serverResult;
@@ -150,6 +151,24 @@ private void runTestConnection() throws Throwable
         TestCase.assertTrue(Arrays.areEqual(clientTlsUnique, serverTlsUnique));
     }
 
+    private static ByteBuffer allocate(int capacity, boolean direct)
+    {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private static ByteBuffer wrap(byte[] data, boolean direct)
+    {
+        if (!direct)
+        {
+            return ByteBuffer.wrap(data);
+        }
+
+        ByteBuffer buf = ByteBuffer.allocateDirect(data.length);
+        buf.put(data);
+        ((java.nio.Buffer)buf).flip();
+        return buf;
+    }
+
     private static void checkData(ByteBuffer a, ByteBuffer b) throws Exception
     {
         ((java.nio.Buffer)a).flip();
@@ -0,0 +1,291 @@
+package org.bouncycastle.jsse.provider.test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.TrustManagerFactory;
+
+import junit.framework.TestCase;
+import org.bouncycastle.util.Arrays;
+
+public class SSLEngineTest
+    extends TestCase
+{
+    private static final byte[] END_OF_DATA = new byte[0];
+    private static final Random RANDOM = new Random();
+
+    protected void setUp()
+    {
+        ProviderUtils.setupLowPriority(false);
+    }
+
+    public void testMultiRecordWrap()
+        throws Exception
+    {
+        SSLEngine[] engines = createConnectedEngines();
+        SSLEngine client = engines[0], server = engines[1];
+
+        int appBufSize = client.getSession().getApplicationBufferSize();
+        int netBufSize = client.getSession().getPacketBufferSize();
+
+        byte[] data = new byte[4 * appBufSize];
+        RANDOM.nextBytes(data);
+
+        ByteBuffer src = ByteBuffer.wrap(data);
+        ByteBuffer net = ByteBuffer.allocate(8 * netBufSize);
+
+        SSLEngineResult result = client.wrap(src, net);
+        assertEquals(SSLEngineResult.Status.OK, result.getStatus());
+        assertEquals(data.length, result.bytesConsumed());
+        assertFalse(src.hasRemaining());
+
+        ((java.nio.Buffer)net).flip();
+
+        ByteBuffer app = ByteBuffer.allocate(data.length + appBufSize);
+        while (net.hasRemaining())
+        {
+            result = server.unwrap(net, app);
+            assertEquals(SSLEngineResult.Status.OK, result.getStatus());
+        }
+
+        assertTrue(Arrays.areEqual(data, Arrays.copyOf(app.array(), app.position())));
+    }
+
+    public void testFullDuplex()
+        throws Exception
+    {
+        SSLEngine[] engines = createConnectedEngines();
+        SSLEngine client = engines[0], server = engines[1];
+
+        byte[] clientData = new byte[1 << 20];
+        byte[] serverData = new byte[1 << 20];
+        RANDOM.nextBytes(clientData);
+        RANDOM.nextBytes(serverData);
+
+        BlockingQueue<byte[]> clientToServer = new LinkedBlockingQueue<byte[]>();
+        BlockingQueue<byte[]> serverToClient = new LinkedBlockingQueue<byte[]>();
+
+        ByteArrayOutputStream serverReceived = new ByteArrayOutputStream();
+        ByteArrayOutputStream clientReceived = new ByteArrayOutputStream();
+
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        Thread[] threads = new Thread[]{
+            new Thread(new Writer(client, clientData, clientToServer, failures)),
+            new Thread(new Writer(server, serverData, serverToClient, failures)),
+            new Thread(new Reader(server, clientToServer, serverReceived, failures)),
+            new Thread(new Reader(client, serverToClient, clientReceived, failures)) };
+
+        for (int i = 0; i < threads.length; ++i)
+        {
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; ++i)
+        {
+            threads[i].join(60000);
+            assertFalse(threads[i].isAlive());
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertTrue(Arrays.areEqual(clientData, serverReceived.toByteArray()));
+        assertTrue(Arrays.areEqual(serverData, clientReceived.toByteArray()));
+    }
+
+    private static class Writer
+        implements Runnable
+    {
+        private final SSLEngine engine;
+        private final byte[] data;
+        private final BlockingQueue<byte[]> output;
+        private final List<Throwable> failures;
+
+        Writer(SSLEngine engine, byte[] data, BlockingQueue<byte[]> output, List<Throwable> failures)
+        {
+            this.engine = engine;
+            this.data = data;
+            this.output = output;
+            this.failures = failures;
+        }
+
+        public void run()
+        {
+            try
+            {
+                ByteBuffer src = ByteBuffer.wrap(data);
+                ByteBuffer net = ByteBuffer.allocate(3 * engine.getSession().getPacketBufferSize());
+
+                while (src.hasRemaining())
+                {
+                    // Vary the amount offered per call so that partial records are exercised too
+                    int chunk = Math.min(src.remaining(), 1 + RANDOM.nextInt(50000));
+                    ByteBuffer slice = src.duplicate();
+                    ((java.nio.Buffer)slice).limit(slice.position() + chunk);
+
+                    SSLEngineResult result = engine.wrap(slice, net);
+                    assertEquals(SSLEngineResult.Status.OK, result.getStatus());
+                    ((java.nio.Buffer)src).position(src.position() + result.bytesConsumed());
+
+                    ((java.nio.Buffer)net).flip();
+                    byte[] record = new byte[net.remaining()];
+                    net.get(record);
+                    ((java.nio.Buffer)net).clear();
+
+                    output.put(record);
+                }
+            }
+            catch (Throwable t)
+            {
+                failures.add(t);
+            }
+            finally
+            {
+                output.add(END_OF_DATA);
+            }
+        }
+    }
+
+    private static class Reader
+        implements Runnable
+    {
+        private final SSLEngine engine;
+        private final BlockingQueue<byte[]> input;
+        private final ByteArrayOutputStream received;
+        private final List<Throwable> failures;
+
+        Reader(SSLEngine engine, BlockingQueue<byte[]> input, ByteArrayOutputStream received,
+            List<Throwable> failures)
+        {
+            this.engine = engine;
+            this.input = input;
+            this.received = received;
+            this.failures = failures;
+        }
+
+        public void run()
+        {
+            try
+            {
+                ByteBuffer app = ByteBuffer.allocate(engine.getSession().getApplicationBufferSize());
+
+                byte[] next;
+                while ((next = input.take()) != END_OF_DATA)
+                {
+                    ByteBuffer net = ByteBuffer.wrap(next);
+                    while (net.hasRemaining())
+                    {
+                        SSLEngineResult result = engine.unwrap(net, app);
+                        assertEquals(SSLEngineResult.Status.OK, result.getStatus());
+
+                        ((java.nio.Buffer)app).flip();
+                        received.write(app.array(), 0, app.limit());
+                        ((java.nio.Buffer)app).clear();
+                    }
+                }
+            }
+            catch (Throwable t)
+            {
+                failures.add(t);
+            }
+        }
+    }
+
+    private static SSLEngine[] createConnectedEngines()
+        throws Exception
+    {
+        char[] keyPass = "keyPassword".toCharArray();
+
+        KeyPair caKeyPair = TestUtils.generateECKeyPair();
+
+        X509Certificate caCert = TestUtils.generateRootCert(caKeyPair);
+
+        KeyStore ks = KeyStore.getInstance("JKS");
+        ks.load(null, null);
+        ks.setKeyEntry("server", caKeyPair.getPrivate(), keyPass, new X509Certificate[]{ caCert });
+
+        KeyStore ts = KeyStore.getInstance("JKS");
+        ts.load(null, null);
+        ts.setCertificateEntry("ca", caCert);
+
+        KeyManagerFactory keyMgrFact = KeyManagerFactory.getInstance("PKIX", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        keyMgrFact.init(ks, keyPass);
+
+        SSLContext serverContext = SSLContext.getInstance("TLS", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        serverContext.init(keyMgrFact.getKeyManagers(), null,
+            SecureRandom.getInstance("DEFAULT", ProviderUtils.PROVIDER_NAME_BC));
+
+        TrustManagerFactory trustMgrFact = TrustManagerFactory.getInstance("PKIX", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        trustMgrFact.init(ts);
+
+        SSLContext clientContext = SSLContext.getInstance("TLS", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        clientContext.init(null, trustMgrFact.getTrustManagers(),
+            SecureRandom.getInstance("DEFAULT", ProviderUtils.PROVIDER_NAME_BC));
+
+        SSLEngine client = clientContext.createSSLEngine();
+        client.setUseClientMode(true);
+
+        SSLEngine server = serverContext.createSSLEngine();
+        server.setUseClientMode(false);
+
+        doHandshake(client, server);
+
+        return new SSLEngine[]{ client, server };
+    }
+
+    private static void doHandshake(SSLEngine client, SSLEngine server)
+        throws Exception
+    {
+        ByteBuffer empty = ByteBuffer.allocate(0);
+
+        ByteBuffer clientIn = ByteBuffer.allocate(client.getSession().getApplicationBufferSize());
+        ByteBuffer serverIn = ByteBuffer.allocate(server.getSession().getApplicationBufferSize());
+
+        ByteBuffer clientToServer = ByteBuffer.allocate(client.getSession().getPacketBufferSize());
+        ByteBuffer serverToClient = ByteBuffer.allocate(server.getSession().getPacketBufferSize());
+
+        client.beginHandshake();
+        server.beginHandshake();
+
+        for (int i = 0; i < 100; ++i)
+        {
+            if (!isHandshaking(client) && !isHandshaking(server)
+                && clientToServer.position() == 0 && serverToClient.position() == 0)
+            {
+                return;
+            }
+
+            client.wrap(empty, clientToServer);
+            server.wrap(empty, serverToClient);
+
+            ((java.nio.Buffer)clientToServer).flip();
+            ((java.nio.Buffer)serverToClient).flip();
+
+            client.unwrap(serverToClient, clientIn);
+            server.unwrap(clientToServer, serverIn);
+
+            clientToServer.compact();
+            serverToClient.compact();
+        }
+
+        fail("handshake did not complete");
+    }
+
+    private static boolean isHandshaking(SSLEngine engine)
+    {
+        return engine.getHandshakeStatus() != HandshakeStatus.NOT_HANDSHAKING;
+    }
+}
@@ -1,6 +1,10 @@
 package org.bouncycastle.tls.test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import org.bouncycastle.tls.TlsClientProtocol;
 import org.bouncycastle.tls.TlsProtocol;
@@ -58,6 +62,120 @@ private static void testClientServer(boolean fragment) throws IOException
         checkClosed(clientProtocol);
     }
 
+    public void testKeyUpdateDuringConcurrentWrite() throws Exception
+    {
+        KeyUpdateClientProtocol clientProtocol = new KeyUpdateClientProtocol();
+        final TlsServerProtocol serverProtocol = new TlsServerProtocol();
+
+        MockTlsClient client = new MockTlsClient(null);
+        MockTlsServer server = new MockTlsServer();
+
+        clientProtocol.connect(client);
+        serverProtocol.accept(server);
+
+        boolean hadDataFromServer = true;
+        boolean hadDataFromClient = true;
+        while (hadDataFromServer || hadDataFromClient)
+        {
+            hadDataFromServer = pumpData(serverProtocol, clientProtocol, false);
+            hadDataFromClient = pumpData(clientProtocol, serverProtocol, false);
+        }
+
+        final byte[] serverData = new byte[1 << 20];
+        byte[] clientData = new byte[1 << 16];
+        client.getCrypto().getSecureRandom().nextBytes(serverData);
+        client.getCrypto().getSecureRandom().nextBytes(clientData);
+
+        final BlockingQueue<byte[]> serverOutput = new LinkedBlockingQueue<byte[]>();
+        final BlockingQueue<byte[]> serverInput = new LinkedBlockingQueue<byte[]>();
+        final Exception[] failure = new Exception[2];
+
+        // the server wraps application data on one thread while it unwraps KeyUpdate requests on another
+        Thread writer = new Thread()
+        {
+            public void run()
+            {
+                try
+                {
+                    ByteBuffer dst = ByteBuffer.allocate(1 << 16);
+                    for (int off = 0; off < serverData.length; off += 1000)
+                    {
+                        ByteBuffer src = ByteBuffer.wrap(serverData, off, Math.min(1000, serverData.length - off));
+                        while (src.hasRemaining())
+                        {
+                            serverProtocol.writeApplicationRecords(new ByteBuffer[]{ src }, 0, 1, dst);
+
+                            ((java.nio.Buffer)dst).flip();
+                            byte[] records = new byte[dst.remaining()];
+                            dst.get(records);
+                            ((java.nio.Buffer)dst).clear();
+
+                            serverOutput.add(records);
+                        }
+                    }
+                }
+                catch (Exception e)
+                {
+                    failure[0] = e;
+                }
+            }
+        };
+        Thread reader = new Thread()
+        {
+            public void run()
+            {
+                try
+                {
+                    byte[] next;
+                    while ((next = serverInput.take()).length > 0)
+                    {
+                        serverProtocol.offerInput(next);
+                    }
+                }
+                catch (Exception e)
+                {
+                    failure[1] = e;
+                }
+            }
+        };
+
+        writer.start();
+        reader.start();
+
+        for (int off = 0; off < clientData.length; off += 1024)
+        {
+            clientProtocol.writeApplicationData(clientData, off, 1024);
+            clientProtocol.requestKeyUpdate();
+
+            byte[] records = new byte[clientProtocol.getAvailableOutputBytes()];
+            clientProtocol.readOutput(records, 0, records.length);
+            serverInput.add(records);
+        }
+        serverInput.add(new byte[0]);
+
+        writer.join(60000);
+        reader.join(60000);
+        assertFalse(writer.isAlive() || reader.isAlive());
+        assertNull(failure[0]);
+        assertNull(failure[1]);
+
+        // every KeyUpdate the server sent in response must sit between the right records for the client to follow
+        ByteArrayOutputStream clientReceived = new ByteArrayOutputStream();
+        while (!serverOutput.isEmpty())
+        {
+            clientProtocol.offerInput(serverOutput.take());
+
+            byte[] data = new byte[clientProtocol.getAvailableInputBytes()];
+            clientProtocol.readInput(data, 0, data.length);
+            clientReceived.write(data);
+        }
+        assertArrayEquals(serverData, clientReceived.toByteArray());
+
+        byte[] serverReceived = new byte[serverProtocol.getAvailableInputBytes()];
+        serverProtocol.readInput(serverReceived, 0, serverReceived.length);
+        assertArrayEquals(clientData, serverReceived);
+    }
+
     private static void writeAndRead(TlsProtocol writer, TlsProtocol reader, byte[] data, boolean fragment)
         throws IOException
     {
@@ -125,4 +243,13 @@ private static void assertArrayEquals(byte[] a, byte[] b)
     {
         assertTrue(Arrays.areEqual(a, b));
     }
+
+    private static class KeyUpdateClientProtocol
+        extends TlsClientProtocol
+    {
+        void requestKeyUpdate() throws IOException
+        {
+            send13KeyUpdate(true);
+        }
+    }
 }